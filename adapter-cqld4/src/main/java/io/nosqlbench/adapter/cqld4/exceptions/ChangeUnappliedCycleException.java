@@ -17,6 +17,7 @@
 package io.nosqlbench.adapter.cqld4.exceptions;
 
 
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 
 /**
@@ -28,16 +29,35 @@ import com.datastax.oss.driver.api.core.cql.ResultSet;
 public class ChangeUnappliedCycleException extends CqlGenericCycleException {
 
     private final ResultSet resultSet;
+    private final AsyncResultSet asyncResultSet;
     private final String queryString;
 
     public ChangeUnappliedCycleException(ResultSet resultSet, String queryString) {
         super("Operation was not applied:" + queryString);
         this.resultSet = resultSet;
+        this.asyncResultSet = null;
         this.queryString = queryString;
     }
 
+    public ChangeUnappliedCycleException(AsyncResultSet asyncResultSet, String queryString) {
+        super("Operation was not applied:" + queryString);
+        this.resultSet = null;
+        this.asyncResultSet = asyncResultSet;
+        this.queryString = queryString;
+    }
+
+    /**
+     * @return the result set of a synchronous op, or null if the op was executed asynchronously
+     */
     public ResultSet getResultSet() {
         return resultSet;
     }
+
+    /**
+     * @return the result set of an asynchronous op, or null if the op was executed synchronously
+     */
+    public AsyncResultSet getAsyncResultSet() {
+        return asyncResultSet;
+    }
     public String getQueryString() { return queryString; }
 }
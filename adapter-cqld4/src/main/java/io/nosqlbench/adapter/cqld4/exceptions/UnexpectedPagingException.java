@@ -16,6 +16,7 @@
 
 package io.nosqlbench.adapter.cqld4.exceptions;
 
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 
 /**
@@ -36,6 +37,7 @@ import com.datastax.oss.driver.api.core.cql.ResultSet;
 public class UnexpectedPagingException extends RuntimeException {
 
     private final ResultSet resultSet;
+    private final AsyncResultSet asyncResultSet;
     private final String queryString;
     private final int fetchSize;
     private final int fetchedPages;
@@ -48,16 +50,41 @@ public class UnexpectedPagingException extends RuntimeException {
             int maxpages,
             int fetchSize) {
         this.resultSet = resultSet;
+        this.asyncResultSet = null;
         this.queryString = queryString;
         this.fetchedPages = fetchedPages;
         this.maxpages = maxpages;
         this.fetchSize = fetchSize;
     }
 
+    public UnexpectedPagingException(
+            AsyncResultSet asyncResultSet,
+            String queryString,
+            int fetchedPages,
+            int maxpages,
+            int fetchSize) {
+        this.resultSet = null;
+        this.asyncResultSet = asyncResultSet;
+        this.queryString = queryString;
+        this.fetchedPages = fetchedPages;
+        this.maxpages = maxpages;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return the result set of a synchronous op, or null if the op was executed asynchronously
+     */
     public ResultSet getResultSet() {
         return resultSet;
     }
 
+    /**
+     * @return the result set of an asynchronous op, or null if the op was executed synchronously
+     */
+    public AsyncResultSet getAsyncResultSet() {
+        return asyncResultSet;
+    }
+
     public String getMessage() {
         StringBuilder sb = new StringBuilder();
         sb.append("Additional paging would be required to read the results from this query fully" +
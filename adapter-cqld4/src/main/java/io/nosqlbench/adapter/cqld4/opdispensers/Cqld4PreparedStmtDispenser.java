@@ -17,12 +17,16 @@
 package io.nosqlbench.adapter.cqld4.opdispensers;
 
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import io.nosqlbench.adapter.cqld4.RSProcessors;
+import io.nosqlbench.adapter.cqld4.optypes.Cqld4CqlBatchStatement;
 import io.nosqlbench.adapter.cqld4.optypes.Cqld4CqlOp;
 import io.nosqlbench.adapter.cqld4.optypes.Cqld4CqlPreparedStatement;
+import io.nosqlbench.engine.api.activityimpl.BatchOpDispenser;
 import io.nosqlbench.engine.api.activityimpl.uniform.DriverAdapter;
 import io.nosqlbench.engine.api.templating.ParsedOp;
 import io.nosqlbench.virtdata.core.templates.ParsedStringTemplate;
@@ -31,7 +35,13 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.function.LongFunction;
 
-public class Cqld4PreparedStmtDispenser extends BaseCqlStmtDispenser {
+/**
+ * With {@code batch: true}, the statements of all the cycles in a stride are sent as one
+ * unlogged batch. The consistency levels and idempotence of the batch are those of the
+ * statement for the first cycle. The result set processors of the op are applied to the
+ * result of the batch.
+ */
+public class Cqld4PreparedStmtDispenser extends BaseCqlStmtDispenser implements BatchOpDispenser<Cqld4CqlOp> {
     private final static Logger logger = LogManager.getLogger(Cqld4PreparedStmtDispenser.class);
 
     private final RSProcessors processors;
@@ -40,6 +50,7 @@ public class Cqld4PreparedStmtDispenser extends BaseCqlStmtDispenser {
     private final LongFunction<Object[]> fieldsF;
     private PreparedStatement preparedStmt;
     private CqlSession boundSession;
+    private final boolean batching;
 
     public Cqld4PreparedStmtDispenser(
         DriverAdapter adapter, LongFunction<CqlSession> sessionFunc, ParsedOp op, ParsedStringTemplate stmtTpl, RSProcessors processors) {
@@ -52,6 +63,7 @@ public class Cqld4PreparedStmtDispenser extends BaseCqlStmtDispenser {
         this.stmtTpl = stmtTpl;
         this.fieldsF = getFieldsFunction(op);
         stmtFunc = createStmtFunc(fieldsF, op);
+        this.batching = op.getStaticConfigOr("batch", false);
     }
 
     private LongFunction<Object[]> getFieldsFunction(ParsedOp op) {
@@ -73,6 +85,24 @@ public class Cqld4PreparedStmtDispenser extends BaseCqlStmtDispenser {
         return super.getEnhancedStmtFunc(boundStmtFunc, op);
     }
 
+    @Override
+    public boolean isBatching() {
+        return batching;
+    }
+
+    @Override
+    public Cqld4CqlOp applyBatch(long[] cycles) {
+        BoundStatement[] statements = new BoundStatement[cycles.length];
+        for (int i = 0; i < cycles.length; i++) {
+            statements[i] = (BoundStatement) stmtFunc.apply(cycles[i]);
+        }
+        BatchStatement batch = BatchStatement.newInstance(DefaultBatchType.UNLOGGED, statements)
+            .setConsistencyLevel(statements[0].getConsistencyLevel())
+            .setSerialConsistencyLevel(statements[0].getSerialConsistencyLevel())
+            .setIdempotent(statements[0].isIdempotent());
+        return new Cqld4CqlBatchStatement(boundSession, batch, getMaxPages(), isRetryReplace(), processors);
+    }
+
     @Override
     public Cqld4CqlOp apply(long cycle) {
 
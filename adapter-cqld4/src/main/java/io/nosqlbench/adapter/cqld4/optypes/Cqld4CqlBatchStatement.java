@@ -25,7 +25,11 @@ public class Cqld4CqlBatchStatement extends Cqld4CqlOp {
     private final BatchStatement stmt;
 
     public Cqld4CqlBatchStatement(CqlSession session, BatchStatement stmt, int maxpages, boolean retryreplace) {
-        super(session,maxpages,retryreplace,new RSProcessors());
+        this(session,stmt,maxpages,retryreplace,new RSProcessors());
+    }
+
+    public Cqld4CqlBatchStatement(CqlSession session, BatchStatement stmt, int maxpages, boolean retryreplace, RSProcessors processors) {
+        super(session,maxpages,retryreplace,processors);
         this.stmt = stmt;
     }
 
@@ -17,6 +17,7 @@
 package io.nosqlbench.adapter.cqld4.optypes;
 
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
@@ -29,6 +30,8 @@ import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.*;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 
 // TODO: add statement filtering
@@ -44,7 +47,14 @@ import java.util.Map;
 // TODO: add rows histogram resultSetSizeHisto
 
 
-public abstract class Cqld4CqlOp implements CycleOp<ResultSet>, VariableCapture, OpGenerator, OpResultSize {
+/**
+ * A CQL statement op. Without the async activity parameter, {@link #apply(long)} executes the
+ * statement and reads every page on the calling thread. With it, {@link #applyAsync(long)}
+ * uses {@link CqlSession#executeAsync} and reads the pages as they arrive, with the same
+ * applied and paging checks. Result set processors work on a {@link ResultSet}, so ops which
+ * have them are always executed with {@link #apply(long)}.
+ */
+public abstract class Cqld4CqlOp implements CycleOp<ResultSet>, AsyncCycleOp<AsyncResultSet>, VariableCapture, OpGenerator, OpResultSize {
 
     private final CqlSession session;
     private final int maxpages;
@@ -101,6 +111,36 @@ public abstract class Cqld4CqlOp implements CycleOp<ResultSet>, VariableCapture,
         return rs;
     }
 
+    @Override
+    public CompletionStage<AsyncResultSet> applyAsync(long cycle) {
+        if (!processors.getProcessors().isEmpty()) {
+            try {
+                apply(cycle);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        Statement<?> stmt = getStmt();
+        return session.executeAsync(stmt).thenCompose(ars -> readAsync(stmt, ars, 0));
+    }
+
+    private CompletionStage<AsyncResultSet> readAsync(Statement<?> stmt, AsyncResultSet ars, int pages) {
+        if (pages == 0 && !ars.wasApplied()) {
+            if (!retryreplace) {
+                throw new ChangeUnappliedCycleException(ars, getQueryString());
+            }
+            nextOp = this.rebindLwt(stmt, ars.one());
+        }
+        if (pages > maxpages) {
+            throw new UnexpectedPagingException(ars, getQueryString(), pages + 1, maxpages, stmt.getPageSize());
+        }
+        if (!ars.hasMorePages()) {
+            return CompletableFuture.completedFuture(ars);
+        }
+        return ars.fetchNextPage().thenCompose(next -> readAsync(stmt, next, pages + 1));
+    }
+
     @Override
     public Op getNextOp() {
         Op next = nextOp;
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.diag;
+
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleSegment;
+import io.nosqlbench.engine.api.activityapi.planning.OpSequence;
+import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+import io.nosqlbench.engine.api.activityimpl.OpDispenser;
+import io.nosqlbench.engine.api.activityimpl.input.AtomicInput;
+import io.nosqlbench.engine.api.activityimpl.uniform.StandardAction;
+import io.nosqlbench.engine.api.activityimpl.uniform.StandardActivity;
+import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.CycleOp;
+import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.Op;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the per-cycle cost of the synchronous motor path, as done by CoreMotor with
+ * stride=1: taking a segment from {@link AtomicInput}, and running each of its cycles through
+ * {@link StandardAction} with the diag adapter's noop op.</p>
+ *
+ * <p>Run the main method of this class to see the result with the GC profiler. The
+ * <em>gc.alloc.rate.norm</em> figure is the number of bytes allocated per cycle. The
+ * {@link #bindAndRunOp()} baseline binds and runs the same op without the action, so the
+ * difference between the two is what the input and the action allocate, which should be zero.</p>
+ */
+@State(Scope.Thread)
+public class StandardActionAllocationBenchmark {
+
+    private StandardAction<?, ?> action;
+    private OpSequence<OpDispenser<? extends Op>> sequence;
+    private AtomicInput input;
+    private CycleSegment segment;
+    private long cycle;
+
+    @Setup
+    public void setup() {
+        ActivityDef def = ActivityDef.parseActivityDef("driver=diag; op=noop; alias=allocbench; cycles=1000000000000");
+        StandardActivity<?, ?> activity = new StandardActivity<>(def);
+        activity.initActivity();
+        this.action = new StandardAction<>(activity, 0);
+        this.sequence = activity.getOpSequence();
+        this.input = new AtomicInput(def);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Fork(1)
+    public int runCycle() {
+        segment = input.getInputSegment(1, segment);
+        return action.runCycle(segment.nextCycle());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Fork(1)
+    public Object bindAndRunOp() {
+        long value = cycle++;
+        return ((CycleOp<?>) sequence.apply(value).apply(value)).apply(value);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(StandardActionAllocationBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
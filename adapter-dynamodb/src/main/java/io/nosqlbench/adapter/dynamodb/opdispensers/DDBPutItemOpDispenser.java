@@ -18,9 +18,11 @@ package io.nosqlbench.adapter.dynamodb.opdispensers;
 
 import com.amazonaws.services.dynamodbv2.document.DynamoDB;
 import com.amazonaws.services.dynamodbv2.document.Item;
+import io.nosqlbench.adapter.dynamodb.optypes.DDBBatchPutItemOp;
 import io.nosqlbench.adapter.dynamodb.optypes.DDBPutItemOp;
 import io.nosqlbench.adapter.dynamodb.optypes.DynamoDBOp;
 import io.nosqlbench.engine.api.activityimpl.BaseOpDispenser;
+import io.nosqlbench.engine.api.activityimpl.BatchOpDispenser;
 import io.nosqlbench.engine.api.activityimpl.uniform.DriverAdapter;
 import io.nosqlbench.engine.api.templating.ParsedOp;
 import io.nosqlbench.nb.api.errors.OpConfigError;
@@ -28,11 +30,16 @@ import io.nosqlbench.nb.api.errors.OpConfigError;
 import java.util.Map;
 import java.util.function.LongFunction;
 
-public class DDBPutItemOpDispenser extends BaseOpDispenser<DynamoDBOp> {
+/**
+ * With {@code batch: true}, the items of all the cycles in a stride are put with one
+ * BatchWriteItem op. Each item goes into the table of its own cycle.
+ */
+public class DDBPutItemOpDispenser extends BaseOpDispenser<DynamoDBOp> implements BatchOpDispenser<DynamoDBOp> {
 
     private final DynamoDB ddb;
     private final LongFunction<String> tableNameFunc;
     private final LongFunction<? extends Item> itemfunc;
+    private final boolean batching;
 
     public DDBPutItemOpDispenser(DriverAdapter adapter, DynamoDB ddb, ParsedOp cmd, LongFunction<?> targetFunc) {
         super(adapter, cmd);
@@ -47,6 +54,23 @@ public class DDBPutItemOpDispenser extends BaseOpDispenser<DynamoDBOp> {
         } else {
             throw new OpConfigError("PutItem op templates require either an 'item' map field or a 'json' text field");
         }
+        this.batching = cmd.getStaticConfigOr("batch", false);
+    }
+
+    @Override
+    public boolean isBatching() {
+        return batching;
+    }
+
+    @Override
+    public DynamoDBOp applyBatch(long[] cycles) {
+        String[] tablenames = new String[cycles.length];
+        Item[] items = new Item[cycles.length];
+        for (int i = 0; i < cycles.length; i++) {
+            tablenames[i] = tableNameFunc.apply(cycles[i]);
+            items[i] = itemfunc.apply(cycles[i]);
+        }
+        return new DDBBatchPutItemOp(ddb, tablenames, items);
     }
 
     @Override
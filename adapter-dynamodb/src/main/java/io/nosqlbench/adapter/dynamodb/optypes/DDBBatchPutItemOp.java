@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.dynamodb.optypes;
+
+import com.amazonaws.services.dynamodbv2.document.BatchWriteItemOutcome;
+import com.amazonaws.services.dynamodbv2.document.DynamoDB;
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.TableWriteItems;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Puts the items of several cycles with BatchWriteItem. A BatchWriteItem request can hold
+ * at most {@link #MAX_BATCH_ITEMS} items, so larger batches are sent in several requests.
+ * Each request puts its items into the table of their own cycle.
+ *
+ * <p>Items which DynamoDB does not process, as when the table is throttled, are sent again
+ * after an exponential backoff with jitter, as the AWS SDK recommends. If some items are
+ * still not processed after {@link #MAX_ATTEMPTS} requests, an error is thrown, so that the
+ * error handler of the activity decides what to do with the batch.</p>
+ */
+public class DDBBatchPutItemOp extends DynamoDBOp {
+    public final static int MAX_BATCH_ITEMS = 25;
+    public final static int MAX_ATTEMPTS = 8;
+    private final static long BASE_BACKOFF_MILLIS = 25L;
+    private final static long MAX_BACKOFF_MILLIS = 2000L;
+
+    private final String[] tablenames;
+    private final Item[] items;
+
+    /**
+     * @param tablenames The table of each item
+     * @param items      The items to put
+     */
+    public DDBBatchPutItemOp(DynamoDB ddb, String[] tablenames, Item[] items) {
+        super(ddb);
+        this.tablenames = tablenames;
+        this.items = items;
+    }
+
+    @Override
+    public BatchWriteItemOutcome apply(long value) {
+        BatchWriteItemOutcome outcome = null;
+        for (int from = 0; from < items.length; from += MAX_BATCH_ITEMS) {
+            int to = Math.min(from + MAX_BATCH_ITEMS, items.length);
+            outcome = ddb.batchWriteItem(tableWriteItems(from, to));
+            Map<String, List<WriteRequest>> unprocessed = outcome.getUnprocessedItems();
+            for (int attempt = 1; unprocessed != null && !unprocessed.isEmpty(); attempt++) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    int count = unprocessed.values().stream().mapToInt(List::size).sum();
+                    throw new RuntimeException(count + " items were still unprocessed after " + attempt +
+                        " BatchWriteItem requests in tables " + unprocessed.keySet());
+                }
+                backoff(attempt);
+                outcome = ddb.batchWriteItemUnprocessed(unprocessed);
+                unprocessed = outcome.getUnprocessedItems();
+            }
+        }
+        return outcome;
+    }
+
+    private TableWriteItems[] tableWriteItems(int from, int to) {
+        Map<String, List<Item>> byTable = new LinkedHashMap<>();
+        for (int i = from; i < to; i++) {
+            byTable.computeIfAbsent(tablenames[i], t -> new ArrayList<>()).add(items[i]);
+        }
+        List<TableWriteItems> writes = new ArrayList<>(byTable.size());
+        byTable.forEach((table, tableItems) ->
+            writes.add(new TableWriteItems(table).withItemsToPut(tableItems)));
+        return writes.toArray(new TableWriteItems[0]);
+    }
+
+    /**
+     * Wait a random time up to an exponentially growing bound, which is capped.
+     */
+    private static void backoff(int attempt) {
+        long bound = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound / 2, bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting to resend unprocessed items", e);
+        }
+    }
+}
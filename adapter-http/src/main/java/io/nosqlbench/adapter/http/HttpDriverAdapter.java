@@ -35,7 +35,7 @@ import java.util.Optional;
 import java.util.function.Function;
 
 @Service(value = DriverAdapter.class, selector = "http")
-public class HttpDriverAdapter extends BaseDriverAdapter<HttpOp, HttpSpace> {
+public class HttpDriverAdapter extends BaseDriverAdapter<HttpOp, HttpSpace> implements AutoCloseable {
 
     @Override
     public OpMapper<HttpOp> getOpMapper() {
@@ -70,4 +70,11 @@ public class HttpDriverAdapter extends BaseDriverAdapter<HttpOp, HttpSpace> {
     public NBConfigModel getConfigModel() {
         return super.getConfigModel().add(HttpSpace.getConfigModel());
     }
+
+    @Override
+    public void close() throws Exception {
+        for (HttpSpace space : getSpaceCache().getElements()) {
+            space.close();
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.http.core;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * A body handler for responses whose content is not checked. The body is still read fully, so
+ * that the connection can be reused, but each buffer is dropped as soon as it arrives. The
+ * body of the response is the number of bytes which were read.
+ */
+public class DiscardingBodyHandler implements HttpResponse.BodyHandler<Long> {
+
+    public final static DiscardingBodyHandler INSTANCE = new DiscardingBodyHandler();
+
+    @Override
+    public HttpResponse.BodySubscriber<Long> apply(HttpResponse.ResponseInfo responseInfo) {
+        ByteCounter counter = new ByteCounter();
+        return HttpResponse.BodySubscribers.fromSubscriber(counter, ByteCounter::getCount);
+    }
+
+    private final static class ByteCounter implements Flow.Subscriber<List<ByteBuffer>> {
+        private volatile long count;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            long added = 0L;
+            for (ByteBuffer buffer : buffers) {
+                added += buffer.remaining();
+            }
+            count += added;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
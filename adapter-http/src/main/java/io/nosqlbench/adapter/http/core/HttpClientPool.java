@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.http.core;
+
+import io.nosqlbench.engine.api.activityimpl.motor.CoreMotor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * <p>The http clients of a space. Each client has its own connection pool and selector thread,
+ * so a single client can limit the request rate of a whole activity. With the {@code clients}
+ * parameter, a space can have:</p>
+ * <UL>
+ *     <LI>{@code 1} - one client for all threads, which is the default</LI>
+ *     <LI>{@code N} - N clients, where the thread of each motor slot always uses the same client</LI>
+ *     <LI>{@code thread} - a client for each motor slot</LI>
+ * </UL>
+ *
+ * <p>Clients are chosen by the slot of the motor which runs on the current thread, so that the
+ * number of clients is bounded by the number of slots, even when motors run on virtual
+ * threads. Threads which are not running a motor share the first client, or in thread mode, a
+ * client of their own.</p>
+ *
+ * <p>When {@code client_threads} is set, each client is given its own fixed size executor
+ * for handling responses, instead of the default executor of the JVM http client.</p>
+ */
+public class HttpClientPool implements AutoCloseable {
+    private final static Logger logger = LogManager.getLogger(HttpClientPool.class);
+
+    private final String name;
+    private final Function<HttpClient.Builder, HttpClient.Builder> configurer;
+    private final int clientThreads;
+    private final HttpClient[] shards;
+    private final ConcurrentHashMap<Long, HttpClient> perSlot;
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private final AtomicInteger clientCount = new AtomicInteger();
+
+    /**
+     * @param name          The name of the space, for naming threads
+     * @param clientsSpec   Either a number of clients, or 'thread' for a client per motor slot
+     * @param clientThreads The number of executor threads for each client, or 0 for the http client default
+     * @param configurer    A function which applies the space settings to each new client builder
+     */
+    public HttpClientPool(String name, String clientsSpec, int clientThreads, Function<HttpClient.Builder, HttpClient.Builder> configurer) {
+        this.name = name;
+        this.configurer = configurer;
+        this.clientThreads = clientThreads;
+        if (clientsSpec.equalsIgnoreCase("thread")) {
+            this.shards = null;
+            this.perSlot = new ConcurrentHashMap<>();
+        } else {
+            int count;
+            try {
+                count = Integer.parseInt(clientsSpec);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("clients must be a number or 'thread', but was '" + clientsSpec + "'");
+            }
+            if (count < 1) {
+                throw new RuntimeException("clients must be at least 1, but was " + count);
+            }
+            this.perSlot = null;
+            this.shards = new HttpClient[count];
+            for (int i = 0; i < count; i++) {
+                shards[i] = newClient();
+            }
+        }
+    }
+
+    /**
+     * @return The client for the motor slot of the current thread
+     */
+    public HttpClient get() {
+        return get(CoreMotor.getCurrentSlotId());
+    }
+
+    /**
+     * @param slot The motor slot, or a negative value for threads which are not running a motor
+     * @return The client for the given motor slot
+     */
+    public HttpClient get(long slot) {
+        if (perSlot != null) {
+            return perSlot.computeIfAbsent(slot < 0 ? -1L : slot, s -> newClient());
+        }
+        if (shards.length == 1 || slot < 0) {
+            return shards[0];
+        }
+        return shards[(int) (slot % shards.length)];
+    }
+
+    /**
+     * @return The number of clients which are held by this pool
+     */
+    public int size() {
+        return perSlot != null ? perSlot.size() : shards.length;
+    }
+
+    private HttpClient newClient() {
+        int index = clientCount.getAndIncrement();
+        HttpClient.Builder builder = configurer.apply(HttpClient.newBuilder());
+        if (clientThreads > 0) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(clientThreads, r -> {
+                Thread thread = new Thread(r, "http-" + name + "-client" + index + "-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            synchronized (executors) {
+                executors.add(executor);
+            }
+            builder = builder.executor(executor);
+        }
+        logger.debug(() -> "created http client " + index + " for space '" + name + "'");
+        return builder.build();
+    }
+
+    /**
+     * Release the clients of this pool and shut down their executors. On JVMs where
+     * {@link HttpClient} is {@link AutoCloseable}, the clients are closed as well.
+     */
+    @Override
+    public void close() {
+        List<HttpClient> clients = new ArrayList<>();
+        if (perSlot != null) {
+            clients.addAll(perSlot.values());
+            perSlot.clear();
+        } else {
+            clients.addAll(List.of(shards));
+        }
+        for (HttpClient client : clients) {
+            if (client instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("error while closing http client for space '" + name + "': " + e);
+                }
+            }
+        }
+        synchronized (executors) {
+            for (ExecutorService executor : executors) {
+                executor.shutdown();
+            }
+            executors.clear();
+        }
+    }
+}
@@ -23,10 +23,12 @@ import io.nosqlbench.engine.api.metrics.ActivityMetrics;
 public class HttpMetrics implements NBNamedElement {
     private final HttpSpace space;
     final Histogram statusCodeHistogram;
+    final Histogram responseSizeHistogram;
 
     public HttpMetrics(HttpSpace space) {
         this.space = space;
         statusCodeHistogram = ActivityMetrics.histogram(this, "statuscode",space.getHdrDigits());
+        responseSizeHistogram = ActivityMetrics.histogram(this, "response_bytes",space.getHdrDigits());
     }
 
     @Override
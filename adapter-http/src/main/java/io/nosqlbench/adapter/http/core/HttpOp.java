@@ -18,25 +18,42 @@ package io.nosqlbench.adapter.http.core;
 
 import io.nosqlbench.adapter.http.errors.InvalidResponseBodyException;
 import io.nosqlbench.adapter.http.errors.InvalidStatusCodeException;
+import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.AsyncCycleOp;
 import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.RunnableOp;
 
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
-public class HttpOp implements RunnableOp {
+/**
+ * An http request and the checks for its response. How much of the response body is kept
+ * depends on what is needed:
+ * <UL>
+ *     <LI>In diagnostic mode, the body is decoded to a String so that it can be shown.</LI>
+ *     <LI>With an ok-body pattern, the body is read as bytes and matched without decoding it.</LI>
+ *     <LI>Otherwise, the body is read and discarded, and only its size is kept.</LI>
+ * </UL>
+ *
+ * <p>When the activity is run with the async parameter, the request is sent with
+ * {@link HttpClient#sendAsync} and the response is checked on the thread which completes it,
+ * so the motor thread does not wait for the response. Diagnostic mode always waits for the
+ * response, so that its output is written in order.</p>
+ */
+public class HttpOp implements RunnableOp, AsyncCycleOp<HttpResponse<?>> {
 
     public final Pattern ok_status;
-    public final Pattern ok_body;
+    public final ResponseBodyPattern ok_body;
     public final HttpRequest request;
     private final HttpClient client;
     private final HttpSpace space;
     private final long cycle;
 
-    public HttpOp(HttpClient client, HttpRequest request, Pattern ok_status, Pattern ok_body, HttpSpace space, long cycle) {
+    public HttpOp(HttpClient client, HttpRequest request, Pattern ok_status, ResponseBodyPattern ok_body, HttpSpace space, long cycle) {
         this.client = client;
         this.request = request;
         this.ok_status = ok_status;
@@ -47,24 +64,21 @@ public class HttpOp implements RunnableOp {
 
     @Override
     public void run() {
-        HttpResponse.BodyHandler<String> bodyreader = HttpResponse.BodyHandlers.ofString();
         HttpResponse<String> response = null;
         Exception error = null;
         long startat = System.nanoTime();
         try {
-            CompletableFuture<HttpResponse<String>> responseFuture = client.sendAsync(request, bodyreader);
-             response = responseFuture.get(space.getTimeoutMillis(), TimeUnit.MILLISECONDS);
-             space.getHttpMetrics().statusCodeHistogram.update(response.statusCode());
-
-            if (ok_status != null) {
-                if (!ok_status.matcher(String.valueOf(response.statusCode())).matches()) {
-                    throw new InvalidStatusCodeException(ok_status, response.statusCode());
-                }
-            }
-            if (ok_body != null) {
-                if (!ok_body.matcher(response.body()).matches()) {
-                    throw new InvalidResponseBodyException(ok_body, response.body());
+            if (space.isDiagnosticMode()) {
+                response = send(HttpResponse.BodyHandlers.ofString());
+                String body = response.body();
+                recordResponse(response, body.getBytes(StandardCharsets.UTF_8).length);
+                if (ok_body != null && !ok_body.matches(body)) {
+                    throw new InvalidResponseBodyException(ok_body.getPattern(), body);
                 }
+            } else if (ok_body != null) {
+                checkBody(send(HttpResponse.BodyHandlers.ofByteArray()));
+            } else {
+                checkSize(send(DiscardingBodyHandler.INSTANCE));
             }
         } catch (Exception e) {
             error = e;
@@ -86,4 +100,51 @@ public class HttpOp implements RunnableOp {
         }
 
     }
+
+    @Override
+    public CompletionStage<HttpResponse<?>> applyAsync(long value) {
+        if (space.isDiagnosticMode()) {
+            try {
+                run();
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        CompletableFuture<HttpResponse<?>> checked;
+        if (ok_body != null) {
+            checked = client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(this::checkBody);
+        } else {
+            checked = client.sendAsync(request, DiscardingBodyHandler.INSTANCE).thenApply(this::checkSize);
+        }
+        return checked.orTimeout(space.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private <T> HttpResponse<T> send(HttpResponse.BodyHandler<T> bodyHandler) throws Exception {
+        return client.sendAsync(request, bodyHandler).get(space.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private HttpResponse<?> checkBody(HttpResponse<byte[]> response) {
+        byte[] body = response.body();
+        recordResponse(response, body.length);
+        if (!ok_body.matches(body)) {
+            throw new InvalidResponseBodyException(ok_body.getPattern(), new String(body, StandardCharsets.UTF_8));
+        }
+        return response;
+    }
+
+    private HttpResponse<?> checkSize(HttpResponse<Long> response) {
+        recordResponse(response, response.body());
+        return response;
+    }
+
+    private void recordResponse(HttpResponse<?> response, long bodySize) {
+        space.getHttpMetrics().statusCodeHistogram.update(response.statusCode());
+        space.getHttpMetrics().responseSizeHistogram.update(bodySize);
+        if (ok_status != null) {
+            if (!ok_status.matcher(String.valueOf(response.statusCode())).matches()) {
+                throw new InvalidStatusCodeException(ok_status, response.statusCode());
+            }
+        }
+    }
 }
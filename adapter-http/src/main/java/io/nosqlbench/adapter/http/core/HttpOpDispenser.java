@@ -17,32 +17,94 @@
 package io.nosqlbench.adapter.http.core;
 
 import io.nosqlbench.engine.api.activityimpl.BaseOpDispenser;
+import io.nosqlbench.engine.api.activityimpl.BatchOpDispenser;
 import io.nosqlbench.engine.api.activityimpl.uniform.DriverAdapter;
 import io.nosqlbench.engine.api.templating.ParsedOp;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
 import java.util.function.LongFunction;
 import java.util.regex.Pattern;
 
-public class HttpOpDispenser extends BaseOpDispenser<HttpOp> {
+/**
+ * <p>Builds the http requests for an op template. By default, requests are precompiled:
+ * every static part of the request, like a static uri, static headers, the version, or a static
+ * body, is parsed and applied once to a template request builder. For each cycle, the template
+ * is copied and only the dynamic fields are rendered and applied. When no field is dynamic, the
+ * same immutable request is used for every cycle.</p>
+ *
+ * <p>A dynamic uri is split where its path starts, when its scheme and authority are static.
+ * The static part is parsed once, and for each cycle only the rendered path and query are parsed
+ * and resolved against it. Other dynamic uris are parsed whole for each cycle. When any field is
+ * dynamic, the template is still copied for each cycle, since an {@link HttpRequest} can not be
+ * changed once it is built.</p>
+ *
+ * <p>With {@code precompile: false}, every part of the request is built for each cycle.</p>
+ *
+ * <p>With {@code batch: true}, one request is sent for all the cycles of a stride. Its body is
+ * the body of each cycle, one per line, as for bulk or ndjson endpoints. The other parts of the
+ * request are taken from the first cycle.</p>
+ */
+public class HttpOpDispenser extends BaseOpDispenser<HttpOp> implements BatchOpDispenser<HttpOp> {
 
     private final LongFunction<HttpOp> opFunc;
     public static final String DEFAULT_OK_BODY = ".+?";
     public static final String DEFAULT_OK_STATUS = "2..";
 
+    private final LongFunction<HttpSpace> ctxF;
+    private final boolean batching;
+    private LongFunction<HttpRequest> reqF;
+    private LongFunction<String> bodyF;
+    private Pattern ok_status;
+    private ResponseBodyPattern ok_body;
 
     public HttpOpDispenser(DriverAdapter adapter, LongFunction<HttpSpace> ctxF, ParsedOp op) {
         super(adapter, op);
+        this.ctxF = ctxF;
         opFunc = getOpFunc(ctxF, op);
+        this.batching = op.getStaticConfigOr("batch", false);
+        if (batching && !op.isDefined("body")) {
+            throw new RuntimeException("The op '" + op.getName() + "' must have a body to be batched.");
+        }
     }
 
     private LongFunction<HttpOp> getOpFunc(LongFunction<HttpSpace> ctxF, ParsedOp op) {
 
+        LongFunction<HttpRequest> reqF = op.getStaticConfigOr("precompile", true)
+            ? getPrecompiledRequestFunc(op)
+            : getRequestFunc(op);
+        this.reqF = reqF;
+        this.bodyF = op.getAsFunctionOr("body", null);
+
+        Pattern ok_status = op.getOptionalStaticValue("ok-status",String.class)
+            .map(Pattern::compile)
+            .orElse(Pattern.compile(DEFAULT_OK_STATUS));
+
+        ResponseBodyPattern ok_body = op.getOptionalStaticValue("ok-body", String.class)
+            .map(ResponseBodyPattern::compile)
+            .orElse(null);
+        this.ok_status = ok_status;
+        this.ok_body = ok_body;
+
+        LongFunction<HttpOp> opFunc = cycle -> new HttpOp(
+            ctxF.apply(cycle).getClient(),
+            reqF.apply(cycle),
+            ok_status,
+            ok_body,
+            ctxF.apply(cycle),cycle
+        );
+        return opFunc;
+    }
+
+    private LongFunction<HttpRequest> getRequestFunc(ParsedOp op) {
+
         LongFunction<HttpRequest.Builder> builderF = l -> HttpRequest.newBuilder();
         LongFunction<String> bodyF = op.getAsFunctionOr("body", null);
         LongFunction<HttpRequest.BodyPublisher> bodyPublisherF =
@@ -54,26 +116,14 @@ public class HttpOpDispenser extends BaseOpDispenser<HttpOp> {
         LongFunction<HttpRequest.Builder> initBuilderF =
             l -> builderF.apply(l).method(methodF.apply(l), bodyPublisherF.apply(l));
 
-        initBuilderF = op.enhanceFuncOptionally(
-            initBuilderF, "version", String.class,
-            (b, v) -> b.version(HttpClient.Version.valueOf(
-                    v.replaceAll("/1.1", "_1_1")
-                        .replaceAll("/2.0", "_2")
-                )
-            )
-        );
+        initBuilderF = op.enhanceFuncOptionally(initBuilderF, "version", String.class, HttpOpDispenser::setVersion);
 
         initBuilderF = op.enhanceFuncOptionally(initBuilderF, "uri", String.class, (b, v) -> b.uri(URI.create(v)));
 
-        op.getOptionalStaticValue("follow_redirects",boolean.class);
-
         /**
          * Add header adders for any key provided in the op template which is capitalized
          */
-        List<String> headerNames = op.getDefinedNames().stream()
-            .filter(n -> n.charAt(0) >= 'A')
-            .filter(n -> n.charAt(0) <= 'Z')
-            .toList();
+        List<String> headerNames = getHeaderNames(op);
         if (headerNames.size()>0) {
             for (String headerName : headerNames) {
                 initBuilderF = op.enhanceFunc(initBuilderF,headerName,String.class, (b,h) -> b.header(headerName,h));
@@ -83,25 +133,160 @@ public class HttpOpDispenser extends BaseOpDispenser<HttpOp> {
         initBuilderF = op.enhanceFuncOptionally(initBuilderF,"timeout",long.class,(b,v) -> b.timeout(Duration.ofMillis(v)));
 
         LongFunction<HttpRequest.Builder> finalInitBuilderF = initBuilderF;
-        LongFunction<HttpRequest> reqF = l -> finalInitBuilderF.apply(l).build();
+        return l -> finalInitBuilderF.apply(l).build();
+    }
 
+    private LongFunction<HttpRequest> getPrecompiledRequestFunc(ParsedOp op) {
+        HttpRequest.Builder template = HttpRequest.newBuilder();
+        LongFunction<HttpRequest.Builder> builderF = l -> template.copy();
 
-        Pattern ok_status = op.getOptionalStaticValue("ok-status",String.class)
-            .map(Pattern::compile)
-            .orElse(Pattern.compile(DEFAULT_OK_STATUS));
+        if (op.isDynamic("method") || op.isDynamic("body")) {
+            LongFunction<String> methodF = op.getAsFunctionOr("method", "GET");
+            LongFunction<HttpRequest.BodyPublisher> bodyPublisherF;
+            if (op.isDynamic("body")) {
+                LongFunction<String> bodyF = op.getAsRequiredFunction("body", String.class);
+                bodyPublisherF = l -> bodyPublisherFor(bodyF.apply(l));
+            } else {
+                String body = op.<String>getAsFunctionOr("body", null).apply(0L);
+                HttpRequest.BodyPublisher staticPublisher = bodyPublisherFor(body);
+                bodyPublisherF = l -> staticPublisher;
+            }
+            LongFunction<HttpRequest.Builder> copyF = builderF;
+            builderF = l -> copyF.apply(l).method(methodF.apply(l), bodyPublisherF.apply(l));
+        } else {
+            String method = op.getAsFunctionOr("method", "GET").apply(0L);
+            String body = op.<String>getAsFunctionOr("body", null).apply(0L);
+            template.method(method, bodyPublisherFor(body));
+        }
 
-        Pattern ok_body = op.getOptionalStaticValue("ok-body", String.class)
-            .map(Pattern::compile)
-            .orElse(null);
+        List<String> headerNames = getHeaderNames(op);
+        builderF = precompile(op, template, builderF, "version", String.class, HttpOpDispenser::setVersion);
+        if (op.isDynamic("uri")) {
+            LongFunction<URI> uriF = getDynamicUriFunc(op);
+            LongFunction<HttpRequest.Builder> uriBuilderF = builderF;
+            builderF = l -> uriBuilderF.apply(l).uri(uriF.apply(l));
+        } else {
+            builderF = precompile(op, template, builderF, "uri", String.class, (b, v) -> b.uri(URI.create(v)));
+        }
+        for (String headerName : headerNames) {
+            builderF = precompile(op, template, builderF, headerName, String.class, (b, h) -> b.header(headerName, h));
+        }
+        builderF = precompile(op, template, builderF, "timeout", long.class, (b, v) -> b.timeout(Duration.ofMillis(v)));
 
-        LongFunction<HttpOp> opFunc = cycle -> new HttpOp(
-            ctxF.apply(cycle).getClient(),
-            reqF.apply(cycle),
-            ok_status,
-            ok_body,
-            ctxF.apply(cycle),cycle
+        List<String> requestFields = new ArrayList<>(List.of("method", "body", "version", "uri", "timeout"));
+        requestFields.addAll(headerNames);
+        if (requestFields.stream().noneMatch(op::isDynamic)) {
+            HttpRequest request = template.build();
+            return l -> request;
+        }
+        LongFunction<HttpRequest.Builder> finalBuilderF = builderF;
+        return l -> finalBuilderF.apply(l).build();
+    }
+
+    /**
+     * Split a dynamic uri after its static scheme and authority, so that only the rendered
+     * path and query are parsed for each cycle. {@link URI#resolve(URI)} takes the scheme,
+     * host and port from the parsed base without parsing them again. When the authority is
+     * not static, or when the rendered path starts with {@code //}, the whole uri is parsed.
+     */
+    private static LongFunction<URI> getDynamicUriFunc(ParsedOp op) {
+        LongFunction<String> uriF = op.getAsRequiredFunction("uri", String.class);
+        String prefix = op.getAsTemplate("uri").map(t -> t.getSpans()[0]).orElse("");
+        int authority = prefix.indexOf("://");
+        int pathStart = -1;
+        if (authority > 0) {
+            for (int i = authority + 3; i < prefix.length(); i++) {
+                char c = prefix.charAt(i);
+                if (c == '/' || c == '?' || c == '#') {
+                    pathStart = c == '/' ? i : -1;
+                    break;
+                }
+            }
+        }
+        if (pathStart < 0) {
+            return l -> URI.create(uriF.apply(l));
+        }
+        URI base = URI.create(prefix.substring(0, pathStart));
+        int splitAt = pathStart;
+        return l -> {
+            String uri = uriF.apply(l);
+            if (uri.startsWith("//", splitAt)) {
+                return URI.create(uri);
+            }
+            return base.resolve(URI.create(uri.substring(splitAt)));
+        };
+    }
+
+    /**
+     * Apply a static field or config value to the template builder once, or add a dynamic
+     * field to the builder function, so that it is rendered for each cycle.
+     */
+    private static <FE> LongFunction<HttpRequest.Builder> precompile(
+        ParsedOp op,
+        HttpRequest.Builder template,
+        LongFunction<HttpRequest.Builder> builderF,
+        String field,
+        Class<FE> type,
+        BiFunction<HttpRequest.Builder, FE, HttpRequest.Builder> setter
+    ) {
+        if (op.isDynamic(field)) {
+            return op.enhanceFunc(builderF, field, type, setter);
+        }
+        op.getAsOptionalFunction(field, type).ifPresent(f -> setter.apply(template, f.apply(0L)));
+        return builderF;
+    }
+
+    private static HttpRequest.BodyPublisher bodyPublisherFor(String body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        return HttpRequest.BodyPublishers.ofByteArray(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HttpRequest.Builder setVersion(HttpRequest.Builder builder, String version) {
+        return builder.version(HttpClient.Version.valueOf(
+                version.replaceAll("/1.1", "_1_1")
+                    .replaceAll("/2.0", "_2")
+            )
         );
-        return opFunc;
+    }
+
+    /**
+     * @return The names of all fields in the op template which are capitalized, as these are headers
+     */
+    private static List<String> getHeaderNames(ParsedOp op) {
+        return op.getDefinedNames().stream()
+            .filter(n -> n.charAt(0) >= 'A')
+            .filter(n -> n.charAt(0) <= 'Z')
+            .toList();
+    }
+
+    @Override
+    public boolean isBatching() {
+        return batching;
+    }
+
+    @Override
+    public HttpOp applyBatch(long[] cycles) {
+        HttpSpace space = ctxF.apply(cycles[0]);
+        return new HttpOp(space.getClient(), batchRequest(cycles), ok_status, ok_body, space, cycles[0]);
+    }
+
+    /**
+     * @return The request of the first cycle, with the bodies of all the given cycles
+     */
+    HttpRequest batchRequest(long[] cycles) {
+        StringBuilder body = new StringBuilder();
+        for (long cycle : cycles) {
+            if (body.length() > 0) {
+                body.append('\n');
+            }
+            body.append(bodyF.apply(cycle));
+        }
+        HttpRequest first = reqF.apply(cycles[0]);
+        return HttpRequest.newBuilder(first, (name, value) -> true)
+            .method(first.method(), bodyPublisherFor(body.toString()))
+            .build();
     }
 
     @Override
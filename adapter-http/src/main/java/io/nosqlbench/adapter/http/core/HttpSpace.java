@@ -30,11 +30,12 @@ import java.util.List;
 import java.util.Locale;
 
 /**
- * ThreadLocal http clients have been removed from this version, as the built-in
- * HTTP client implementation is meant to be immutable. If shared-state issues
- * occur, thread-local support will be re-added.
+ * The built-in HTTP client implementation is meant to be immutable, so by default
+ * one client is shared by all threads. For higher request rates, the clients can
+ * be sharded or allocated per motor slot with the {@code clients} parameter. See
+ * {@link HttpClientPool}.
  */
-public class HttpSpace implements NBNamedElement {
+public class HttpSpace implements NBNamedElement, AutoCloseable {
     private final static Logger logger = LogManager.getLogger(HttpSpace.class);
 
     private final String name;
@@ -43,7 +44,7 @@ public class HttpSpace implements NBNamedElement {
     private HttpClient.Redirect followRedirects;
     private Duration timeout;
     private long timeoutMillis;
-    private final HttpClient httpclient;
+    private final HttpClientPool clients;
     private int hdrDigits;
     private HttpMetrics httpMetrics;
     private boolean diagnosticsEnabled;
@@ -53,19 +54,26 @@ public class HttpSpace implements NBNamedElement {
         this.name = spaceName;
         this.cfg = cfg;
         applyConfig(cfg);
-        this.httpclient = newClient();
+        this.clients = new HttpClientPool(
+            spaceName,
+            cfg.get("clients"),
+            cfg.get("client_threads", int.class),
+            this::configureClient
+        );
     }
 
+    /**
+     * @return The http client for the motor slot of the current thread
+     */
     public HttpClient getClient() {
-        return this.httpclient;
+        return this.clients.get();
     }
 
-    private HttpClient newClient() {
-        HttpClient.Builder builder = HttpClient.newBuilder();
+    private HttpClient.Builder configureClient(HttpClient.Builder builder) {
         logger.debug("follow_redirects=>" + followRedirects);
         builder = builder.followRedirects(this.followRedirects);
         builder = builder.connectTimeout(this.timeout);
-        return builder.build();
+        return builder;
     }
 
     public synchronized void applyConfig(NBConfiguration cfg) {
@@ -109,6 +117,11 @@ public class HttpSpace implements NBNamedElement {
         return console;
     }
 
+    @Override
+    public void close() {
+        clients.close();
+    }
+
     public static NBConfigModel getConfigModel() {
         return ConfigModel.of(HttpSpace.class)
             .add(Param.defaultTo("follow_redirects", "normal")
@@ -124,6 +137,13 @@ public class HttpSpace implements NBNamedElement {
                 .setDescription("How long to wait for requests before timeout out. Default is forever."))
             .add(Param.defaultTo("hdr_digits", 4)
                 .setDescription("number of digits of precision to keep in HDR histograms"))
+            .add(Param.defaultTo("clients", "1")
+                .setRegex("thread|[0-9]+")
+                .setDescription("How many http clients to use. Either a number of clients, which are shared " +
+                    "by motor slots, or 'thread' for a client per motor slot."))
+            .add(Param.defaultTo("client_threads", 0)
+                .setDescription("The size of the executor of each http client, or 0 to use the default " +
+                    "executor of the JVM http client."))
             .asReadOnly();
 
     }
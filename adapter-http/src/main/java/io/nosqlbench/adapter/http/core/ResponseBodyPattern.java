@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.http.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * <p>The ok-body pattern of an http op, which can be matched directly against the bytes of a
+ * response body. When every byte of the body is ASCII, the body is matched as a sequence of
+ * characters over its bytes, so it does not need to be decoded or copied into a String. Such a
+ * body reads the same either way, so any pattern matches it as it would match the decoded
+ * body.</p>
+ *
+ * <p>A body which contains any other byte is decoded from UTF-8 before it is matched, so that
+ * each character is seen once by counted quantifiers, length anchors and character classes.</p>
+ */
+public class ResponseBodyPattern {
+
+    private final Pattern pattern;
+
+    public ResponseBodyPattern(Pattern pattern) {
+        this.pattern = pattern;
+    }
+
+    public static ResponseBodyPattern compile(String regex) {
+        return new ResponseBodyPattern(Pattern.compile(regex));
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    public boolean matches(CharSequence body) {
+        return pattern.matcher(body).matches();
+    }
+
+    public boolean matches(byte[] body) {
+        if (isAscii(body)) {
+            return pattern.matcher(new AsciiBytes(body)).matches();
+        }
+        return pattern.matcher(new String(body, StandardCharsets.UTF_8)).matches();
+    }
+
+    /**
+     * @return true if the body can be matched without decoding it
+     */
+    static boolean isAscii(byte[] body) {
+        for (byte b : body) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return pattern.pattern();
+    }
+
+    private final static class AsciiBytes implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        private AsciiBytes(byte[] bytes) {
+            this(bytes, 0, bytes.length);
+        }
+
+        private AsciiBytes(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) bytes[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new AsciiBytes(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                sb.append(charAt(i));
+            }
+            return sb.toString();
+        }
+    }
+}
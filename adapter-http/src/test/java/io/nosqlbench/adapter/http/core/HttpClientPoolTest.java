@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.http.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HttpClientPoolTest {
+
+    private static HttpClient clientOnOtherThread(HttpClientPool pool) throws InterruptedException {
+        AtomicReference<HttpClient> client = new AtomicReference<>();
+        Thread thread = new Thread(() -> client.set(pool.get()));
+        thread.start();
+        thread.join();
+        return client.get();
+    }
+
+    @Test
+    public void testSingleClientIsShared() throws Exception {
+        try (HttpClientPool pool = new HttpClientPool("test", "1", 0, Function.identity())) {
+            assertThat(pool.size()).isEqualTo(1);
+            assertThat(clientOnOtherThread(pool)).isSameAs(pool.get());
+        }
+    }
+
+    @Test
+    public void testShardedClientsAreStablePerSlot() throws Exception {
+        try (HttpClientPool pool = new HttpClientPool("test", "4", 2, Function.identity())) {
+            assertThat(pool.size()).isEqualTo(4);
+            assertThat(pool.get(1L)).isSameAs(pool.get(1L));
+            assertThat(pool.get(5L)).isSameAs(pool.get(1L));
+            assertThat(pool.get(2L)).isNotSameAs(pool.get(1L));
+            assertThat(pool.get()).isSameAs(pool.get(0L));
+            assertThat(pool.get(1L).executor()).isPresent();
+        }
+    }
+
+    @Test
+    public void testClientPerSlot() throws Exception {
+        try (HttpClientPool pool = new HttpClientPool("test", "thread", 0, b -> b.followRedirects(HttpClient.Redirect.NEVER))) {
+            HttpClient client = pool.get(0L);
+            assertThat(client.followRedirects()).isEqualTo(HttpClient.Redirect.NEVER);
+            assertThat(pool.get(0L)).isSameAs(client);
+            assertThat(pool.get(1L)).isNotSameAs(client);
+            assertThat(pool.size()).isEqualTo(2);
+
+            HttpClient unslotted = pool.get();
+            assertThat(clientOnOtherThread(pool)).isSameAs(unslotted);
+            assertThat(pool.size()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void testCloseReleasesClientsPerSlot() {
+        HttpClientPool pool = new HttpClientPool("test", "thread", 1, Function.identity());
+        for (long slot = 0; slot < 8; slot++) {
+            pool.get(slot);
+        }
+        assertThat(pool.size()).isEqualTo(8);
+        pool.close();
+        assertThat(pool.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testInvalidClientCounts() {
+        assertThatThrownBy(() -> new HttpClientPool("test", "0", 0, Function.identity()))
+            .hasMessageContaining("at least 1");
+        assertThatThrownBy(() -> new HttpClientPool("test", "many", 0, Function.identity()))
+            .hasMessageContaining("'thread'");
+    }
+}
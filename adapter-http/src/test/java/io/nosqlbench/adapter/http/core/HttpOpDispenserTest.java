@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.http.core;
+
+import io.nosqlbench.adapter.http.HttpDriverAdapter;
+import io.nosqlbench.engine.api.activityconfig.StatementsLoader;
+import io.nosqlbench.engine.api.activityconfig.yaml.OpTemplate;
+import io.nosqlbench.engine.api.activityimpl.OpDispenser;
+import io.nosqlbench.engine.api.templating.ParsedOp;
+import io.nosqlbench.nb.api.config.standard.NBConfiguration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpOpDispenserTest {
+
+    static NBConfiguration cfg;
+    static HttpDriverAdapter adapter;
+    static HttpOpMapper mapper;
+
+    @BeforeAll
+    public static void initializeTestMapper() {
+        cfg = HttpSpace.getConfigModel().apply(Map.of());
+        adapter = new HttpDriverAdapter();
+        adapter.applyConfig(cfg);
+        mapper = new HttpOpMapper(adapter, cfg, adapter.getSpaceCache());
+    }
+
+    private static OpDispenser<? extends HttpOp> dispenserFor(String yaml) {
+        OpTemplate stmtDef = StatementsLoader.loadString(yaml, Map.of()).getStmts().get(0);
+        return mapper.apply(new ParsedOp(stmtDef, cfg, List.of(adapter.getPreprocessor())));
+    }
+
+    private static void assertSameRequest(HttpRequest actual, HttpRequest expected) {
+        assertThat(actual.method()).isEqualTo(expected.method());
+        assertThat(actual.uri()).isEqualTo(expected.uri());
+        assertThat(actual.version()).isEqualTo(expected.version());
+        assertThat(actual.timeout()).isEqualTo(expected.timeout());
+        assertThat(actual.headers().map()).isEqualTo(expected.headers().map());
+        assertThat(actual.bodyPublisher().orElseThrow().contentLength())
+            .isEqualTo(expected.bodyPublisher().orElseThrow().contentLength());
+    }
+
+    @Test
+    public void testStaticRequestsAreBuiltOnce() {
+        String op = """
+            ops:
+             - s1: |
+                post http://localhost/path?q=1 HTTP/1.1
+                Content-Type: application/json
+
+                {"a":"b"}
+            """;
+        OpDispenser<? extends HttpOp> precompiled = dispenserFor(op);
+        OpDispenser<? extends HttpOp> templated = dispenserFor(op + "   precompile: false\n");
+
+        HttpRequest request = precompiled.apply(1L).request;
+        assertThat(precompiled.apply(2L).request).isSameAs(request);
+        assertThat(templated.apply(2L).request).isNotSameAs(templated.apply(1L).request);
+        assertSameRequest(request, templated.apply(1L).request);
+        assertThat(request.bodyPublisher().orElseThrow().contentLength()).isEqualTo(9L);
+    }
+
+    @Test
+    public void testDynamicFieldsAreRenderedEachCycle() {
+        String op = """
+            ops:
+             s1:
+              method: put
+              uri: http://localhost/{path}
+              Content-Type: text/plain
+              X-Cycle: "{cycle}"
+              timeout: 1000
+              body: "value {cycle}"
+            bindings:
+             path: NumberNameToString()
+             cycle: ToString()
+            """;
+        OpDispenser<? extends HttpOp> precompiled = dispenserFor(op);
+        OpDispenser<? extends HttpOp> templated = dispenserFor(op.replace("  body:", "  precompile: false\n  body:"));
+
+        for (long cycle = 1L; cycle < 20L; cycle++) {
+            HttpRequest request = precompiled.apply(cycle).request;
+            assertSameRequest(request, templated.apply(cycle).request);
+            assertThat(request.headers().firstValue("X-Cycle")).contains(String.valueOf(cycle));
+        }
+        assertThat(precompiled.apply(3L).request.uri().toString()).isEqualTo("http://localhost/three");
+    }
+
+    @Test
+    public void testDynamicUrisMatchWholeParsing() {
+        List<String> uris = List.of(
+            "http://localhost:8080/api/{path}?limit=10#top",
+            "https://user@localhost/api?name={path}",
+            "http://localhost?redirect=/api/{path}",
+            "http://localhost/{slash}",
+            "{scheme}://localhost/api/{path}"
+        );
+        for (String uri : uris) {
+            String op = """
+                ops:
+                 s1:
+                  uri: "URI"
+                bindings:
+                 path: NumberNameToString()
+                 slash: NumberNameToString(); Prefix('/')
+                 scheme: FixedValue('https')
+                """.replace("URI", uri);
+            OpDispenser<? extends HttpOp> precompiled = dispenserFor(op);
+            OpDispenser<? extends HttpOp> templated = dispenserFor(op.replace("bindings:", "  precompile: false\nbindings:"));
+            for (long cycle = 1L; cycle < 5L; cycle++) {
+                URI expected = templated.apply(cycle).request.uri();
+                URI actual = precompiled.apply(cycle).request.uri();
+                assertThat(actual).isEqualTo(expected);
+                assertThat(actual.toString()).isEqualTo(expected.toString());
+                assertThat(actual.getHost()).isEqualTo(expected.getHost());
+                assertThat(actual.getPort()).isEqualTo(expected.getPort());
+            }
+        }
+    }
+
+    @Test
+    public void testBatchSendsAllBodiesInOneRequest() {
+        String op = """
+            ops:
+             s1:
+              method: post
+              uri: http://localhost/_bulk
+              Content-Type: application/x-ndjson
+              body: "value {cycle}"
+              batch: true
+            bindings:
+             cycle: ToString()
+            """;
+        HttpOpDispenser batching = (HttpOpDispenser) dispenserFor(op);
+        HttpOpDispenser single = (HttpOpDispenser) dispenserFor(op.replace("  batch: true\n", ""));
+        assertThat(batching.isBatching()).isTrue();
+        assertThat(single.isBatching()).isFalse();
+
+        HttpRequest request = batching.applyBatch(new long[]{1L, 2L, 3L}).request;
+        HttpRequest first = single.apply(1L).request;
+        assertThat(request.method()).isEqualTo(first.method());
+        assertThat(request.uri()).isEqualTo(first.uri());
+        assertThat(request.headers().map()).isEqualTo(first.headers().map());
+        assertThat(request.bodyPublisher().orElseThrow().contentLength())
+            .isEqualTo("value 1\nvalue 2\nvalue 3".length());
+    }
+}
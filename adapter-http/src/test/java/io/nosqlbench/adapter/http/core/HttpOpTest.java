@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.http.core;
+
+import com.sun.net.httpserver.HttpServer;
+import io.nosqlbench.adapter.http.errors.InvalidResponseBodyException;
+import io.nosqlbench.adapter.http.errors.InvalidStatusCodeException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HttpOpTest {
+
+    private static final byte[] BODY = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+    private static HttpServer server;
+    private static HttpSpace space;
+    private static URI uri;
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            }
+        });
+        server.start();
+        uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+        space = new HttpSpace("httpoptest", HttpSpace.getConfigModel().apply(Map.of("timeout", 10000L)));
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        space.close();
+        server.stop(0);
+    }
+
+    private static HttpOp op(Pattern ok_status, ResponseBodyPattern ok_body) {
+        return new HttpOp(space.getClient(), HttpRequest.newBuilder(uri).build(), ok_status, ok_body, space, 1L);
+    }
+
+    @Test
+    public void testAsyncResponseIsChecked() throws Exception {
+        HttpResponse<?> sized = op(Pattern.compile("2.."), null).applyAsync(1L).toCompletableFuture().get();
+        assertThat(sized.statusCode()).isEqualTo(200);
+        assertThat(sized.body()).isEqualTo((long) BODY.length);
+
+        HttpResponse<?> matched = op(null, ResponseBodyPattern.compile(".*ok.*")).applyAsync(1L).toCompletableFuture().get();
+        assertThat(matched.body()).isEqualTo(BODY);
+    }
+
+    @Test
+    public void testAsyncCheckFailuresCompleteExceptionally() {
+        assertThatThrownBy(() -> op(Pattern.compile("404"), null).applyAsync(1L).toCompletableFuture().get())
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(InvalidStatusCodeException.class);
+        assertThatThrownBy(() -> op(null, ResponseBodyPattern.compile(".*error.*")).applyAsync(1L).toCompletableFuture().get())
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(InvalidResponseBodyException.class);
+    }
+}
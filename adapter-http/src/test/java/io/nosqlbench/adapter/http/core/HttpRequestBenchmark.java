@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.http.core;
+
+import io.nosqlbench.adapter.http.HttpDriverAdapter;
+import io.nosqlbench.engine.api.activityconfig.StatementsLoader;
+import io.nosqlbench.engine.api.activityconfig.yaml.OpTemplate;
+import io.nosqlbench.engine.api.activityimpl.OpDispenser;
+import io.nosqlbench.engine.api.templating.ParsedOp;
+import io.nosqlbench.nb.api.config.standard.NBConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the client side cost of building the request for an http op, with and
+ * without precompiled requests. The static op has no bindings, and the dynamic op has
+ * a templated uri and header and a templated body, next to several static headers.</p>
+ *
+ * <p>Run the main method of this class to see the result with the GC profiler.</p>
+ */
+@State(Scope.Benchmark)
+public class HttpRequestBenchmark {
+
+    private final static String STATIC_OP = """
+        ops:
+         s1:
+          method: post
+          uri: http://localhost:8080/api/v1/accounts?limit=10
+          Content-Type: application/json
+          Accept: application/json
+          X-Tenant: bench
+          body: '{"name":"account","active":true}'
+        """;
+
+    private final static String DYNAMIC_OP = """
+        ops:
+         s1:
+          method: post
+          uri: http://localhost:8080/api/v1/accounts/{id}?limit=10
+          Content-Type: application/json
+          Accept: application/json
+          X-Tenant: bench
+          X-Request-Id: "{id}"
+          body: '{"name":"{name}","active":true}'
+        bindings:
+         id: Hash(); Mod(1000000L); ToString()
+         name: NumberNameToString()
+        """;
+
+    @Param({"true", "false"})
+    public boolean precompile;
+
+    @Param({"static", "dynamic"})
+    public String op;
+
+    private OpDispenser<? extends HttpOp> dispenser;
+
+    @State(Scope.Thread)
+    public static class Cycle {
+        long cycle;
+    }
+
+    @Setup
+    public void setup() {
+        NBConfiguration cfg = HttpSpace.getConfigModel().apply(Map.of());
+        HttpDriverAdapter adapter = new HttpDriverAdapter();
+        adapter.applyConfig(cfg);
+        HttpOpMapper mapper = new HttpOpMapper(adapter, cfg, adapter.getSpaceCache());
+        String yaml = (op.equals("static") ? STATIC_OP : DYNAMIC_OP)
+            .replace("  method: post", "  method: post\n  precompile: " + precompile);
+        OpTemplate template = StatementsLoader.loadString(yaml, Map.of()).getStmts().get(0);
+        dispenser = mapper.apply(new ParsedOp(template, cfg, List.of(adapter.getPreprocessor())));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Fork(1)
+    public Object apply(Cycle state) {
+        return dispenser.apply(state.cycle++).request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(HttpRequestBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.http.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseBodyPatternTest {
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testAsciiBodiesAreMatchedAsBytes() {
+        assertThat(ResponseBodyPattern.isAscii(utf8("OK, account id is 42"))).isTrue();
+        assertThat(ResponseBodyPattern.isAscii(utf8("OK, account id is Zoë"))).isFalse();
+
+        ResponseBodyPattern pattern = ResponseBodyPattern.compile("^(OK, account id is .*)$");
+        assertThat(pattern.matches(utf8("OK, account id is 42"))).isTrue();
+        assertThat(pattern.matches(utf8("OK, account id is Zoë"))).isTrue();
+        assertThat(pattern.matches(utf8("NOT OK"))).isFalse();
+        assertThat(pattern.matches(utf8("OK, account id is 42\nand more"))).isFalse();
+    }
+
+    @Test
+    public void testNonAsciiBodiesAreMatchedByCharacter() {
+        ResponseBodyPattern classes = ResponseBodyPattern.compile("[a-z]+ [^a-z]+");
+        assertThat(classes.matches(utf8("name éé"))).isTrue();
+        assertThat(classes.matches(utf8("namé x"))).isFalse();
+
+        ResponseBodyPattern counted = ResponseBodyPattern.compile("name: .{3}");
+        assertThat(counted.matches(utf8("name: Zoë"))).isTrue();
+        assertThat(counted.matches(utf8("name: Zoëy"))).isFalse();
+
+        ResponseBodyPattern anchored = ResponseBodyPattern.compile("^.{1,4}$");
+        assertThat(anchored.matches(utf8("日本語"))).isTrue();
+        assertThat(anchored.matches(utf8("日本語です"))).isFalse();
+    }
+
+    @Test
+    public void testUnicodePatternsMatchBodies() {
+        ResponseBodyPattern nonAscii = ResponseBodyPattern.compile("name: Zoë");
+        assertThat(nonAscii.matches(utf8("name: Zoë"))).isTrue();
+        assertThat(nonAscii.matches(utf8("name: Zoe"))).isFalse();
+
+        ResponseBodyPattern property = ResponseBodyPattern.compile("\\p{L}{3}");
+        assertThat(property.matches(utf8("Zoë"))).isTrue();
+        assertThat(property.matches(utf8("Zoe"))).isTrue();
+
+        ResponseBodyPattern flags = ResponseBodyPattern.compile("(?i)ok");
+        assertThat(flags.matches(utf8("OK"))).isTrue();
+    }
+}
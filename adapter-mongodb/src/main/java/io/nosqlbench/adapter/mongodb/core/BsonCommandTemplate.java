@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.mongodb.core;
+
+import com.mongodb.MongoClientSettings;
+import io.nosqlbench.virtdata.core.templates.ParsedStringTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.*;
+import org.bson.codecs.UuidCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+/**
+ * <p>A command template which is parsed into BSON once, so that each cycle only substitutes
+ * its values into the parsed structure, instead of rendering and parsing a JSON string.</p>
+ *
+ * <p>Each bind point in the statement is replaced with a marker, and the marked statement is
+ * parsed as a document. Then each marker is found in the parsed document as one of:
+ * <UL>
+ *     <LI>A whole value, like {@code {count}} - The bound value is converted to the BSON type
+ *     which its text would parse as, so a long which fits in an int is an int32, as before.
+ *     String values are parsed as JSON values, which is slower than using a typed binding.</LI>
+ *     <LI>Part of a string, like {@code "user-{id}"} - The string is built from the bound values.</LI>
+ * </UL>
+ * Only the documents and arrays which contain bind points are rebuilt for each cycle. The
+ * rest of the parsed document is shared between cycles, and it must not be modified.</p>
+ *
+ * <p>Some statements can not be parsed this way, such as those with bind points in field names,
+ * or within shell constructors like {@code NumberLong({value})} or {@code UUID("{id}")}. For
+ * these, {@link #of(ParsedStringTemplate, LongFunction)} returns an empty optional, and the
+ * statement should be parsed for each cycle instead.</p>
+ */
+public class BsonCommandTemplate implements LongFunction<Bson> {
+
+    private final static Logger logger = LogManager.getLogger(BsonCommandTemplate.class);
+
+    private final static char MARK = '\u0001';
+    private final static Pattern MARKER = Pattern.compile(MARK + "([VS])(\\d+)" + MARK);
+    private final static CodecRegistry codecRegistry = fromRegistries(
+        fromCodecs(new UuidCodec(UuidRepresentation.STANDARD)),
+        MongoClientSettings.getDefaultCodecRegistry()
+    );
+
+    private final Node root;
+    private final LongFunction<Object[]> valuesF;
+
+    private BsonCommandTemplate(Node root, LongFunction<Object[]> valuesF) {
+        this.root = root;
+        this.valuesF = valuesF;
+    }
+
+    /**
+     * Parse a statement template into a command template.
+     *
+     * @param template The statement template
+     * @param valuesF  A function which yields the values for the bind points in the template,
+     *                 one for each bind point, in order
+     * @return A command template, or an empty optional if the template must be parsed for each cycle
+     */
+    public static Optional<BsonCommandTemplate> of(ParsedStringTemplate template, LongFunction<Object[]> valuesF) {
+        String[] spans = template.getSpans();
+        if (spans.length == 3 && spans[0].isBlank() && spans[2].isBlank()) {
+            logger.debug(() -> "The whole statement is a bind point, so it will be parsed for each cycle.");
+            return Optional.empty();
+        }
+
+        BsonDocument parsed;
+        try {
+            parsed = BsonDocument.parse(markedStatement(spans));
+        } catch (RuntimeException e) {
+            logger.debug(() -> "The statement can not be parsed with markers for its bind points, " +
+                "so it will be parsed for each cycle: " + e.getMessage());
+            return Optional.empty();
+        }
+
+        int bindPoints = spans.length / 2;
+        boolean[] found = new boolean[bindPoints];
+        Node root = compile(parsed, found);
+        if (root == null) {
+            return Optional.empty();
+        }
+        for (boolean isFound : found) {
+            if (!isFound) {
+                logger.debug("A bind point is not a value or part of a string, so the statement will be parsed for each cycle.");
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new BsonCommandTemplate(root, valuesF));
+    }
+
+    @Override
+    public Bson apply(long cycle) {
+        Object[] values = root.isStatic() ? null : valuesF.apply(cycle);
+        return (BsonDocument) root.apply(values);
+    }
+
+    /**
+     * Put a marker in place of each bind point, as a string value if the bind point
+     * is outside of a string, or as part of the string if it is within one.
+     */
+    private static String markedStatement(String[] spans) {
+        StringBuilder sb = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < spans.length; i++) {
+            if (i % 2 == 0) {
+                String literal = spans[i];
+                sb.append(literal);
+                for (int c = 0; c < literal.length(); c++) {
+                    char ch = literal.charAt(c);
+                    if (quote == 0) {
+                        if (ch == '"' || ch == '\'') {
+                            quote = ch;
+                        }
+                    } else if (ch == '\\') {
+                        c++;
+                    } else if (ch == quote) {
+                        quote = 0;
+                    }
+                }
+            } else if (quote == 0) {
+                sb.append('"').append(MARK).append('V').append(i / 2).append(MARK).append('"');
+            } else {
+                sb.append(MARK).append('S').append(i / 2).append(MARK);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The compiled node, or null if a bind point is somewhere it can not be
+     * filled in without parsing the statement again
+     */
+    private static Node compile(BsonValue value, boolean[] found) {
+        if (value instanceof BsonDocument document) {
+            String[] keys = new String[document.size()];
+            Node[] nodes = new Node[document.size()];
+            boolean isStatic = true;
+            int i = 0;
+            for (Map.Entry<String, BsonValue> entry : document.entrySet()) {
+                if (entry.getKey().indexOf(MARK) >= 0) {
+                    logger.debug("A field name contains a bind point, so the statement will be parsed for each cycle.");
+                    return null;
+                }
+                keys[i] = entry.getKey();
+                nodes[i] = compile(entry.getValue(), found);
+                if (nodes[i] == null) {
+                    return null;
+                }
+                isStatic &= nodes[i].isStatic();
+                i++;
+            }
+            return isStatic ? new StaticNode(document) : new DocumentNode(keys, nodes);
+        } else if (value instanceof BsonArray array) {
+            Node[] nodes = new Node[array.size()];
+            boolean isStatic = true;
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = compile(array.get(i), found);
+                if (nodes[i] == null) {
+                    return null;
+                }
+                isStatic &= nodes[i].isStatic();
+            }
+            return isStatic ? new StaticNode(array) : new ArrayNode(nodes);
+        } else if (value instanceof BsonString string && string.getValue().indexOf(MARK) >= 0) {
+            return compileString(string.getValue(), found);
+        }
+        return new StaticNode(value);
+    }
+
+    private static Node compileString(String text, boolean[] found) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        Matcher matcher = MARKER.matcher(text);
+        int last = 0;
+        while (matcher.find()) {
+            int index = Integer.parseInt(matcher.group(2));
+            found[index] = true;
+            if (matcher.group(1).equals("V")) {
+                if (matcher.start() != 0 || matcher.end() != text.length()) {
+                    logger.debug("A bind point is next to a string, so the statement will be parsed for each cycle.");
+                    return null;
+                }
+                return new ValueNode(index);
+            }
+            literals.add(text.substring(last, matcher.start()));
+            indexes.add(index);
+            last = matcher.end();
+        }
+        literals.add(text.substring(last));
+        return new StringNode(literals.toArray(new String[0]), indexes.stream().mapToInt(i -> i).toArray());
+    }
+
+    /**
+     * Convert a value to the BSON type which its text would be parsed as in a JSON statement,
+     * or to its natural BSON type if its text is not a JSON value.
+     */
+    static BsonValue toBsonValue(Object value) {
+        if (value == null) {
+            return BsonNull.VALUE;
+        } else if (value instanceof Integer i) {
+            return new BsonInt32(i);
+        } else if (value instanceof Long l) {
+            return (l == l.intValue()) ? new BsonInt32(l.intValue()) : new BsonInt64(l);
+        } else if (value instanceof Double d) {
+            return new BsonDouble(d);
+        } else if (value instanceof Float f) {
+            return new BsonDouble(f);
+        } else if (value instanceof Boolean b) {
+            return BsonBoolean.valueOf(b);
+        } else if (value instanceof Short || value instanceof Byte) {
+            return new BsonInt32(((Number) value).intValue());
+        } else if (value instanceof CharSequence text) {
+            return BsonDocument.parse("{\"v\":" + text + "}").get("v");
+        } else if (value instanceof BsonValue bsonValue) {
+            return bsonValue;
+        } else if (value instanceof UUID uuid) {
+            return new BsonBinary(uuid, UuidRepresentation.STANDARD);
+        }
+        return new Document("v", value).toBsonDocument(BsonDocument.class, codecRegistry).get("v");
+    }
+
+    private interface Node {
+        BsonValue apply(Object[] values);
+
+        default boolean isStatic() {
+            return false;
+        }
+    }
+
+    private record StaticNode(BsonValue value) implements Node {
+        @Override
+        public BsonValue apply(Object[] values) {
+            return value;
+        }
+
+        @Override
+        public boolean isStatic() {
+            return true;
+        }
+    }
+
+    private record DocumentNode(String[] keys, Node[] nodes) implements Node {
+        @Override
+        public BsonValue apply(Object[] values) {
+            BsonDocument document = new BsonDocument();
+            for (int i = 0; i < keys.length; i++) {
+                document.put(keys[i], nodes[i].apply(values));
+            }
+            return document;
+        }
+    }
+
+    private record ArrayNode(Node[] nodes) implements Node {
+        @Override
+        public BsonValue apply(Object[] values) {
+            List<BsonValue> list = new ArrayList<>(nodes.length);
+            for (Node node : nodes) {
+                list.add(node.apply(values));
+            }
+            return new BsonArray(list);
+        }
+    }
+
+    private record ValueNode(int index) implements Node {
+        @Override
+        public BsonValue apply(Object[] values) {
+            return toBsonValue(values[index]);
+        }
+    }
+
+    private record StringNode(String[] literals, int[] indexes) implements Node {
+        @Override
+        public BsonValue apply(Object[] values) {
+            StringBuilder sb = new StringBuilder(literals[0]);
+            for (int i = 0; i < indexes.length; i++) {
+                sb.append(values[indexes[i]]).append(literals[i + 1]);
+            }
+            return new BsonString(sb.toString());
+        }
+    }
+}
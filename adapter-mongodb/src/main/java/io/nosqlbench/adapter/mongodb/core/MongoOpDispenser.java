@@ -19,45 +19,74 @@ package io.nosqlbench.adapter.mongodb.core;
 import com.mongodb.ReadPreference;
 import io.nosqlbench.adapter.mongodb.ops.MongoOp;
 import io.nosqlbench.engine.api.activityimpl.BaseOpDispenser;
+import io.nosqlbench.engine.api.activityimpl.BatchOpDispenser;
 import io.nosqlbench.engine.api.activityimpl.uniform.DriverAdapter;
 import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.Op;
 import io.nosqlbench.engine.api.templating.ParsedOp;
+import io.nosqlbench.virtdata.core.templates.ParsedStringTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.LongFunction;
 
-public class MongoOpDispenser extends BaseOpDispenser<Op> {
-    private final LongFunction<MongoOp> opFunc;
+/**
+ * <p>Runs the command of an op template for each cycle.</p>
+ *
+ * <p>With {@code batch: true}, an insert, update or delete command is run once for all the cycles
+ * of a stride. The documents, updates or deletes of each cycle are put into one command, like
+ * {@code insertMany}, and the other fields of the command are taken from the first cycle. Other
+ * commands are run once per cycle.</p>
+ */
+public class MongoOpDispenser extends BaseOpDispenser<Op> implements BatchOpDispenser<Op> {
+    private final static Logger logger = LogManager.getLogger(MongoOpDispenser.class);
+    private final static Map<String, String> BATCH_FIELDS = Map.of(
+        "insert", "documents",
+        "update", "updates",
+        "delete", "deletes"
+    );
+
+    private final LongFunction<MongoSpace> ctxFunc;
+    private final LongFunction<String> databaseNamerF;
+    private final LongFunction<Bson> bsonFunc;
     private final LongFunction<MongoOp> mongoOpF;
+    private final String batchField;
 
     public MongoOpDispenser(DriverAdapter adapter, LongFunction<MongoSpace> ctxFunc, ParsedOp op) {
         super(adapter,op);
-        opFunc = createOpFunc(ctxFunc, op);
+        this.ctxFunc = ctxFunc;
+        this.bsonFunc = createBsonFunc(op);
+        this.databaseNamerF = op.getAsRequiredFunction("database", String.class);
         this.mongoOpF = createOpFunc(ctxFunc,op);
+        this.batchField = op.getStaticConfigOr("batch", false) ? getBatchField(op) : null;
     }
 
-    private LongFunction<MongoOp> createOpFunc(LongFunction<MongoSpace> ctxFunc, ParsedOp op) {
-
-        LongFunction<String> rpstring = op.getAsOptionalFunction("readPreference")
-            .orElseGet(() -> op.getAsOptionalFunction("read-preference")
-                .orElse(l -> "primary"));
-        LongFunction<ReadPreference> readPreferenceF = l -> ReadPreference.valueOf(rpstring.apply(l));
-
+    private LongFunction<Bson> createBsonFunc(ParsedOp op) {
         LongFunction<?> payload = op.getAsRequiredFunction("stmt", Object.class);
         Object exampleValue = payload.apply(0);
 
-        LongFunction<Bson> bsonFunc;
         if (exampleValue instanceof CharSequence cs) {
-            bsonFunc = l -> Document.parse(payload.apply(l).toString());
+            return createTemplateFunc(op)
+                .orElseGet(() -> l -> Document.parse(payload.apply(l).toString()));
         } else if ( exampleValue instanceof Map map) {
-            bsonFunc = l -> new Document((Map<String,Object>)payload.apply(l));
+            return l -> new Document((Map<String,Object>)payload.apply(l));
         } else {
             throw new RuntimeException("You must provide a String or Map for your BSON payload.");
         }
+    }
 
-        LongFunction<String> databaseNamerF = op.getAsRequiredFunction("database", String.class);
+    private LongFunction<MongoOp> createOpFunc(LongFunction<MongoSpace> ctxFunc, ParsedOp op) {
+
+        LongFunction<String> rpstring = op.getAsOptionalFunction("readPreference")
+            .orElseGet(() -> op.getAsOptionalFunction("read-preference")
+                .orElse(l -> "primary"));
+        LongFunction<ReadPreference> readPreferenceF = l -> ReadPreference.valueOf(rpstring.apply(l));
 
         return l-> new MongoOp(
             ctxFunc.apply(l).getClient(),
@@ -66,6 +95,73 @@ public class MongoOpDispenser extends BaseOpDispenser<Op> {
         );
     }
 
+    /**
+     * Parse the statement once, if possible, so that each cycle only substitutes its values.
+     */
+    private Optional<LongFunction<Bson>> createTemplateFunc(ParsedOp op) {
+        if (!op.getStaticConfigOr("bsontemplate", true)) {
+            return Optional.empty();
+        }
+        ParsedStringTemplate template = op.getAsTemplate("stmt").orElseThrow();
+        Optional<BsonCommandTemplate> commandTemplate =
+            BsonCommandTemplate.of(template, op.newArrayBinderFromBindPoints(template.getBindPoints()));
+        if (commandTemplate.isEmpty()) {
+            logger.info("The stmt for op '" + op.getName() + "' will be parsed for each cycle, see debug logging for details.");
+        }
+        return commandTemplate.map(t -> t);
+    }
+
+    /**
+     * @return The field of the command which holds the elements to batch, or null if the command
+     * of this op template can not be batched
+     */
+    private String getBatchField(ParsedOp op) {
+        BsonDocument example = toBsonDocument(bsonFunc.apply(0L));
+        String field = example.isEmpty() ? null : BATCH_FIELDS.get(example.getFirstKey());
+        if (field == null) {
+            logger.warn("The stmt for op '" + op.getName() + "' is not an insert, update or delete command, " +
+                "so it will be run once per cycle even though batch is set.");
+        }
+        return field;
+    }
+
+    @Override
+    public boolean isBatching() {
+        return batchField != null;
+    }
+
+    @Override
+    public Op applyBatch(long[] cycles) {
+        return new MongoOp(
+            ctxFunc.apply(cycles[0]).getClient(),
+            databaseNamerF.apply(cycles[0]),
+            bindBatch(cycles)
+        );
+    }
+
+    /**
+     * @return One command with the batched elements of the commands for all of the given cycles
+     */
+    BsonDocument bindBatch(long[] cycles) {
+        BsonDocument first = toBsonDocument(bsonFunc.apply(cycles[0]));
+        BsonDocument command = first.clone();
+        BsonArray elements = new BsonArray();
+        for (int i = 0; i < cycles.length; i++) {
+            BsonDocument cycleCommand = (i == 0) ? first : toBsonDocument(bsonFunc.apply(cycles[i]));
+            BsonValue cycleElements = cycleCommand.get(batchField);
+            if (cycleElements == null || !cycleElements.isArray()) {
+                throw new RuntimeException("The command for cycle " + cycles[i] + " has no '" + batchField + "' array to batch.");
+            }
+            elements.addAll(cycleElements.asArray());
+        }
+        command.put(batchField, elements);
+        return command;
+    }
+
+    private static BsonDocument toBsonDocument(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, MongoSpace.CODEC_REGISTRY);
+    }
+
     @Override
     public Op apply(long cycle) {
         return mongoOpF.apply(cycle);
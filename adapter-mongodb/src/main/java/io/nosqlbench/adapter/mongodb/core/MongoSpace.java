@@ -34,6 +34,14 @@ import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
 import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
 
 public class MongoSpace implements NBNamedElement {
+    /**
+     * The codecs used for commands, which encode UUIDs in the standard representation
+     */
+    public final static CodecRegistry CODEC_REGISTRY = fromRegistries(
+        fromCodecs(new UuidCodec(UuidRepresentation.STANDARD)),
+        MongoClientSettings.getDefaultCodecRegistry()
+    );
+
     private final String name;
     private final NBConfiguration cfg;
     private final String connectionString;
@@ -63,14 +71,9 @@ public class MongoSpace implements NBNamedElement {
 
     public MongoClient createMongoClient(String connectionString) {
 
-        CodecRegistry codecRegistry = fromRegistries(
-            fromCodecs(new UuidCodec(UuidRepresentation.STANDARD)),
-            MongoClientSettings.getDefaultCodecRegistry()
-        );
-
         MongoClientSettings settings = MongoClientSettings.builder()
             .applyConnectionString(new ConnectionString(connectionString))
-            .codecRegistry(codecRegistry)
+            .codecRegistry(CODEC_REGISTRY)
             .uuidRepresentation(UuidRepresentation.STANDARD)
             .build();
         return MongoClients.create(settings);
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.mongodb.core;
+
+import io.nosqlbench.virtdata.core.templates.ParsedStringTemplate;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * <p>Compares the cost of producing the command for one cycle from a string statement,
+ * by rendering the statement and parsing it as before, or by substituting the values into
+ * a {@link BsonCommandTemplate}. The statement is an insert like the one in the
+ * mongodb-crud-basic workload, and the values are already bound, so only the cost
+ * of building the command is measured.</p>
+ *
+ * <p>Run the main method of this class to see the result with the GC profiler.</p>
+ */
+@State(Scope.Benchmark)
+public class BsonCommandTemplateBenchmark {
+
+    private final static String STMT = """
+        {
+          insert: "users",
+          writeConcern: { w: "majority" },
+          documents: [ {
+            "_id": "{key}",
+            "user_id": "{user_id}",
+            "created_on": {created_on},
+            "gender": "{gender}",
+            "full_name": "{full_name}",
+            "married": {married},
+            "address": {
+              "primary": { "city": "{city}", "cc": "US" },
+              "secondary": {}
+            },
+            "debt": {debt}
+          } ]
+        }""";
+
+    @Param({"parse", "template"})
+    public String path;
+
+    private LongFunction<Bson> commandF;
+
+    @State(Scope.Thread)
+    public static class Cycle {
+        long cycle;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Map<String, String> bindings = Map.of(
+            "key", "Identity()", "user_id", "ToHashedUUID()", "created_on", "Uniform(1262304000,1577836800)",
+            "gender", "WeightedStrings('M:10;F:10')", "full_name", "FullNames()", "married", "ModuloToBoolean()",
+            "city", "Cities()", "debt", "Uniform(0,100000)");
+        ParsedStringTemplate template = new ParsedStringTemplate(STMT, bindings);
+        LongFunction<Object[]> valuesF = l -> new Object[]{
+            l, "3b4f0c5e-7c1a-4d0e-9f45-" + l, 1262304000L + l, (l & 1) == 0 ? "M" : "F",
+            "Full Name " + l, (l & 1) == 0, "City " + (l & 63), l * 1.5d};
+
+        commandF = switch (path) {
+            case "parse" -> l -> Document.parse(render(template.getSpans(), valuesF.apply(l)));
+            case "template" -> BsonCommandTemplate.of(template, valuesF).orElseThrow()::apply;
+            default -> throw new RuntimeException("Unknown path '" + path + "'");
+        };
+    }
+
+    private static String render(String[] spans, Object[] values) {
+        StringBuilder sb = new StringBuilder(spans[0]);
+        for (int i = 1; i < spans.length; i += 2) {
+            sb.append(values[i / 2]).append(spans[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Fork(1)
+    public Bson command(Cycle state) {
+        return commandF.apply(state.cycle++);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(BsonCommandTemplateBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.mongodb.core;
+
+import io.nosqlbench.virtdata.core.templates.ParsedStringTemplate;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BsonCommandTemplateTest {
+
+    private final static Map<String, String> bindings = Map.of(
+        "key", "Identity()",
+        "name", "NumberNameToString()",
+        "price", "Normal(10.0D,2.0D)",
+        "married", "ModuloToBoolean()"
+    );
+
+    private static String render(ParsedStringTemplate template, Object[] values) {
+        String[] spans = template.getSpans();
+        StringBuilder sb = new StringBuilder(spans[0]);
+        for (int i = 1; i < spans.length; i += 2) {
+            sb.append(values[i / 2]).append(spans[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameAsParsed(String stmt, LongFunction<Object[]> values) {
+        ParsedStringTemplate template = new ParsedStringTemplate(stmt, bindings);
+        Optional<BsonCommandTemplate> commandTemplate = BsonCommandTemplate.of(template, values);
+        assertThat(commandTemplate).isPresent();
+        for (long cycle = 0; cycle < 10; cycle++) {
+            Bson bson = commandTemplate.get().apply(cycle);
+            assertThat(bson).isEqualTo(BsonDocument.parse(render(template, values.apply(cycle))));
+        }
+    }
+
+    @Test
+    public void testValuesAndStrings() {
+        assertSameAsParsed("""
+                {
+                  insert: "users",
+                  writeConcern: { w: "majority" },
+                  documents: [ {
+                    "_id": "{key}",
+                    "user_id": "user-{key}-{name}",
+                    "created_on": {key},
+                    "price": {price},
+                    "married": {married},
+                    "tags": [ "a", {key}, 'b' ]
+                  } ]
+                }""",
+            l -> new Object[]{l, l, "n" + l, l * 10_000_000_000L, l * 1.5d, l % 2 == 0, l});
+    }
+
+    @Test
+    public void testStringValuesAreParsed() {
+        assertSameAsParsed("{ find: \"users\", filter: {name} }",
+            l -> new Object[]{"{ \"name\": \"n" + l + "\" }"});
+    }
+
+    @Test
+    public void testStaticStatementIsParsedOnce() {
+        ParsedStringTemplate template = new ParsedStringTemplate("{ ping: 1 }", bindings);
+        BsonCommandTemplate commandTemplate = BsonCommandTemplate.of(template, l -> {
+            throw new RuntimeException("no values should be bound");
+        }).orElseThrow();
+        assertThat(commandTemplate.apply(1L)).isSameAs(commandTemplate.apply(2L));
+    }
+
+    @Test
+    public void testUnsupportedTemplatesAreParsedPerCycle() {
+        LongFunction<Object[]> values = l -> new Object[]{l};
+        assertThat(BsonCommandTemplate.of(new ParsedStringTemplate("{ value: NumberLong({key}) }", bindings), values)).isEmpty();
+        assertThat(BsonCommandTemplate.of(new ParsedStringTemplate("{ \"{name}\": 1 }", bindings), values)).isEmpty();
+        assertThat(BsonCommandTemplate.of(new ParsedStringTemplate("{name}", bindings), values)).isEmpty();
+    }
+
+    @Test
+    public void testTypedValues() {
+        assertThat(BsonCommandTemplate.toBsonValue(1L << 40)).isEqualTo(new BsonInt64(1L << 40));
+        assertThat(BsonCommandTemplate.toBsonValue(java.util.UUID.randomUUID()).isBinary()).isTrue();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.mongodb.core;
+
+import io.nosqlbench.engine.api.activityconfig.StatementsLoader;
+import io.nosqlbench.engine.api.activityconfig.yaml.OpTemplate;
+import io.nosqlbench.engine.api.templating.ParsedOp;
+import io.nosqlbench.nb.api.config.standard.NBConfiguration;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MongoOpDispenserTest {
+
+    private static MongoOpDispenser dispenserFor(String yaml) {
+        OpTemplate stmtDef = StatementsLoader.loadString(yaml, Map.of()).getStmts().get(0);
+        ParsedOp op = new ParsedOp(stmtDef, NBConfiguration.empty());
+        return new MongoOpDispenser(new MongodbDriverAdapter(), l -> null, op);
+    }
+
+    @Test
+    public void testInsertsAreBatchedIntoOneCommand() {
+        MongoOpDispenser dispenser = dispenserFor("""
+            ops:
+             insert1:
+              database: test
+              batch: true
+              stmt: |
+               { "insert": "items", "documents": [ { "_id": {key}, "name": "{name}" } ], "ordered": false }
+            bindings:
+             key: Identity()
+             name: NumberNameToString()
+            """);
+        assertThat(dispenser.isBatching()).isTrue();
+
+        BsonDocument command = dispenser.bindBatch(new long[]{1L, 2L, 3L});
+        assertThat(command).isEqualTo(BsonDocument.parse("""
+            { "insert": "items", "documents": [
+              { "_id": 1, "name": "one" }, { "_id": 2, "name": "two" }, { "_id": 3, "name": "three" }
+            ], "ordered": false }
+            """));
+    }
+
+    @Test
+    public void testOtherCommandsAreNotBatched() {
+        String find = """
+            ops:
+             find1:
+              database: test
+              batch: true
+              stmt: |
+               { "find": "items", "filter": { "_id": {key} } }
+            bindings:
+             key: Identity()
+            """;
+        assertThat(dispenserFor(find).isBatching()).isFalse();
+        assertThat(dispenserFor(find.replace("find", "insert").replace("\"filter\"", "\"documents\"")
+            .replace("batch: true", "batch: false")).isBatching()).isFalse();
+    }
+}
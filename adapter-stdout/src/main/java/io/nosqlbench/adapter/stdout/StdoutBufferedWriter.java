@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.stdout;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>A writer for the stdout adapter which is meant for generating data sets, where
+ * flushing each op as it is written would limit the output rate to the rate of syscalls.</p>
+ *
+ * <p>Each thread encodes its text into its own buffer, without any locking. When a buffer
+ * is full, or when it has held text for longer than the flush interval, it is handed to a
+ * single background writer over a lock-free queue, and the thread takes a recycled buffer to
+ * continue with. The text of one write is never split across buffers, so lines from different
+ * threads are not interleaved. A bounded number of buffers may be waiting for the writer,
+ * so threads are only held up when the output can not keep up.</p>
+ *
+ * <p>Without compression, buffers are direct, and files are written with a {@link FileChannel}.
+ * With gzip compression, the writer compresses the output as it writes it.</p>
+ *
+ * <p>Text which is still in a thread's buffer is only written at the next write from that
+ * thread after the flush interval, or when the writer is closed. This must only be closed
+ * once all writing threads are done.</p>
+ */
+public class StdoutBufferedWriter implements AutoCloseable {
+
+    private final static Logger logger = LogManager.getLogger(StdoutBufferedWriter.class);
+
+    public enum Compression {
+        none,
+        gzip
+    }
+
+    private final static int BUFFERS_IN_FLIGHT = 32;
+    private final static long BACKPRESSURE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final String name;
+    private final int bufferSize;
+    private final long flushIntervalNanos;
+    private final Compression compression;
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+    private final OutputStream compressedStream;
+
+    private final Queue<ByteBuffer> filledBuffers = new ConcurrentLinkedQueue<>();
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffersInFlight = new AtomicInteger();
+    private final Queue<ThreadBuffer> threadBuffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ThreadBuffer> threadBuffer = ThreadLocal.withInitial(this::newThreadBuffer);
+    private final Thread writerThread;
+    private volatile boolean closing;
+    private volatile Throwable writerError;
+    private long bytesWritten;
+
+    /**
+     * @param filename        The name of the output file, or {@code stdout}
+     * @param bufferSize      The size of each thread's buffer in bytes
+     * @param flushIntervalMs The longest time that a thread holds text before it hands its buffer to the writer
+     * @param compression     The compression to apply to the output
+     */
+    public StdoutBufferedWriter(String filename, int bufferSize, long flushIntervalMs, Compression compression) {
+        if (bufferSize < 1) {
+            throw new RuntimeException("buffersize must be at least one byte, but it is " + bufferSize);
+        }
+        this.name = filename;
+        this.bufferSize = bufferSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.compression = compression;
+        try {
+            if (filename.equalsIgnoreCase("stdout")) {
+                this.channel = Channels.newChannel(System.out);
+                this.closeChannel = false;
+            } else {
+                this.channel = FileChannel.open(Path.of(filename),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                this.closeChannel = true;
+            }
+            this.compressedStream = compression == Compression.gzip
+                ? new GZIPOutputStream(Channels.newOutputStream(channel), bufferSize)
+                : null;
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening " + filename + " for buffered output: " + e, e);
+        }
+        this.writerThread = new Thread(this::writeBuffers, "stdout-writer:" + Path.of(filename).getFileName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Buffer some text to be written. The text is written as a whole, after any text which
+     * this thread has written before it.
+     *
+     * @param text The text to write
+     */
+    public void write(String text) {
+        if (closing) {
+            throw new RuntimeException("Unable to write to " + this + " after it was closed.");
+        }
+        threadBuffer.get().append(text);
+    }
+
+    private ThreadBuffer newThreadBuffer() {
+        ThreadBuffer buffer = new ThreadBuffer();
+        threadBuffers.add(buffer);
+        return buffer;
+    }
+
+    private ByteBuffer takeBuffer(int minimumSize) {
+        if (minimumSize > bufferSize) {
+            return allocate(minimumSize);
+        }
+        ByteBuffer buffer = freeBuffers.poll();
+        return buffer != null ? buffer : allocate(bufferSize);
+    }
+
+    private ByteBuffer allocate(int size) {
+        // The compressor reads from arrays, and channels write most efficiently from direct buffers
+        return compression == Compression.none ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    private void handoff(ByteBuffer buffer) {
+        checkWriter();
+        buffer.flip();
+        // This bound is approximate, since several threads may pass the check at once
+        while (buffersInFlight.get() >= BUFFERS_IN_FLIGHT) {
+            LockSupport.parkNanos(BACKPRESSURE_PARK_NANOS);
+            checkWriter();
+        }
+        buffersInFlight.incrementAndGet();
+        filledBuffers.add(buffer);
+        LockSupport.unpark(writerThread);
+    }
+
+    private void checkWriter() {
+        Throwable error = writerError;
+        if (error != null) {
+            throw new RuntimeException("The buffered writer for " + name + " failed: " + error, error);
+        }
+    }
+
+    private final class ThreadBuffer {
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer buffer = takeBuffer(bufferSize);
+        private long firstWriteAt;
+
+        void append(String text) {
+            if (buffer.position() == 0) {
+                firstWriteAt = System.nanoTime();
+            }
+            if (!appendAscii(text)) {
+                appendEncoded(text);
+            }
+            if (!buffer.hasRemaining() || System.nanoTime() - firstWriteAt >= flushIntervalNanos) {
+                flush();
+            }
+        }
+
+        /**
+         * Copy the text as bytes if it is all ASCII, which is the common case for generated data.
+         *
+         * @return false if the text is not ASCII, in which case nothing is copied
+         */
+        private boolean appendAscii(String text) {
+            int length = text.length();
+            if (length > buffer.remaining()) {
+                if (length > bufferSize) {
+                    return false;
+                }
+                flush();
+            }
+            int start = buffer.position();
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    buffer.position(start);
+                    return false;
+                }
+                buffer.put((byte) c);
+            }
+            return true;
+        }
+
+        private void appendEncoded(String text) {
+            // Every char takes at most 3 bytes in UTF-8, as a surrogate pair takes 4
+            int maxBytes = text.length() * 3;
+            if (maxBytes > buffer.remaining()) {
+                flush();
+                if (maxBytes > buffer.remaining()) {
+                    freeBuffers.add(buffer);
+                    buffer = takeBuffer(maxBytes);
+                }
+            }
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(text), buffer, true);
+            encoder.flush(buffer);
+        }
+
+        void flush() {
+            if (buffer.position() > 0) {
+                handoff(buffer);
+                buffer = takeBuffer(bufferSize);
+                firstWriteAt = System.nanoTime();
+            }
+        }
+    }
+
+    private void writeBuffers() {
+        try {
+            while (true) {
+                ByteBuffer buffer = filledBuffers.poll();
+                if (buffer == null) {
+                    if (!closing) {
+                        LockSupport.parkNanos(this, flushIntervalNanos);
+                        continue;
+                    }
+                    // Buffers which were handed off before closing are visible now
+                    buffer = filledBuffers.poll();
+                    if (buffer == null) {
+                        break;
+                    }
+                }
+                write(buffer);
+                buffersInFlight.decrementAndGet();
+                if (buffer.capacity() == bufferSize) {
+                    freeBuffers.add(buffer.clear());
+                }
+            }
+            if (compressedStream != null) {
+                ((GZIPOutputStream) compressedStream).finish();
+                compressedStream.flush();
+            }
+            if (closeChannel) {
+                channel.close();
+            } else {
+                System.out.flush();
+            }
+        } catch (Throwable t) {
+            logger.error("Error while writing " + name + ": " + t, t);
+            writerError = t;
+            filledBuffers.clear();
+            buffersInFlight.set(0);
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        bytesWritten += buffer.remaining();
+        if (compressedStream != null) {
+            compressedStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Hand off all thread buffers and wait for the writer to write them.
+     */
+    @Override
+    public synchronized void close() throws InterruptedException {
+        if (closing) {
+            return;
+        }
+        for (ThreadBuffer buffer : threadBuffers) {
+            buffer.flush();
+        }
+        closing = true;
+        LockSupport.unpark(writerThread);
+        writerThread.join();
+        logger.debug(() -> "closed " + this + " after writing " + bytesWritten + " bytes");
+        checkWriter();
+    }
+
+    @Override
+    public String toString() {
+        return "StdoutBufferedWriter{" +
+            "file=" + name +
+            ", buffersize=" + bufferSize +
+            ", compression=" + compression +
+            '}';
+    }
+}
@@ -36,7 +36,7 @@ import java.util.function.Function;
 import java.util.regex.Pattern;
 
 @Service(value= DriverAdapter.class,selector = "stdout")
-public class StdoutDriverAdapter extends BaseDriverAdapter<StdoutOp, StdoutSpace> implements SyntheticOpTemplateProvider {
+public class StdoutDriverAdapter extends BaseDriverAdapter<StdoutOp, StdoutSpace> implements SyntheticOpTemplateProvider, AutoCloseable {
     private final static Logger logger = LogManager.getLogger(StdoutDriverAdapter.class);
 
     @Override
@@ -57,6 +57,13 @@ public class StdoutDriverAdapter extends BaseDriverAdapter<StdoutOp, StdoutSpace
             .add(StdoutSpace.getConfigModel());
     }
 
+    @Override
+    public void close() throws Exception {
+        for (StdoutSpace space : getSpaceCache().getElements()) {
+            space.close();
+        }
+    }
+
     @Override
     public List<OpTemplate> getSyntheticOpTemplates(StmtsDocList stmtsDocList, Map<String,Object> cfg) {
         Set<String> activeBindingNames = new LinkedHashSet<>();
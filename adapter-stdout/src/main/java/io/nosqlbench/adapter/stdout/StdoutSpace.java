@@ -20,22 +20,41 @@ import io.nosqlbench.nb.api.config.standard.ConfigModel;
 import io.nosqlbench.nb.api.config.standard.NBConfigModel;
 import io.nosqlbench.nb.api.config.standard.NBConfiguration;
 import io.nosqlbench.nb.api.config.standard.Param;
+import io.nosqlbench.engine.api.util.Unit;
 
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.io.Writer;
 
-public class StdoutSpace {
+public class StdoutSpace implements AutoCloseable {
 
     Writer writer;
     private PrintWriter console;
+    private StdoutBufferedWriter bufferedWriter;
 
     public StdoutSpace(NBConfiguration cfg) {
         String filename = cfg.get("filename");
-        this.writer = createPrintWriter(filename);
+        if (cfg.get("buffered", Boolean.class)) {
+            String buffersize = cfg.get("buffersize");
+            String flushinterval = cfg.get("flushinterval");
+            this.bufferedWriter = new StdoutBufferedWriter(
+                filename,
+                Unit.bytesFor(buffersize).orElseThrow(
+                    () -> new RuntimeException("Unable to parse buffersize '" + buffersize + "'")).intValue(),
+                Unit.msFor(flushinterval).orElseThrow(
+                    () -> new RuntimeException("Unable to parse flushinterval '" + flushinterval + "'")),
+                StdoutBufferedWriter.Compression.valueOf(cfg.get("compression"))
+            );
+        } else {
+            this.writer = createPrintWriter(filename);
+        }
     }
 
     public void writeflush(String text) {
+        if (bufferedWriter != null) {
+            bufferedWriter.write(text);
+            return;
+        }
         try {
             writer.write(text);
             writer.flush();
@@ -70,6 +89,24 @@ public class StdoutSpace {
                 Param.defaultTo("newline",true)
                     .setDescription("whether to automatically add a missing newline to the end of any output\n")
             )
+            .add(
+                Param.defaultTo("buffered",false)
+                    .setDescription("whether to buffer the output of each thread, and write it with a background writer\n" +
+                        "instead of flushing each op as it is written. This is much faster for generating data sets.")
+            )
+            .add(
+                Param.defaultTo("buffersize","64KB")
+                    .setDescription("the size of each thread's buffer, when buffered=true")
+            )
+            .add(
+                Param.defaultTo("flushinterval","1s")
+                    .setDescription("the longest time that a thread holds buffered output before it is written, when buffered=true")
+            )
+            .add(
+                Param.defaultTo("compression","none")
+                    .setRegex("none|gzip")
+                    .setDescription("the compression to apply to the output, when buffered=true")
+            )
             .add(
                 Param.optional("format")
                     .setRegex("csv|readout|json|inlinejson|assignments|diag")
@@ -88,6 +125,15 @@ public class StdoutSpace {
             .asReadOnly();
     }
 
+    @Override
+    public void close() throws Exception {
+        if (bufferedWriter != null) {
+            bufferedWriter.close();
+        } else if (writer != null) {
+            writer.flush();
+        }
+    }
+
     public synchronized PrintWriter getConsoleOut() {
         if (this.console == null) {
             this.console = new PrintWriter(System.out);
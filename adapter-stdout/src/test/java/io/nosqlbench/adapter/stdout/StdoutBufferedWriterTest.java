@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.adapter.stdout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StdoutBufferedWriterTest {
+
+    private static String lineFor(int thread, int line) {
+        // Some lines are not ASCII, and some are longer than the buffer
+        return switch (line % 100) {
+            case 7 -> "thread " + thread + " line " + line + " naïve café\n";
+            case 42 -> "thread " + thread + " line " + line + " " + "x".repeat(300) + "\n";
+            default -> "thread " + thread + " line " + line + "\n";
+        };
+    }
+
+    private static List<String> writeConcurrently(StdoutBufferedWriter writer, int threads, int lines) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            for (int line = 0; line < lines; line++) {
+                expected.add(lineFor(thread, line).trim());
+            }
+            futures.add(executor.submit(() -> {
+                for (int line = 0; line < lines; line++) {
+                    writer.write(lineFor(thread, line));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        writer.close();
+        return expected;
+    }
+
+    @Test
+    public void testLinesAreWrittenWhole(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("out.txt");
+        StdoutBufferedWriter writer = new StdoutBufferedWriter(file.toString(), 256, 1000, StdoutBufferedWriter.Compression.none);
+        List<String> expected = writeConcurrently(writer, 8, 5000);
+
+        List<String> written = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(written).containsExactlyInAnyOrderElementsOf(expected);
+        // The lines of each thread are in order
+        for (int t = 0; t < 8; t++) {
+            String prefix = "thread " + t + " ";
+            List<String> threadLines = written.stream().filter(l -> l.startsWith(prefix)).toList();
+            for (int line = 0; line < threadLines.size(); line++) {
+                assertThat(threadLines.get(line)).isEqualTo(lineFor(t, line).trim());
+            }
+        }
+    }
+
+    @Test
+    public void testGzipOutput(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("out.txt.gz");
+        StdoutBufferedWriter writer = new StdoutBufferedWriter(file.toString(), 4096, 1000, StdoutBufferedWriter.Compression.gzip);
+        List<String> expected = writeConcurrently(writer, 4, 2000);
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(Arrays.asList(text.split("\n"))).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+}
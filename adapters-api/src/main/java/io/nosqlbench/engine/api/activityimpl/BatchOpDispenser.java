@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nosqlbench.engine.api.activityimpl;
+
+/**
+ * <p>
+ * <H2>Synopsis</H2>
+ * A BatchOpDispenser is an {@link OpDispenser} which can also synthesize a single
+ * composite operation for a group of cycles. This allows a driver adapter to use
+ * the native batching facilities of its API, like unlogged batches, bulk inserts,
+ * or bulk request bodies, with one op covering several cycles.</p>
+ *
+ * <p>
+ * <H2>Cycle Grouping</H2>
+ * When an activity runs with a stride greater than one, the motor provides all of
+ * the cycles in a stride to the action together. Consecutive cycles in that stride
+ * which are mapped to the same batching dispenser by the op sequence are passed to
+ * {@link #applyBatch(long[])} as one group. The resulting op is executed, timed, and
+ * retried as a single op, and its result code is recorded for each cycle in the group.
+ * Cycles which are mapped to other dispensers are executed one at a time as usual.</p>
+ *
+ * <p>
+ * <H2>Adapter Support</H2>
+ * When an op sets {@code batch: true}, the cqld4 adapter sends prepared statements as unlogged
+ * batches, the dynamodb adapter puts items with BatchWriteItem, the mongodb adapter batches
+ * insert, update and delete commands, and the http adapter sends the bodies in one request.
+ * Ops of other adapters, and other op types of these adapters, are dispatched one per cycle
+ * even when the stride is greater than one.</p>
+ *
+ * @param <T> The parameter type of the actual operation, as with {@link OpDispenser}
+ */
+public interface BatchOpDispenser<T> extends OpDispenser<T> {
+
+    /**
+     * Create one composite operation which does the work of all the given cycles.
+     * As with {@link #apply(long)}, the op should be executable multiple times for retries.
+     *
+     * @param cycles The cycle numbers which serve as the seeds for the generated op fields
+     *               of each element in the batch, in order. This array is only valid during the call.
+     * @return an executable operation for all given cycles
+     */
+    T applyBatch(long[] cycles);
+
+    /**
+     * Dispensers may decide whether to batch based on their op template, for example when
+     * a batch size or batch type is only configured for some ops.
+     *
+     * @return true if {@link #applyBatch(long[])} should be used for this dispenser
+     */
+    default boolean isBatching() {
+        return true;
+    }
+}
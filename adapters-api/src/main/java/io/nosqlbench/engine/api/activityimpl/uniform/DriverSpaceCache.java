@@ -16,6 +16,7 @@
 
 package io.nosqlbench.engine.api.activityimpl.uniform;
 
+import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
@@ -64,4 +65,11 @@ public class DriverSpaceCache<S> {
         return cache.computeIfAbsent(name, newSpaceFunction);
     }
 
+    /**
+     * @return All the spaces which have been created so far
+     */
+    public Collection<S> getElements() {
+        return cache.values();
+    }
+
 }
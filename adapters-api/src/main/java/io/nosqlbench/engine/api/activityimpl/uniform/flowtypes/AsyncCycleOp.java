@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityimpl.uniform.flowtypes;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>An AsyncCycleOp is the asynchronous form of a {@link CycleOp}. Instead of
+ * blocking the calling thread until the operation is complete, it returns a
+ * {@link CompletionStage} which is completed by the native driver when the
+ * result is available.</p>
+ *
+ * <p>When an activity is run with the <em>async</em> parameter, these ops are
+ * dispatched without pinning a motor thread for the round trip. The number of
+ * ops in flight per thread is bounded by the async setting divided across threads.
+ * When an activity is run without the async parameter, these ops are simply
+ * awaited on the calling thread.</p>
+ *
+ * <p>An op may implement this along with one of the synchronous op types, like
+ * {@link CycleOp} or {@link RunnableOp}. The synchronous form is then used when the
+ * activity is run without the async parameter, and this form is used with it.</p>
+ *
+ * @param <T> The native result type of the underlying driver
+ */
+public interface AsyncCycleOp<T> extends Op {
+
+    /**
+     * <p>Start an action for the given cycle. The cycle
+     * value is only to be used for anecdotal presentation.</p>
+     * @param value The cycle value for which an operation is run
+     * @return A completion stage which yields the native result type for the underlying driver.
+     */
+    CompletionStage<T> applyAsync(long value);
+
+}
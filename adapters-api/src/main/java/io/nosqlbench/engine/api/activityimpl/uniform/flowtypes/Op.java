@@ -26,6 +26,8 @@ package io.nosqlbench.engine.api.activityimpl.uniform.flowtypes;
  *  <li>{@link CycleOp}</li> - An interface that will called if there is nothing to consume
  *  the result type from your operation. In some cases preparing a result body to
  *  hand down the chain is more costly, so implementing this interface allows ...
+ *  <li>{@link AsyncCycleOp}</li> - An interface for ops which complete asynchronously, and
+ *  which can be kept in flight without blocking a thread when the activity is run with async.
  * </ul>
  *
  * either {@link CycleOp} or {@link ChainingOp} (but not both!)
@@ -20,6 +20,7 @@ import io.nosqlbench.engine.api.activityconfig.yaml.OpTemplate;
 import io.nosqlbench.engine.api.templating.binders.ArrayBinder;
 import io.nosqlbench.engine.api.templating.binders.ListBinder;
 import io.nosqlbench.engine.api.templating.binders.OrderedMapBinder;
+import io.nosqlbench.engine.api.templating.binders.PositionalBinder;
 import io.nosqlbench.nb.api.config.fieldreaders.DynamicFieldReader;
 import io.nosqlbench.nb.api.config.fieldreaders.StaticFieldReader;
 import io.nosqlbench.nb.api.config.standard.NBConfiguration;
@@ -674,6 +675,29 @@ public class ParsedOp implements LongFunction<Map<String, ?>>, StaticFieldReader
         return tmap.newArrayBinder(fields);
     }
 
+    /**
+     * @param fields The ordered field names for which the {@link PositionalBinder} will be created
+     * @return a new {@link PositionalBinder} which can fill a reusable {@link Object} array from a long input.
+     */
+    public PositionalBinder newPositionalBinder(String... fields) {
+        return tmap.newPositionalBinder(fields);
+    }
+
+    /**
+     * @param fields The ordered field names for which the {@link PositionalBinder} will be created
+     * @return a new {@link PositionalBinder} which can fill a reusable {@link Object} array from a long input.
+     */
+    public PositionalBinder newPositionalBinder(List<String> fields) {
+        return tmap.newPositionalBinder(fields);
+    }
+
+    /**
+     * @return a new {@link PositionalBinder} for all static and dynamic op fields, in the order they were defined
+     */
+    public PositionalBinder compile() {
+        return tmap.compile();
+    }
+
     /**
      * @param bindPoints The {@link BindPoint}s for which the {@link ArrayBinder} will be created
      * @return a new {@link ArrayBinder} which can produce a {@link Object} array from a long input.
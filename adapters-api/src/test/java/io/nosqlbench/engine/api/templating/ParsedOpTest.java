@@ -20,6 +20,7 @@ import io.nosqlbench.engine.api.activityconfig.StatementsLoader;
 import io.nosqlbench.engine.api.activityconfig.yaml.OpData;
 import io.nosqlbench.engine.api.activityconfig.yaml.OpTemplate;
 import io.nosqlbench.engine.api.activityconfig.yaml.StmtsDocList;
+import io.nosqlbench.engine.api.templating.binders.PositionalBinder;
 import io.nosqlbench.nb.api.config.standard.ConfigModel;
 import io.nosqlbench.nb.api.config.standard.NBConfiguration;
 import io.nosqlbench.nb.api.config.standard.Param;
@@ -139,6 +140,16 @@ public class ParsedOpTest {
         assertThat(objects).isEqualTo(List.of("one", 1L, "one", 1L));
     }
 
+    @Test
+    public void testNewListBinderListsAreMutable() {
+        LongFunction<List<Object>> lb = pc.newListBinder("dyna1", "identity");
+        List<Object> objects = lb.apply(1);
+        objects.add("extra");
+        objects.remove(0);
+        assertThat(objects).isEqualTo(List.of(1L, "extra"));
+        assertThat(lb.apply(1)).isEqualTo(List.of("one", 1L));
+    }
+
     @Test
     public void testNewMapBinder() {
         LongFunction<Map<String, Object>> mb = pc.newOrderedMapBinder("dyna1", "identity", "dyna2");
@@ -153,5 +164,27 @@ public class ParsedOpTest {
         assertThat(objects).isEqualTo(new Object[]{"three", "three", 3L, 3L});
     }
 
+    @Test
+    public void testPositionalBinderReusesRecord() {
+        PositionalBinder pb = pc.newPositionalBinder("stmt", "dyna1", "identity");
+        assertThat(pb.indexOf("identity")).isEqualTo(2);
+        Object[] record = pb.newRecord();
+        assertThat(pb.bind(4, record)).isSameAs(record);
+        assertThat(record).isEqualTo(new Object[]{"test", "four", 4L});
+        pb.bind(5, record);
+        assertThat(record).isEqualTo(new Object[]{"test", "five", 5L});
+    }
+
+    @Test
+    public void testCompiledTemplate() {
+        PositionalBinder compiled = pc.compile();
+        Object[] record = compiled.apply(6);
+        Map<String, ?> map = pc.apply(6);
+        for (String field : compiled.getFields()) {
+            assertThat(record[compiled.indexOf(field)]).isEqualTo(map.get(field));
+        }
+        assertThat(compiled.size()).isEqualTo(map.size());
+    }
+
 
 }
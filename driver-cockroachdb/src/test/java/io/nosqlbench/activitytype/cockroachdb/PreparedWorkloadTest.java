@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.activitytype.cockroachdb;
+
+import io.nosqlbench.activitytype.jdbc.impl.ReadyJDBCOp;
+import io.nosqlbench.engine.api.activityconfig.StatementsLoader;
+import io.nosqlbench.engine.api.activityconfig.yaml.OpTemplate;
+import io.nosqlbench.virtdata.core.templates.ParsedStringTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PreparedWorkloadTest {
+
+    private static List<OpTemplate> ops(String workload) {
+        return StatementsLoader.loadPath(null, "activities/" + workload, "src/main/resources").getStmts();
+    }
+
+    private static OpTemplate op(String workload, String name) {
+        return ops(workload).stream().filter(o -> o.getName().endsWith(name)).findFirst().orElseThrow();
+    }
+
+    /**
+     * A connection which prepares statements with the given parameter types, and records the
+     * parameters set on them as index to {value, type}.
+     */
+    private static Connection connection(Map<Integer, Object[]> parameters, int... types) {
+        ParameterMetaData metadata = (ParameterMetaData) Proxy.newProxyInstance(
+            ParameterMetaData.class.getClassLoader(), new Class[]{ParameterMetaData.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getParameterCount" -> types.length;
+                case "getParameterType" -> types[(int) args[0] - 1];
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(), new Class[]{PreparedStatement.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getParameterMetaData" -> metadata;
+                case "setObject" -> parameters.put((int) args[0], new Object[]{args[1], args[2]});
+                case "setNull" -> parameters.put((int) args[0], new Object[]{null, args[1]});
+                case "close" -> null;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class[]{Connection.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("prepareStatement")) {
+                    return statement;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    @Test
+    public void testShippedStatementsHaveOneParameterPerBindPoint() {
+        for (String workload : List.of("cockroachdb-basic", "postgres-basic")) {
+            List<OpTemplate> ops = ops(workload);
+            assertThat(ops).isNotEmpty();
+            for (OpTemplate op : ops) {
+                String sql = new ReadyJDBCOp(op).getPreparedSql();
+                int bindPoints = new ParsedStringTemplate(op.getStmt().orElseThrow(), op.getBindings()).getBindPoints().size();
+                assertThat(sql).as(op.getName()).doesNotContain("'?'").doesNotContain("{");
+                assertThat(sql.chars().filter(c -> c == '?').count()).as(sql).isEqualTo(bindPoints);
+            }
+        }
+        assertThat(new ReadyJDBCOp(op("cockroachdb-basic", "rampup-insert")).getPreparedSql())
+            .contains("(code, amount) VALUES (?, ?)");
+        assertThat(new ReadyJDBCOp(op("postgres-basic", "rampup-insert")).getPreparedSql())
+            .contains("VALUES (?, ?, 'us_cents', ?, ?, ?)");
+    }
+
+    @Test
+    public void testValuesAreSetForTheirColumnTypes() throws Exception {
+        Map<Integer, Object[]> parameters = new TreeMap<>();
+        ReadyJDBCOp cockroachInsert = new ReadyJDBCOp(op("cockroachdb-basic", "rampup-insert"));
+        PreparedStatement statement = cockroachInsert.prepare(connection(parameters, Types.VARCHAR, Types.INTEGER));
+        cockroachInsert.setParameters(statement, 5L);
+        // code STRING is bound from an int, and amount INTEGER from a String
+        assertThat(parameters.get(1)).containsExactly(5, Types.VARCHAR);
+        assertThat(parameters.get(2)[0]).isInstanceOf(String.class);
+        assertThat(parameters.get(2)[1]).isEqualTo(Types.INTEGER);
+
+        parameters.clear();
+        ReadyJDBCOp postgresInsert = new ReadyJDBCOp(op("postgres-basic", "rampup-insert"));
+        statement = postgresInsert.prepare(connection(parameters,
+            Types.OTHER, Types.INTEGER, Types.TIMESTAMP, Types.TIMESTAMP, Types.VARCHAR));
+        postgresInsert.setParameters(statement, 5L);
+        assertThat(parameters).hasSize(5);
+        assertThat(parameters.get(1)[0]).isInstanceOf(UUID.class);
+        assertThat(parameters.get(2)[0]).isInstanceOf(Integer.class);
+        // timestamps which are not JDBC types are left to the database to convert from text
+        assertThat(parameters.get(3)[0]).isInstanceOf(String.class);
+        assertThat(parameters.get(3)[1]).isEqualTo(Types.OTHER);
+        assertThat(parameters.get(5)[1]).isEqualTo(Types.VARCHAR);
+    }
+
+    @Test
+    public void testParameterCountIsChecked() {
+        ReadyJDBCOp insert = new ReadyJDBCOp(op("cockroachdb-basic", "rampup-insert"));
+        assertThatThrownBy(() -> insert.prepare(connection(new TreeMap<>(), Types.VARCHAR)))
+            .hasMessageContaining("has 1 parameters, but there are 2 bind points");
+    }
+
+    @Test
+    public void testBindPointsWithinLiteralsAreRejected() {
+        OpTemplate op = StatementsLoader.loadString("""
+            bindings:
+              id: ToString()
+            ops:
+              partial: "SELECT * FROM t WHERE id = 'id-{id}'"
+            """, Map.of()).getStmts().get(0);
+        ReadyJDBCOp partial = new ReadyJDBCOp(op);
+        assertThat(partial.apply(3L)).isEqualTo("SELECT * FROM t WHERE id = 'id-3'");
+        assertThatThrownBy(partial::getPreparedSql).hasMessageContaining("{id} is within a quoted literal");
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.logging.log4j.Logger;
 
 import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.util.Optional;
 import java.util.function.Function;
 
 // This should not be exposed as as service directly unless it can
@@ -43,6 +44,8 @@ public abstract class JDBCActivity extends SimpleActivity {
     private Histogram triesHisto;
     private int maxTries;
     private int minRetryDelayMs;
+    private boolean prepared;
+    private boolean batching;
 
     protected DataSource dataSource;
     protected OpSequence<OpDispenser<? extends String>> opSequence;
@@ -63,6 +66,8 @@ public abstract class JDBCActivity extends SimpleActivity {
 
         this.maxTries = getParams().getOptionalInteger("maxtries").orElse(3);
         this.minRetryDelayMs = getParams().getOptionalInteger("minretrydelayms").orElse(200);
+        this.prepared = getParams().getOptionalBoolean("prepared").orElse(false);
+        this.batching = getParams().getOptionalBoolean("batch").orElse(false);
 
         LOGGER.debug("initializing data source");
         dataSource = newDataSource();
@@ -88,7 +93,7 @@ public abstract class JDBCActivity extends SimpleActivity {
         resultSuccessTimer = ActivityMetrics.timer(getActivityDef(), "result-success", this.getHdrDigits());
         triesHisto = ActivityMetrics.histogram(getActivityDef(), "tries", this.getHdrDigits());
 
-        opSequence = createOpSequence(ReadyJDBCOp::new,false);
+        opSequence = createOpSequence(ReadyJDBCOp::new, false, Optional.empty());
         setDefaultsFromOpSequence(opSequence);
 
         onActivityDefUpdate(getActivityDef());
@@ -106,7 +111,6 @@ public abstract class JDBCActivity extends SimpleActivity {
         return sb.toString();
     }
 
-    @Override
     public Function<Throwable, String> getErrorNameMapper() {
         return this::errorNameMapper;
     }
@@ -119,6 +123,20 @@ public abstract class JDBCActivity extends SimpleActivity {
         return this.minRetryDelayMs;
     }
 
+    /**
+     * @return true if ops are run as prepared statements, which are cached for each connection
+     */
+    public boolean isPrepared() {
+        return this.prepared;
+    }
+
+    /**
+     * @return true if the ops in each stride are run as JDBC batches
+     */
+    public boolean isBatching() {
+        return this.batching;
+    }
+
     public DataSource getDataSource() {
         return dataSource;
     }
@@ -18,7 +18,7 @@ package io.nosqlbench.activitytype.jdbc.impl;
 
 import com.codahale.metrics.Timer;
 import io.nosqlbench.activitytype.jdbc.api.JDBCActivity;
-import io.nosqlbench.engine.api.activityapi.core.SyncAction;
+import io.nosqlbench.engine.api.activityapi.core.BatchSyncAction;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorDetail;
 import io.nosqlbench.engine.api.activityapi.planning.OpSequence;
 import io.nosqlbench.engine.api.activityimpl.OpDispenser;
@@ -26,47 +26,169 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.function.LongFunction;
 
-public class JDBCAction implements SyncAction {
+/**
+ * <p>Runs JDBC ops, either as plain statements with the values interpolated into the
+ * statement text, or as prepared statements with the values set as parameters.</p>
+ *
+ * <p>Plain statements use a connection from the data source for each try. In prepared mode,
+ * each action keeps its own connection, and prepares each op only once on it. The connection
+ * and its prepared statements are discarded after any error, so that the next try starts
+ * with a new connection.</p>
+ *
+ * <p>In batch mode, consecutive cycles of the same op within a stride are run as one JDBC
+ * batch, and they are retried or failed together.</p>
+ */
+public class JDBCAction implements BatchSyncAction {
     private static final Logger LOGGER = LogManager.getLogger(JDBCAction.class);
 
     private final JDBCActivity activity;
+    private final boolean prepared;
+    private final boolean batching;
     private OpSequence<OpDispenser<? extends String>> sequencer;
 
+    private Connection connection;
+    private final Map<ReadyJDBCOp, PreparedStatement> statements = new IdentityHashMap<>();
+    private OpDispenser<?>[] strideOps = new OpDispenser<?>[0];
+
     public JDBCAction(JDBCActivity a, int slot) {
         activity = a;
+        prepared = a.isPrepared();
+        batching = a.isBatching();
     }
 
     @Override
     public void init() {
         sequencer = activity.getOpSequence();
+        if (prepared) {
+            activity.registerAutoCloseable(this::discardConnection);
+        }
+    }
+
+    @Override
+    public boolean isBatching() {
+        return batching;
     }
 
     @Override
     public int runCycle(long cycle) {
-        String boundStmt;
+        OpDispenser<? extends String> unboundStmt = sequencer.apply(cycle);
 
-        LongFunction<? extends String> unboundStmt = sequencer.apply(cycle);
+        if (prepared) {
+            ReadyJDBCOp op = readyOp(unboundStmt);
+            return execute(cycle, conn -> {
+                PreparedStatement statement = prepare(conn, op);
+                try (Timer.Context bindTime = activity.getBindTimer().time()) {
+                    op.setParameters(statement, cycle);
+                }
+                statement.execute();
+            });
+        }
 
+        String boundStmt;
         try (Timer.Context bindTime = activity.getBindTimer().time()) {
             boundStmt = unboundStmt.apply(cycle);
         }
+        return execute(cycle, conn -> {
+            try (Statement jdbcStmt = conn.createStatement()) {
+                jdbcStmt.execute(boundStmt);
+            }
+        });
+    }
+
+    @Override
+    public int runCycles(long[] cycles, int count, int[] results) {
+        if (strideOps.length < count) {
+            strideOps = new OpDispenser<?>[count];
+        }
+        for (int i = 0; i < count; i++) {
+            strideOps[i] = sequencer.apply(cycles[i]);
+        }
+
+        int start = 0;
+        while (start < count) {
+            OpDispenser<?> op = strideOps[start];
+            int end = start + 1;
+            while (end < count && strideOps[end] == op) {
+                end++;
+            }
+            if (end - start == 1) {
+                results[start] = runCycle(cycles[start]);
+            } else {
+                int from = start;
+                int to = end;
+                int result = prepared
+                    ? execute(cycles[from], conn -> executePreparedBatch(conn, readyOp(op), cycles, from, to))
+                    : execute(cycles[from], conn -> executeBatch(conn, op, cycles, from, to));
+                for (int i = from; i < to; i++) {
+                    results[i] = result;
+                }
+            }
+            start = end;
+        }
+        return count;
+    }
+
+    private void executePreparedBatch(Connection conn, ReadyJDBCOp op, long[] cycles, int from, int to) throws SQLException {
+        PreparedStatement statement = prepare(conn, op);
+        try (Timer.Context bindTime = activity.getBindTimer().time()) {
+            for (int i = from; i < to; i++) {
+                op.setParameters(statement, cycles[i]);
+                statement.addBatch();
+            }
+        }
+        statement.executeBatch();
+    }
+
+    private void executeBatch(Connection conn, OpDispenser<?> op, long[] cycles, int from, int to) throws SQLException {
+        try (Statement jdbcStmt = conn.createStatement()) {
+            try (Timer.Context bindTime = activity.getBindTimer().time()) {
+                for (int i = from; i < to; i++) {
+                    jdbcStmt.addBatch(op.apply(cycles[i]).toString());
+                }
+            }
+            jdbcStmt.executeBatch();
+        }
+    }
+
+    private interface JDBCWork {
+        void run(Connection conn) throws Exception;
+    }
 
+    /**
+     * Run some work on a connection, retrying it according to the activity's error handler.
+     *
+     * @param cycle The cycle which errors are reported for
+     * @param work  The work to do on the connection
+     * @return 0 for success
+     */
+    private int execute(long cycle, JDBCWork work) {
         int maxTries = activity.getMaxTries();
         Exception error = null;
 
         for (int tries = 1; tries <= maxTries; tries++) {
             long startTimeNanos = System.nanoTime();
+            error = null;
 
-            try (Connection conn = activity.getDataSource().getConnection()) {
-                Statement jdbcStmt = conn.createStatement();
-                jdbcStmt.execute(boundStmt);
-
-            } catch (Exception e) {
-                error = e;
+            if (prepared) {
+                try {
+                    work.run(connection());
+                } catch (Exception e) {
+                    error = e;
+                    discardConnection();
+                }
+            } else {
+                try (Connection conn = activity.getDataSource().getConnection()) {
+                    work.run(conn);
+                } catch (Exception e) {
+                    error = e;
+                }
             }
 
             long executionTimeNanos = System.nanoTime() - startTimeNanos;
@@ -98,6 +220,48 @@ public class JDBCAction implements SyncAction {
         throw new RuntimeException("maxtries exceeded", error);
     }
 
+    private ReadyJDBCOp readyOp(OpDispenser<?> dispenser) {
+        if (dispenser instanceof ReadyJDBCOp op) {
+            return op;
+        }
+        throw new RuntimeException("prepared=true requires JDBC ops, but the op is a " + dispenser.getClass().getSimpleName());
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            connection = activity.getDataSource().getConnection();
+        }
+        return connection;
+    }
+
+    private PreparedStatement prepare(Connection conn, ReadyJDBCOp op) throws SQLException {
+        PreparedStatement statement = statements.get(op);
+        if (statement == null) {
+            statement = op.prepare(conn);
+            statements.put(op, statement);
+        }
+        return statement;
+    }
+
+    private void discardConnection() {
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                LOGGER.debug("error while closing prepared statement: " + e);
+            }
+        }
+        statements.clear();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOGGER.debug("error while closing connection: " + e);
+            }
+            connection = null;
+        }
+    }
+
     /**
      * Compute retry delay based on exponential backoff with full jitter
      * @param tries 1-indexed
@@ -17,26 +17,262 @@
 package io.nosqlbench.activitytype.jdbc.impl;
 
 import io.nosqlbench.engine.api.activityconfig.yaml.OpTemplate;
-import io.nosqlbench.engine.api.activityimpl.BaseOpDispenser;
+import io.nosqlbench.engine.api.activityimpl.OpDispenser;
+import io.nosqlbench.virtdata.core.bindings.Bindings;
 import io.nosqlbench.virtdata.core.bindings.BindingsTemplate;
-import io.nosqlbench.virtdata.core.templates.ParsedTemplate;
+import io.nosqlbench.virtdata.core.templates.ParsedStringTemplate;
 import io.nosqlbench.virtdata.core.templates.StringBindings;
 import io.nosqlbench.virtdata.core.templates.StringBindingsTemplate;
 
-public class ReadyJDBCOp extends BaseOpDispenser<String> {
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * <p>A JDBC op can be used in two ways. As a string, the bound values are interpolated into
+ * the statement text for each cycle. As a prepared statement, each bind point in the
+ * statement is replaced by a {@code ?} parameter, and the bound values are set on the
+ * prepared statement as parameters.</p>
+ *
+ * <p>Workloads usually quote the bind points for string-like values, as in {@code '{uuid}'}, so
+ * that the interpolated text is a SQL literal. In the prepared form, these quotes are removed
+ * along with the bind point, since a quoted {@code ?} is only a literal question mark. A bind
+ * point which is only part of a quoted literal, as in {@code 'id-{id}'}, can not be a parameter,
+ * and such an op can only be run as a string.</p>
+ *
+ * <p>Values are set with the SQL type of each parameter as reported by the driver, so that the
+ * driver converts them as the column requires, and a value which would have been written as
+ * {@code 123} or {@code '123'} can be bound to either a numeric or a character column. Values
+ * which are not standard JDBC types are set as their string form, as they would have been
+ * written into the statement text.</p>
+ */
+public class ReadyJDBCOp implements OpDispenser<String> {
     private final StringBindings bindings;
+    private final String stmt;
+    private final String[] spans;
+    private final Bindings parameterBindings;
+    private final int parameterCount;
+    private volatile int[] parameterTypes;
 
     public ReadyJDBCOp(OpTemplate stmtDef) {
-        super(stmtDef);
-        ParsedTemplate paramTemplate = new ParsedTemplate(stmtDef.getStmt().orElseThrow(), stmtDef.getBindings());
+        ParsedStringTemplate paramTemplate = new ParsedStringTemplate(stmtDef.getStmt().orElseThrow(), stmtDef.getBindings());
         BindingsTemplate paramBindings = new BindingsTemplate(paramTemplate.getBindPoints());
         StringBindingsTemplate template = new StringBindingsTemplate(stmtDef.getStmt().orElseThrow(), paramBindings);
 
         bindings = template.resolve();
+
+        // There is one bind point for each anchor in the statement, in order, so they line up with the parameters
+        stmt = stmtDef.getStmt().orElseThrow();
+        spans = paramTemplate.getSpans();
+        parameterBindings = paramBindings.resolveBindings();
+        parameterCount = paramTemplate.getBindPoints().size();
     }
 
     @Override
     public String apply(long cycle) {
         return bindings.bind(cycle);
     }
+
+    /**
+     * JDBCAction times each op itself, so the dispenser does not track results.
+     */
+    @Override
+    public void onStart(long cycleValue) {
+    }
+
+    @Override
+    public void onSuccess(long cycleValue, long nanoTime, long resultsize) {
+    }
+
+    @Override
+    public void onError(long cycleValue, long resultNanos, Throwable t) {
+    }
+
+    /**
+     * @return The statement text with a {@code ?} parameter in place of each bind point, and
+     * without the quotes around any quoted bind points
+     * @throws RuntimeException if a bind point is within a quoted literal
+     */
+    public String getPreparedSql() {
+        return toPreparedSql(stmt, spans);
+    }
+
+    static String toPreparedSql(String stmt, String[] spans) {
+        StringBuilder sql = new StringBuilder(stmt.length());
+        int quotes = 0;
+        String next = spans[0];
+        for (int i = 1; i < spans.length; i += 2) {
+            String literal = next;
+            next = spans[i + 1];
+            quotes += quoteCount(literal);
+            if ((quotes & 1) == 1 && literal.endsWith("'") && next.startsWith("'")) {
+                literal = literal.substring(0, literal.length() - 1);
+                next = next.substring(1);
+                quotes--;
+            }
+            if ((quotes & 1) == 1) {
+                throw new RuntimeException("The bind point {" + spans[i] + "} is within a quoted literal in '" +
+                    stmt + "', so it can not be a prepared statement parameter. Use a binding which yields the whole value instead.");
+            }
+            sql.append(literal).append('?');
+        }
+        return sql.append(next).toString();
+    }
+
+    private static int quoteCount(String literal) {
+        int count = 0;
+        for (int i = 0; i < literal.length(); i++) {
+            if (literal.charAt(i) == '\'') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Prepare this op on a connection, and check that the driver sees one parameter for each
+     * bind point. The parameter types reported by the driver are kept for {@link #setParameters}.
+     * They are the same for every connection, so this op can be prepared on any of them.
+     *
+     * @param conn The connection to prepare the statement on
+     * @return The prepared statement
+     * @throws SQLException if the statement can not be prepared
+     */
+    public PreparedStatement prepare(Connection conn) throws SQLException {
+        String sql = getPreparedSql();
+        PreparedStatement statement = conn.prepareStatement(sql);
+        try {
+            parameterTypes = parameterTypes(statement, sql, parameterCount);
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    /**
+     * @return The SQL type of each parameter, with {@link Types#NULL} for those which the driver
+     * does not report
+     */
+    static int[] parameterTypes(PreparedStatement statement, String sql, int expected) throws SQLException {
+        int[] types = new int[expected];
+        ParameterMetaData metadata;
+        try {
+            metadata = statement.getParameterMetaData();
+        } catch (SQLFeatureNotSupportedException e) {
+            Arrays.fill(types, Types.NULL);
+            return types;
+        }
+        int count = metadata.getParameterCount();
+        if (count != expected) {
+            throw new RuntimeException("The prepared statement '" + sql + "' has " + count +
+                " parameters, but there are " + expected + " bind points.");
+        }
+        for (int i = 0; i < expected; i++) {
+            try {
+                types[i] = metadata.getParameterType(i + 1);
+            } catch (SQLException e) {
+                types[i] = Types.NULL;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Set the values for the given cycle on a statement which was prepared with {@link #prepare(Connection)}.
+     *
+     * @param statement The prepared statement
+     * @param cycle     The cycle to bind values for
+     * @throws SQLException if a value can not be set
+     */
+    public void setParameters(PreparedStatement statement, long cycle) throws SQLException {
+        int[] types = parameterTypes;
+        for (int i = 0; i < parameterCount; i++) {
+            setParameter(statement, i + 1, parameterBindings.get(i, cycle), types[i]);
+        }
+    }
+
+    static void setParameter(PreparedStatement statement, int index, Object value, int sqlType) throws SQLException {
+        if (sqlType == Types.NULL) {
+            setParameter(statement, index, value);
+        } else if (value == null) {
+            statement.setNull(index, sqlType);
+        } else {
+            Object jdbcValue = jdbcValue(value);
+            if (jdbcValue instanceof String && !convertsFromString(sqlType)) {
+                // Leave the conversion to the database, as for the same text quoted in the statement
+                statement.setObject(index, jdbcValue, Types.OTHER);
+            } else {
+                statement.setObject(index, jdbcValue, sqlType);
+            }
+        }
+    }
+
+    private static Object jdbcValue(Object value) {
+        if (value instanceof ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            return bytes;
+        } else if (value instanceof Number || value instanceof Boolean || value instanceof byte[]
+            || value instanceof Date || value instanceof Temporal || value instanceof UUID) {
+            return value;
+        } else {
+            return value.toString();
+        }
+    }
+
+    private static boolean convertsFromString(int sqlType) {
+        return switch (sqlType) {
+            case Types.BIT, Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+                Types.REAL, Types.FLOAT, Types.DOUBLE, Types.NUMERIC, Types.DECIMAL, Types.BOOLEAN,
+                Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR,
+                Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Set a value with the setter for its type, for drivers which do not report parameter types.
+     */
+    static void setParameter(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NULL);
+        } else if (value instanceof String s) {
+            statement.setString(index, s);
+        } else if (value instanceof Long l) {
+            statement.setLong(index, l);
+        } else if (value instanceof Integer i) {
+            statement.setInt(index, i);
+        } else if (value instanceof Double d) {
+            statement.setDouble(index, d);
+        } else if (value instanceof Float f) {
+            statement.setFloat(index, f);
+        } else if (value instanceof Boolean b) {
+            statement.setBoolean(index, b);
+        } else if (value instanceof Short s) {
+            statement.setShort(index, s);
+        } else if (value instanceof Byte b) {
+            statement.setByte(index, b);
+        } else if (value instanceof BigDecimal d) {
+            statement.setBigDecimal(index, d);
+        } else if (value instanceof byte[] bytes) {
+            statement.setBytes(index, bytes);
+        } else if (value instanceof ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            statement.setBytes(index, bytes);
+        } else {
+            // Dates, times, UUIDs and other driver specific types are left to the driver
+            statement.setObject(index, value);
+        }
+    }
 }
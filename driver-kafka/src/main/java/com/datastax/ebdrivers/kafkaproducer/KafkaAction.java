@@ -22,6 +22,10 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 
+/**
+ * Sends one record per cycle. By default, each send waits for the record to be acknowledged.
+ * In pipeline mode, the sends of each thread go through a {@link KafkaSendPipeline}.
+ */
 public class KafkaAction implements SyncAction {
 
     private final static Logger logger = LogManager.getLogger(KafkaAction.class);
@@ -30,6 +34,7 @@ public class KafkaAction implements SyncAction {
     private final int slot;
 
     private OpSequence<KafkaStatement> sequencer;
+    private KafkaSendPipeline pipeline;
 
     public KafkaAction(KafkaProducerActivity activity, int slot) {
         this.activity = activity;
@@ -39,10 +44,21 @@ public class KafkaAction implements SyncAction {
     @Override
     public void init() {
         this.sequencer = activity.getOpSequencer();
+        if (activity.isPipelined()) {
+            this.pipeline = new KafkaSendPipeline(
+                activity.getMaxInflight(),
+                activity.getErrorHandler(),
+                activity.resultTimer,
+                activity.resultSuccessTimer
+            );
+        }
     }
 
     @Override
     public int runCycle(long cycle) {
+        if (pipeline != null) {
+            return pipeline.send(cycle, sequencer.apply(cycle)::send);
+        }
         sequencer.apply(cycle).write(cycle);
         return 1;
     }
@@ -40,6 +40,8 @@ public class KafkaProducerActivity extends SimpleActivity {
     private String servers;
     private OpSequence<KafkaStatement> opSequence;
     private String schemaRegistryUrl;
+    private boolean pipeline;
+    private int maxInflight;
     Timer resultTimer;
     Timer resultSuccessTimer;
 
@@ -65,6 +67,11 @@ public class KafkaProducerActivity extends SimpleActivity {
         schemaRegistryUrl = activityDef.getParams()
             .getOptionalString("schema_registry_url", "schema.registry.url")
             .orElse("http://localhost:8081");
+        pipeline = activityDef.getParams().getOptionalBoolean("pipeline").orElse(false);
+        maxInflight = activityDef.getParams().getOptionalInteger("inflight").orElse(1000);
+        if (maxInflight < 1) {
+            throw new RuntimeException("inflight must be at least 1, but it is " + maxInflight);
+        }
     }
 
     @Override
@@ -93,13 +100,12 @@ public class KafkaProducerActivity extends SimpleActivity {
 
         if (statements.size() > 0) {
             for (OpTemplate statement : statements) {
-                sequencer.addOp(
-                    new KafkaStatement(statement,
-                                       servers,
-                                       clientId,
-                                       schemaRegistryUrl),
-                    statement.getParamOrDefault("ratio", 1)
-                );
+                KafkaStatement kafkaStatement = new KafkaStatement(statement,
+                                                                   servers,
+                                                                   clientId,
+                                                                   schemaRegistryUrl);
+                registerAutoCloseable(kafkaStatement);
+                sequencer.addOp(kafkaStatement, statement.getParamOrDefault("ratio", 1));
             }
         } else {
             logger.error("Unable to create a Kafka statement if you have no active statements.");
@@ -108,6 +114,20 @@ public class KafkaProducerActivity extends SimpleActivity {
         return sequencer.resolve();
     }
 
+    /**
+     * @return true if records are sent without waiting for each one to be acknowledged
+     */
+    protected boolean isPipelined() {
+        return pipeline;
+    }
+
+    /**
+     * @return The most sends which each thread may have in flight in pipeline mode
+     */
+    protected int getMaxInflight() {
+        return maxInflight;
+    }
+
     protected OpSequence<KafkaStatement> getOpSequencer() {
         return opSequence;
     }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datastax.ebdrivers.kafkaproducer;
+
+import com.codahale.metrics.Timer;
+import io.nosqlbench.engine.api.activityapi.errorhandling.modular.NBErrorHandler;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps up to a fixed number of sends outstanding for one thread in pipeline mode,
+ * so that the producer can batch records together. The result of each send is timed
+ * and handled in its callback.
+ */
+class KafkaSendPipeline {
+
+    private final static Logger logger = LogManager.getLogger(KafkaSendPipeline.class);
+
+    /**
+     * Starts the send of the record for a cycle, and calls the callback when it completes.
+     */
+    interface Sender {
+        void send(long cycle, Callback callback);
+    }
+
+    private final Semaphore inflight;
+    private final NBErrorHandler errorHandler;
+    private final Timer resultTimer;
+    private final Timer resultSuccessTimer;
+    private volatile RuntimeException asyncError;
+
+    KafkaSendPipeline(int maxInflight, NBErrorHandler errorHandler, Timer resultTimer, Timer resultSuccessTimer) {
+        this.inflight = new Semaphore(maxInflight);
+        this.errorHandler = errorHandler;
+        this.resultTimer = resultTimer;
+        this.resultSuccessTimer = resultSuccessTimer;
+    }
+
+    /**
+     * Start a send, after waiting for a free in-flight slot if needed. An error which the
+     * error handler rethrew for an earlier send is thrown here instead.
+     *
+     * @return 1, as the result of the cycle is not known yet
+     */
+    int send(long cycle, Sender sender) {
+        RuntimeException error = asyncError;
+        if (error != null) {
+            throw error;
+        }
+        try {
+            inflight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for in-flight sends", e);
+        }
+        long startNanos = System.nanoTime();
+        try {
+            sender.send(cycle, (metadata, exception) -> onCompletion(cycle, startNanos, exception));
+        } catch (RuntimeException e) {
+            inflight.release();
+            throw e;
+        }
+        return 1;
+    }
+
+    /**
+     * This is called on the producer's I/O thread. An error which the error handler
+     * rethrows, as it does for {@code stop}, is thrown from the next send on this pipeline.
+     */
+    void onCompletion(long cycle, long startNanos, Exception exception) {
+        try {
+            long nanos = System.nanoTime() - startNanos;
+            resultTimer.update(nanos, TimeUnit.NANOSECONDS);
+            if (exception == null) {
+                resultSuccessTimer.update(nanos, TimeUnit.NANOSECONDS);
+            } else {
+                errorHandler.handleError(exception, cycle, nanos);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("error from pipelined send of cycle " + cycle + ": " + e);
+            asyncError = e;
+        } finally {
+            inflight.release();
+        }
+    }
+
+    /**
+     * @return The number of sends which may still be started without waiting
+     */
+    int availableSlots() {
+        return inflight.availablePermits();
+    }
+}
@@ -35,7 +35,7 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.Future;
 
-public class KafkaStatement {
+public class KafkaStatement implements AutoCloseable {
     private final static Logger logger = LogManager.getLogger(KafkaStatement.class);
 
     private Producer<Object,Object> producer = null;
@@ -107,6 +107,12 @@ public class KafkaStatement {
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, keySerializerClass);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, valueSerializerClass);
         props.put("schema.registry.url", schemaRegistryUrl);
+        stmtDef.getOptionalStringParam("linger_ms")
+            .ifPresent(v -> props.put(ProducerConfig.LINGER_MS_CONFIG, v));
+        stmtDef.getOptionalStringParam("batch_size")
+            .ifPresent(v -> props.put(ProducerConfig.BATCH_SIZE_CONFIG, v));
+        stmtDef.getOptionalStringParam("acks")
+            .ifPresent(v -> props.put(ProducerConfig.ACKS_CONFIG, v));
 
         try {
             producer = new KafkaProducer<>(props);
@@ -154,4 +160,28 @@ public class KafkaStatement {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Send the record for a cycle without waiting for it to be acknowledged.
+     *
+     * @param cycle    The cycle to bind the record for
+     * @param callback The callback to invoke when the send is acknowledged or fails
+     * @return A future for the send
+     */
+    public Future<RecordMetadata> send(long cycle, Callback callback) {
+        Object key = bindKey(cycle);
+        Object value = bindValue(cycle);
+        ProducerRecord<Object, Object> record = new ProducerRecord<>(topic, key, value);
+        return producer.send(record, callback);
+    }
+
+    /**
+     * Close the producer, which waits for all pending sends to complete.
+     */
+    @Override
+    public void close() {
+        if (producer != null) {
+            producer.close();
+        }
+    }
 }
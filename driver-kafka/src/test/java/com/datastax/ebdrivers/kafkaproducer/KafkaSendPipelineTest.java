@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.datastax.ebdrivers.kafkaproducer;
+
+import com.codahale.metrics.Timer;
+import io.nosqlbench.engine.api.activityapi.errorhandling.ErrorMetrics;
+import io.nosqlbench.engine.api.activityapi.errorhandling.modular.NBErrorHandler;
+import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+import org.apache.kafka.clients.producer.Callback;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class KafkaSendPipelineTest {
+
+    private final Timer resultTimer = new Timer();
+    private final Timer resultSuccessTimer = new Timer();
+    private final List<Callback> callbacks = new ArrayList<>();
+    private final KafkaSendPipeline.Sender sender = (cycle, callback) -> callbacks.add(callback);
+
+    private KafkaSendPipeline pipeline(String alias, String errors, int maxInflight) {
+        ErrorMetrics errorMetrics = new ErrorMetrics(ActivityDef.parseActivityDef("alias=" + alias));
+        NBErrorHandler errorHandler = new NBErrorHandler(() -> errors, () -> errorMetrics);
+        return new KafkaSendPipeline(maxInflight, errorHandler, resultTimer, resultSuccessTimer);
+    }
+
+    @Test
+    public void testSendHoldsSlotUntilCompletion() {
+        KafkaSendPipeline pipeline = pipeline("kafka_pipeline_ok", "stop", 4);
+        assertThat(pipeline.send(1L, sender)).isEqualTo(1);
+        assertThat(pipeline.send(2L, sender)).isEqualTo(1);
+        assertThat(pipeline.availableSlots()).isEqualTo(2);
+
+        callbacks.get(0).onCompletion(null, null);
+        callbacks.get(1).onCompletion(null, null);
+        assertThat(pipeline.availableSlots()).isEqualTo(4);
+        assertThat(resultTimer.getCount()).isEqualTo(2);
+        assertThat(resultSuccessTimer.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFailedSendReleasesSlot() {
+        KafkaSendPipeline pipeline = pipeline("kafka_pipeline_counter", "counter", 1);
+        pipeline.send(1L, sender);
+        assertThat(pipeline.availableSlots()).isEqualTo(0);
+
+        callbacks.get(0).onCompletion(null, new RuntimeException("send failed"));
+        assertThat(pipeline.availableSlots()).isEqualTo(1);
+        assertThat(resultTimer.getCount()).isEqualTo(1);
+        assertThat(resultSuccessTimer.getCount()).isEqualTo(0);
+
+        pipeline.send(2L, sender);
+        assertThat(callbacks).hasSize(2);
+    }
+
+    @Test
+    public void testStopErrorIsThrownFromNextSend() {
+        KafkaSendPipeline pipeline = pipeline("kafka_pipeline_stop", "stop", 1);
+        pipeline.send(1L, sender);
+        callbacks.get(0).onCompletion(null, new RuntimeException("send failed"));
+        assertThat(pipeline.availableSlots()).isEqualTo(1);
+
+        assertThatExceptionOfType(RuntimeException.class)
+            .isThrownBy(() -> pipeline.send(2L, sender));
+        assertThat(callbacks).hasSize(1);
+        assertThat(pipeline.availableSlots()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSenderErrorReleasesSlot() {
+        KafkaSendPipeline pipeline = pipeline("kafka_pipeline_throws", "stop", 1);
+        assertThatExceptionOfType(IllegalStateException.class)
+            .isThrownBy(() -> pipeline.send(1L, (cycle, callback) -> {
+                throw new IllegalStateException("producer closed");
+            }));
+        assertThat(pipeline.availableSlots()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSendWaitsForFreeSlot() throws Exception {
+        KafkaSendPipeline pipeline = pipeline("kafka_pipeline_wait", "stop", 1);
+        List<Callback> sent = new ArrayList<>();
+        pipeline.send(1L, (cycle, callback) -> sent.add(callback));
+
+        CountDownLatch secondSent = new CountDownLatch(1);
+        Thread sending = new Thread(() -> {
+            pipeline.send(2L, (cycle, callback) -> secondSent.countDown());
+        });
+        sending.start();
+        assertThat(secondSent.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+        sent.get(0).onCompletion(null, null);
+        assertThat(secondSent.await(10, TimeUnit.SECONDS)).isTrue();
+        sending.join();
+    }
+}
@@ -146,4 +146,19 @@ public interface ActivityInstrumentation {
      * @return a new or existing {@link Histogram}
      */
     Histogram getOrCreateTriesHistogram();
+
+    /**
+     * The retry delay timer tracks how long operations wait before they are retried, as decided by the
+     * retry policy of the error handler. Retries which are not delayed are not recorded.
+     * @return a new or existing {@link Timer}
+     */
+    Timer getOrCreateRetryDelayTimer();
+
+    /**
+     * The retry budget exhausted counter counts errors which would have been retried, but were not,
+     * because the retry budget of the error handler was spent. A rising count means that the target
+     * is failing more operations than the retry budget allows to be retried.
+     * @return a new or existing {@link Counter}
+     */
+    Counter getOrCreateRetryBudgetExhaustedCounter();
 }
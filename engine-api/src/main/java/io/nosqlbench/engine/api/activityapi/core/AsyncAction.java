@@ -61,4 +61,13 @@ public interface AsyncAction<D> extends Action {
      */
     boolean enqueue(TrackedOp<D> opc);
 
+    /**
+     * Throw the error which stopped this action, if one was raised outside of the motor
+     * thread, such as by the error handler in the completion callback of an op. The motor
+     * calls this before each enqueue and after it waits for the in-flight ops, so that such
+     * an error stops the motor just as it would for a {@link SyncAction}.
+     */
+    default void throwStopError() {
+    }
+
 }
@@ -34,6 +34,7 @@ public abstract class BaseAsyncAction<D, A extends Activity> implements AsyncAct
 
     protected int slot;
     protected boolean running = true;
+    private volatile RuntimeException stopError;
 
     public BaseAsyncAction(A activity, int slot) {
         this.activity = activity;
@@ -63,6 +64,27 @@ public abstract class BaseAsyncAction<D, A extends Activity> implements AsyncAct
      */
     public abstract void startOpCycle(TrackedOp<D> opc);
 
+    /**
+     * Stop this action because of an error which was raised outside of the motor thread.
+     * The first such error is thrown to the motor from {@link #throwStopError()}.
+     *
+     * @param error The error which should stop the activity
+     */
+    protected void stopWithError(Throwable error) {
+        if (stopError == null) {
+            stopError = (error instanceof RuntimeException re) ? re : new RuntimeException(error);
+        }
+        this.running = false;
+    }
+
+    @Override
+    public void throwStopError() {
+        RuntimeException error = stopError;
+        if (error != null) {
+            throw error;
+        }
+    }
+
     @Override
     public void requestStop() {
         logger.info(this + " requested to stop.");
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nosqlbench.engine.api.activityapi.core;
+
+/**
+ * A batch sync action can run all the cycles of a stride together, so that
+ * several cycles may be dispatched as one composite operation.
+ * <p>
+ * Motors must:
+ * <ul>
+ * <li>Check {@link #isBatching()} at initialization time, not in the inner loop</li>
+ * <li>Call {@link #runCycles(long[], int, int[])} once per stride, with the cycles of that stride</li>
+ * <li>Record the result code for each cycle which was run, as returned in the results array</li>
+ * </ul>
+ */
+public interface BatchSyncAction extends SyncAction {
+
+    /**
+     * @return true if this action should be given whole strides of cycles
+     */
+    boolean isBatching();
+
+    /**
+     * <p>Run a group of cycles, writing one int status code per cycle into the results.
+     * Actions which are also {@link Stoppable} should not start any more cycles of the group
+     * once a stop is requested.</p>
+     *
+     * @param cycles  the cycles to run, in order
+     * @param count   the number of valid cycles in the cycles array
+     * @param results an array of at least count elements to receive the status code of each cycle
+     * @return the number of cycles from the start of the group which were run, which is
+     * less than count only when the action was stopped during the group
+     */
+    int runCycles(long[] cycles, int count, int[] results);
+
+}
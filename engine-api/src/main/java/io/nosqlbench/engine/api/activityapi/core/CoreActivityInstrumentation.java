@@ -130,4 +130,14 @@ public class CoreActivityInstrumentation implements ActivityInstrumentation {
     public synchronized Histogram getOrCreateTriesHistogram() {
         return ActivityMetrics.histogram(def,"tries",  activity.getHdrDigits());
     }
+
+    @Override
+    public synchronized Timer getOrCreateRetryDelayTimer() {
+        return ActivityMetrics.timer(def, "retry_delay", activity.getHdrDigits());
+    }
+
+    @Override
+    public synchronized Counter getOrCreateRetryBudgetExhaustedCounter() {
+        return ActivityMetrics.counter(def, "retry_budget_exhausted");
+    }
 }
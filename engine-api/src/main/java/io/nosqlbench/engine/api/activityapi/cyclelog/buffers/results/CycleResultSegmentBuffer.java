@@ -26,16 +26,18 @@ import java.nio.ByteBuffer;
 public class CycleResultSegmentBuffer {
 
     private ByteBuffer buf;
+    private final ByteBuffer storage;
+    private CycleResultsSegmentReadable reader;
     private final static int BYTES = Long.BYTES + Byte.BYTES;
     private final Sink sink;
 
     public CycleResultSegmentBuffer(Sink sink, int resultCount) {
         this.sink = sink;
-        this.buf = ByteBuffer.allocate(resultCount*BYTES);
+        this.storage = ByteBuffer.allocate(resultCount*BYTES);
+        this.buf = storage;
     }
     public CycleResultSegmentBuffer(int resultCount) {
-        this.sink = null;
-        this.buf = ByteBuffer.allocate(resultCount*BYTES);
+        this(null, resultCount);
     }
 
 
@@ -57,17 +59,37 @@ public class CycleResultSegmentBuffer {
         }
     }
 
+    /**
+     * @return A reader over the results in this buffer. The same reader is returned after
+     * each {@link #reset()}, since it reads from the same storage.
+     */
     public CycleResultsSegment toReader() {
         buf.flip();
-        CycleResultsSegmentReadable readable = new CycleResultsSegmentReadable(buf);
+        if (reader == null) {
+            reader = new CycleResultsSegmentReadable(storage);
+        }
         buf=null;
-        return readable;
+        return reader;
     }
 
     public boolean hasRemaining() {
         return buf.hasRemaining();
     }
 
+    /**
+     * Empty this buffer so that it can be filled again with the same storage. A reader
+     * from {@link #toReader()} shares this storage, so it must not be used after this
+     * until {@link #toReader()} is called again.
+     */
+    public void reset() {
+        storage.clear();
+        buf = storage;
+    }
+
+    public int getResultCapacity() {
+        return storage.capacity() / BYTES;
+    }
+
     public interface Sink {
         void handle(CycleResultsSegment buffer);
     }
@@ -169,6 +169,14 @@ public class CycleResultsRLEBufferTarget implements Output,CanFilterResultValue
         return buf.capacity() / BYTES;
     }
 
+    /**
+     * @return the number of records which can still be written before the buffer
+     * would have to be resized. This does not include the record for a run in progress.
+     */
+    public int getRemainingRecordCapacity() {
+        return buf.remaining() / BYTES;
+    }
+
     /**
      * Flushes any partial data that was submitted (an incomplete run of results,
      * for example), to the internal ByteBuffer, and marks flushed status.
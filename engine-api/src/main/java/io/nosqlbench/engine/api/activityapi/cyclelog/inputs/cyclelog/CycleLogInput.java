@@ -23,6 +23,8 @@ import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResult
 import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResultsSegment;
 import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.ResultReadable;
 import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results_rle.CycleResultsRLEBufferReadable;
+import io.nosqlbench.engine.api.activityapi.cyclelog.outputs.cyclelog.CycleLogOutput;
+import io.nosqlbench.engine.api.activityapi.cyclelog.outputs.cyclelog.SegmentedCycleLogOutput;
 import io.nosqlbench.engine.api.activityapi.input.Input;
 import io.nosqlbench.engine.api.util.SimpleConfig;
 
@@ -30,43 +32,78 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import java.io.File;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.Predicate;
 
+/**
+ * An {@link Input} which provides the cycles recorded in a cycle log, in the order they were
+ * recorded. The log can be a single file, as written by {@link CycleLogOutput}, or a series of
+ * segment files, as written by {@link SegmentedCycleLogOutput}, which are read in segment order
+ * as one log.
+ */
 public class CycleLogInput implements Input, AutoCloseable, Iterable<CycleResultsSegment>, CanFilterResultValue {
     private final static Logger logger = LogManager.getLogger(CycleLogInput.class);
     private final Iterator<CycleResultsSegment> cycleResultSegmentIterator;
-    private RandomAccessFile raf;
-    private MappedByteBuffer mbb;
+    private List<ByteBuffer> logBuffers;
     private Iterator<CycleResult> segmentIter;
     private Predicate<ResultReadable> filter;
 
     public CycleLogInput(Activity activity) {
         SimpleConfig conf = new SimpleConfig(activity, "input");
-        mbb = initMappedBuffer(conf.getString("file").orElse(activity.getAlias()) + ".cyclelog");
+        String filename = conf.getString("file").orElse(activity.getAlias()) + ".cyclelog";
+        logBuffers = mapLogFiles(findLogFiles(filename), findSingleLogFile(filename).isEmpty());
         cycleResultSegmentIterator = iterator();
-        segmentIter = cycleResultSegmentIterator.next().iterator();
+        segmentIter = Collections.emptyIterator();
     }
 
     public CycleLogInput(String filename) {
-        File cycleFile = null;
-        try {
-            cycleFile = new File(filename);
-            if (!cycleFile.exists()) {
-                cycleFile = new File(cycleFile + ".cyclelog");
-                if (!cycleFile.exists()) {
-                    throw new RuntimeException("Cyclelog file does not exist:" + filename);
-                }
+        logBuffers = mapLogFiles(findLogFiles(filename), findSingleLogFile(filename).isEmpty());
+        cycleResultSegmentIterator = iterator();
+        segmentIter = Collections.emptyIterator();
+    }
+
+    /**
+     * Find the files for a cycle log. If the named file exists, or the named file with a
+     * .cyclelog suffix, then that is the whole log. Otherwise, the segment files of a segmented
+     * cycle log are returned, in order.
+     *
+     * @param filename The name of the log, with or without the .cyclelog suffix
+     * @return A list of files which make up the log, in order
+     */
+    public static List<File> findLogFiles(String filename) {
+        Optional<File> single = findSingleLogFile(filename);
+        if (single.isPresent()) {
+            return List.of(single.get());
+        }
+        String basename = filename.endsWith(".cyclelog") ? filename.substring(0, filename.length() - ".cyclelog".length()) : filename;
+        List<File> segments = new ArrayList<>();
+        for (File segment = SegmentedCycleLogOutput.segmentFile(basename, 0);
+             segment.isFile();
+             segment = SegmentedCycleLogOutput.segmentFile(basename, segments.size())) {
+            segments.add(segment);
+        }
+        if (segments.isEmpty()) {
+            throw new RuntimeException("Cyclelog file does not exist:" + filename);
+        }
+        logger.debug("reading cycle log " + basename + " from " + segments.size() + " segments");
+        return segments;
+    }
+
+    private static Optional<File> findSingleLogFile(String filename) {
+        for (File single : List.of(new File(filename), new File(filename + ".cyclelog"))) {
+            if (single.isFile()) {
+                return Optional.of(single);
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
         }
-        mbb = initMappedBuffer(cycleFile.getPath());
-        cycleResultSegmentIterator = new CycleResultsRLEBufferReadable(mbb).iterator();
-        segmentIter = cycleResultSegmentIterator.next().iterator();
+        return Optional.empty();
     }
 
     @Override
@@ -120,36 +157,65 @@ public class CycleLogInput implements Input, AutoCloseable, Iterable<CycleResult
 //
 //            remaining = csb.remaining();
 
-    private MappedByteBuffer initMappedBuffer(String filename) {
-        File filepath = new File(filename);
-        if (!filepath.exists()) {
-            throw new RuntimeException("file path '" + filename + "' does not exist!");
+    private List<ByteBuffer> mapLogFiles(List<File> files, boolean segmented) {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (File file : files) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                MappedByteBuffer mbb = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buffers.add(segmented ? withoutUnwrittenTail(mbb) : mbb);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
         }
-        try {
-            raf = new RandomAccessFile(filepath, "r");
-            mbb = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        return buffers;
+    }
+
+    /**
+     * A segment which was not closed properly is zero-filled after the last span written.
+     * Since a real span always ends after it starts, the written spans can be found by
+     * binary search for the first one which does not.
+     */
+    private static ByteBuffer withoutUnwrittenTail(ByteBuffer segment) {
+        int low = 0;
+        int high = segment.limit() / CycleResultsRLEBufferReadable.BYTES;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int offset = mid * CycleResultsRLEBufferReadable.BYTES;
+            if (segment.getLong(offset + Long.BYTES) > segment.getLong(offset)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
-        return mbb;
+        return segment.limit(low * CycleResultsRLEBufferReadable.BYTES);
     }
 
     @Override
     public void close() throws Exception {
-        if (raf != null) {
-            raf.close();
-            mbb = null;
-        }
+        logBuffers = null;
     }
 
 
     @Override
     public Iterator<CycleResultsSegment> iterator() {
-        CycleResultsRLEBufferReadable cycleResultsSegments = new CycleResultsRLEBufferReadable(mbb.duplicate());
-        if (cycleResultsSegments instanceof CanFilterResultValue) {
-            ((CanFilterResultValue)cycleResultsSegments).setFilter(filter);
-        }
-        return cycleResultsSegments.iterator();
+        Iterator<ByteBuffer> buffers = logBuffers.iterator();
+        return new Iterator<>() {
+            private Iterator<CycleResultsSegment> spans = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!spans.hasNext() && buffers.hasNext()) {
+                    spans = new CycleResultsRLEBufferReadable(buffers.next().duplicate()).iterator();
+                }
+                return spans.hasNext();
+            }
+
+            @Override
+            public CycleResultsSegment next() {
+                hasNext();
+                return spans.next();
+            }
+        };
     }
 
 }
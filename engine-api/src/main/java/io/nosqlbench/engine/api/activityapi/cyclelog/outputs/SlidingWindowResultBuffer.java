@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.cyclelog.outputs;
+
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResult;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResultsSegment;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.ResultReadable;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results_rle.CycleSpanResults;
+import io.nosqlbench.engine.api.activityapi.cyclelog.inputs.cyclelog.CanFilterResultValue;
+import io.nosqlbench.engine.api.activityapi.output.Output;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+/**
+ * <p>A result buffer which puts cycles in order according to a sliding window, without
+ * a global lock. This is meant to sit in front of an output which needs results in
+ * cycle order, like the RLE cycle log, when many threads complete cycles concurrently.</p>
+ *
+ * <p>The window is a ring of slots, one per cycle, indexed by the cycle number. A thread
+ * which completes a cycle in the window publishes its result into the cycle's slot with
+ * a single CAS. The base of the window is the next cycle to be emitted. Whichever thread
+ * completes the base cycle takes the drain flag and walks forward over the filled slots,
+ * emitting contiguous runs of the same result downstream as {@link CycleSpanResults},
+ * as soon as each run is closed by a different result or by a gap. Only one thread
+ * drains at a time, so the downstream output sees one caller at a time, in order.</p>
+ *
+ * <p>When a cycle arrives which is a full window ahead of the base, the window is slid
+ * forward to make room for it. Any slots which are still empty are skipped over, and a
+ * gap of more than a window is crossed in one step once the whole window is drained. A
+ * result which arrives for a skipped cycle is emitted late, out of order. This is the same
+ * best-effort ordering which {@link ReorderingConcurrentResultBuffer} gives with its
+ * threshold, and it lets gaps in the cycle range, from filtered or sparse inputs, pass
+ * through the window. Results which are behind the window are emitted late in the same way.</p>
+ *
+ * <p>Each slot holds a pass number of the ring above the result, so that a result
+ * from a cycle one or more windows behind can not be mistaken for the current one.
+ * Skipped slots are marked with the pass they were skipped on. A thread which places a
+ * result just as the window slides past its cycle checks the base again and takes the
+ * result back as late, and a result from an earlier pass which the drainer finds in a
+ * slot is emitted late, so that no result is lost to the race. Cycles beyond
+ * 2<sup>31</sup> passes of the ring are always emitted as late results.</p>
+ */
+public class SlidingWindowResultBuffer implements Output, CanFilterResultValue {
+
+    private final static Logger logger = LogManager.getLogger(SlidingWindowResultBuffer.class);
+
+    public final static int DEFAULT_WINDOW_SIZE = 1 << 16;
+    private final static long UNSET = Long.MIN_VALUE;
+    private final static long MAX_PASS = Integer.MAX_VALUE - 1;
+
+    private final Output downstream;
+    private final int windowSize;
+    private final int windowBits;
+    private final long mask;
+
+    /**
+     * 0 for an empty slot, (pass+1) &lt;&lt; 32 | result for a result, and -(pass+1)
+     * for a slot which was skipped on the given pass.
+     */
+    private final AtomicLongArray slots;
+    private final AtomicLong base = new AtomicLong(UNSET);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final Queue<CycleResultsSegment> lateResults = new ConcurrentLinkedQueue<>();
+    private volatile Predicate<ResultReadable> resultFilter;
+
+    // These are only accessed by the thread which holds the drain flag
+    private long runStart = UNSET;
+    private long runEnd;
+    private int runResult;
+    private int filterResult;
+    private final ResultReadable filterReadable = () -> filterResult;
+    private long lateCount;
+
+    public SlidingWindowResultBuffer(Output downstream) {
+        this(downstream, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param downstream The output which results are emitted to, in cycle order when possible
+     * @param windowSize The number of cycles which can be reordered, rounded up to a power of two
+     */
+    public SlidingWindowResultBuffer(Output downstream, int windowSize) {
+        if (windowSize < 1 || windowSize > (1 << 30)) {
+            throw new RuntimeException("windowSize must be between 1 and " + (1 << 30) + ", but it is " + windowSize);
+        }
+        this.downstream = downstream;
+        this.windowBits = 32 - Integer.numberOfLeadingZeros(windowSize - 1);
+        this.windowSize = 1 << windowBits;
+        this.mask = this.windowSize - 1;
+        this.slots = new AtomicLongArray(this.windowSize);
+    }
+
+    @Override
+    public boolean onCycleResult(long completedCycle, int result) {
+        if (base.get() == UNSET) {
+            // Start a half window back, so that cycles taken just before this one by other threads are still in order
+            base.compareAndSet(UNSET, Math.max(0L, completedCycle - (windowSize >> 1)));
+        }
+        if (place(completedCycle, result)) {
+            drain(UNSET);
+        }
+        return true;
+    }
+
+    @Override
+    public void onCycleResultSegment(CycleResultsSegment segment) {
+        for (CycleResult cycleResult : segment) {
+            onCycleResult(cycleResult.getCycle(), cycleResult.getResult());
+        }
+    }
+
+    /**
+     * Put the result into the window, or onto the late results if it is behind the window.
+     *
+     * @return true if this thread should try to drain the window
+     */
+    private boolean place(long cycle, int result) {
+        long pass = cycle >>> windowBits;
+        if (cycle < 0 || pass >= MAX_PASS) {
+            return late(cycle, result);
+        }
+        int index = (int) (cycle & mask);
+        long value = ((pass + 1) << 32) | (result & 0xFFFFFFFFL);
+        while (true) {
+            long windowBase = base.get();
+            if (cycle < windowBase) {
+                return late(cycle, result);
+            }
+            if (cycle - windowBase >= windowSize) {
+                drain(cycle - windowSize + 1);
+                continue;
+            }
+            long current = slots.get(index);
+            if (current == 0L) {
+                if (slots.compareAndSet(index, 0L, value)) {
+                    if (cycle < base.get() && slots.compareAndSet(index, value, 0L)) {
+                        // The window slid past this cycle after the base was read, and the slot
+                        // was cleared for a later pass, so the drainer will not take this result
+                        return late(cycle, result);
+                    }
+                    return cycle == base.get();
+                }
+            } else if (current < 0L && -current - 1 < pass) {
+                // The slot was skipped on an earlier pass of the ring
+                slots.compareAndSet(index, current, 0L);
+            } else {
+                // This cycle was skipped as the window slid past it, or it is a duplicate
+                return late(cycle, result);
+            }
+        }
+    }
+
+    private boolean late(long cycle, int result) {
+        lateResults.add(new CycleSpanResults(cycle, cycle + 1, result));
+        return true;
+    }
+
+    /**
+     * Drain the window if no other thread is draining it. If a target is given, wait
+     * until the window base is at or beyond the target, sliding the window over empty
+     * slots if needed.
+     *
+     * @param target The cycle which the base must reach, or {@link #UNSET} to drain only what is ready
+     */
+    private void drain(long target) {
+        while (true) {
+            if (!draining.get() && draining.compareAndSet(false, true)) {
+                try {
+                    drainTo(target);
+                } finally {
+                    draining.set(false);
+                }
+                target = UNSET;
+                // Results which were published while the flag was held may not have been seen by the drainer
+                if (!isReady()) {
+                    return;
+                }
+            } else if (target != UNSET && base.get() < target) {
+                Thread.yield();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean isReady() {
+        if (!lateResults.isEmpty()) {
+            return true;
+        }
+        long windowBase = base.get();
+        return windowBase != UNSET && isResultFor(windowBase, slots.get((int) (windowBase & mask)));
+    }
+
+    private boolean isResultFor(long cycle, long value) {
+        return value > 0L && (value >>> 32) - 1 == cycle >>> windowBits;
+    }
+
+    private void drainTo(long target) {
+        drainLate();
+        long windowBase = base.get();
+        if (windowBase == UNSET) {
+            return;
+        }
+        // Past the end of the window there is nothing left to skip, so the base can jump to the target
+        long skipLimit = target == UNSET ? UNSET : Math.min(target, windowBase + windowSize);
+        long cycle = windowBase;
+        while (true) {
+            int index = (int) (cycle & mask);
+            long value = slots.get(index);
+            if (isResultFor(cycle, value)) {
+                slots.set(index, 0L);
+                emit(cycle, (int) value);
+            } else if (cycle < skipLimit) {
+                if (!slots.compareAndSet(index, value, -((cycle >>> windowBits) + 1))) {
+                    continue;
+                }
+                if (value > 0L) {
+                    // A result from an earlier pass which was placed after its cycle was skipped
+                    long staleCycle = (((value >>> 32) - 1) << windowBits) | index;
+                    lateResults.add(new CycleSpanResults(staleCycle, staleCycle + 1, (int) value));
+                }
+                flushRun();
+            } else {
+                break;
+            }
+            cycle++;
+        }
+        cycle = Math.max(cycle, target);
+        if (cycle != windowBase) {
+            base.set(cycle);
+        }
+    }
+
+    private void drainLate() {
+        CycleResultsSegment lateResult = lateResults.poll();
+        if (lateResult == null) {
+            return;
+        }
+        flushRun();
+        Predicate<ResultReadable> filter = resultFilter;
+        while (lateResult != null) {
+            lateCount++;
+            if (filter != null) {
+                lateResult = lateResult.filter(filter);
+            }
+            if (lateResult.getCount() > 0) {
+                downstream.onCycleResultSegment(lateResult);
+            }
+            lateResult = lateResults.poll();
+        }
+        logger.trace(() -> "emitted late results, " + lateCount + " so far");
+    }
+
+    private void emit(long cycle, int result) {
+        Predicate<ResultReadable> filter = resultFilter;
+        if (filter != null) {
+            filterResult = result;
+            if (!filter.test(filterReadable)) {
+                flushRun();
+                return;
+            }
+        }
+        if (runStart != UNSET && cycle == runEnd && result == runResult && runEnd - runStart < windowSize) {
+            runEnd++;
+            return;
+        }
+        flushRun();
+        runStart = cycle;
+        runEnd = cycle + 1;
+        runResult = result;
+    }
+
+    private void flushRun() {
+        if (runStart != UNSET) {
+            downstream.onCycleResultSegment(new CycleSpanResults(runStart, runEnd, runResult));
+            runStart = UNSET;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        while (!draining.compareAndSet(false, true)) {
+            Thread.yield();
+        }
+        try {
+            long windowBase = base.get();
+            drainTo(windowBase == UNSET ? UNSET : windowBase + windowSize);
+            drainLate();
+            flushRun();
+            if (lateCount > 0) {
+                logger.debug("closing with " + lateCount + " results which were emitted out of order");
+            }
+        } finally {
+            draining.set(false);
+        }
+        downstream.close();
+    }
+
+    @Override
+    public void setFilter(Predicate<ResultReadable> filter) {
+        this.resultFilter = filter;
+    }
+
+    @Override
+    public String toString() {
+        return "SlidingWindowResultBuffer{" +
+            "windowSize=" + windowSize +
+            ", base=" + base.get() +
+            ", late=" + lateCount +
+            ", downstream=" + downstream +
+            '}';
+    }
+}
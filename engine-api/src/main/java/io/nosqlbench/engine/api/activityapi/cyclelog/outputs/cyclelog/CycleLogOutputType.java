@@ -17,11 +17,12 @@
 package io.nosqlbench.engine.api.activityapi.cyclelog.outputs.cyclelog;
 
 import io.nosqlbench.engine.api.activityapi.core.Activity;
-import io.nosqlbench.engine.api.activityapi.cyclelog.outputs.ReorderingConcurrentResultBuffer;
+import io.nosqlbench.engine.api.activityapi.cyclelog.outputs.SlidingWindowResultBuffer;
 import io.nosqlbench.engine.api.activityapi.input.Input;
 import io.nosqlbench.engine.api.activityapi.output.Output;
 import io.nosqlbench.engine.api.activityapi.output.OutputDispenser;
 import io.nosqlbench.engine.api.activityapi.output.OutputType;
+import io.nosqlbench.engine.api.util.SimpleConfig;
 import io.nosqlbench.nb.annotations.Service;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -43,7 +44,13 @@ public class CycleLogOutputType implements OutputType {
         public Dispenser(Activity activity) {
             this.activity = activity;
             Input input = activity.getInputDispenserDelegate().getInput(0);
-            CycleLogOutput rleFileWriter = new CycleLogOutput(activity);
+            Output rleFileWriter;
+            if (new SimpleConfig(activity, "output").getString("segmentSize").isPresent()) {
+                logger.debug("writing cycle log to rolling segments with a background writer");
+                rleFileWriter = new SegmentedCycleLogOutput(activity);
+            } else {
+                rleFileWriter = new CycleLogOutput(activity);
+            }
 
             // TODO: Rework this so that the contiguous marking chunker can onAfterOpStop filtering
 //            if (input.isContiguous()) {
@@ -54,8 +61,8 @@ public class CycleLogOutputType implements OutputType {
 //            }
 //            else {
                 logger.debug("pre-buffering output extents with best-effort before RLE buffering");
-                ReorderingConcurrentResultBuffer prebuffer =
-                        new ReorderingConcurrentResultBuffer(rleFileWriter);
+                SlidingWindowResultBuffer prebuffer =
+                        new SlidingWindowResultBuffer(rleFileWriter);
                 this.output=prebuffer;
 //            }
             activity.registerAutoCloseable(output);
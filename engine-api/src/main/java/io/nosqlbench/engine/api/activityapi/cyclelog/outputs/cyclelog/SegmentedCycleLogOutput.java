@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.cyclelog.outputs.cyclelog;
+
+import io.nosqlbench.engine.api.activityapi.core.Activity;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResult;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResultsSegment;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.ResultReadable;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results_rle.CycleResultsRLEBufferTarget;
+import io.nosqlbench.engine.api.activityapi.cyclelog.inputs.cyclelog.CanFilterResultValue;
+import io.nosqlbench.engine.api.activityapi.output.Output;
+import io.nosqlbench.engine.api.util.SimpleConfig;
+import io.nosqlbench.engine.api.util.Unit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * <p>A {@link Output} that writes cycles and results in the same RLE format as
+ * {@link CycleLogOutput}, but into a series of fixed-size segment files instead of one
+ * file which is grown and re-mapped as it fills. This is meant for very long runs,
+ * where the log can grow much larger than memory.</p>
+ *
+ * <p>Results are RLE encoded into extents by the calling thread. Full extents are handed
+ * to a background writer thread, which copies them into the current segment. Each segment
+ * is pre-allocated and mapped once, at {@code segmentSize} bytes, and the writer rolls to a
+ * new segment file when it is full. Segment files are named
+ * <em>&lt;file&gt;.&lt;index&gt;.cyclelog</em>, with a six digit index starting at 0. A
+ * bounded number of extents may be in flight, so callers are only held up when the disk can
+ * not keep up.</p>
+ *
+ * <p>Durability is configurable:
+ * <UL>
+ *     <LI>none - segments are never forced, and are written back by the OS</LI>
+ *     <LI>close - each segment is forced once, when it is rolled or when the output is closed</LI>
+ *     <LI>interval - as with close, and also the current segment is forced every
+ *     {@code syncInterval} while it is being written</LI>
+ * </UL>
+ * All forcing is done by the writer thread.</p>
+ *
+ * <p>When the output is closed, the last segment is truncated to the data written. If the
+ * process ends without closing the output, the unwritten remainder of the last segment is
+ * zeroed, which readers recognize as the end of the log.</p>
+ */
+public class SegmentedCycleLogOutput implements Output, CanFilterResultValue {
+
+    private final static Logger logger = LogManager.getLogger(SegmentedCycleLogOutput.class);
+
+    public enum Durability {
+        none,
+        close,
+        interval
+    }
+
+    private final static int EXTENTS_IN_FLIGHT = 8;
+    private final static ByteBuffer END_OF_LOG = ByteBuffer.allocate(0);
+
+    private final String basename;
+    private final int extentSizeInSpans;
+    private final long segmentSize;
+    private final Durability durability;
+    private final long syncIntervalNanos;
+
+    private final BlockingQueue<ByteBuffer> filledExtents = new ArrayBlockingQueue<>(EXTENTS_IN_FLIGHT);
+    private final BlockingQueue<ByteBuffer> freeExtents = new ArrayBlockingQueue<>(EXTENTS_IN_FLIGHT + 1);
+    private final Thread writerThread;
+    private volatile Throwable writerError;
+    private boolean closed;
+
+    private CycleResultsRLEBufferTarget targetBuffer;
+    private Predicate<ResultReadable> filter;
+    private int filterResult;
+    private final ResultReadable filterReadable = () -> filterResult;
+
+    // These are only accessed by the writer thread
+    private int segmentIndex = -1;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private boolean unsynced;
+    private long lastSyncAt;
+
+    public SegmentedCycleLogOutput(Activity activity) {
+        this(new SimpleConfig(activity, "output"), activity.getAlias());
+    }
+
+    private SegmentedCycleLogOutput(SimpleConfig conf, String alias) {
+        this(
+            conf.getString("file").orElse(alias),
+            conf.getInteger("extentSize").orElse(1000),
+            conf.getString("segmentSize").map(s -> Unit.bytesFor(s).orElseThrow(
+                () -> new RuntimeException("Unable to parse segmentSize '" + s + "'"))).orElse(64.0 * 1024 * 1024).longValue(),
+            conf.getString("durability").map(Durability::valueOf).orElse(Durability.interval),
+            conf.getString("syncInterval").map(s -> Unit.msFor(s).orElseThrow(
+                () -> new RuntimeException("Unable to parse syncInterval '" + s + "'"))).orElse(1000L)
+        );
+    }
+
+    /**
+     * @param basename           The file name of the log, without the .cyclelog suffix
+     * @param extentSizeInSpans  The number of RLE spans to buffer before handing them to the writer
+     * @param segmentSize        The size of each segment file in bytes, rounded down to whole spans
+     * @param durability         When segments are forced to disk
+     * @param syncIntervalMillis How often the current segment is forced with {@link Durability#interval}
+     */
+    public SegmentedCycleLogOutput(String basename, int extentSizeInSpans, long segmentSize, Durability durability, long syncIntervalMillis) {
+        this.basename = basename.endsWith(".cyclelog") ? basename.substring(0, basename.length() - ".cyclelog".length()) : basename;
+        this.extentSizeInSpans = extentSizeInSpans;
+        long spans = Math.min(segmentSize, Integer.MAX_VALUE) / CycleResultsRLEBufferTarget.BYTES;
+        if (spans < 1) {
+            throw new RuntimeException("segmentSize must be at least " + CycleResultsRLEBufferTarget.BYTES + " bytes, but it is " + segmentSize);
+        }
+        this.segmentSize = spans * CycleResultsRLEBufferTarget.BYTES;
+        this.durability = durability;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+
+        removeIfPresent(new File(this.basename + ".cyclelog"));
+        int stale = 0;
+        while (removeIfPresent(segmentFile(this.basename, stale))) {
+            stale++;
+        }
+
+        this.targetBuffer = new CycleResultsRLEBufferTarget(extentSizeInSpans);
+        this.writerThread = new Thread(this::writeExtents, "cyclelog-writer:" + new File(this.basename).getName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * @param basename The file name of the log, without the .cyclelog suffix
+     * @param index    The segment index
+     * @return The file for the given segment of a segmented cycle log
+     */
+    public static File segmentFile(String basename, int index) {
+        return new File(basename + String.format(".%06d", index) + ".cyclelog");
+    }
+
+    private boolean removeIfPresent(File file) {
+        try {
+            if (Files.deleteIfExists(file.toPath())) {
+                logger.warn("removed extant file '" + file + "'");
+                return true;
+            }
+            return false;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public synchronized boolean onCycleResult(long completedCycle, int result) {
+        if (filter != null) {
+            filterResult = result;
+            if (!filter.test(filterReadable)) {
+                return true;
+            }
+        }
+        record(completedCycle, result);
+        return true;
+    }
+
+    @Override
+    public synchronized void onCycleResultSegment(CycleResultsSegment segment) {
+        for (CycleResult cycleResult : segment) {
+            if (filter == null || filter.test(cycleResult)) {
+                record(cycleResult.getCycle(), cycleResult.getResult());
+            }
+        }
+    }
+
+    private void record(long cycle, int result) {
+        if (closed) {
+            throw new RuntimeException("Unable to record cycle " + cycle + " after " + this + " was closed.");
+        }
+        targetBuffer.onCycleResult(cycle, result);
+        // Leave room for the run in progress, so that the target never has to resize
+        if (targetBuffer.getRemainingRecordCapacity() <= 1) {
+            handoff();
+            ByteBuffer next = freeExtents.poll();
+            targetBuffer = next != null ? new CycleResultsRLEBufferTarget(next) : new CycleResultsRLEBufferTarget(extentSizeInSpans);
+        }
+    }
+
+    private void handoff() {
+        checkWriter();
+        ByteBuffer extent = targetBuffer.toByteBuffer();
+        if (extent.remaining() == 0) {
+            return;
+        }
+        try {
+            filledExtents.put(extent);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void checkWriter() {
+        Throwable error = writerError;
+        if (error != null) {
+            throw new RuntimeException("The cycle log writer for " + basename + " failed: " + error, error);
+        }
+    }
+
+    private void writeExtents() {
+        try {
+            long pollNanos = durability == Durability.interval ? syncIntervalNanos : TimeUnit.SECONDS.toNanos(1);
+            while (true) {
+                ByteBuffer extent = filledExtents.poll(pollNanos, TimeUnit.NANOSECONDS);
+                if (extent == END_OF_LOG) {
+                    break;
+                }
+                if (extent != null) {
+                    write(extent);
+                    freeExtents.offer(extent.clear());
+                }
+                if (durability == Durability.interval && unsynced && System.nanoTime() - lastSyncAt >= syncIntervalNanos) {
+                    segment.force();
+                    unsynced = false;
+                    lastSyncAt = System.nanoTime();
+                }
+            }
+            if (segmentIndex < 0) {
+                nextSegment();
+            }
+            finishSegment(true);
+        } catch (Throwable t) {
+            logger.error("Error while writing cycle log " + basename + ": " + t, t);
+            writerError = t;
+            filledExtents.clear();
+        }
+    }
+
+    private void write(ByteBuffer extent) throws IOException {
+        int limit = extent.limit();
+        while (extent.hasRemaining()) {
+            if (segment == null || !segment.hasRemaining()) {
+                finishSegment(false);
+                nextSegment();
+            }
+            extent.limit(extent.position() + Math.min(extent.remaining(), segment.remaining()));
+            segment.put(extent);
+            extent.limit(limit);
+        }
+        unsynced = true;
+    }
+
+    private void nextSegment() throws IOException {
+        segmentIndex++;
+        File file = segmentFile(basename, segmentIndex);
+        logger.debug("starting cycle log segment " + file);
+        channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        lastSyncAt = System.nanoTime();
+    }
+
+    private void finishSegment(boolean last) throws IOException {
+        if (segment == null) {
+            return;
+        }
+        if (durability != Durability.none) {
+            segment.force();
+        }
+        int written = segment.position();
+        segment = null;
+        unsynced = false;
+        if (last && written < segmentSize) {
+            try {
+                channel.truncate(written);
+            } catch (IOException e) {
+                logger.debug("unable to truncate mapped cycle log segment, leaving it zero-filled: " + e);
+            }
+        }
+        channel.close();
+        channel = null;
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        handoff();
+        filledExtents.put(END_OF_LOG);
+        writerThread.join();
+        checkWriter();
+    }
+
+    @Override
+    public void setFilter(Predicate<ResultReadable> filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentedCycleLogOutput{" +
+            "file=" + basename +
+            ", segmentSize=" + segmentSize +
+            ", durability=" + durability +
+            ", segment=" + segmentIndex +
+            '}';
+    }
+}
@@ -20,6 +20,11 @@ public class ErrorDetail {
     public final Retry retryable;
     public final int resultCode;
     public final String name;
+    public final RetryPolicy retryPolicy;
+
+    // The most recently derived details, so that handler chains reuse them instead of allocating for every error
+    private volatile ErrorDetail withCode;
+    private volatile ErrorDetail withRetry;
 
     public boolean isRetryable() {
         return retryable == Retry.DoRetry;
@@ -32,23 +37,45 @@ public class ErrorDetail {
     }
 
     public ErrorDetail(String name, Retry retryable, int resultCode) {
+        this(name, retryable, resultCode, RetryPolicy.IMMEDIATE);
+    }
+
+    public ErrorDetail(String name, Retry retryable, int resultCode, RetryPolicy retryPolicy) {
         this.name = name;
         this.resultCode = resultCode;
         this.retryable = retryable;
+        this.retryPolicy = retryPolicy;
     }
 
     public ErrorDetail withResultCode(int resultCode) {
         if (this.resultCode == resultCode) {
             return this;
         }
-        return new ErrorDetail(name, this.retryable, resultCode);
+        ErrorDetail derived = withCode;
+        if (derived == null || derived.resultCode != resultCode) {
+            derived = new ErrorDetail(name, this.retryable, resultCode, this.retryPolicy);
+            withCode = derived;
+        }
+        return derived;
     }
 
     public ErrorDetail withRetryable() {
-        if (this.retryable == Retry.DoRetry) {
+        return withRetryable(this.retryPolicy);
+    }
+
+    /**
+     * Mark the error as retryable, with a policy for the delay before the retry.
+     */
+    public ErrorDetail withRetryable(RetryPolicy retryPolicy) {
+        if (this.retryable == Retry.DoRetry && this.retryPolicy == retryPolicy) {
             return this;
         }
-        return new ErrorDetail(name, Retry.DoRetry, this.resultCode);
+        ErrorDetail derived = withRetry;
+        if (derived == null || derived.retryPolicy != retryPolicy) {
+            derived = new ErrorDetail(name, Retry.DoRetry, this.resultCode, retryPolicy);
+            withRetry = derived;
+        }
+        return derived;
     }
 
     public static ErrorDetail OK = new ErrorDetail("OK",Retry.Unset, 0);
@@ -28,4 +28,17 @@ public interface ErrorHandler {
      * @return true if the operation should be retried, assuming retries available
      */
     ErrorDetail handleError(String name, Throwable t, long cycle, long durationInNanos, ErrorDetail detail);
+
+    /**
+     * Get a form of this handler which is only used for errors of the given name.
+     * This is called once for each error name when the handler chain for that error
+     * is resolved, so that handlers which look up state by name, like error metrics,
+     * can do the lookup once instead of for every error.
+     *
+     * @param name The error name
+     * @return A handler for the named error, which is this handler by default
+     */
+    default ErrorHandler forErrorName(String name) {
+        return this;
+    }
 }
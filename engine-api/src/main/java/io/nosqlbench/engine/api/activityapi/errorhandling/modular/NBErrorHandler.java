@@ -30,18 +30,41 @@ import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * <p>The modular error handler, which routes each error to the first handler list whose
+ * error patterns match the error name, as configured with the <em>errors</em> activity param.</p>
+ *
+ * <p>The handlers for each error name are resolved into a chain once, when that error is
+ * first seen, and each handler is bound to the error name with
+ * {@link ErrorHandler#forErrorName(String)} so that per-name state like metrics is looked up
+ * only once. When errors are named by their class, which is the default, the chains are
+ * cached by the error class in a {@link ClassValue}, so that handling an error does not need
+ * to derive its name or hash it. With a custom naming function, the chains are cached by name.</p>
+ */
 public class NBErrorHandler {
 
     private final Supplier<ErrorMetrics> errorMetricsSupplier;
     private final Supplier<String> configSpecSupplier;
     private final Function<Throwable, String> namer;
-    private final Map<String, List<ErrorHandler>> handlerCache = new ConcurrentHashMap<>();
+    private final Map<String, HandlerChain> handlerCache = new ConcurrentHashMap<>();
     private final List<HandlerMapping> configs = new ArrayList<>();
+    private final ClassValue<HandlerChain> classChains = new ClassValue<>() {
+        @Override
+        protected HandlerChain computeValue(Class<?> type) {
+            return chainFor(type.getSimpleName());
+        }
+    };
 
     public NBErrorHandler(Supplier<String> configSpecSupplier, Supplier<ErrorMetrics> metricsSupplier) {
-        this(configSpecSupplier, metricsSupplier, throwable -> throwable.getClass().getSimpleName());
+        this(configSpecSupplier, metricsSupplier, null);
     }
 
+    /**
+     * @param configSpecSupplier The supplier of the error handler config
+     * @param metricsSupplier    The supplier of error metrics, for handlers which need them
+     * @param namer              A function which names each error, or null to name errors by their
+     *                           simple class name
+     */
     public NBErrorHandler(Supplier<String> configSpecSupplier, Supplier<ErrorMetrics> metricsSupplier, Function<Throwable,String> namer) {
         this.errorMetricsSupplier = metricsSupplier;
         this.configSpecSupplier = configSpecSupplier;
@@ -53,21 +76,26 @@ public class NBErrorHandler {
     }
 
     public ErrorDetail handleError(Throwable throwable, long cycle, long nanosIntoOp) {
-        String errorName = namer.apply(throwable);
-//        String errorName = t.getClass().getSimpleName();
-        List<ErrorHandler> handlers = handlerCache.get(errorName);
+        HandlerChain chain = (namer == null) ? classChains.get(throwable.getClass()) : chainFor(namer.apply(throwable));
         ErrorDetail detail = ErrorDetail.ERROR_NONRETRYABLE;
-
-        if (handlers == null) {
-            handlers = lookup(errorName);
-            handlerCache.put(errorName, handlers);
+        for (ErrorHandler handler : chain.handlers) {
+            detail = handler.handleError(chain.errorName, throwable, cycle, nanosIntoOp, detail);
         }
+        return detail;
+    }
 
-        boolean retry = false;
-        for (ErrorHandler handler : handlers) {
-            detail = handler.handleError(errorName, throwable, cycle, nanosIntoOp, detail);
+    private HandlerChain chainFor(String errorName) {
+        HandlerChain chain = handlerCache.get(errorName);
+        if (chain == null) {
+            List<ErrorHandler> handlers = lookup(errorName);
+            ErrorHandler[] bound = new ErrorHandler[handlers.size()];
+            for (int i = 0; i < bound.length; i++) {
+                bound[i] = handlers.get(i).forErrorName(errorName);
+            }
+            chain = new HandlerChain(errorName, bound);
+            handlerCache.put(errorName, chain);
         }
-        return detail;
+        return chain;
     }
 
     private synchronized List<ErrorHandler> lookup(String errorName) {
@@ -89,6 +117,16 @@ public class NBErrorHandler {
         throw new RuntimeException("Unable to find a configured error handler for error '" + errorName + "'");
     }
 
+    private final static class HandlerChain {
+        private final String errorName;
+        private final ErrorHandler[] handlers;
+
+        private HandlerChain(String errorName, ErrorHandler[] handlers) {
+            this.errorName = errorName;
+            this.handlers = handlers;
+        }
+    }
+
     private ErrorHandler getHandler(Element cfg) {
         String name = cfg.get("handler", String.class).orElseThrow();
         LinkedHashMap<String, ServiceLoader.Provider<ErrorHandler>> providers = getProviders();
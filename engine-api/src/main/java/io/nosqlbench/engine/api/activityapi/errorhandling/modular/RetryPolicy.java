@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.errorhandling.modular;
+
+import io.nosqlbench.engine.api.util.Unit;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>A retry policy decides how long to wait before an operation is retried, and whether
+ * a retry is allowed at all by the retry budget. Retry policies are configured on the
+ * {@code retry} error handler, and are carried back to the action in the {@link ErrorDetail},
+ * so that all actions apply them in the same way.</p>
+ *
+ * <p>The backoff modes are:
+ * <UL>
+ *     <LI>none - retry immediately, which is the default</LI>
+ *     <LI>fixed - wait {@code delay} before each retry</LI>
+ *     <LI>exponential - wait {@code delay}, doubled for each retry of the same operation</LI>
+ *     <LI>decorrelated - wait a random time between {@code delay} and three times the
+ *     previous wait, which spreads retries out better than exponential backoff</LI>
+ * </UL>
+ * All waits are limited to {@code maxdelay}. For fixed and exponential backoff, {@code jitter}
+ * is the fraction of each wait which is randomized, from 0.0 to 1.0.</p>
+ *
+ * <p>The retry budget limits retries to a fraction of the attempted operations, so that retries
+ * can not multiply the load on a target which is already overloaded. Within each
+ * {@code budgetwindow}, up to {@code minretries} plus {@code budget} times the number of attempts
+ * in the window may be retried. Once the budget is spent, errors are not retried until the next window.
+ * The accounting is approximate at window boundaries, but it does not add any
+ * cost to operations which succeed.</p>
+ */
+public class RetryPolicy {
+
+    public enum Backoff {
+        none,
+        fixed,
+        exponential,
+        decorrelated
+    }
+
+    public final static RetryPolicy IMMEDIATE = new RetryPolicy(Backoff.none, 0L, 0L, 0.0d, 0.0d, 0L, 0L);
+
+    private final Backoff backoff;
+    private final long delayNanos;
+    private final long maxDelayNanos;
+    private final double jitter;
+    private final double budget;
+    private final long minRetries;
+    private final long windowNanos;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong windowAttempts = new AtomicLong(-1L);
+    private final AtomicLong windowRetries = new AtomicLong();
+
+    /**
+     * @param backoff       The backoff mode
+     * @param delayNanos    The base delay before a retry
+     * @param maxDelayNanos The longest delay before a retry
+     * @param jitter        The fraction of fixed and exponential delays which is randomized
+     * @param budget        The fraction of attempts which may be retried, or 0.0 for no retry budget
+     * @param minRetries    The number of retries which are always allowed within a budget window
+     * @param windowNanos   The length of each budget window
+     */
+    public RetryPolicy(Backoff backoff, long delayNanos, long maxDelayNanos, double jitter, double budget, long minRetries, long windowNanos) {
+        if (jitter < 0.0d || jitter > 1.0d) {
+            throw new RuntimeException("jitter must be between 0.0 and 1.0, but it is " + jitter);
+        }
+        if (budget < 0.0d) {
+            throw new RuntimeException("budget must be a positive fraction of attempts, but it is " + budget);
+        }
+        this.backoff = backoff;
+        this.delayNanos = delayNanos;
+        this.maxDelayNanos = Math.max(maxDelayNanos, delayNanos);
+        this.jitter = jitter;
+        this.budget = budget;
+        this.minRetries = minRetries;
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * Create a retry policy from the params of a retry handler, like
+     * {@code handler=retry backoff=exponential delay=10ms maxdelay=1s budget=0.1}.
+     *
+     * @param config The handler params
+     * @return {@link #IMMEDIATE} if no retry policy params are given, otherwise a new retry policy
+     */
+    public static RetryPolicy fromConfig(Map<String, ?> config) {
+        if (!config.containsKey("backoff") && !config.containsKey("budget")) {
+            return IMMEDIATE;
+        }
+        Backoff backoff = Backoff.valueOf(stringOf(config, "backoff", "none"));
+        long delay = nanosFor(stringOf(config, "delay", "10ms"));
+        long maxDelay = nanosFor(stringOf(config, "maxdelay", "1s"));
+        double jitter = Double.parseDouble(stringOf(config, "jitter", "0.0"));
+        double budget = Double.parseDouble(stringOf(config, "budget", "0.0"));
+        long minRetries = Long.parseLong(stringOf(config, "minretries", "10"));
+        long window = nanosFor(stringOf(config, "budgetwindow", "1s"));
+        return new RetryPolicy(backoff, delay, maxDelay, jitter, budget, minRetries, window);
+    }
+
+    private static String stringOf(Map<String, ?> config, String name, String defaultValue) {
+        Object value = config.get(name);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    private static long nanosFor(String spec) {
+        if (spec.matches("\\d+")) {
+            return TimeUnit.MILLISECONDS.toNanos(Long.parseLong(spec));
+        }
+        return Unit.nanosecondsFor(spec).orElseThrow(
+            () -> new RuntimeException("Unable to parse retry delay '" + spec + "'"));
+    }
+
+    /**
+     * @return true if this policy ever delays a retry
+     */
+    public boolean isDelayed() {
+        return backoff != Backoff.none;
+    }
+
+    /**
+     * @return true if this policy limits retries to a fraction of attempts
+     */
+    public boolean isBudgeted() {
+        return budget > 0.0d;
+    }
+
+    /**
+     * Get the time to wait before the next retry of an operation.
+     *
+     * @param retry         The number of the retry which is about to happen, starting at 1
+     * @param previousNanos The previous delay for the same operation, or 0 for the first retry
+     * @return The delay in nanoseconds
+     */
+    public long getDelayNanos(int retry, long previousNanos) {
+        return switch (backoff) {
+            case none -> 0L;
+            case fixed -> jittered(delayNanos);
+            case exponential -> {
+                int doublings = Math.max(0, retry - 1);
+                boolean overflows = doublings >= Long.numberOfLeadingZeros(delayNanos) - 1;
+                yield jittered(overflows ? maxDelayNanos : Math.min(maxDelayNanos, delayNanos << doublings));
+            }
+            case decorrelated -> {
+                long upper = Math.min(maxDelayNanos, Math.max(delayNanos, previousNanos) * 3);
+                yield upper > delayNanos ? ThreadLocalRandom.current().nextLong(delayNanos, upper + 1) : delayNanos;
+            }
+        };
+    }
+
+    private long jittered(long nanos) {
+        if (jitter == 0.0d || nanos <= 0L) {
+            return Math.min(nanos, maxDelayNanos);
+        }
+        long fixedPart = (long) (nanos * (1.0d - jitter));
+        return Math.min(maxDelayNanos, fixedPart + ThreadLocalRandom.current().nextLong(nanos - fixedPart + 1));
+    }
+
+    /**
+     * Take one retry from the retry budget.
+     *
+     * @param attempts A counter of all attempted operations, which is only read if this policy is budgeted
+     * @return true if the retry is allowed
+     */
+    public boolean tryAcquireRetry(LongSupplier attempts) {
+        if (!isBudgeted()) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long started = windowStart.get();
+        long attemptsAtStart = windowAttempts.get();
+        long attemptsNow = attempts.getAsLong();
+        if (attemptsAtStart < 0L || now - started >= windowNanos) {
+            if (windowStart.compareAndSet(started, now)) {
+                windowAttempts.set(attemptsNow);
+                windowRetries.set(0L);
+            }
+            attemptsAtStart = windowAttempts.get();
+        }
+        long allowed = minRetries + (long) (budget * Math.max(0L, attemptsNow - attemptsAtStart));
+        if (windowRetries.incrementAndGet() <= allowed) {
+            return true;
+        }
+        windowRetries.decrementAndGet();
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+            "backoff=" + backoff +
+            ", delay=" + delayNanos + "ns" +
+            ", maxdelay=" + maxDelayNanos + "ns" +
+            ", jitter=" + jitter +
+            (isBudgeted() ? ", budget=" + budget + ", minretries=" + minRetries + ", budgetwindow=" + windowNanos + "ns" : "") +
+            '}';
+    }
+}
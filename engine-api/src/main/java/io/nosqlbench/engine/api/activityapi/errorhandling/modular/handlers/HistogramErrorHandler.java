@@ -16,6 +16,7 @@
 
 package io.nosqlbench.engine.api.activityapi.errorhandling.modular.handlers;
 
+import com.codahale.metrics.Histogram;
 import io.nosqlbench.engine.api.activityapi.errorhandling.ErrorMetrics;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorDetail;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorHandler;
@@ -39,6 +40,15 @@ public class HistogramErrorHandler implements ErrorHandler, ErrorMetrics.Aware {
         return detail;
     }
 
+    @Override
+    public ErrorHandler forErrorName(String name) {
+        Histogram metric = exceptionHistoMetrics.getHistogram(name);
+        return (n, t, cycle, durationInNanos, detail) -> {
+            metric.update(durationInNanos);
+            return detail;
+        };
+    }
+
     @Override
     public void setErrorMetricsSupplier(Supplier<ErrorMetrics> supplier) {
         this.exceptionHistoMetrics = supplier.get().getExceptionHistoMetrics();
@@ -16,6 +16,7 @@
 
 package io.nosqlbench.engine.api.activityapi.errorhandling.modular.handlers;
 
+import com.codahale.metrics.Meter;
 import io.nosqlbench.engine.api.activityapi.errorhandling.ErrorMetrics;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorDetail;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorHandler;
@@ -34,6 +35,15 @@ public class MeterErrorHandler implements ErrorHandler, ErrorMetrics.Aware {
         return detail;
     }
 
+    @Override
+    public ErrorHandler forErrorName(String name) {
+        Meter metric = exceptionMeterMetrics.getMeter(name);
+        return (n, t, cycle, durationInNanos, detail) -> {
+            metric.mark();
+            return detail;
+        };
+    }
+
     @Override
     public void setErrorMetricsSupplier(Supplier<ErrorMetrics> supplier) {
         this.exceptionMeterMetrics = supplier.get().getExceptionMeterMetrics();
@@ -18,12 +18,46 @@ package io.nosqlbench.engine.api.activityapi.errorhandling.modular.handlers;
 
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorDetail;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorHandler;
+import io.nosqlbench.engine.api.activityapi.errorhandling.modular.RetryPolicy;
 import io.nosqlbench.nb.annotations.Service;
+import io.nosqlbench.nb.api.config.standard.ConfigModel;
+import io.nosqlbench.nb.api.config.standard.NBConfigModel;
+import io.nosqlbench.nb.api.config.standard.NBMapConfigurable;
+import io.nosqlbench.nb.api.config.standard.Param;
 
+import java.util.Map;
+
+/**
+ * The retry error handler marks an error as retryable. By itself, the retry happens
+ * immediately. With the params of a {@link RetryPolicy}, like
+ * {@code "handler=retry backoff=decorrelated delay=5ms maxdelay=2s budget=0.2"},
+ * the action waits before retrying, and limits retries to a fraction of attempts.
+ */
 @Service(value = ErrorHandler.class, selector = "retry")
-public class RetryErrorHandler implements ErrorHandler {
+public class RetryErrorHandler implements ErrorHandler, NBMapConfigurable {
+
+    private RetryPolicy retryPolicy = RetryPolicy.IMMEDIATE;
+
     @Override
     public ErrorDetail handleError(String name, Throwable t, long cycle, long durationInNanos, ErrorDetail detail) {
-        return detail.withRetryable();
+        return detail.withRetryable(retryPolicy);
+    }
+
+    @Override
+    public void applyConfig(Map<String, ?> providedConfig) {
+        this.retryPolicy = RetryPolicy.fromConfig(providedConfig);
+    }
+
+    @Override
+    public NBConfigModel getConfigModel() {
+        return ConfigModel.of(this.getClass())
+            .add(Param.optional("backoff", String.class, "none, fixed, exponential, or decorrelated"))
+            .add(Param.optional("delay", String.class, "the base delay before a retry"))
+            .add(Param.optional("maxdelay", String.class, "the longest delay before a retry"))
+            .add(Param.optional("jitter", String.class, "the fraction of fixed or exponential delays which is randomized"))
+            .add(Param.optional("budget", String.class, "the fraction of attempts which may be retried"))
+            .add(Param.optional("minretries", String.class, "the retries always allowed within a budget window"))
+            .add(Param.optional("budgetwindow", String.class, "the length of each budget window"))
+            .asReadOnly();
     }
 }
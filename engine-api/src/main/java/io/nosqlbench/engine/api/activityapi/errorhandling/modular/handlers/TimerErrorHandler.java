@@ -16,12 +16,14 @@
 
 package io.nosqlbench.engine.api.activityapi.errorhandling.modular.handlers;
 
+import com.codahale.metrics.Timer;
 import io.nosqlbench.engine.api.activityapi.errorhandling.ErrorMetrics;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorDetail;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorHandler;
 import io.nosqlbench.engine.api.metrics.ExceptionTimerMetrics;
 import io.nosqlbench.nb.annotations.Service;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 @Service(value= ErrorHandler.class, selector="timer")
@@ -36,6 +38,15 @@ public class TimerErrorHandler implements ErrorHandler, ErrorMetrics.Aware {
         return detail;
     }
 
+    @Override
+    public ErrorHandler forErrorName(String name) {
+        Timer metric = exceptionTimerMetrics.getTimer(name);
+        return (n, t, cycle, durationInNanos, detail) -> {
+            metric.update(durationInNanos, TimeUnit.NANOSECONDS);
+            return detail;
+        };
+    }
+
     @Override
     public void setErrorMetricsSupplier(Supplier<ErrorMetrics> supplier) {
         this.exceptionTimerMetrics = supplier.get().getExceptionTimerMetrics();
@@ -29,6 +29,19 @@ public interface Input {
      */
     CycleSegment getInputSegment(int segmentLength);
 
+    /**
+     * Return the next InputSegment available, as with {@link #getInputSegment(int)}, but
+     * allow the input to reuse a segment which it returned previously to the same caller.
+     * The caller must not use the prior segment after this call. Inputs which can not reuse
+     * segments simply return a new one.
+     * @param segmentLength The number of cycles (not necessarily contiguous) in the segment.
+     * @param reusable A segment previously returned to this caller, or null
+     * @return a segment, or null if none available.
+     */
+    default CycleSegment getInputSegment(int segmentLength, CycleSegment reusable) {
+        return getInputSegment(segmentLength);
+    }
+
     default boolean isContiguous() {
         return false;
     }
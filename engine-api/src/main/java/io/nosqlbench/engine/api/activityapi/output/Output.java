@@ -41,6 +41,13 @@ public interface Output extends AutoCloseable {
         return this.onCycleResult(result.getCycle(),result.getResult());
     }
 
+    /**
+     * Mark the results of a segment of cycles. The segment is only valid during this call,
+     * since its buffer may be reused by the caller, so outputs which keep results for later
+     * must copy them.
+     *
+     * @param segment The cycle results
+     */
     default void onCycleResultSegment(CycleResultsSegment segment) {
         segment.forEach(s -> onCycleResult(s.getCycle(),s.getResult()));
     }
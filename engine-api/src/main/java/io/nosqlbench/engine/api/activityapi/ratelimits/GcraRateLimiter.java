@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.ratelimits;
+
+import com.codahale.metrics.Gauge;
+import io.nosqlbench.api.NBNamedElement;
+import io.nosqlbench.engine.api.metrics.ActivityMetrics;
+import io.nosqlbench.nb.annotations.Service;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * <H2>Synopsis</H2>
+ * <p>This rate limiter computes the scheduled time of each operation directly from
+ * an atomic op counter, in the style of the generic cell rate algorithm (GCRA). The
+ * n-th op after the rate spec was applied is scheduled at
+ * <em>base time + n * nanos per op</em>. There is no lock and no filler thread, so
+ * the cost of acquiring an op is one atomic increment and one read of the system timer
+ * when the caller is on schedule.</p>
+ *
+ * <H2>Burst Ratio</H2>
+ * <p>When callers are behind schedule, ops are released no faster than
+ * <em>op rate * burst ratio</em>, by way of a second schedule which is only used while
+ * behind. Thus, time lost by slow callers can be recovered at the burst rate until the
+ * op counter is back on schedule. With a burst ratio of 1.0, lost time is never recovered,
+ * and ops are released at the strict rate.</p>
+ *
+ * <p>The wait time reported by this rate limiter is the number of nanoseconds that the
+ * op counter is behind the current time, which is the same measure used by {@link HybridRateLimiter}.</p>
+ */
+@Service(value = RateLimiter.class, selector = "gcra")
+public class GcraRateLimiter implements RateLimiter {
+
+    private final static Logger logger = LogManager.getLogger(GcraRateLimiter.class);
+
+    /**
+     * Waits shorter than this are spun instead of parked, since parking is not
+     * accurate below the timer slack of most systems.
+     */
+    private final static long SPIN_NANOS = 20_000L;
+
+    private final AtomicLong opCounter = new AtomicLong(0L);
+    private final AtomicLong burstSchedule = new AtomicLong(0L);
+    private final AtomicLong cumulativeWaitTimeNanos = new AtomicLong(0L);
+
+    private volatile Schedule schedule;
+    private RateSpec rateSpec;
+    private State state = State.Idle;
+
+    private final String label;
+    private final LongSupplier nanoClock;
+    private Gauge<Long> delayGauge;
+    private Gauge<Double> avgRateGauge;
+    private Gauge<Double> burstRateGauge;
+
+    public GcraRateLimiter(NBNamedElement named, String label, RateSpec rateSpec) {
+        this(named, label, rateSpec, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock The source of the current time in nanoseconds, which tests may replace
+     *                  along with {@link #waitUntil(long, long)} to run the limiter in virtual time
+     */
+    protected GcraRateLimiter(NBNamedElement named, String label, RateSpec rateSpec, LongSupplier nanoClock) {
+        this.label = label;
+        this.nanoClock = nanoClock;
+        init(named);
+        applyRateSpec(rateSpec);
+    }
+
+    protected void init(NBNamedElement named) {
+        this.delayGauge = ActivityMetrics.gauge(named, label + ".waittime", new RateLimiters.WaitTimeGauge(this));
+        this.avgRateGauge = ActivityMetrics.gauge(named, label + ".config.cyclerate", new RateLimiters.RateGauge(this));
+        this.burstRateGauge = ActivityMetrics.gauge(named, label + ".config.burstrate", new RateLimiters.BurstRateGauge(this));
+    }
+
+    @Override
+    public long maybeWaitForOp() {
+        Schedule s = this.schedule;
+        long n = opCounter.getAndIncrement() - s.baseCount;
+        long scheduledAt = s.baseTime + (long) (n * s.nanosPerOp);
+        long now = getNanoClockTime();
+
+        if (scheduledAt >= now) {
+            waitUntil(scheduledAt, now);
+            return 0L;
+        }
+
+        long releaseAt = burstSchedule.accumulateAndGet(now, (prior, t) -> Math.max(prior + s.burstNanosPerOp, t));
+        if (releaseAt > now) {
+            waitUntil(releaseAt, now);
+        }
+        return now - scheduledAt;
+    }
+
+    /**
+     * Wait until the clock reaches the target time.
+     */
+    protected void waitUntil(long target, long now) {
+        while (now < target) {
+            long delay = target - now;
+            if (delay > SPIN_NANOS) {
+                LockSupport.parkNanos(delay - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+            now = getNanoClockTime();
+        }
+    }
+
+    @Override
+    public long getTotalWaitTime() {
+        return cumulativeWaitTimeNanos.get() + getWaitTime();
+    }
+
+    @Override
+    public long getWaitTime() {
+        Schedule s = this.schedule;
+        if (s == null || state == State.Idle) {
+            return 0L;
+        }
+        long n = opCounter.get() - s.baseCount;
+        long scheduledAt = s.baseTime + (long) (n * s.nanosPerOp);
+        return Math.max(0L, getNanoClockTime() - scheduledAt);
+    }
+
+    @Override
+    public synchronized void applyRateSpec(RateSpec updatingRateSpec) {
+        if (updatingRateSpec == null) {
+            throw new RuntimeException("RateSpec must be defined");
+        }
+
+        if (updatingRateSpec.equals(this.rateSpec) && !updatingRateSpec.isRestart()) {
+            return;
+        }
+
+        this.rateSpec = updatingRateSpec.getType().equals("gcra") ? updatingRateSpec : updatingRateSpec.withType("gcra");
+        if (this.schedule == null) {
+            this.schedule = new Schedule(opCounter.get(), getNanoClockTime(), rateSpec);
+        } else {
+            // continue from the currently scheduled position at the new rate
+            Schedule s = this.schedule;
+            long count = opCounter.get();
+            long scheduledAt = s.baseTime + (long) ((count - s.baseCount) * s.nanosPerOp);
+            this.schedule = new Schedule(count, scheduledAt, rateSpec);
+        }
+
+        if (this.state == State.Idle && updatingRateSpec.isAutoStart()) {
+            this.start();
+        } else if (updatingRateSpec.isRestart()) {
+            this.restart();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        switch (state) {
+            case Started:
+            case Idle:
+                long now = getNanoClockTime();
+                this.schedule = new Schedule(opCounter.get(), now, rateSpec);
+                burstSchedule.set(now);
+                state = State.Started;
+                break;
+        }
+    }
+
+    public synchronized long restart() {
+        switch (state) {
+            case Idle:
+                this.start();
+                return 0L;
+            case Started:
+                long waittime = getWaitTime();
+                long accumulated = cumulativeWaitTimeNanos.getAndSet(0L);
+                long now = getNanoClockTime();
+                this.schedule = new Schedule(opCounter.get(), now, rateSpec);
+                burstSchedule.set(now);
+                return waittime + accumulated;
+            default:
+                return 0L;
+        }
+    }
+
+    @Override
+    public long getStartTime() {
+        Schedule s = this.schedule;
+        return s == null ? 0L : s.baseTime;
+    }
+
+    @Override
+    public RateSpec getRateSpec() {
+        return this.rateSpec;
+    }
+
+    protected long getNanoClockTime() {
+        return nanoClock.getAsLong();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(GcraRateLimiter.class.getSimpleName());
+        sb.append("{\n");
+        if (this.getRateSpec() != null) {
+            sb.append("      spec:").append(this.getRateSpec().toString());
+        }
+        sb.append(",\n       ops:").append(opCounter.get());
+        sb.append(",\n  waittime:").append(getWaitTime());
+        if (this.state != null) {
+            sb.append(",\n     state:'").append(this.state).append("'");
+        }
+        sb.append("\n}");
+        return sb.toString();
+    }
+
+    /**
+     * The schedule is replaced as a whole when the rate changes, so that each caller
+     * sees a consistent base and rate without locking.
+     */
+    private final static class Schedule {
+        private final long baseCount;
+        private final long baseTime;
+        private final double nanosPerOp;
+        private final long burstNanosPerOp;
+
+        private Schedule(long baseCount, long baseTime, RateSpec spec) {
+            this.baseCount = baseCount;
+            this.baseTime = baseTime;
+            this.nanosPerOp = 1_000_000_000.0D / spec.getRate();
+            this.burstNanosPerOp = (long) (nanosPerOp / spec.getBurstRatio());
+        }
+    }
+
+    private enum State {
+        Idle,
+        Started
+    }
+}
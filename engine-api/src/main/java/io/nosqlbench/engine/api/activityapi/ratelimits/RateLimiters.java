@@ -27,11 +27,27 @@ public class RateLimiters {
     public static synchronized RateLimiter createOrUpdate(NBNamedElement def, String label, RateLimiter extant, RateSpec spec) {
 
         if (extant == null) {
-            RateLimiter rateLimiter= new HybridRateLimiter(def, label, spec);
+            RateLimiter rateLimiter;
+            switch (spec.getType()) {
+                case "gcra":
+                    rateLimiter = new GcraRateLimiter(def, label, spec);
+                    break;
+                case "striped":
+                    rateLimiter = new StripedRateLimiter(def, label, spec);
+                    break;
+                case "hybrid":
+                default:
+                    rateLimiter = new HybridRateLimiter(def, label, spec);
+            }
 
             logger.info("Using rate limiter: " + rateLimiter);
             return rateLimiter;
         } else {
+            if (!spec.getType().equals(extant.getRateSpec().getType())) {
+                logger.warn("The rate limiter type can not be changed once created. Keeping the " +
+                    extant.getRateSpec().getType() + " type for " + label + ".");
+                spec = spec.withType(extant.getRateSpec().getType());
+            }
             extant.applyRateSpec(spec);
             logger.info("Updated rate limiter: " + extant);
             return extant;
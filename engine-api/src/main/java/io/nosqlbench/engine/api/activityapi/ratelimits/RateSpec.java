@@ -44,6 +44,8 @@ import org.apache.logging.log4j.LogManager;
  * <LI>&lt;rate&gt;</LI>
  * <LI>&lt;rate&gt;,&lt;burst ratio&gt;</LI>
  * <LI>&lt;rate&gt;,&lt;burst ratio&gt;,&lt;verb&gt;</LI>
+ * <LI>&lt;rate&gt;,&lt;burst ratio&gt;,&lt;verb&gt;,&lt;type&gt;</LI>
+ * <LI>&lt;rate&gt;,&lt;burst ratio&gt;,&lt;type&gt;</LI>
  * </UL>
  *
  * Where:
@@ -52,6 +54,8 @@ import org.apache.logging.log4j.LogManager;
  * <EM>burst ratio</EM> is a floating point value greater than 1.0 which determines how much faster
  * the rate limiter may go to catch up to the overall.
  * <EM>verb</EM> is one of configure, start, or restart, as explained below.
+ * <EM>type</EM> is the rate limiter implementation, one of hybrid (the default), gcra, or striped. The type
+ * is only used when a rate limiter is first created.
  *
  * For example:
  * <UL>
@@ -62,6 +66,9 @@ import org.apache.logging.log4j.LogManager;
  * <LI>1000,1.05,restart - Allow up to 1000 ops per second on average, but allow 1050 ops per second
  * if the workload gets behind. If the rate limiter was already running, restart it, clearing any
  * previous backlog (wait time) and resource pools.</LI>
+ * <LI>1000000,1.1,gcra - Allow up to 1000000 ops per second, using the lock-free {@link GcraRateLimiter}.</LI>
+ * <LI>1000000,1.1,striped - Allow up to 1000000 ops per second in aggregate, with a share of the rate
+ * for each thread, using the {@link StripedRateLimiter}.</LI>
  * </UL>
  *
  * <H2>Rate Limiter Life Cycle</H2>
@@ -105,6 +112,7 @@ public class RateSpec {
     public static final double DEFAULT_RATE_OPS_S = 1.0D;
     public static final double DEFAULT_BURST_RATIO = 1.1D;
     public static Verb DEFAULT_VERB = Verb.start;
+    public static final String DEFAULT_TYPE = "hybrid";
 
     /**
      * Target rate in Operations Per Second
@@ -112,6 +120,7 @@ public class RateSpec {
     public double opsPerSec = DEFAULT_RATE_OPS_S;
     public double burstRatio = DEFAULT_BURST_RATIO;
     public Verb verb = Verb.start;
+    public String type = DEFAULT_TYPE;
 
     public enum Verb {
         /**
@@ -146,9 +155,14 @@ public class RateSpec {
     }
 
     public RateSpec(double opsPerSec, double burstRatio, Verb type) {
+        this(opsPerSec, burstRatio, type, DEFAULT_TYPE);
+    }
+
+    public RateSpec(double opsPerSec, double burstRatio, Verb verb, String type) {
         this.opsPerSec = opsPerSec;
         this.burstRatio = burstRatio;
-        this.verb = type;
+        this.verb = verb;
+        this.type = type;
     }
 
     public RateSpec(ParameterMap.NamedParameter tuple) {
@@ -161,9 +175,15 @@ public class RateSpec {
     public RateSpec(String spec) {
         String[] specs = spec.split("[,:;]");
         switch (specs.length) {
+            case 4:
+                type = parseType(specs[3]);
             case 3:
-                verb = Verb.valueOf(specs[2].toLowerCase());
-                logger.debug("selected rate limiter type: " + verb);
+                if (isType(specs[2]) && specs.length == 3) {
+                    type = parseType(specs[2]);
+                } else {
+                    verb = Verb.valueOf(specs[2].toLowerCase());
+                    logger.debug("selected rate limiter verb: " + verb);
+                }
             case 2:
                 burstRatio = Double.valueOf(specs[1]);
                 if (burstRatio < 1.0) {
@@ -177,6 +197,18 @@ public class RateSpec {
         }
     }
 
+    private static boolean isType(String spec) {
+        String lc = spec.toLowerCase();
+        return lc.equals("hybrid") || lc.equals("gcra") || lc.equals("striped");
+    }
+
+    private static String parseType(String spec) {
+        if (!isType(spec)) {
+            throw new RuntimeException("Unknown rate limiter type '" + spec + "', valid types are hybrid, gcra, or striped.");
+        }
+        return spec.toLowerCase();
+    }
+
     public String toString() {
         double ratePortion = Math.abs(opsPerSec - ((long) opsPerSec));
         String ratefmt = (ratePortion > 0.001D) ? String.format("%,.3f", opsPerSec) : String.format("%,d", (long) opsPerSec);
@@ -185,19 +217,23 @@ public class RateSpec {
         double burstPortion = Math.abs(br - ((long) br));
         String burstfmt = (burstPortion > 0.001D) ? String.format("%,.3f", br) : String.format("%,d", (long) br);
 
-        return String.format("{ rate:'%s', burstRatio:'%.3f', SOPSS:'%s', BOPSS:'%s', verb:'%s' }", ratefmt, burstRatio, ratefmt, burstfmt, verb);
+        return String.format("{ rate:'%s', burstRatio:'%.3f', SOPSS:'%s', BOPSS:'%s', verb:'%s', type:'%s' }", ratefmt, burstRatio, ratefmt, burstfmt, verb, type);
     }
 
     public RateSpec withOpsPerSecond(double rate) {
-        return new RateSpec(rate, this.burstRatio);
+        return new RateSpec(rate, this.burstRatio, DEFAULT_VERB, this.type);
     }
 
     public RateSpec withBurstRatio(double burstRatio) {
-        return new RateSpec(this.opsPerSec, burstRatio);
+        return new RateSpec(this.opsPerSec, burstRatio, DEFAULT_VERB, this.type);
     }
 
     public RateSpec withVerb(Verb verb) {
-        return new RateSpec(this.opsPerSec, this.burstRatio, verb);
+        return new RateSpec(this.opsPerSec, this.burstRatio, verb, this.type);
+    }
+
+    public RateSpec withType(String type) {
+        return new RateSpec(this.opsPerSec, this.burstRatio, this.verb, parseType(type));
     }
 
 
@@ -247,5 +283,9 @@ public class RateSpec {
         return this.verb == Verb.restart;
     }
 
+    public String getType() {
+        return this.type;
+    }
+
 
 }
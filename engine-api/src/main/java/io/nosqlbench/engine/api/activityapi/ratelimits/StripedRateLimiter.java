@@ -0,0 +1,620 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.ratelimits;
+
+import com.codahale.metrics.Gauge;
+import io.nosqlbench.api.NBNamedElement;
+import io.nosqlbench.engine.api.metrics.ActivityMetrics;
+import io.nosqlbench.nb.annotations.Service;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <H2>Synopsis</H2>
+ * <p>This rate limiter divides the activity-wide rate into stripes, one per motor slot, so
+ * that the hot path of each thread only touches its own state. Each stripe schedules its
+ * ops from a local op counter at its share of the rate, in the same way as
+ * {@link GcraRateLimiter}. Motors get their stripe with {@link #getStripe(long)}. Other
+ * callers of {@link #maybeWaitForOp()} are given a stripe per thread.</p>
+ *
+ * <H2>Rebalancing</H2>
+ * <p>A background thread rebalances the stripes every {@value #REBALANCE_MILLIS}ms. Stripes
+ * which are behind schedule can not use their whole share, so their share is reduced to
+ * slightly more than what they achieved, and the remainder is divided among the stripes
+ * which are on schedule, and thus limited by their share. The sum of all shares is always
+ * the configured rate, so the rate is honored in aggregate.</p>
+ *
+ * <H2>Burst Ratio</H2>
+ * <p>Each stripe may recover time lost within its own schedule at up to its share times the
+ * burst ratio. Time lost by a stripe which gives up some of its share during rebalancing is
+ * not recovered by that stripe, since its share is used by other stripes instead.</p>
+ *
+ * <p>The wait time reported by this rate limiter is the number of nanoseconds that all
+ * stripes together are behind the aggregate schedule.</p>
+ *
+ * <H2>Life-cycle</H2>
+ * <p>Stripes whose thread has exited, and stripes which have taken no ops for
+ * {@value #IDLE_REBALANCES} rebalances in a row while their next op was already due, are removed
+ * at the next rebalance, and their share is divided among the remaining stripes. A stripe whose
+ * next op is not due yet is waiting on its own schedule, so it is never idle, however slow its
+ * share is. A removed stripe which is used again rejoins the rate limiter with an even share,
+ * and continues from its own schedule or from the aggregate schedule, whichever is later, so
+ * that it does not get ops which the other stripes have already taken. {@link #close()} stops the rebalancer thread. A closed
+ * rate limiter is idle until it is started again.</p>
+ */
+@Service(value = RateLimiter.class, selector = "striped")
+public class StripedRateLimiter implements RateLimiter, AutoCloseable {
+
+    private final static Logger logger = LogManager.getLogger(StripedRateLimiter.class);
+
+    public final static long REBALANCE_MILLIS = 50L;
+    private final static long SPIN_NANOS = 20_000L;
+
+    /**
+     * Stripes which are not using their share keep at least this fraction of an even share,
+     * so that they can show demand again at the next rebalance.
+     */
+    private final static double MIN_SHARE = 0.05d;
+
+    /**
+     * Stripes which are not using their share keep this much more than they achieved.
+     */
+    private final static double HEADROOM = 1.1d;
+
+    /**
+     * Stripes which are more than this many ops behind their schedule at a rebalance, and
+     * also more than {@link #LAG_THRESHOLD_NANOS} behind it, are not using their whole share.
+     */
+    private final static long LAG_THRESHOLD_OPS = 2L;
+
+    /**
+     * A tenth of the rebalance period, so that stripes which are only behind because of
+     * scheduling jitter keep their share.
+     */
+    private final static long LAG_THRESHOLD_NANOS = REBALANCE_MILLIS * 100_000L;
+
+    /**
+     * Stripes which have taken no ops for this many rebalances in a row, while their
+     * next op was due, are removed.
+     */
+    public final static int IDLE_REBALANCES = 20;
+
+    private final ConcurrentHashMap<Long, Stripe> stripes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Stripe> threadStripes = new ThreadLocal<>();
+    private final AtomicLong threadStripeIds = new AtomicLong(-1L);
+    private final AtomicLong cumulativeWaitTimeNanos = new AtomicLong(0L);
+    private final AtomicLong removedOps = new AtomicLong(0L);
+
+    private final String label;
+    private RateSpec rateSpec;
+    private State state = State.Idle;
+    private volatile long aggregateBaseTime;
+    private volatile long aggregateBaseCount;
+    private volatile Thread rebalancer;
+
+    private Gauge<Long> delayGauge;
+    private Gauge<Double> avgRateGauge;
+    private Gauge<Double> burstRateGauge;
+
+    public StripedRateLimiter(NBNamedElement named, String label, RateSpec rateSpec) {
+        this.label = label;
+        init(named);
+        this.aggregateBaseTime = getNanoClockTime();
+        applyRateSpec(rateSpec);
+    }
+
+    protected void init(NBNamedElement named) {
+        this.delayGauge = ActivityMetrics.gauge(named, label + ".waittime", new RateLimiters.WaitTimeGauge(this));
+        this.avgRateGauge = ActivityMetrics.gauge(named, label + ".config.cyclerate", new RateLimiters.RateGauge(this));
+        this.burstRateGauge = ActivityMetrics.gauge(named, label + ".config.burstrate", new RateLimiters.BurstRateGauge(this));
+    }
+
+    /**
+     * Get the stripe for a given slot, creating it if needed. When a stripe is added,
+     * all stripes are reset to an even share of the rate.
+     *
+     * @param slot The slot number of the caller, usually the motor slot
+     * @return a rate limiter which is only to be used by the thread running this slot
+     */
+    public Stripe getStripe(long slot) {
+        Stripe stripe = stripes.get(slot);
+        if (stripe == null) {
+            synchronized (this) {
+                stripe = stripes.get(slot);
+                if (stripe == null) {
+                    stripe = new Stripe(slot);
+                    addStripe(stripe, getNanoClockTime());
+                }
+            }
+        }
+        return stripe;
+    }
+
+    /**
+     * @param scheduledPosition The time at which the next op of the added stripe is due
+     */
+    private synchronized void addStripe(Stripe stripe, long scheduledPosition) {
+        stripes.put(stripe.getSlot(), stripe);
+        double share = rateSpec.getRate() / stripes.size();
+        long now = getNanoClockTime();
+        for (Stripe s : stripes.values()) {
+            s.reschedule(share, s == stripe ? scheduledPosition : s.getScheduledPosition(), now);
+        }
+    }
+
+    /**
+     * Add a stripe which was removed back into the rate limiter, unless another stripe
+     * has taken its slot since.
+     */
+    private synchronized void rejoin(Stripe stripe) {
+        if (!stripe.removed) {
+            return;
+        }
+        stripe.removed = false;
+        stripe.idleRebalances = 0;
+        if (stripes.get(stripe.getSlot()) == null) {
+            long resumeAt = Math.max(stripe.getScheduledPosition(), getAggregateScheduledPosition());
+            removedOps.addAndGet(-stripe.removedAtOps);
+            addStripe(stripe, resumeAt);
+        }
+    }
+
+    @Override
+    public long maybeWaitForOp() {
+        Stripe stripe = threadStripes.get();
+        if (stripe == null) {
+            // Stripes for threads without a slot are numbered below zero so that they can't collide with slots
+            stripe = getStripe(threadStripeIds.getAndDecrement());
+            threadStripes.set(stripe);
+        }
+        return stripe.maybeWaitForOp();
+    }
+
+    /**
+     * Redistribute unused shares from stripes which are behind schedule to
+     * stripes which are on schedule.
+     */
+    synchronized void rebalance() {
+        removeStaleStripes();
+        List<Stripe> active = new ArrayList<>(stripes.values());
+        if (active.isEmpty()) {
+            return;
+        }
+        long now = getNanoClockTime();
+        double rate = rateSpec.getRate();
+        double evenShare = rate / active.size();
+
+        List<Stripe> limited = new ArrayList<>();
+        double reserved = 0.0d;
+        double[] newShares = new double[active.size()];
+
+        for (int i = 0; i < active.size(); i++) {
+            Stripe stripe = active.get(i);
+            double achieved = stripe.takeAchievedRate(now);
+            long lag = now - stripe.getScheduledPosition();
+            if (lag > Math.max(stripe.getNanosPerOp() * LAG_THRESHOLD_OPS, LAG_THRESHOLD_NANOS)) {
+                newShares[i] = Math.max(Math.min(achieved * HEADROOM, stripe.getShare()), evenShare * MIN_SHARE);
+                reserved += newShares[i];
+            } else {
+                newShares[i] = -1.0d;
+                limited.add(stripe);
+            }
+        }
+
+        if (limited.isEmpty()) {
+            // Every stripe is behind, so there is nobody to give the unused share to
+            return;
+        }
+
+        double available = Math.max(rate - reserved, 0.0d);
+        double limitedTotal = limited.stream().mapToDouble(Stripe::getShare).sum();
+
+        for (int i = 0; i < active.size(); i++) {
+            Stripe stripe = active.get(i);
+            if (newShares[i] >= 0.0d) {
+                // give up the local backlog along with the unused share
+                stripe.reschedule(newShares[i], now, now);
+            } else {
+                double share = limitedTotal > 0.0d ?
+                    available * (stripe.getShare() / limitedTotal) : available / limited.size();
+                stripe.reschedule(share, stripe.getScheduledPosition(), now);
+            }
+        }
+    }
+
+    /**
+     * Remove the stripes of threads which have exited and the stripes which have been idle for
+     * {@link #IDLE_REBALANCES} rebalances, and scale the remaining shares back up to the
+     * configured rate. The ops of removed stripes are kept in the aggregate schedule.
+     */
+    private void removeStaleStripes() {
+        List<Stripe> stale = new ArrayList<>();
+        for (Stripe stripe : stripes.values()) {
+            if (stripe.isAbandoned() || stripe.isIdle()) {
+                stale.add(stripe);
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        for (Stripe stripe : stale) {
+            stripes.remove(stripe.getSlot());
+            stripe.removedAtOps = stripe.ops.get();
+            stripe.removed = true;
+            removedOps.addAndGet(stripe.removedAtOps);
+            logger.debug("Removed " + stripe + " of " + (stripe.isAbandoned() ? "exited" : "idle") + " thread from " + label);
+        }
+        double remaining = stripes.values().stream().mapToDouble(Stripe::getShare).sum();
+        if (remaining <= 0.0d) {
+            return;
+        }
+        double scale = rateSpec.getRate() / remaining;
+        long now = getNanoClockTime();
+        for (Stripe stripe : stripes.values()) {
+            stripe.reschedule(stripe.getShare() * scale, stripe.getScheduledPosition(), now);
+        }
+    }
+
+    @Override
+    public long getTotalWaitTime() {
+        return cumulativeWaitTimeNanos.get() + getWaitTime();
+    }
+
+    @Override
+    public long getWaitTime() {
+        if (state == State.Idle) {
+            return 0L;
+        }
+        return Math.max(0L, getNanoClockTime() - getAggregateScheduledPosition());
+    }
+
+    /**
+     * @return The time at which the next op is due on the aggregate schedule of all stripes
+     */
+    private long getAggregateScheduledPosition() {
+        long ops = getTotalOps() - aggregateBaseCount;
+        return aggregateBaseTime + (long) (ops * (1_000_000_000.0d / rateSpec.getRate()));
+    }
+
+    private long getTotalOps() {
+        long total = removedOps.get();
+        for (Stripe stripe : stripes.values()) {
+            total += stripe.ops.get();
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void applyRateSpec(RateSpec updatingRateSpec) {
+        if (updatingRateSpec == null) {
+            throw new RuntimeException("RateSpec must be defined");
+        }
+
+        if (updatingRateSpec.equals(this.rateSpec) && !updatingRateSpec.isRestart()
+            && (state == State.Started || !updatingRateSpec.isAutoStart())) {
+            return;
+        }
+
+        RateSpec prior = this.rateSpec;
+        this.rateSpec = updatingRateSpec.getType().equals("striped") ? updatingRateSpec : updatingRateSpec.withType("striped");
+
+        if (prior != null) {
+            long now = getNanoClockTime();
+            cumulativeWaitTimeNanos.addAndGet(getWaitTime());
+            this.aggregateBaseCount = getTotalOps();
+            this.aggregateBaseTime = now;
+            double scale = rateSpec.getRate() / prior.getRate();
+            for (Stripe stripe : stripes.values()) {
+                stripe.reschedule(stripe.getShare() * scale, stripe.getScheduledPosition(), now);
+            }
+        }
+
+        if (this.state == State.Idle && updatingRateSpec.isAutoStart()) {
+            this.start();
+        } else if (updatingRateSpec.isRestart()) {
+            this.restart();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (state == State.Idle) {
+            long now = getNanoClockTime();
+            this.aggregateBaseCount = getTotalOps();
+            this.aggregateBaseTime = now;
+            for (Stripe stripe : stripes.values()) {
+                stripe.reschedule(stripe.getShare(), now, now);
+            }
+            startRebalancer();
+            state = State.Started;
+        }
+    }
+
+    public synchronized long restart() {
+        switch (state) {
+            case Idle:
+                this.start();
+                return 0L;
+            case Started:
+                long waittime = getWaitTime();
+                long accumulated = cumulativeWaitTimeNanos.getAndSet(0L);
+                long now = getNanoClockTime();
+                this.aggregateBaseCount = getTotalOps();
+                this.aggregateBaseTime = now;
+                for (Stripe stripe : stripes.values()) {
+                    stripe.reschedule(stripe.getShare(), now, now);
+                }
+                return waittime + accumulated;
+            default:
+                return 0L;
+        }
+    }
+
+    private void startRebalancer() {
+        Thread thread = new Thread(() -> {
+            Thread self = Thread.currentThread();
+            while (rebalancer == self) {
+                LockSupport.parkNanos(REBALANCE_MILLIS * 1_000_000L);
+                if (rebalancer != self) {
+                    break;
+                }
+                try {
+                    rebalance();
+                } catch (Exception e) {
+                    logger.error("error while rebalancing " + this + ": " + e, e);
+                }
+            }
+            logger.debug("Stopped rebalancer thread: " + self.getName());
+        });
+        thread.setName("StripedRateLimiter-" + label);
+        thread.setDaemon(true);
+        rebalancer = thread;
+        thread.start();
+        logger.debug("Starting rebalancer thread: " + thread.getName());
+    }
+
+    /**
+     * Stop the rebalancer thread and return to the idle state. The wait time accrued so far
+     * is kept in the total wait time.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            thread = this.rebalancer;
+            this.rebalancer = null;
+            if (state == State.Started) {
+                cumulativeWaitTimeNanos.addAndGet(getWaitTime());
+                state = State.Idle;
+            }
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(REBALANCE_MILLIS * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    Thread getRebalancer() {
+        return rebalancer;
+    }
+
+    @Override
+    public long getStartTime() {
+        return aggregateBaseTime;
+    }
+
+    @Override
+    public RateSpec getRateSpec() {
+        return this.rateSpec;
+    }
+
+    protected long getNanoClockTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(StripedRateLimiter.class.getSimpleName());
+        sb.append("{\n");
+        if (this.getRateSpec() != null) {
+            sb.append("      spec:").append(this.getRateSpec().toString());
+        }
+        sb.append(",\n   stripes:").append(stripes.size());
+        sb.append(",\n       ops:").append(getTotalOps());
+        sb.append(",\n  waittime:").append(getWaitTime());
+        if (this.state != null) {
+            sb.append(",\n     state:'").append(this.state).append("'");
+        }
+        sb.append("\n}");
+        return sb.toString();
+    }
+
+    private enum State {
+        Idle,
+        Started
+    }
+
+    /**
+     * A stripe is a slot-local share of the rate. It is only to be used from one thread at a time.
+     * The life-cycle and rate spec methods are delegated to the striped rate limiter which owns it.
+     */
+    public final class Stripe implements RateLimiter {
+        private final long slot;
+        private final AtomicLong ops = new AtomicLong(0L);
+        private volatile Schedule schedule;
+        private volatile Thread owner;
+        private volatile boolean removed;
+        private int idleRebalances;
+        private long removedAtOps;
+        private long burstReleaseAt;
+        private long lastOps;
+        private long lastRebalanceAt;
+
+        private Stripe(long slot) {
+            this.slot = slot;
+            long now = getNanoClockTime();
+            this.lastRebalanceAt = now;
+            this.burstReleaseAt = now;
+        }
+
+        @Override
+        public long maybeWaitForOp() {
+            Thread current = Thread.currentThread();
+            if (owner != current) {
+                owner = current;
+            }
+            if (removed) {
+                rejoin(this);
+            }
+            Schedule s = this.schedule;
+            long n = ops.get();
+            ops.lazySet(n + 1);
+            long scheduledAt = s.baseTime + (long) ((n - s.baseCount) * s.nanosPerOp);
+            long now = getNanoClockTime();
+
+            if (scheduledAt >= now) {
+                waitUntil(scheduledAt, now);
+                return 0L;
+            }
+
+            long releaseAt = Math.max(burstReleaseAt + s.burstNanosPerOp, now);
+            burstReleaseAt = releaseAt;
+            if (releaseAt > now) {
+                waitUntil(releaseAt, now);
+            }
+            return now - scheduledAt;
+        }
+
+        private void waitUntil(long target, long now) {
+            while (now < target) {
+                long delay = target - now;
+                if (delay > SPIN_NANOS) {
+                    LockSupport.parkNanos(delay - SPIN_NANOS);
+                } else {
+                    Thread.onSpinWait();
+                }
+                now = getNanoClockTime();
+            }
+        }
+
+        private void reschedule(double share, long scheduledPosition, long now) {
+            this.schedule = new Schedule(ops.get(), scheduledPosition, share, rateSpec.getBurstRatio());
+        }
+
+        long getScheduledPosition() {
+            Schedule s = this.schedule;
+            if (s == null) {
+                return getNanoClockTime();
+            }
+            return s.baseTime + (long) ((ops.get() - s.baseCount) * s.nanosPerOp);
+        }
+
+        private double takeAchievedRate(long now) {
+            long current = ops.get();
+            double seconds = (now - lastRebalanceAt) / 1_000_000_000.0d;
+            double achieved = seconds > 0.0d ? (current - lastOps) / seconds : 0.0d;
+            // A stripe whose next op is not due yet is waiting on its schedule, not idle
+            idleRebalances = current == lastOps && getScheduledPosition() <= now ? idleRebalances + 1 : 0;
+            lastOps = current;
+            lastRebalanceAt = now;
+            return achieved;
+        }
+
+        private boolean isAbandoned() {
+            Thread t = this.owner;
+            return t != null && !t.isAlive();
+        }
+
+        private boolean isIdle() {
+            return idleRebalances >= IDLE_REBALANCES;
+        }
+
+        public double getShare() {
+            Schedule s = this.schedule;
+            return s == null ? 0.0d : s.share;
+        }
+
+        private double getNanosPerOp() {
+            return this.schedule.nanosPerOp;
+        }
+
+        public long getSlot() {
+            return slot;
+        }
+
+        @Override
+        public long getTotalWaitTime() {
+            return StripedRateLimiter.this.getTotalWaitTime();
+        }
+
+        @Override
+        public long getWaitTime() {
+            return StripedRateLimiter.this.getWaitTime();
+        }
+
+        @Override
+        public void applyRateSpec(RateSpec spec) {
+            StripedRateLimiter.this.applyRateSpec(spec);
+        }
+
+        @Override
+        public long getStartTime() {
+            return StripedRateLimiter.this.getStartTime();
+        }
+
+        @Override
+        public RateSpec getRateSpec() {
+            return StripedRateLimiter.this.getRateSpec();
+        }
+
+        @Override
+        public void start() {
+            StripedRateLimiter.this.start();
+        }
+
+        @Override
+        public String toString() {
+            return "Stripe{slot=" + slot + ", share=" + getShare() + ", ops=" + ops.get() + "}";
+        }
+    }
+
+    private final static class Schedule {
+        private final long baseCount;
+        private final long baseTime;
+        private final double share;
+        private final double nanosPerOp;
+        private final long burstNanosPerOp;
+
+        private Schedule(long baseCount, long baseTime, double share, double burstRatio) {
+            this.baseCount = baseCount;
+            this.baseTime = baseTime;
+            this.share = share;
+            this.nanosPerOp = 1_000_000_000.0D / share;
+            this.burstNanosPerOp = (long) (nanosPerOp / burstRatio);
+        }
+    }
+}
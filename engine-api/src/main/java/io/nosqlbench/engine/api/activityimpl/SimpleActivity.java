@@ -224,6 +224,30 @@ public class SimpleActivity implements Activity, ProgressCapable {
             }
         }
         closeables.clear();
+        for (RateLimiter limiter : new RateLimiter[]{strideLimiter, cycleLimiter, phaseLimiter}) {
+            closeRateLimiter(limiter);
+        }
+    }
+
+    /**
+     * Rate limiters which own resources, like the rebalancer thread of a striped rate limiter,
+     * are closed when the activity is shut down or when they are replaced.
+     */
+    private static void closeRateLimiter(RateLimiter limiter) {
+        if (limiter instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new RuntimeException("Error closing rate limiter " + limiter + ": " + e, e);
+            }
+        }
+    }
+
+    private static RateLimiter replaceRateLimiter(RateLimiter prior, RateLimiter replacement) {
+        if (prior != null && prior != replacement) {
+            closeRateLimiter(prior);
+        }
+        return replacement;
     }
 
     @Override
@@ -233,7 +257,7 @@ public class SimpleActivity implements Activity, ProgressCapable {
 
     @Override
     public synchronized void setCycleLimiter(RateLimiter rateLimiter) {
-        this.cycleLimiter = rateLimiter;
+        this.cycleLimiter = replaceRateLimiter(this.cycleLimiter, rateLimiter);
     }
 
     @Override
@@ -251,7 +275,7 @@ public class SimpleActivity implements Activity, ProgressCapable {
 
     @Override
     public synchronized void setStrideLimiter(RateLimiter rateLimiter) {
-        this.strideLimiter = rateLimiter;
+        this.strideLimiter = replaceRateLimiter(this.strideLimiter, rateLimiter);
     }
 
     @Override
@@ -275,7 +299,7 @@ public class SimpleActivity implements Activity, ProgressCapable {
 
     @Override
     public void setPhaseLimiter(RateLimiter rateLimiter) {
-        this.phaseLimiter = rateLimiter;
+        this.phaseLimiter = replaceRateLimiter(this.phaseLimiter, rateLimiter);
     }
 
     @Override
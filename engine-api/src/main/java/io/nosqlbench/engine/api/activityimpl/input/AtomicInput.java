@@ -64,28 +64,92 @@ public class AtomicInput implements Input, ActivityDefObserver, ProgressCapable
 
     @Override
     public CycleSegment getInputSegment(int stride) {
+        return getInputSegment(stride, null);
+    }
+
+    @Override
+    public CycleSegment getInputSegment(int stride, CycleSegment reusable) {
         while (true) {
             long current = this.cycleValue.get();
             long next = current + stride;
             if (next > max.get()) {
                 if (recycleValue.get() >= recycleMax.get()) {
-                    logger.trace("Exhausted input for " + activityDef.getAlias() + " at " + current + ", recycle " +
-                        "count " + recycleValue.get());
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("Exhausted input for " + activityDef.getAlias() + " at " + current + ", recycle " +
+                            "count " + recycleValue.get());
+                    }
                     return null;
                 } else {
                     if (cycleValue.compareAndSet(current, min.get() + stride)) {
                         recycleValue.getAndIncrement();
-                        logger.trace("recycling input for " + activityDef.getAlias() + " recycle:" + recycleValue.get());
-                        return new InputInterval.Segment(min.get(), min.get() + stride);
+                        logger.trace(() -> "recycling input for " + activityDef.getAlias() + " recycle:" + recycleValue.get());
+                        return segment(reusable, min.get(), min.get() + stride);
                     }
                 }
             }
             if (cycleValue.compareAndSet(current, next)) {
-                return new InputInterval.Segment(current, next);
+                return segment(reusable, current, next);
             }
         }
     }
 
+    /**
+     * Claim a contiguous range of cycles in whole strides, for inputs which hand out cycles
+     * in larger chunks than one stride. The range is at least one stride and at most
+     * maxLength cycles, rounded down to whole strides, and it ends at the end of the
+     * current pass over the cycle range. The same recycle rules apply as with
+     * {@link #getInputSegment(int)}.
+     *
+     * @param stride The number of cycles in each stride
+     * @param maxLength The maximum number of cycles to claim
+     * @param reusable A segment to reuse, or null
+     * @return A segment of cycles, or null if the input is exhausted
+     */
+    protected InputInterval.Segment claimRange(int stride, long maxLength, InputInterval.Segment reusable) {
+        while (true) {
+            long current = this.cycleValue.get();
+            long remaining = max.get() - current;
+            if (remaining < stride) {
+                if (recycleValue.get() >= recycleMax.get()) {
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("Exhausted input for " + activityDef.getAlias() + " at " + current + ", recycle " +
+                            "count " + recycleValue.get());
+                    }
+                    return null;
+                }
+                long length = strides(Math.min(maxLength, max.get() - min.get()), stride);
+                if (cycleValue.compareAndSet(current, min.get() + length)) {
+                    recycleValue.getAndIncrement();
+                    logger.trace(() -> "recycling input for " + activityDef.getAlias() + " recycle:" + recycleValue.get());
+                    return (InputInterval.Segment) segment(reusable, min.get(), min.get() + length);
+                }
+                continue;
+            }
+            long length = strides(Math.min(maxLength, remaining), stride);
+            if (cycleValue.compareAndSet(current, current + length)) {
+                return (InputInterval.Segment) segment(reusable, current, current + length);
+            }
+        }
+    }
+
+    private static long strides(long length, int stride) {
+        return Math.max(stride, length - (length % stride));
+    }
+
+    /**
+     * @return the number of cycles which are not yet claimed in the current pass over the cycle range
+     */
+    protected long getRemainingInPass() {
+        return Math.max(0L, max.get() - cycleValue.get());
+    }
+
+    private static CycleSegment segment(CycleSegment reusable, long start, long afterEnd) {
+        if (reusable instanceof InputInterval.Segment segment) {
+            return segment.reset(start, afterEnd);
+        }
+        return new InputInterval.Segment(start, afterEnd);
+    }
+
 //    @Override
 //    public double getProgress() {
 //        return (double) (cycleValue.get() - min.get());
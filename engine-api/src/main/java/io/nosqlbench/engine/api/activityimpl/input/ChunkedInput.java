@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityimpl.input;
+
+import io.nosqlbench.engine.api.activityapi.core.ActivityDefObserver;
+import io.nosqlbench.engine.api.activityapi.core.Startable;
+import io.nosqlbench.engine.api.activityapi.core.Stoppable;
+import io.nosqlbench.engine.api.activityapi.core.progress.ProgressCapable;
+import io.nosqlbench.engine.api.activityapi.core.progress.ProgressMeterDisplay;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleSegment;
+import io.nosqlbench.engine.api.activityapi.input.Input;
+import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * <p>This input hands out the same cycles as {@link AtomicInput}, but each slot claims a
+ * larger contiguous range of cycles at a time, called a chunk, and then takes its strides
+ * from that chunk without touching any shared state. With many threads and small strides,
+ * this removes most of the contention on the shared cycle counter.</p>
+ *
+ * <p>The size of each chunk is adapted to the observed throughput of the slot, so that a
+ * chunk lasts about {@value #TARGET_CHUNK_MILLIS}ms. Chunks are also limited to a fair share of
+ * the remaining cycles in the current pass, divided among the threads, so that near the end of
+ * the cycle range, chunks get smaller and no slot is left running a large chunk by itself.
+ * Chunks are always a whole number of strides.</p>
+ *
+ * <p>Cycles within a chunk are in order, but chunks from different slots interleave, so
+ * this input is not contiguous in the sense required by marking outputs.</p>
+ *
+ * <p>When the start of the cycle range changes, claimed chunks are abandoned, as the input
+ * starts over at the new start cycle. When only the end changes, claimed chunks are kept,
+ * but they are cut off at the new end.</p>
+ *
+ * <p>Each slot keeps the same input across motor restarts. When a slot is stopped, as when
+ * the number of threads is lowered, the unused rest of its chunk is put back, and it is
+ * taken by the next slot which needs a chunk, before any new cycles are claimed.</p>
+ */
+public class ChunkedInput extends AtomicInput {
+
+    public final static long TARGET_CHUNK_MILLIS = 10L;
+    private final static int INITIAL_STRIDES = 16;
+    private final static long MAX_CHUNK = 1L << 20;
+
+    // This is updated during construction by the super constructor, so it is not initialized here
+    private volatile int epoch;
+    private volatile int threads;
+    private long startCycle;
+    private volatile long endCycle;
+    private final Map<Long, SlotInput> slots = new ConcurrentHashMap<>();
+    private final Queue<Reclaimed> reclaimed = new ConcurrentLinkedQueue<>();
+
+    public ChunkedInput(ActivityDef activityDef) {
+        super(activityDef);
+    }
+
+    /**
+     * @param slot The slot which will use this input
+     * @return an input which is only to be used by the given slot, which is the same one
+     * each time it is asked for the same slot
+     */
+    public Input forSlot(long slot) {
+        return slots.computeIfAbsent(slot, s -> new SlotInput());
+    }
+
+    @Override
+    public synchronized void onActivityDefUpdate(ActivityDef activityDef) {
+        super.onActivityDefUpdate(activityDef);
+        this.threads = Math.max(1, activityDef.getThreads());
+        this.endCycle = activityDef.getEndCycle();
+        if (activityDef.getStartCycle() != startCycle) {
+            this.startCycle = activityDef.getStartCycle();
+            // chunks which were claimed for the prior cycle range are abandoned
+            epoch++;
+        }
+    }
+
+    @Override
+    public boolean isContiguous() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkedInput{" + super.toString() + ", threads=" + threads + '}';
+    }
+
+    /**
+     * The unused cycles of a chunk which was claimed by a slot that has since stopped.
+     */
+    private record Reclaimed(long start, long afterEnd, int epoch) {
+    }
+
+    /**
+     * The state of a slot is only used by its own motor thread, except when the slot is stopped
+     * from another thread. The methods are synchronized for that case, which costs one
+     * uncontended lock per stride.
+     */
+    private class SlotInput implements Input, ActivityDefObserver, ProgressCapable, Startable, Stoppable {
+        private InputInterval.Segment chunk;
+        private int chunkEpoch = -1;
+        private long next;
+        private long afterEnd;
+        private long chunkSize;
+        private long chunkLength;
+        private long chunkStartedAt;
+        private boolean stopped;
+
+        @Override
+        public CycleSegment getInputSegment(int stride) {
+            return getInputSegment(stride, null);
+        }
+
+        @Override
+        public synchronized CycleSegment getInputSegment(int stride, CycleSegment reusable) {
+            long end = endCycle;
+            if (afterEnd > end) {
+                // the end of the cycle range was lowered after this chunk was claimed
+                afterEnd = Math.max(next, end);
+            }
+            if (afterEnd - next < stride || chunkEpoch != epoch) {
+                if (!claimChunk(stride)) {
+                    return null;
+                }
+            }
+            long start = next;
+            long afterSegment = next += stride;
+            if (stopped) {
+                // the slot was stopped just before this call, so the motor will not ask again
+                release();
+            }
+            if (reusable instanceof InputInterval.Segment segment) {
+                return segment.reset(start, afterSegment);
+            }
+            return new InputInterval.Segment(start, afterSegment);
+        }
+
+        private boolean claimChunk(int stride) {
+            long now = System.nanoTime();
+            if (chunkEpoch != epoch || chunkLength == 0L) {
+                chunkSize = (long) stride * INITIAL_STRIDES;
+            } else {
+                long elapsed = Math.max(1L, now - chunkStartedAt);
+                long ideal = (long) ((double) chunkLength * (TARGET_CHUNK_MILLIS * 1_000_000L) / elapsed);
+                // change by at most a factor of two per chunk to smooth out noisy measurements
+                long bounded = Math.max(chunkSize / 2, Math.min(chunkSize * 2, ideal));
+                chunkSize = Math.max(stride, Math.min(MAX_CHUNK, bounded));
+            }
+
+            chunkEpoch = epoch;
+            chunkStartedAt = now;
+            if (claimReclaimed(stride)) {
+                return true;
+            }
+
+            long length = chunkSize;
+            long fairShare = getRemainingInPass() / (2L * threads);
+            if (fairShare < length) {
+                length = Math.max(stride, fairShare);
+            }
+
+            chunk = claimRange(stride, length, chunk);
+            if (chunk == null) {
+                next = afterEnd = chunkLength = 0L;
+                return false;
+            }
+            next = chunk.getStart();
+            chunkLength = chunk.getLength();
+            afterEnd = next + chunkLength;
+            return true;
+        }
+
+        /**
+         * Take the rest of a chunk which a stopped slot put back, if there is one for the
+         * current cycle range with at least one stride left in it.
+         */
+        private boolean claimReclaimed(int stride) {
+            Reclaimed range;
+            while ((range = reclaimed.poll()) != null) {
+                if (range.epoch() != chunkEpoch) {
+                    continue;
+                }
+                long rangeEnd = Math.min(range.afterEnd(), endCycle);
+                if (rangeEnd - range.start() < stride) {
+                    continue;
+                }
+                next = range.start();
+                afterEnd = rangeEnd;
+                chunkLength = rangeEnd - next;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Put back the unused rest of the current chunk, so that another slot can take it.
+         */
+        private void release() {
+            if (afterEnd > next && chunkEpoch == epoch) {
+                reclaimed.add(new Reclaimed(next, afterEnd, chunkEpoch));
+            }
+            next = afterEnd = 0L;
+        }
+
+        @Override
+        public synchronized void start() {
+            stopped = false;
+        }
+
+        @Override
+        public synchronized void requestStop() {
+            stopped = true;
+            release();
+        }
+
+        @Override
+        public void onActivityDefUpdate(ActivityDef activityDef) {
+            ChunkedInput.this.onActivityDefUpdate(activityDef);
+        }
+
+        @Override
+        public boolean isContiguous() {
+            return false;
+        }
+
+        @Override
+        public ProgressMeterDisplay getProgressMeter() {
+            return ChunkedInput.this.getProgressMeter();
+        }
+
+        @Override
+        public String toString() {
+            return "ChunkedInput.SlotInput{next=" + next + ", afterEnd=" + afterEnd + ", chunkSize=" + chunkSize + "}";
+        }
+    }
+}
@@ -54,8 +54,8 @@ public class InputInterval implements Input {
 
     public static class Segment implements CycleSegment {
 
-        private final long afterEnd;
-        private final long start;
+        private long afterEnd;
+        private long start;
         private long next;
 
         public Segment(long start, long afterEnd) {
@@ -64,6 +64,27 @@ public class InputInterval implements Input {
             this.next = start;
         }
 
+        /**
+         * Point this segment at a new interval, so that it can be reused by the same caller.
+         * @param start The first cycle of the interval
+         * @param afterEnd The first cycle after the interval
+         * @return this segment
+         */
+        public Segment reset(long start, long afterEnd) {
+            this.start = start;
+            this.afterEnd = afterEnd;
+            this.next = start;
+            return this;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getLength() {
+            return afterEnd - start;
+        }
+
         @Override
         public long nextCycle() {
             if (next < afterEnd) {
@@ -28,6 +28,7 @@ import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleSegmen
 import io.nosqlbench.engine.api.activityapi.input.Input;
 import io.nosqlbench.engine.api.activityapi.output.Output;
 import io.nosqlbench.engine.api.activityapi.ratelimits.RateLimiter;
+import io.nosqlbench.engine.api.activityapi.ratelimits.StripedRateLimiter;
 import io.nosqlbench.engine.api.activityimpl.ActivityDef;
 import io.nosqlbench.engine.api.activityimpl.SlotStateTracker;
 import org.apache.logging.log4j.Logger;
@@ -52,6 +53,7 @@ import static io.nosqlbench.engine.api.activityapi.core.RunState.*;
 public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
 
     private static final Logger logger = LogManager.getLogger(CoreMotor.class);
+    private static final ThreadLocal<Long> currentSlotId = new ThreadLocal<>();
 
     private final long slotId;
 
@@ -68,6 +70,10 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
     private RateLimiter phaseRateLimiter;
     private Timer phasesTimer;
 
+    private long[] strideCycles = new long[0];
+    private int[] strideResults = new int[0];
+    private long[] strideDelays = new long[0];
+
     private Input input;
     private Action action;
     private final Activity activity;
@@ -185,18 +191,28 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
         return slotStateTracker;
     }
 
+    /**
+     * @return The slot id of the motor which is running on the current thread, or -1 if
+     * the current thread is not running a motor
+     */
+    public static long getCurrentSlotId() {
+        Long slot = currentSlotId.get();
+        return slot != null ? slot : -1L;
+    }
+
     @Override
     public void run() {
 
+        currentSlotId.set(slotId);
         try {
             inputTimer = activity.getInstrumentation().getOrCreateInputTimer();
             stridesServiceTimer = activity.getInstrumentation().getOrCreateStridesServiceTimer();
             stridesResponseTimer = activity.getInstrumentation().getStridesResponseTimerOrNull();
             optrackerBlockCounter = activity.getInstrumentation().getOrCreateOpTrackerBlockedCounter();
 
-            strideRateLimiter = activity.getStrideLimiter();
-            cycleRateLimiter = activity.getCycleLimiter();
-            phaseRateLimiter = activity.getPhaseLimiter();
+            strideRateLimiter = forSlot(activity.getStrideLimiter());
+            cycleRateLimiter = forSlot(activity.getCycleLimiter());
+            phaseRateLimiter = forSlot(activity.getPhaseLimiter());
 
 
             if (slotState.get() == Finished) {
@@ -236,7 +252,10 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                 @SuppressWarnings("unchecked")
                 AsyncAction<D> async = (AsyncAction) action;
 
-                opTracker = new OpTrackerImpl<>(activity, slotId);
+                // the tracker is created after the constructor applied the activity def, so apply it now
+                OpTrackerImpl<D> tracker = new OpTrackerImpl<>(activity, slotId);
+                tracker.onActivityDefUpdate(activity.getActivityDef());
+                opTracker = tracker;
                 opTracker.setCycleOpFunction(async.getOpInitFunction());
 
                 StrideOutputConsumer<D> strideconsumer = null;
@@ -296,6 +315,7 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                         }
 
                         try {
+                            async.throwStopError();
                             TrackedOp<D> op = opTracker.newOp(cyclenum,strideTracker);
                             op.setWaitTime(cycleDelay);
 
@@ -329,6 +349,7 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                         logger.warn("slot " + this.slotId + " was stopped before completing successfully");
                     }
                 }
+                async.throwStopError();
 
                 if (slotState.get() == Stopping) {
                     slotStateTracker.enterState(Stopped);
@@ -346,16 +367,31 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                 }
 
                 SyncAction sync = (SyncAction) action;
+                BatchSyncAction batchAction = null;
+                if (sync instanceof BatchSyncAction batchSync && batchSync.isBatching() && multiPhaseAction == null) {
+                    logger.debug("using batched cycle dispatch for slot " + slotId);
+                    batchAction = batchSync;
+                }
 
-                while (slotState.get() == Running) {
+                // The segment is reused across strides when the input supports it, and the result
+                // buffer is only created when there is an output to receive it
+                CycleSegment cycleSegment = null;
+                CycleResultSegmentBuffer segBuffer = null;
 
-                    CycleSegment cycleSegment = null;
-                    CycleResultSegmentBuffer segBuffer = new CycleResultSegmentBuffer(stride);
+                while (slotState.get() == Running) {
 
-                    try (Timer.Context inputTime = inputTimer.time()) {
-                        cycleSegment = input.getInputSegment(stride);
+                    if (output != null) {
+                        if (segBuffer == null || segBuffer.getResultCapacity() < stride) {
+                            segBuffer = new CycleResultSegmentBuffer(stride);
+                        } else {
+                            segBuffer.reset();
+                        }
                     }
 
+                    long inputStart = System.nanoTime();
+                    cycleSegment = input.getInputSegment(stride, cycleSegment);
+                    inputTimer.update(System.nanoTime() - inputStart, TimeUnit.NANOSECONDS);
+
                     if (cycleSegment == null) {
                         logger.trace("input exhausted (input " + input + ") via null segment, stopping motor thread " + slotId);
                         slotStateTracker.enterState(Finished);
@@ -371,6 +407,10 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                     long strideStart = System.nanoTime();
                     try {
 
+                        if (batchAction != null) {
+                            runBatchStride(batchAction, cycleSegment, segBuffer);
+                        }
+
                         while (!cycleSegment.isExhausted()) {
                             cyclenum = cycleSegment.nextCycle();
                             if (cyclenum < 0) {
@@ -394,7 +434,9 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
 
                             long cycleStart = System.nanoTime();
                             try {
-                                logger.trace("cycle " + cyclenum);
+                                if (logger.isTraceEnabled()) {
+                                    logger.trace("cycle " + cyclenum);
+                                }
 
                                 // runCycle
                                 long phaseStart = System.nanoTime();
@@ -422,7 +464,9 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                                 long cycleEnd = System.nanoTime();
                                 cyclesTimer.update((cycleEnd - cycleStart) + cycleDelay, TimeUnit.NANOSECONDS);
                             }
-                            segBuffer.append(cyclenum, result);
+                            if (segBuffer != null) {
+                                segBuffer.append(cyclenum, result);
+                            }
                         }
 
                     } finally {
@@ -430,7 +474,7 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                         stridesServiceTimer.update((strideEnd - strideStart) + strideDelay, TimeUnit.NANOSECONDS);
                     }
 
-                    if (output != null) {
+                    if (segBuffer != null) {
                         CycleResultsSegment outputBuffer = segBuffer.toReader();
                         try {
                             output.onCycleResultSegment(outputBuffer);
@@ -453,10 +497,71 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
         } catch (Throwable t) {
             logger.error("Error in core motor loop:" + t, t);
             throw t;
+        } finally {
+            currentSlotId.remove();
         }
     }
 
 
+    /**
+     * Run all remaining cycles of a segment as one group, so that the action can dispatch
+     * them together. Rate limits still apply per cycle, and the time of the whole group is
+     * recorded for each cycle in it. Cycles are only recorded when they were run, so that a
+     * stop request during the stride leaves the rest of the stride undone, as with single cycles.
+     */
+    private void runBatchStride(BatchSyncAction batchAction, CycleSegment cycleSegment, CycleResultSegmentBuffer segBuffer) {
+        if (strideCycles.length < stride) {
+            strideCycles = new long[stride];
+            strideResults = new int[stride];
+            strideDelays = new long[stride];
+        }
+
+        int count = 0;
+        while (!cycleSegment.isExhausted() && count < strideCycles.length) {
+            if (slotState.get() != Running) {
+                logger.trace("motor stopped while gathering a batch, stopping motor thread " + slotId);
+                break;
+            }
+            long cyclenum = cycleSegment.nextCycle();
+            if (cyclenum < 0) {
+                if (cycleSegment.isExhausted()) {
+                    logger.trace("input exhausted (input " + input + ") via negative read, stopping motor thread " + slotId);
+                    slotStateTracker.enterState(Finished);
+                }
+                break;
+            }
+            long delay = 0L;
+            if (cycleRateLimiter != null) {
+                delay = cycleRateLimiter.maybeWaitForOp();
+            }
+            if (phaseRateLimiter != null) {
+                delay += phaseRateLimiter.maybeWaitForOp();
+            }
+            strideDelays[count] = delay;
+            strideCycles[count++] = cyclenum;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        long batchStart = System.nanoTime();
+        int done = 0;
+        try {
+            done = batchAction.runCycles(strideCycles, count, strideResults);
+        } finally {
+            long batchNanos = System.nanoTime() - batchStart;
+            for (int i = 0; i < done; i++) {
+                cyclesTimer.update(batchNanos + strideDelays[i], TimeUnit.NANOSECONDS);
+                phasesTimer.update(batchNanos + strideDelays[i], TimeUnit.NANOSECONDS);
+            }
+        }
+        if (segBuffer != null) {
+            for (int i = 0; i < done; i++) {
+                segBuffer.append(strideCycles[i], strideResults[i]);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "slot:" + this.slotId + "; state:" + slotState.get();
@@ -472,12 +577,23 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
         }
 
         this.stride = activityDef.getParams().getOptionalInteger("stride").orElse(1);
-        strideRateLimiter = activity.getStrideLimiter();
-        cycleRateLimiter = activity.getCycleLimiter();
-        phaseRateLimiter = activity.getPhaseLimiter();
+        strideRateLimiter = forSlot(activity.getStrideLimiter());
+        cycleRateLimiter = forSlot(activity.getCycleLimiter());
+        phaseRateLimiter = forSlot(activity.getPhaseLimiter());
 
     }
 
+    /**
+     * Striped rate limiters keep a share of the rate for each slot, so this motor
+     * uses the stripe for its own slot instead of the shared limiter.
+     */
+    private RateLimiter forSlot(RateLimiter limiter) {
+        if (limiter instanceof StripedRateLimiter striped) {
+            return striped.getStripe(slotId);
+        }
+        return limiter;
+    }
+
     @Override
     public synchronized void requestStop() {
         if (slotState.get() == Running) {
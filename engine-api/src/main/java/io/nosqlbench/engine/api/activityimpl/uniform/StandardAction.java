@@ -16,20 +16,28 @@
 
 package io.nosqlbench.engine.api.activityimpl.uniform;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Timer;
 import io.nosqlbench.engine.api.activityapi.core.ActivityDefObserver;
-import io.nosqlbench.engine.api.activityapi.core.SyncAction;
+import io.nosqlbench.engine.api.activityapi.core.BatchSyncAction;
+import io.nosqlbench.engine.api.activityapi.core.Stoppable;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorDetail;
 import io.nosqlbench.engine.api.activityapi.errorhandling.modular.NBErrorHandler;
+import io.nosqlbench.engine.api.activityapi.errorhandling.modular.RetryPolicy;
 import io.nosqlbench.engine.api.activityapi.planning.OpSequence;
 import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+import io.nosqlbench.engine.api.activityimpl.BatchOpDispenser;
 import io.nosqlbench.engine.api.activityimpl.OpDispenser;
 import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
 
 /**
  * This is the generified version of an Action. All activity types should endeavor to use
@@ -38,10 +46,17 @@ import java.util.concurrent.TimeUnit;
  * There will be changes to multiple drivers to support this consolidation, but the bulk
  * of this work will be undertaken by the project maintainers.
  *
+ * When the activity is configured with the async parameter, {@link StandardAsyncAction} is
+ * used instead.
+ *
+ * When any of the op dispensers is a {@link BatchOpDispenser}, the motor provides whole strides
+ * of cycles to {@link #runCycles(long[], int, int[])}, so that those dispensers can combine the
+ * cycles of a stride into one op. A stop request is honored between the ops of a stride.
+ *
  * @param <A> The type of activity
  * @param <R> The type of operation
  */
-public class StandardAction<A extends StandardActivity<R, ?>, R extends Op> implements SyncAction, ActivityDefObserver {
+public class StandardAction<A extends StandardActivity<R, ?>, R extends Op> implements BatchSyncAction, Stoppable, ActivityDefObserver {
     private final static Logger logger = LogManager.getLogger("ACTION");
 
     private final A activity;
@@ -51,8 +66,15 @@ public class StandardAction<A extends StandardActivity<R, ?>, R extends Op> impl
     private final Timer resultSuccessTimer;
     private final Timer resultTimer;
     private final Timer bindTimer;
+    private final Timer retryDelayTimer;
+    private final Counter retryBudgetExhaustedCounter;
+    private final LongSupplier attempts;
     private final NBErrorHandler errorHandler;
     private final OpSequence<OpDispenser<? extends Op>> opsequence;
+    private final boolean batching;
+    private int maxTries;
+    private OpDispenser<? extends Op>[] dispensers = new OpDispenser[0];
+    private volatile boolean stopRequested;
 
     public StandardAction(A activity, int slot) {
         this.activity = activity;
@@ -63,7 +85,23 @@ public class StandardAction<A extends StandardActivity<R, ?>, R extends Op> impl
         triesHistogram = activity.getInstrumentation().getOrCreateTriesHistogram();
         resultTimer = activity.getInstrumentation().getOrCreateResultTimer();
         resultSuccessTimer = activity.getInstrumentation().getOrCreateResultSuccessTimer();
+        retryDelayTimer = activity.getInstrumentation().getOrCreateRetryDelayTimer();
+        retryBudgetExhaustedCounter = activity.getInstrumentation().getOrCreateRetryBudgetExhaustedCounter();
+        attempts = resultTimer::getCount;
         errorHandler = activity.getErrorHandler();
+        maxTries = activity.getMaxTries();
+        batching = opsequence.getOps().stream()
+            .anyMatch(d -> d instanceof BatchOpDispenser<?> batchDispenser && batchDispenser.isBatching());
+    }
+
+    @Override
+    public void init() {
+        this.stopRequested = false;
+    }
+
+    @Override
+    public void requestStop() {
+        this.stopRequested = true;
     }
 
     @Override
@@ -72,39 +110,123 @@ public class StandardAction<A extends StandardActivity<R, ?>, R extends Op> impl
         OpDispenser<? extends Op> dispenser;
         Op op = null;
 
-        try (Timer.Context ct = bindTimer.time()) {
+        long bindStart = System.nanoTime();
+        try {
             dispenser = opsequence.apply(cycle);
             op = dispenser.apply(cycle);
         } catch (Exception e) {
             throw new RuntimeException("while binding request in cycle " + cycle + ": " + e.getMessage(), e);
+        } finally {
+            bindTimer.update(System.nanoTime() - bindStart, TimeUnit.NANOSECONDS);
         }
 
+        return execute(dispenser, op, cycle);
+    }
+
+    @Override
+    public boolean isBatching() {
+        return batching;
+    }
+
+    /**
+     * Consecutive cycles which map to the same {@link BatchOpDispenser} are bound into one
+     * composite op, which is executed once, with its result code recorded for each of those
+     * cycles. The first cycle of the group is used for error handling and op tracking.
+     * Once a stop is requested, no further ops are started, and the cycles which were run
+     * so far are counted.
+     */
+    @Override
+    public int runCycles(long[] cycles, int count, int[] results) {
+        if (dispensers.length < count) {
+            dispensers = new OpDispenser[count];
+        }
+        for (int i = 0; i < count; i++) {
+            dispensers[i] = opsequence.apply(cycles[i]);
+        }
+        try {
+            return runGroups(cycles, count, results);
+        } finally {
+            Arrays.fill(dispensers, 0, count, null);
+        }
+    }
+
+    private int runGroups(long[] cycles, int count, int[] results) {
+        int offset = 0;
+        while (offset < count) {
+            if (stopRequested) {
+                return offset;
+            }
+            OpDispenser<? extends Op> dispenser = dispensers[offset];
+            int end = offset + 1;
+            while (end < count && dispensers[end] == dispenser) {
+                end++;
+            }
+
+            if (end - offset > 1 && dispenser instanceof BatchOpDispenser<? extends Op> batchDispenser && batchDispenser.isBatching()) {
+                long[] group = (offset == 0 && end == cycles.length) ? cycles : Arrays.copyOfRange(cycles, offset, end);
+                Op op;
+                long bindStart = System.nanoTime();
+                try {
+                    op = batchDispenser.applyBatch(group);
+                } catch (Exception e) {
+                    throw new RuntimeException("while binding batch request for cycles " + group[0] + ".." +
+                        group[group.length - 1] + ": " + e.getMessage(), e);
+                } finally {
+                    bindTimer.update(System.nanoTime() - bindStart, TimeUnit.NANOSECONDS);
+                }
+                int code = execute(dispenser, op, group[0]);
+                Arrays.fill(results, offset, end, code);
+            } else {
+                for (int i = offset; i < end; i++) {
+                    if (stopRequested) {
+                        return i;
+                    }
+                    results[i] = runCycle(cycles[i]);
+                }
+            }
+            offset = end;
+        }
+        return count;
+    }
+
+    private int execute(OpDispenser<? extends Op> dispenser, Op op, long cycle) {
         int code = 0;
         Object result = null;
         while (op != null) {
 
             int tries = 0;
-            while (tries++ <= activity.getMaxTries()) {
+            long retryDelay = 0L;
+            while (tries++ <= maxTries) {
                 Throwable error = null;
                 long startedAt = System.nanoTime();
 
                 dispenser.onStart(cycle);
 
-                try (Timer.Context ct = executeTimer.time()) {
+                long executeStart = System.nanoTime();
+                try {
                     if (op instanceof RunnableOp) {
                         ((RunnableOp) op).run();
                     } else if (op instanceof CycleOp<?>) {
                         result = ((CycleOp) op).apply(cycle);
                     } else if (op instanceof ChainingOp) {
                         result = ((ChainingOp) op).apply(result);
+                    } else if (op instanceof AsyncCycleOp<?>) {
+                        result = ((AsyncCycleOp<?>) op).applyAsync(cycle).toCompletableFuture().get();
                     } else {
                         throw new RuntimeException("The op implementation did not implement any active logic. Implement " +
-                            "one of [RunnableOp, CycleOp, or ChainingOp]");
+                            "one of [RunnableOp, CycleOp, AsyncCycleOp, or ChainingOp]");
                     }
+                } catch (ExecutionException e) {
+                    error = e.getCause() != null ? e.getCause() : e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    error = e;
                 } catch (Exception e) {
                     error = e;
                 } finally {
-                    long nanos = System.nanoTime() - startedAt;
+                    long executeEnd = System.nanoTime();
+                    executeTimer.update(executeEnd - executeStart, TimeUnit.NANOSECONDS);
+                    long nanos = executeEnd - startedAt;
                     resultTimer.update(nanos, TimeUnit.NANOSECONDS);
                     if (error == null) {
                         resultSuccessTimer.update(nanos, TimeUnit.NANOSECONDS);
@@ -114,16 +236,28 @@ public class StandardAction<A extends StandardActivity<R, ?>, R extends Op> impl
                         ErrorDetail detail = errorHandler.handleError(error, cycle, nanos);
                         dispenser.onError(cycle, nanos, error);
                         code = detail.resultCode;
-                        if (!detail.isRetryable()) {
+                        if (!detail.isRetryable() || tries > maxTries) {
                             break;
                         }
+                        RetryPolicy retryPolicy = detail.retryPolicy;
+                        if (!retryPolicy.tryAcquireRetry(attempts)) {
+                            retryBudgetExhaustedCounter.inc();
+                            break;
+                        }
+                        retryDelay = retryPolicy.getDelayNanos(tries, retryDelay);
+                        if (retryDelay > 0L) {
+                            retryDelayTimer.update(retryDelay, TimeUnit.NANOSECONDS);
+                            LockSupport.parkNanos(retryDelay);
+                        }
                     }
                 }
             }
             triesHistogram.update(tries);
 
             if (op instanceof OpGenerator) {
-                logger.trace("GEN OP for cycle(" + cycle + ")");
+                if (logger.isTraceEnabled()) {
+                    logger.trace("GEN OP for cycle(" + cycle + ")");
+                }
                 op = ((OpGenerator) op).getNextOp();
             } else {
                 op = null;
@@ -135,5 +269,6 @@ public class StandardAction<A extends StandardActivity<R, ?>, R extends Op> impl
 
     @Override
     public void onActivityDefUpdate(ActivityDef activityDef) {
+        this.maxTries = activity.getMaxTries();
     }
 }
@@ -101,6 +101,9 @@ public class StandardActivity<R extends Op, S> extends SimpleActivity implements
                 }
                 adapters.put(driverName,adapter);
                 mappers.put(driverName,adapter.getOpMapper());
+                if (adapter instanceof AutoCloseable closeable) {
+                    registerAutoCloseable(closeable);
+                }
             }
 
             DriverAdapter adapter = adapters.get(driverName);
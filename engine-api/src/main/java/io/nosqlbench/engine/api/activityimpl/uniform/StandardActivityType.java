@@ -52,10 +52,6 @@ public class StandardActivityType<A extends StandardActivity<?,?>> extends Simpl
 
     @Override
     public A getActivity(ActivityDef activityDef) {
-        if (activityDef.getParams().getOptionalString("async").isPresent()) {
-            throw new RuntimeException("This driver does not support async mode yet.");
-        }
-
         return (A) new StandardActivity(activityDef);
     }
 
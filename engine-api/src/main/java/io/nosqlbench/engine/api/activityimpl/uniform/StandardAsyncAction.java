@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityimpl.uniform;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+import io.nosqlbench.engine.api.activityapi.core.BaseAsyncAction;
+import io.nosqlbench.engine.api.activityapi.core.ops.fluent.opfacets.StartedOp;
+import io.nosqlbench.engine.api.activityapi.core.ops.fluent.opfacets.TrackedOp;
+import io.nosqlbench.engine.api.activityapi.errorhandling.modular.ErrorDetail;
+import io.nosqlbench.engine.api.activityapi.errorhandling.modular.NBErrorHandler;
+import io.nosqlbench.engine.api.activityapi.errorhandling.modular.RetryPolicy;
+import io.nosqlbench.engine.api.activityapi.planning.OpSequence;
+import io.nosqlbench.engine.api.activityimpl.OpDispenser;
+import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>This is the asynchronous form of {@link StandardAction}. It is selected instead of
+ * the synchronous form when the <em>async</em> activity parameter is provided. Ops which
+ * implement {@link AsyncCycleOp} are put in flight without blocking the motor thread, and
+ * are completed by the driver's own callback threads. All other op types are executed
+ * inline, just as with {@link StandardAction}.</p>
+ *
+ * <p>The number of in-flight ops per slot is bounded by the op tracker in
+ * {@link io.nosqlbench.engine.api.activityimpl.motor.CoreMotor}, which divides the
+ * <em>async</em> value across the threads of the activity. The same bind, execute,
+ * result and tries metrics are used as in the synchronous form, and errors are routed
+ * through the same {@link NBErrorHandler}, including retries. A retry which is delayed by the
+ * retry policy of the error handler is scheduled to be dispatched later, rather than
+ * blocking the thread which completed the failed op.</p>
+ *
+ * @param <A> The type of activity
+ * @param <R> The type of operation
+ */
+public class StandardAsyncAction<A extends StandardActivity<R, ?>, R extends Op>
+    extends BaseAsyncAction<StandardAsyncAction.BoundOp, A> {
+
+    private final static Logger logger = LogManager.getLogger("ACTION");
+
+    private final Timer executeTimer;
+    private final Histogram triesHistogram;
+    private final Timer resultSuccessTimer;
+    private final Timer resultTimer;
+    private final Timer bindTimer;
+    private final Timer retryDelayTimer;
+    private final Counter retryBudgetExhaustedCounter;
+    private final LongSupplier attempts;
+    private final NBErrorHandler errorHandler;
+    private final OpSequence<OpDispenser<? extends Op>> opsequence;
+
+    public StandardAsyncAction(A activity, int slot) {
+        super(activity, slot);
+        this.opsequence = activity.getOpSequence();
+        bindTimer = activity.getInstrumentation().getOrCreateBindTimer();
+        executeTimer = activity.getInstrumentation().getOrCreateExecuteTimer();
+        triesHistogram = activity.getInstrumentation().getOrCreateTriesHistogram();
+        resultTimer = activity.getInstrumentation().getOrCreateResultTimer();
+        resultSuccessTimer = activity.getInstrumentation().getOrCreateResultSuccessTimer();
+        retryDelayTimer = activity.getInstrumentation().getOrCreateRetryDelayTimer();
+        retryBudgetExhaustedCounter = activity.getInstrumentation().getOrCreateRetryBudgetExhaustedCounter();
+        attempts = resultTimer::getCount;
+        errorHandler = activity.getErrorHandler();
+    }
+
+    @Override
+    public LongFunction<BoundOp> getOpInitFunction() {
+        return cycle -> {
+            try (Timer.Context ct = bindTimer.time()) {
+                OpDispenser<? extends Op> dispenser = opsequence.apply(cycle);
+                Op op = dispenser.apply(cycle);
+                return new BoundOp(dispenser, op);
+            } catch (Exception e) {
+                throw new RuntimeException("while binding request in cycle " + cycle + ": " + e.getMessage(), e);
+            }
+        };
+    }
+
+    @Override
+    public void startOpCycle(TrackedOp<BoundOp> opc) {
+        StartedOp<BoundOp> started = opc.start();
+        BoundOp bound = started.getOpData();
+        dispatch(started, bound.op(), null, 1, 0, 0L);
+    }
+
+    private void dispatch(StartedOp<BoundOp> started, Op op, Object input, int tries, int code, long retryDelay) {
+        long cycle = started.getCycle();
+        OpDispenser<? extends Op> dispenser = started.getOpData().dispenser();
+        long startedAt = System.nanoTime();
+
+        CompletionStage<?> stage;
+        try {
+            dispenser.onStart(cycle);
+            try (Timer.Context ct = executeTimer.time()) {
+                stage = invoke(op, cycle, input);
+            }
+        } catch (Exception e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        stage.whenComplete((result, error) -> onComplete(started, op, input, tries, code, retryDelay, startedAt, result, error));
+    }
+
+    private CompletionStage<?> invoke(Op op, long cycle, Object input) {
+        if (op instanceof AsyncCycleOp<?> asyncOp) {
+            return asyncOp.applyAsync(cycle);
+        } else if (op instanceof RunnableOp runnableOp) {
+            runnableOp.run();
+            return CompletableFuture.completedFuture(null);
+        } else if (op instanceof CycleOp<?> cycleOp) {
+            return CompletableFuture.completedFuture(cycleOp.apply(cycle));
+        } else if (op instanceof ChainingOp chainingOp) {
+            return CompletableFuture.completedFuture(chainingOp.apply(input));
+        } else {
+            throw new RuntimeException("The op implementation did not implement any active logic. Implement " +
+                "one of [RunnableOp, CycleOp, AsyncCycleOp, or ChainingOp]");
+        }
+    }
+
+    /**
+     * This runs on whichever thread completed the op. Anything thrown here would be lost in the
+     * future, so an error from the error handler, as for {@code errors=stop}, or from the
+     * dispenser fails the tracked op and is passed to the motor with {@link #stopWithError(Throwable)}.
+     */
+    private void onComplete(
+        StartedOp<BoundOp> started, Op op, Object input, int tries, int code,
+        long retryDelay, long startedAt, Object result, Throwable error) {
+
+        long cycle = started.getCycle();
+        Op nextOp = null;
+        try {
+            OpDispenser<? extends Op> dispenser = started.getOpData().dispenser();
+            long nanos = System.nanoTime() - startedAt;
+            resultTimer.update(nanos, TimeUnit.NANOSECONDS);
+
+            if (error == null) {
+                resultSuccessTimer.update(nanos, TimeUnit.NANOSECONDS);
+                dispenser.onSuccess(cycle, nanos, op.getResultSize());
+            } else {
+                Throwable cause = unwrap(error);
+                ErrorDetail detail = errorHandler.handleError(cause, cycle, nanos);
+                dispenser.onError(cycle, nanos, cause);
+                code = detail.resultCode;
+                if (detail.isRetryable() && tries <= activity.getMaxTries()) {
+                    RetryPolicy retryPolicy = detail.retryPolicy;
+                    if (retryPolicy.tryAcquireRetry(attempts)) {
+                        retry(started, op, input, tries, code, retryPolicy.getDelayNanos(tries, retryDelay));
+                        return;
+                    }
+                    retryBudgetExhaustedCounter.inc();
+                }
+            }
+            triesHistogram.update(tries);
+
+            if (op instanceof OpGenerator generator) {
+                logger.trace(() -> "GEN OP for cycle(" + cycle + ")");
+                nextOp = generator.getNextOp();
+            }
+        } catch (Throwable t) {
+            logger.error("Error while completing async cycle " + cycle + ", stopping: " + t);
+            stopWithError(t);
+            started.fail(code != 0 ? code : ErrorDetail.ERROR_NONRETRYABLE.resultCode);
+            return;
+        }
+
+        if (nextOp != null) {
+            dispatch(started, nextOp, result, 1, code, 0L);
+        } else if (code == 0) {
+            started.succeed(code);
+        } else {
+            started.fail(code);
+        }
+    }
+
+    private void retry(StartedOp<BoundOp> started, Op op, Object input, int tries, int code, long retryDelay) {
+        if (retryDelay > 0L) {
+            retryDelayTimer.update(retryDelay, TimeUnit.NANOSECONDS);
+            CompletableFuture.delayedExecutor(retryDelay, TimeUnit.NANOSECONDS)
+                .execute(() -> dispatch(started, op, input, tries + 1, code, retryDelay));
+        } else {
+            dispatch(started, op, input, tries + 1, code, retryDelay);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * The bound form of an op for a given cycle, along with the dispenser which created it,
+     * as carried through the op tracker.
+     */
+    public record BoundOp(OpDispenser<? extends Op> dispenser, Op op) {
+    }
+
+}
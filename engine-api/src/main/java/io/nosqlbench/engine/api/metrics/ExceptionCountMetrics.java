@@ -35,6 +35,14 @@ public class ExceptionCountMetrics {
     }
 
     public void count(String name) {
+        getCounter(name).inc();
+    }
+
+    /**
+     * @param name The error name
+     * @return The counter for the named error, which is created if needed
+     */
+    public Counter getCounter(String name) {
         Counter c = counters.get(name);
         if (c == null) {
             synchronized (counters) {
@@ -44,7 +52,7 @@ public class ExceptionCountMetrics {
                 );
             }
         }
-        c.inc();
+        return c;
     }
 
     public List<Counter> getCounters() {
@@ -37,6 +37,14 @@ public class ExceptionHistoMetrics {
     }
 
     public void update(String name, long magnitude) {
+        getHistogram(name).update(magnitude);
+    }
+
+    /**
+     * @param name The error name
+     * @return The histogram for the named error, which is created if needed
+     */
+    public Histogram getHistogram(String name) {
         Histogram h = histos.get(name);
         if (h == null) {
             synchronized (histos) {
@@ -46,7 +54,7 @@ public class ExceptionHistoMetrics {
                 );
             }
         }
-        h.update(magnitude);
+        return h;
     }
 
 
@@ -35,6 +35,14 @@ public class ExceptionMeterMetrics {
     }
 
     public void mark(String name) {
+        getMeter(name).mark();
+    }
+
+    /**
+     * @param name The error name
+     * @return The meter for the named error, which is created if needed
+     */
+    public Meter getMeter(String name) {
         Meter c = meters.get(name);
         if (c == null) {
             synchronized (meters) {
@@ -44,7 +52,7 @@ public class ExceptionMeterMetrics {
                 );
             }
         }
-        c.mark();
+        return c;
     }
 
     public List<Meter> getMeters() {
@@ -36,6 +36,14 @@ public class ExceptionTimerMetrics {
     }
 
     public void update(String name, long nanosDuration) {
+        getTimer(name).update(nanosDuration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param name The error name
+     * @return The timer for the named error, which is created if needed
+     */
+    public Timer getTimer(String name) {
         Timer timer = timers.get(name);
         if (timer == null) {
             synchronized (timers) {
@@ -45,7 +53,7 @@ public class ExceptionTimerMetrics {
                 );
             }
         }
-        timer.update(nanosDuration, TimeUnit.NANOSECONDS);
+        return timer;
     }
 
     public List<Timer> getTimers() {
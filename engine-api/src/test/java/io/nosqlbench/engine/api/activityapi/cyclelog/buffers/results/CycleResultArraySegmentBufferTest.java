@@ -41,4 +41,22 @@ public class CycleResultArraySegmentBufferTest {
 
     }
 
+    @Test
+    public void testResetReusesBuffer() {
+        CycleResultSegmentBuffer buf = new CycleResultSegmentBuffer(2);
+        buf.append(1L,1);
+        buf.append(2L,2);
+        CycleResultsSegment first = buf.toReader();
+        assertThat(first.getCount()).isEqualTo(2L);
+
+        buf.reset();
+        assertThat(buf.getResultCapacity()).isEqualTo(2);
+        buf.append(7L,3);
+        CycleResultsSegment cycleResults = buf.toReader();
+        assertThat(cycleResults == first).isTrue();
+        assertThat(cycleResults.getCount()).isEqualTo(1L);
+        assertThat(cycleResults.iterator().next().getCycle()).isEqualTo(7L);
+        assertThat(cycleResults.iterator().next().getResult()).isEqualTo(3);
+    }
+
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.cyclelog.inputs.cyclelog;
+
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResult;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleSegment;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResultsSegment;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results_rle.CycleResultsRLEBufferTarget;
+import io.nosqlbench.engine.api.activityapi.cyclelog.outputs.cyclelog.SegmentedCycleLogOutput;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SegmentedCycleLogTest {
+
+    private static final int CYCLES = 10_000;
+
+    @TempDir
+    Path tempDir;
+
+    private static int resultFor(long cycle) {
+        return (int) ((cycle / 7) % 3);
+    }
+
+    private String writeLog(SegmentedCycleLogOutput.Durability durability) throws Exception {
+        return writeLog(durability, CYCLES);
+    }
+
+    private String writeLog(SegmentedCycleLogOutput.Durability durability, long cycles) throws Exception {
+        String basename = tempDir.resolve("segmented-" + durability + "-" + cycles).toString();
+        SegmentedCycleLogOutput out = new SegmentedCycleLogOutput(
+            basename, 10, CycleResultsRLEBufferTarget.BYTES * 100L, durability, 1L);
+        for (long cycle = 0; cycle < cycles; cycle++) {
+            out.onCycleResult(cycle, resultFor(cycle));
+        }
+        out.close();
+        return basename;
+    }
+
+    private void verify(String basename) {
+        verify(basename, CYCLES);
+    }
+
+    private void verify(String basename, long cycles) {
+        long expected = 0L;
+        for (CycleResultsSegment segment : new CycleLogInput(basename)) {
+            assertThat(segment.getCount()).as("span count").isGreaterThan(0);
+            for (CycleResult result : segment) {
+                assertThat(result.getCycle()).isEqualTo(expected);
+                assertThat(result.getResult()).isEqualTo(resultFor(expected));
+                expected++;
+            }
+        }
+        assertThat(expected).isEqualTo(cycles);
+    }
+
+    @Test
+    public void testRollingSegmentsReadBackInOrder() throws Exception {
+        for (SegmentedCycleLogOutput.Durability durability : SegmentedCycleLogOutput.Durability.values()) {
+            String basename = writeLog(durability);
+            List<File> files = CycleLogInput.findLogFiles(basename);
+            assertThat(files).hasSizeGreaterThan(1);
+            assertThat(files.get(0)).isEqualTo(SegmentedCycleLogOutput.segmentFile(basename, 0));
+            verify(basename);
+        }
+    }
+
+    private static void leaveUnwrittenTail(File segment) throws Exception {
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.setLength(CycleResultsRLEBufferTarget.BYTES * 100L);
+        }
+    }
+
+    @Test
+    public void testUnwrittenTailIsIgnored() throws Exception {
+        String basename = writeLog(SegmentedCycleLogOutput.Durability.none);
+        List<File> files = CycleLogInput.findLogFiles(basename);
+        leaveUnwrittenTail(files.get(files.size() - 1));
+        verify(basename);
+
+        String single = writeLog(SegmentedCycleLogOutput.Durability.none, 140L);
+        List<File> singleFiles = CycleLogInput.findLogFiles(single);
+        assertThat(singleFiles).containsExactly(SegmentedCycleLogOutput.segmentFile(single, 0));
+        leaveUnwrittenTail(singleFiles.get(0));
+        verify(single, 140L);
+    }
+
+    @Test
+    public void testInputSegments() throws Exception {
+        String basename = writeLog(SegmentedCycleLogOutput.Durability.close);
+        CycleLogInput input = new CycleLogInput(basename);
+        long count = 0;
+        CycleSegment segment = input.getInputSegment(1000);
+        while (segment != null) {
+            while (!segment.isExhausted()) {
+                assertThat(segment.nextCycle()).isEqualTo(count++);
+            }
+            segment = input.getInputSegment(1000);
+        }
+        assertThat(count).isEqualTo(CYCLES);
+    }
+
+}
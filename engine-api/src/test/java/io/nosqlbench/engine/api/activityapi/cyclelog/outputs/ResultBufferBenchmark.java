@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.cyclelog.outputs;
+
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResultsSegment;
+import io.nosqlbench.engine.api.activityapi.output.Output;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Compares the throughput of {@link ReorderingConcurrentResultBuffer} and
+ * {@link SlidingWindowResultBuffer} when many threads complete cycles at once, as they do
+ * in front of the cycle log output. Each thread takes strides of cycles from a shared
+ * counter, as the motors do with the atomic input, so results arrive slightly out of order.
+ * The downstream output only counts what it is given.</p>
+ *
+ * <p>The benchmark runs with 64 threads by default. Run the main method of this class to
+ * compare them at both 64 and 128 threads.</p>
+ */
+@State(Scope.Benchmark)
+public class ResultBufferBenchmark {
+
+    @Param({"reordering", "slidingwindow"})
+    public String buffer;
+
+    private Output output;
+    private final AtomicLong nextStride = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Stride {
+        private static final int STRIDE = 10;
+        long cycle;
+        long end;
+
+        long next(AtomicLong nextStride) {
+            if (cycle == end) {
+                cycle = nextStride.getAndAdd(STRIDE);
+                end = cycle + STRIDE;
+            }
+            return cycle++;
+        }
+    }
+
+    private static class CountingOutput implements Output {
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public boolean onCycleResult(long completedCycle, int result) {
+            count.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public void onCycleResultSegment(CycleResultsSegment segment) {
+            count.addAndGet(segment.getCount());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        nextStride.set(0L);
+        CountingOutput downstream = new CountingOutput();
+        output = switch (buffer) {
+            case "reordering" -> new ReorderingConcurrentResultBuffer(downstream);
+            case "slidingwindow" -> new SlidingWindowResultBuffer(downstream);
+            default -> throw new RuntimeException("Unknown buffer type '" + buffer + "'");
+        };
+    }
+
+    @TearDown(Level.Iteration)
+    public void teardown() throws Exception {
+        output.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Threads(64)
+    @Fork(1)
+    public boolean onCycleResult(Stride stride) {
+        long cycle = stride.next(nextStride);
+        return output.onCycleResult(cycle, (int) (cycle & 3));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{64, 128}) {
+            Options options = new OptionsBuilder()
+                .include(ResultBufferBenchmark.class.getSimpleName())
+                .threads(threads)
+                .build();
+            new Runner(options).run();
+        }
+    }
+}
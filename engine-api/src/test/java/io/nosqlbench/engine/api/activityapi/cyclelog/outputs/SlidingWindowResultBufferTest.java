@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.cyclelog.outputs;
+
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResult;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResultsSegment;
+import io.nosqlbench.engine.api.activityapi.output.Output;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SlidingWindowResultBufferTest {
+
+    private static class CollectingOutput implements Output {
+        private final List<long[]> results = new ArrayList<>();
+        private int segments;
+        private boolean closed;
+
+        @Override
+        public synchronized boolean onCycleResult(long completedCycle, int result) {
+            results.add(new long[]{completedCycle, result});
+            return true;
+        }
+
+        @Override
+        public synchronized void onCycleResultSegment(CycleResultsSegment segment) {
+            segments++;
+            for (CycleResult cycleResult : segment) {
+                onCycleResult(cycleResult.getCycle(), cycleResult.getResult());
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        long[] cycles() {
+            return results.stream().mapToLong(r -> r[0]).toArray();
+        }
+    }
+
+    private static int resultFor(long cycle) {
+        return (int) ((cycle / 10) % 3);
+    }
+
+    @Test
+    public void testConcurrentWritersAreOrdered() throws Exception {
+        int threads = 16;
+        long cycles = 200_000;
+        int stride = 10;
+        CollectingOutput downstream = new CollectingOutput();
+        SlidingWindowResultBuffer buffer = new SlidingWindowResultBuffer(downstream, 1 << 20);
+        AtomicLong nextStride = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                long start;
+                while ((start = nextStride.getAndAdd(stride)) < cycles) {
+                    for (long cycle = start; cycle < start + stride; cycle++) {
+                        buffer.onCycleResult(cycle, resultFor(cycle));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        buffer.close();
+
+        assertThat(downstream.closed).isTrue();
+        assertThat(downstream.results).hasSize((int) cycles);
+        for (int i = 0; i < cycles; i++) {
+            assertThat(downstream.results.get(i)[0]).isEqualTo(i);
+            assertThat(downstream.results.get(i)[1]).isEqualTo(resultFor(i));
+        }
+        // Runs of the same result are emitted as one segment
+        assertThat(downstream.segments).isLessThanOrEqualTo((int) (cycles / 10));
+    }
+
+    @Test
+    public void testNoResultsAreLostWhenTheWindowSlidesUnderContention() throws Exception {
+        int threads = 8;
+        int cycles = 200_000;
+        for (int round = 0; round < 5; round++) {
+            CollectingOutput downstream = new CollectingOutput();
+            // a tiny window, so that it slides past cycles which are still being placed
+            SlidingWindowResultBuffer buffer = new SlidingWindowResultBuffer(downstream, 4);
+            AtomicLong nextCycle = new AtomicLong();
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    long cycle;
+                    while ((cycle = nextCycle.getAndIncrement()) < cycles) {
+                        if ((cycle & 63) == 0) {
+                            Thread.yield();
+                        }
+                        buffer.onCycleResult(cycle, resultFor(cycle));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            buffer.close();
+
+            int[] seen = new int[cycles];
+            for (long[] result : downstream.results) {
+                seen[(int) result[0]]++;
+                assertThat(result[1]).isEqualTo(resultFor(result[0]));
+            }
+            for (int i = 0; i < cycles; i++) {
+                assertThat(seen[i]).as("cycle " + i).isEqualTo(1);
+            }
+        }
+    }
+
+    @Test
+    public void testGapsSlideThroughTheWindow() throws Exception {
+        CollectingOutput downstream = new CollectingOutput();
+        SlidingWindowResultBuffer buffer = new SlidingWindowResultBuffer(downstream, 16);
+        for (long cycle = 0; cycle < 1000; cycle += 3) {
+            buffer.onCycleResult(cycle, 1);
+        }
+        // Everything but the last window has been emitted before close
+        assertThat(downstream.results.size()).isGreaterThan(300);
+        buffer.close();
+        long[] cycles = downstream.cycles();
+        assertThat(cycles).hasSize(334);
+        for (int i = 0; i < cycles.length; i++) {
+            assertThat(cycles[i]).isEqualTo(i * 3L);
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    public void testLargeGapsJumpTheWindow() throws Exception {
+        CollectingOutput downstream = new CollectingOutput();
+        SlidingWindowResultBuffer buffer = new SlidingWindowResultBuffer(downstream, 16);
+        long far = 1L << 32;
+        buffer.onCycleResult(0, 1);
+        buffer.onCycleResult(2, 1);
+        buffer.onCycleResult(far, 2);
+        buffer.onCycleResult(far + 1, 2);
+        buffer.onCycleResult(far + 100, 3);
+        buffer.onCycleResult(far + 20, 3);
+        buffer.close();
+        assertThat(downstream.cycles()).containsExactly(0, 2, far, far + 1, far + 20, far + 100);
+    }
+
+    @Test
+    public void testResultsBehindTheWindowAreKept() throws Exception {
+        CollectingOutput downstream = new CollectingOutput();
+        SlidingWindowResultBuffer buffer = new SlidingWindowResultBuffer(downstream, 8);
+        for (long cycle = 10; cycle < 40; cycle++) {
+            buffer.onCycleResult(cycle, 2);
+        }
+        buffer.onCycleResult(5, 3);
+        buffer.onCycleResult(20, 4);
+        buffer.close();
+        assertThat(downstream.cycles()).containsExactlyInAnyOrder(
+            5, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29,
+            30, 31, 32, 33, 34, 35, 36, 37, 38, 39);
+    }
+
+    @Test
+    public void testFilteredResultsAreDropped() throws Exception {
+        CollectingOutput downstream = new CollectingOutput();
+        SlidingWindowResultBuffer buffer = new SlidingWindowResultBuffer(downstream, 64);
+        buffer.setFilter(r -> r.getResult() != 1);
+        for (long cycle = 0; cycle < 100; cycle++) {
+            buffer.onCycleResult(cycle, (int) (cycle % 2));
+        }
+        buffer.close();
+        long[] cycles = downstream.cycles();
+        assertThat(cycles).hasSize(50);
+        for (int i = 0; i < cycles.length; i++) {
+            assertThat(cycles[i]).isEqualTo(i * 2L);
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.errorhandling.modular;
+
+import io.nosqlbench.engine.api.activityapi.errorhandling.ErrorMetrics;
+import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the cost of handling one error with {@link NBErrorHandler}, as it is paid
+ * for every failed op when a target is failing most requests. The errors alternate between
+ * a few types, which are matched to different handler lists, and each handler list updates
+ * metrics and sets the result code. The short chain only counts errors, and the long chain
+ * also updates a meter and a histogram, and marks errors as retryable.</p>
+ *
+ * <p>With <em>naming=class</em>, errors are named by their class, which uses the class-keyed
+ * handler chains. With <em>naming=function</em>, the same names are derived by a naming
+ * function, which uses the name-keyed handler chains.</p>
+ *
+ * <p>Run the main method of this class to see the result with the GC profiler.</p>
+ */
+@State(Scope.Benchmark)
+public class ErrorHandlerBenchmark {
+
+    @Param({"short", "long"})
+    public String chain;
+
+    @Param({"class", "function"})
+    public String naming;
+
+    private NBErrorHandler errorHandler;
+    private final Throwable[] errors = {
+        new RuntimeException("runtime"),
+        new IllegalStateException("state"),
+        new TimeoutException("timeout"),
+        new UnsupportedOperationException("unsupported")
+    };
+
+    @State(Scope.Thread)
+    public static class Cycle {
+        long cycle;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ErrorMetrics errorMetrics = new ErrorMetrics(ActivityDef.parseActivityDef("alias=errorbench"));
+        String handlers = chain.equals("short") ? "counter,42" : "counter,meter,histogram,retry,42";
+        String config = "Timeout.*:" + handlers + ";IllegalState.*:" + handlers + ";.*:" + handlers;
+        errorHandler = switch (naming) {
+            case "class" -> new NBErrorHandler(() -> config, () -> errorMetrics);
+            case "function" -> new NBErrorHandler(() -> config, () -> errorMetrics, t -> t.getClass().getSimpleName());
+            default -> throw new RuntimeException("Unknown naming '" + naming + "'");
+        };
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Threads(4)
+    @Fork(1)
+    public ErrorDetail handleError(Cycle state) {
+        long cycle = state.cycle++;
+        return errorHandler.handleError(errors[(int) (cycle & 3)], cycle, 1000L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(ErrorHandlerBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -107,4 +107,43 @@ public class NBErrorHandlerTest {
         assertThat(detail.isRetryable()).isFalse();
         assertThat(detail.resultCode).isEqualTo(42);
     }
+
+    @Test
+    public void testRetryPolicyParams() {
+        ErrorMetrics errorMetrics = new ErrorMetrics(ActivityDef.parseActivityDef("alias=testalias_retrypolicy"));
+        NBErrorHandler eh = new NBErrorHandler(
+            () -> "Runtime.*:warn,handler=retry backoff=exponential delay=10ms maxdelay=50ms budget=0.1;stop", () -> errorMetrics);
+        ErrorDetail detail = eh.handleError(runtimeException, 1, 2);
+        assertThat(detail.isRetryable()).isTrue();
+        assertThat(detail.retryPolicy.isDelayed()).isTrue();
+        assertThat(detail.retryPolicy.isBudgeted()).isTrue();
+        assertThat(detail.retryPolicy.getDelayNanos(3, 0L)).isEqualTo(40_000_000L);
+        assertThat(detail.retryPolicy.getDelayNanos(4, 0L)).isEqualTo(50_000_000L);
+    }
+
+    @Test
+    public void testPlainRetryIsImmediate() {
+        ErrorMetrics errorMetrics = new ErrorMetrics(ActivityDef.parseActivityDef("alias=testalias_retry"));
+        NBErrorHandler eh = new NBErrorHandler(() -> "retry,42", () -> errorMetrics);
+        ErrorDetail detail = eh.handleError(runtimeException, 1, 2);
+        assertThat(detail.retryPolicy).isSameAs(RetryPolicy.IMMEDIATE);
+        assertThat(detail.resultCode).isEqualTo(42);
+    }
+
+    @Test
+    public void testResolvedChainsAreReused() {
+        ErrorMetrics errorMetrics = new ErrorMetrics(ActivityDef.parseActivityDef("alias=testalias_chains"));
+        NBErrorHandler eh = new NBErrorHandler(() -> "IllegalState.*:counter,retry,33;counter,42", () -> errorMetrics);
+        ErrorDetail first = eh.handleError(new IllegalStateException("one"), 1, 2);
+        ErrorDetail second = eh.handleError(new IllegalStateException("two"), 2, 2);
+        assertThat(second).isSameAs(first);
+        assertThat(second.isRetryable()).isTrue();
+        assertThat(second.resultCode).isEqualTo(33);
+
+        ErrorDetail other = eh.handleError(runtimeException, 3, 2);
+        assertThat(other.isRetryable()).isFalse();
+        assertThat(other.resultCode).isEqualTo(42);
+        assertThat(errorMetrics.getExceptionCountMetrics().getCounter("IllegalStateException").getCount()).isEqualTo(2);
+        assertThat(errorMetrics.getExceptionCountMetrics().getCounters()).hasSize(2);
+    }
 }
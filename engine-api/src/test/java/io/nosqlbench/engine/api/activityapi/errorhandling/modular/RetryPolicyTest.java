@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.errorhandling.modular;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RetryPolicyTest {
+
+    private final static long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testFixedAndExponentialDelays() {
+        RetryPolicy fixed = new RetryPolicy(RetryPolicy.Backoff.fixed, 5 * MS, 100 * MS, 0.0d, 0.0d, 0L, 0L);
+        assertThat(fixed.getDelayNanos(1, 0L)).isEqualTo(5 * MS);
+        assertThat(fixed.getDelayNanos(7, 5 * MS)).isEqualTo(5 * MS);
+
+        RetryPolicy exponential = new RetryPolicy(RetryPolicy.Backoff.exponential, 5 * MS, 100 * MS, 0.0d, 0.0d, 0L, 0L);
+        assertThat(exponential.getDelayNanos(1, 0L)).isEqualTo(5 * MS);
+        assertThat(exponential.getDelayNanos(2, 0L)).isEqualTo(10 * MS);
+        assertThat(exponential.getDelayNanos(5, 0L)).isEqualTo(80 * MS);
+        assertThat(exponential.getDelayNanos(6, 0L)).isEqualTo(100 * MS);
+        assertThat(exponential.getDelayNanos(200, 0L)).isEqualTo(100 * MS);
+    }
+
+    @Test
+    public void testJitterAndDecorrelatedDelaysStayInRange() {
+        RetryPolicy jittered = new RetryPolicy(RetryPolicy.Backoff.exponential, 10 * MS, 100 * MS, 0.5d, 0.0d, 0L, 0L);
+        RetryPolicy decorrelated = new RetryPolicy(RetryPolicy.Backoff.decorrelated, 10 * MS, 100 * MS, 0.0d, 0.0d, 0L, 0L);
+        long previous = 0L;
+        for (int i = 0; i < 1000; i++) {
+            assertThat(jittered.getDelayNanos(2, 0L)).isBetween(10 * MS, 20 * MS);
+            long delay = decorrelated.getDelayNanos(i + 1, previous);
+            assertThat(delay).isBetween(10 * MS, Math.min(100 * MS, Math.max(10 * MS, previous) * 3));
+            previous = delay;
+        }
+    }
+
+    @Test
+    public void testRetryBudget() {
+        RetryPolicy budgeted = new RetryPolicy(RetryPolicy.Backoff.none, 0L, 0L, 0.0d, 0.1d, 2L, TimeUnit.HOURS.toNanos(1));
+        AtomicLong attempts = new AtomicLong();
+        assertThat(budgeted.tryAcquireRetry(attempts::get)).isTrue();
+        assertThat(budgeted.tryAcquireRetry(attempts::get)).isTrue();
+        assertThat(budgeted.tryAcquireRetry(attempts::get)).isFalse();
+        attempts.addAndGet(100);
+        int allowed = 0;
+        while (budgeted.tryAcquireRetry(attempts::get)) {
+            allowed++;
+        }
+        assertThat(allowed).isEqualTo(10);
+    }
+
+    @Test
+    public void testConfig() {
+        assertThat(RetryPolicy.fromConfig(Map.of("handler", "retry"))).isSameAs(RetryPolicy.IMMEDIATE);
+        RetryPolicy policy = RetryPolicy.fromConfig(Map.of("backoff", "fixed", "delay", "250", "maxdelay", "2s"));
+        assertThat(policy.getDelayNanos(1, 0L)).isEqualTo(250 * MS);
+        assertThat(policy.isBudgeted()).isFalse();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.ratelimits;
+
+import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+import io.nosqlbench.nb.api.testutils.Perf;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcraRateLimiterTest {
+
+    private final ActivityDef def = ActivityDef.parseActivityDef("alias=gcratest");
+
+    @Test
+    public void testSingleThreadedRate() {
+        TestableGcraRateLimiter rl = new TestableGcraRateLimiter(new AtomicLong(0L), new RateSpec(10000, 1.1), def);
+        for (int i = 0; i < 5000; i++) {
+            assertThat(rl.maybeWaitForOp()).isEqualTo(0L);
+        }
+        // the first op is released at the start, and each one after it 100us later
+        assertThat(rl.getClock()).isEqualTo(4999 * 100_000L);
+    }
+
+    @Test
+    public void testContendedRate() {
+        RateLimiterPerfTestMethods methods = new RateLimiterPerfTestMethods();
+        RateSpec spec = new RateSpec(20000, 1.1);
+        Perf perf = methods.testRateLimiterMultiThreadedContention(
+            rs -> new GcraRateLimiter(def, "contended", rs.withVerb(RateSpec.Verb.configure)),
+            spec,
+            10000,
+            8
+        );
+        // Slow test hosts may fall behind, but the limiter must never exceed the rate
+        double ratio = perf.getLastResult().getOpsPerSec() / spec.getRate();
+        assertThat(ratio).isBetween(0.5d, 1.1d);
+    }
+
+    @Test
+    public void testBurstRecovery() {
+        TestableGcraRateLimiter rl = new TestableGcraRateLimiter(new AtomicLong(0L), new RateSpec(1000, 2.0), def);
+        assertThat(rl.maybeWaitForOp()).isEqualTo(0L);
+
+        // fall behind by 99 ops, since the next op was scheduled at 1ms
+        rl.advance(100_000_000L);
+        assertThat(rl.maybeWaitForOp()).isEqualTo(99_000_000L);
+
+        // ops are released at 2x the rate, 500us apart, until they are back on schedule
+        long startAt = rl.getClock();
+        int burstOps = 0;
+        while (rl.maybeWaitForOp() > 0L) {
+            burstOps++;
+            assertThat(rl.getClock() - startAt).isEqualTo(burstOps * 500_000L);
+        }
+        // each burst op recovers 500us of the 99ms that the limiter was behind
+        assertThat(burstOps).isEqualTo(196);
+        assertThat(rl.getWaitTime()).isEqualTo(0L);
+
+        long onScheduleAt = rl.getClock();
+        rl.maybeWaitForOp();
+        assertThat(rl.getClock() - onScheduleAt).isEqualTo(1_000_000L);
+    }
+
+}
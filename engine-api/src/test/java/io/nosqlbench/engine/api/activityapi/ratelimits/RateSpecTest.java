@@ -45,4 +45,18 @@ public class RateSpecTest {
         RateSpec c = new RateSpec("12345,1.1");
         assertThat(c.verb).isEqualTo(RateSpec.Verb.start);
     }
+
+    @Test
+    public void testLimiterTypeSelection() {
+        RateSpec a = new RateSpec("12345,1.4,gcra");
+        assertThat(a.getType()).isEqualTo("gcra");
+        assertThat(a.getVerb()).isEqualTo(RateSpec.Verb.start);
+        RateSpec b = new RateSpec("12345,1.4,restart,gcra");
+        assertThat(b.getType()).isEqualTo("gcra");
+        assertThat(b.getVerb()).isEqualTo(RateSpec.Verb.restart);
+        RateSpec c = new RateSpec("12345,1.1");
+        assertThat(c.getType()).isEqualTo("hybrid");
+        assertThat(c.withOpsPerSecond(100.0d).getType()).isEqualTo("hybrid");
+        assertThat(a.withOpsPerSecond(100.0d).getType()).isEqualTo("gcra");
+    }
 }
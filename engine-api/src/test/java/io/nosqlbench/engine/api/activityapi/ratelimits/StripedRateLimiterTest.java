@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.ratelimits;
+
+import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class StripedRateLimiterTest {
+
+    private final ActivityDef def = ActivityDef.parseActivityDef("alias=stripedtest");
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    /**
+     * Ops are only taken when they are due on the test clock, so the rate limiter never waits.
+     */
+    private StripedRateLimiter limiter(String label, RateSpec spec) {
+        return new StripedRateLimiter(def, label, spec) {
+            @Override
+            protected long getNanoClockTime() {
+                return clock.get();
+            }
+        };
+    }
+
+    @Test
+    public void testEvenShares() {
+        StripedRateLimiter rl = new StripedRateLimiter(def, "even", new RateSpec(4000, 1.1, RateSpec.Verb.configure));
+        for (int i = 0; i < 4; i++) {
+            rl.getStripe(i);
+        }
+        for (int i = 0; i < 4; i++) {
+            assertThat(rl.getStripe(i).getShare()).isEqualTo(1000.0d);
+        }
+    }
+
+    @Test
+    public void testStripeSchedule() {
+        StripedRateLimiter rl = limiter("schedule", new RateSpec(10000, 1.1, RateSpec.Verb.configure));
+        RateLimiter stripe = rl.getStripe(0);
+        long start = clock.get();
+        for (int i = 0; i < 100; i++) {
+            clock.set(start + i * 100_000L);
+            assertThat(stripe.maybeWaitForOp()).isEqualTo(0L);
+        }
+        // the next op is due at 10ms, so it is 1ms behind schedule at 11ms
+        clock.set(start + 11_000_000L);
+        assertThat(stripe.maybeWaitForOp()).isEqualTo(1_000_000L);
+    }
+
+    @Test
+    public void testUnusedShareIsRebalanced() {
+        StripedRateLimiter rl = limiter("rebalance", new RateSpec(2000, 1.1, RateSpec.Verb.configure));
+        StripedRateLimiter.Stripe fast = rl.getStripe(0);
+        StripedRateLimiter.Stripe slow = rl.getStripe(1);
+        assertThat(fast.getShare()).isEqualTo(1000.0d);
+
+        long start = clock.get();
+        for (int i = 0; i < 100; i++) {
+            clock.set(start + i * 1_000_000L);
+            fast.maybeWaitForOp();
+            if (i < 5) {
+                slow.maybeWaitForOp();
+            }
+        }
+        clock.set(start + 100_000_000L);
+        rl.rebalance();
+
+        // The slow stripe only used 50 ops/s of its share, so the rest goes to the fast stripe
+        assertThat(slow.getShare()).isCloseTo(55.0d, offset(0.001d));
+        assertThat(fast.getShare()).isCloseTo(1945.0d, offset(0.001d));
+    }
+
+    @Test
+    public void testStripesOfExitedThreadsAreRemoved() throws InterruptedException {
+        StripedRateLimiter rl = limiter("exited", new RateSpec(3000, 1.1, RateSpec.Verb.configure));
+        StripedRateLimiter.Stripe slot = rl.getStripe(0);
+        Thread thread = new Thread(rl::maybeWaitForOp);
+        thread.start();
+        thread.join();
+        assertThat(slot.getShare()).isEqualTo(1500.0d);
+
+        rl.rebalance();
+        assertThat(slot.getShare()).isCloseTo(3000.0d, offset(0.001d));
+    }
+
+    @Test
+    public void testIdleStripesAreRemovedAndRejoin() {
+        StripedRateLimiter rl = limiter("idle", new RateSpec(2000, 1.1, RateSpec.Verb.configure));
+        StripedRateLimiter.Stripe busy = rl.getStripe(0);
+        StripedRateLimiter.Stripe idle = rl.getStripe(1);
+        idle.maybeWaitForOp();
+
+        // the first rebalance sees the op of the idle stripe, and the one after its last idle rebalance removes it
+        long start = clock.get();
+        for (int r = 1; r <= StripedRateLimiter.IDLE_REBALANCES + 2; r++) {
+            clock.set(start + r * StripedRateLimiter.REBALANCE_MILLIS * 1_000_000L);
+            busy.maybeWaitForOp();
+            rl.rebalance();
+        }
+        assertThat(busy.getShare()).isCloseTo(2000.0d, offset(0.001d));
+
+        // the idle stripe takes back an even share when it is used again
+        idle.maybeWaitForOp();
+        assertThat(idle.getShare()).isCloseTo(1000.0d, offset(0.001d));
+        assertThat(busy.getShare()).isCloseTo(1000.0d, offset(0.001d));
+    }
+
+    @Test
+    public void testSlowStripesAreNotIdle() {
+        // 32 slots at 10 ops/s is one op every 3.2s for each slot, which is longer than the idle period
+        StripedRateLimiter rl = limiter("slow", new RateSpec(10, 1.1, RateSpec.Verb.configure));
+        StripedRateLimiter.Stripe[] slots = new StripedRateLimiter.Stripe[32];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = rl.getStripe(i);
+        }
+
+        // each slot takes its next op as soon as it is due, as a motor waiting on its stripe would
+        long start = clock.get();
+        long step = 10_000_000L;
+        long ops = 0L;
+        for (long elapsed = 0L; elapsed <= 60_000_000_000L; elapsed += step) {
+            clock.set(start + elapsed);
+            for (StripedRateLimiter.Stripe slot : slots) {
+                if (slot.getScheduledPosition() <= clock.get()) {
+                    slot.maybeWaitForOp();
+                    ops++;
+                }
+            }
+            if (elapsed % (StripedRateLimiter.REBALANCE_MILLIS * 1_000_000L) == 0L) {
+                rl.rebalance();
+            }
+        }
+        // the first op of each slot is due when it is created
+        assertThat(ops).isBetween(600L, 600L + slots.length + 1L);
+    }
+
+    @Test
+    public void testCloseStopsRebalancer() throws InterruptedException {
+        RateSpec spec = new RateSpec(1000, 1.1);
+        StripedRateLimiter rl = new StripedRateLimiter(def, "close", spec);
+        Thread rebalancer = rl.getRebalancer();
+        assertThat(rebalancer).isNotNull();
+        assertThat(rebalancer.isAlive()).isTrue();
+
+        rl.close();
+        rebalancer.join(10000);
+        assertThat(rebalancer.isAlive()).isFalse();
+        assertThat(rl.getRebalancer()).isNull();
+
+        // a closed rate limiter is started again when its rate spec is applied again
+        rl.applyRateSpec(spec);
+        Thread restarted = rl.getRebalancer();
+        assertThat(restarted).isNotNull();
+        rl.close();
+        restarted.join(10000);
+        assertThat(restarted.isAlive()).isFalse();
+    }
+
+}
@@ -38,8 +38,35 @@ public class TestRateLimiterPerf1E8 {
             "hybrid",
             rs.withVerb(RateSpec.Verb.configure)
         );
+    private final Function<RateSpec, RateLimiter> gcraFunction =
+        rs -> new GcraRateLimiter(
+            ActivityDef.parseActivityDef("alias=gcrarl"),
+            "gcra",
+            rs.withVerb(RateSpec.Verb.configure)
+        );
     private final RateLimiterPerfTestMethods methods = new RateLimiterPerfTestMethods();
 
+    /**
+     * Compare the hybrid and gcra rate limiters at 100M ops/s over 1 to 256 threads.
+     * The scheduling error is the relative difference between the achieved and the target rate.
+     */
+    @Test
+    @Disabled
+    public void test100Mops_gcraVsHybrid_1to256threads() {
+        RateSpec spec = new RateSpec(1E8, 1.1);
+        StringBuilder summary = new StringBuilder();
+        for (int threads = 1; threads <= 256; threads *= 2) {
+            for (Function<RateSpec, RateLimiter> f : new Function[]{rlFunction, gcraFunction}) {
+                Perf perf = methods.testRateLimiterMultiThreadedContention(f, spec, 100_000_000, threads);
+                double opsPerSec = perf.getLastResult().getOpsPerSec();
+                double error = Math.abs(opsPerSec - spec.getRate()) / spec.getRate();
+                summary.append(String.format("%s threads=%d ops/s=%,.3f error=%.3f%%\n",
+                    (f == rlFunction ? "hybrid" : "gcra  "), threads, opsPerSec, error * 100.0d));
+            }
+        }
+        System.out.println(summary);
+    }
+
     @Test
     @Disabled
     public void test100Mops_4000threads() {
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityapi.ratelimits;
+
+import io.nosqlbench.api.NBNamedElement;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs in virtual time. Waiting for an op moves the clock forward to the time of the op.
+ */
+public class TestableGcraRateLimiter extends GcraRateLimiter {
+
+    private final AtomicLong clock;
+
+    public TestableGcraRateLimiter(AtomicLong clock, RateSpec rateSpec, NBNamedElement def) {
+        super(def, "test", rateSpec, clock::get);
+        this.clock = clock;
+    }
+
+    public long getClock() {
+        return clock.get();
+    }
+
+    public void advance(long nanos) {
+        clock.addAndGet(nanos);
+    }
+
+    @Override
+    protected void waitUntil(long target, long now) {
+        clock.accumulateAndGet(target, Math::max);
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nosqlbench.engine.api.activityimpl.input;
+
+import io.nosqlbench.engine.api.activityapi.core.Startable;
+import io.nosqlbench.engine.api.activityapi.core.Stoppable;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleSegment;
+import io.nosqlbench.engine.api.activityapi.input.Input;
+import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChunkedInputTest {
+
+    @Test
+    public void testEmptyIntervalShouldNotProvideValues() {
+        ChunkedInput i = new ChunkedInput(ActivityDef.parseActivityDef("alias=foo,cycles=23..23"));
+        CycleSegment inputSegment = i.forSlot(0).getInputSegment(1);
+        assertThat(inputSegment).isNull();
+    }
+
+    @Test
+    public void testExactCoverageWithManySlots() throws InterruptedException {
+        assertCoverage("alias=foo;cycles=30000;threads=8", 8, 3, 1);
+    }
+
+    @Test
+    public void testExactCoverageWithRecycles() throws InterruptedException {
+        assertCoverage("alias=foo;cycles=1000..11000;threads=4;recycles=2", 4, 5, 3);
+    }
+
+    @Test
+    public void testRaisingEndKeepsClaimedChunk() {
+        ActivityDef def = ActivityDef.parseActivityDef("alias=foo;cycles=1000");
+        ChunkedInput input = new ChunkedInput(def);
+        Input slot = input.forSlot(0);
+        List<Long> cycles = new ArrayList<>();
+        cycles.add(slot.getInputSegment(1).nextCycle());
+
+        def.setEndCycle(2000L);
+        input.onActivityDefUpdate(def);
+        drain(slot, cycles);
+
+        assertThat(cycles).hasSize(2000);
+        for (int i = 0; i < 2000; i++) {
+            assertThat(cycles.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void testLoweringEndCutsClaimedChunk() {
+        ActivityDef def = ActivityDef.parseActivityDef("alias=foo;cycles=1000");
+        ChunkedInput input = new ChunkedInput(def);
+        Input slot = input.forSlot(0);
+        List<Long> cycles = new ArrayList<>();
+        cycles.add(slot.getInputSegment(1).nextCycle());
+
+        def.setEndCycle(5L);
+        input.onActivityDefUpdate(def);
+        drain(slot, cycles);
+
+        assertThat(cycles).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void testStoppedSlotsHandBackTheirChunks() {
+        ActivityDef def = ActivityDef.parseActivityDef("alias=foo;cycles=10000;threads=4");
+        ChunkedInput input = new ChunkedInput(def);
+        List<Long> cycles = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            CycleSegment segment = input.forSlot(t).getInputSegment(10);
+            while (!segment.isExhausted()) {
+                cycles.add(segment.nextCycle());
+            }
+        }
+
+        ((Stoppable) input.forSlot(2)).requestStop();
+        ((Stoppable) input.forSlot(3)).requestStop();
+        def.setThreads(2);
+        input.onActivityDefUpdate(def);
+
+        assertThat(input.forSlot(0)).isSameAs(input.forSlot(0));
+        drain(input.forSlot(0), cycles);
+        drain(input.forSlot(1), cycles);
+
+        assertThat(cycles).hasSize(10000);
+        assertThat(cycles).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void testSlotStoppedBeforeItsLastCallStillGetsAStride() {
+        ActivityDef def = ActivityDef.parseActivityDef("alias=foo;cycles=1000;threads=2");
+        ChunkedInput input = new ChunkedInput(def);
+        Input stopping = input.forSlot(0);
+        CycleSegment first = stopping.getInputSegment(10);
+        assertThat(first.nextCycle()).isEqualTo(0L);
+
+        // the motor may ask once more after the stop was requested
+        ((Stoppable) stopping).requestStop();
+        CycleSegment last = stopping.getInputSegment(10);
+        List<Long> cycles = new ArrayList<>();
+        while (!last.isExhausted()) {
+            cycles.add(last.nextCycle());
+        }
+        assertThat(cycles).hasSize(10);
+
+        drain(input.forSlot(1), cycles);
+        assertThat(cycles).hasSize(990);
+        assertThat(cycles).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void testExactCoverageWhenThreadsChangeWhileRunning() throws InterruptedException {
+        ActivityDef def = ActivityDef.parseActivityDef("alias=foo;cycles=210000;threads=8");
+        ChunkedInput input = new ChunkedInput(def);
+        int cycles = (int) def.getEndCycle();
+        AtomicIntegerArray seen = new AtomicIntegerArray(cycles);
+        AtomicLong issued = new AtomicLong();
+
+        Thread[] workers = new Thread[8];
+        AtomicBoolean[] running = new AtomicBoolean[8];
+        for (int t = 0; t < 8; t++) {
+            running[t] = new AtomicBoolean(true);
+            workers[t] = worker(input.forSlot(t), running[t], seen, issued);
+            workers[t].start();
+        }
+
+        // lower the thread count once some of the cycles have been issued
+        while (issued.get() < cycles / 4 && workers[0].isAlive()) {
+            Thread.onSpinWait();
+        }
+        def.setThreads(3);
+        input.onActivityDefUpdate(def);
+        for (int t = 3; t < 8; t++) {
+            running[t].set(false);
+            ((Stoppable) input.forSlot(t)).requestStop();
+        }
+        for (int t = 3; t < 8; t++) {
+            workers[t].join();
+        }
+
+        // and then raise it again, which restarts a stopped slot with the same input
+        def.setThreads(4);
+        input.onActivityDefUpdate(def);
+        Input restarted = input.forSlot(3);
+        ((Startable) restarted).start();
+        running[3].set(true);
+        workers[3] = worker(restarted, running[3], seen, issued);
+        workers[3].start();
+
+        for (int t = 0; t < 4; t++) {
+            workers[t].join();
+        }
+
+        for (int i = 0; i < cycles; i++) {
+            assertThat(seen.get(i)).as("cycle " + i).isEqualTo(1);
+        }
+    }
+
+    private static Thread worker(Input slot, AtomicBoolean running, AtomicIntegerArray seen, AtomicLong issued) {
+        return new Thread(() -> {
+            CycleSegment segment = null;
+            while (running.get() && (segment = slot.getInputSegment(7, segment)) != null) {
+                while (!segment.isExhausted()) {
+                    seen.incrementAndGet((int) segment.nextCycle());
+                    issued.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    private static void drain(Input slot, List<Long> cycles) {
+        CycleSegment segment = null;
+        while ((segment = slot.getInputSegment(1, segment)) != null) {
+            while (!segment.isExhausted()) {
+                cycles.add(segment.nextCycle());
+            }
+        }
+    }
+
+    private void assertCoverage(String spec, int threads, int stride, int passes) throws InterruptedException {
+        ActivityDef def = ActivityDef.parseActivityDef(spec);
+        ChunkedInput input = new ChunkedInput(def);
+        long start = def.getStartCycle();
+        int cycles = (int) (def.getEndCycle() - start);
+        AtomicIntegerArray seen = new AtomicIntegerArray(cycles);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Input slot = input.forSlot(t);
+            workers.add(new Thread(() -> {
+                CycleSegment segment = null;
+                while ((segment = slot.getInputSegment(stride, segment)) != null) {
+                    while (!segment.isExhausted()) {
+                        seen.incrementAndGet((int) (segment.nextCycle() - start));
+                    }
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        for (int i = 0; i < cycles; i++) {
+            assertThat(seen.get(i)).as("cycle " + (start + i)).isEqualTo(passes);
+        }
+    }
+}
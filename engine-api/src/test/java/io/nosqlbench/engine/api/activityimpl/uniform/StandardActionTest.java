@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityimpl.uniform;
+
+import io.nosqlbench.engine.api.activityapi.core.Action;
+import io.nosqlbench.engine.api.activityapi.core.RunState;
+import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+import io.nosqlbench.engine.api.activityimpl.input.AtomicInput;
+import io.nosqlbench.engine.api.activityimpl.motor.CoreMotor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StandardActionTest {
+
+    @AfterEach
+    public void resetOps() {
+        TestOpsDriverAdapter.reset();
+    }
+
+    private static StandardActivity<?, ?> activity(String spec) {
+        StandardActivity<?, ?> activity = new StandardActivity<>(ActivityDef.parseActivityDef(spec));
+        activity.initActivity();
+        return activity;
+    }
+
+    private static CoreMotor<?> startMotor(StandardActivity<?, ?> activity, Action action) {
+        CoreMotor<?> motor = new CoreMotor<>(activity, 0L, new AtomicInput(activity.getActivityDef()), action);
+        motor.getSlotStateTracker().enterState(RunState.Starting);
+        return motor;
+    }
+
+    @Test
+    public void testMotorRunsStridesAsBatches() throws InterruptedException {
+        StandardActivity<?, ?> activity = activity("driver=testops; op=batch; alias=batchstrides; stride=4; cycles=8");
+        Action action = new StandardActionDispenser(activity).getAction(0);
+        assertThat(((StandardAction<?, ?>) action).isBatching()).isTrue();
+
+        CoreMotor<?> motor = startMotor(activity, action);
+        Thread thread = new Thread(motor, "batchstrides");
+        thread.start();
+        thread.join(10000);
+
+        assertThat(TestOpsDriverAdapter.batches).containsExactly(new long[]{0, 1, 2, 3}, new long[]{4, 5, 6, 7});
+        assertThat(TestOpsDriverAdapter.cycles).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L);
+        assertThat(motor.getSlotStateTracker().getSlotState()).isEqualTo(RunState.Finished);
+    }
+
+    @Test
+    public void testRunCyclesStopsWithinBatch() {
+        StandardActivity<?, ?> activity = activity("driver=testops; op=sync; alias=batchstop; stride=4");
+        StandardAction<?, ?> action = (StandardAction<?, ?>) new StandardActionDispenser(activity).getAction(0);
+        action.init();
+        TestOpsDriverAdapter.onCycle = cycle -> {
+            if (cycle == 11L) {
+                action.requestStop();
+            }
+        };
+
+        int[] results = new int[4];
+        assertThat(action.runCycles(new long[]{10L, 11L, 12L, 13L}, 4, results)).isEqualTo(2);
+        assertThat(TestOpsDriverAdapter.cycles).containsExactly(10L, 11L);
+
+        // the stop request is cleared when the action is started again
+        action.init();
+        TestOpsDriverAdapter.cycles.clear();
+        assertThat(action.runCycles(new long[]{12L, 13L}, 2, results)).isEqualTo(2);
+        assertThat(TestOpsDriverAdapter.cycles).containsExactly(12L, 13L);
+    }
+
+    @Test
+    public void testMotorStopsAfterBatchInFlight() throws InterruptedException {
+        StandardActivity<?, ?> activity = activity("driver=testops; op=batch; alias=batchmotorstop; stride=4; cycles=100");
+        Action action = new StandardActionDispenser(activity).getAction(0);
+        CoreMotor<?> motor = startMotor(activity, action);
+        TestOpsDriverAdapter.onCycle = cycle -> {
+            if (cycle == 1L) {
+                motor.requestStop();
+            }
+        };
+
+        Thread thread = new Thread(motor, "batchmotorstop");
+        thread.start();
+        thread.join(10000);
+
+        // the batch in flight completes, but no further cycles are run
+        assertThat(TestOpsDriverAdapter.cycles).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(motor.getSlotStateTracker().getSlotState()).isEqualTo(RunState.Stopped);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityimpl.uniform;
+
+import io.nosqlbench.engine.api.activityapi.core.Action;
+import io.nosqlbench.engine.api.activityapi.core.RunState;
+import io.nosqlbench.engine.api.activityimpl.ActivityDef;
+import io.nosqlbench.engine.api.activityimpl.input.AtomicInput;
+import io.nosqlbench.engine.api.activityimpl.motor.CoreMotor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StandardAsyncActionTest {
+
+    @AfterEach
+    public void clearPending() {
+        TestOpsDriverAdapter.reset();
+    }
+
+    private static void awaitPending(int count) throws InterruptedException {
+        long endAt = System.currentTimeMillis() + 10000;
+        while (TestOpsDriverAdapter.pending.size() < count && System.currentTimeMillis() < endAt) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testAsyncOpsAreInFlightTogether() throws Exception {
+        ActivityDef def = ActivityDef.parseActivityDef("driver=testops; op=async; alias=asynctest; async=8; threads=2; cycles=20");
+        StandardActivity<?, ?> activity = new StandardActivity<>(def);
+        activity.initActivity();
+        Action action = new StandardActionDispenser(activity).getAction(0);
+        assertThat(action).isInstanceOf(StandardAsyncAction.class);
+
+        CoreMotor<?> motor = new CoreMotor<>(activity, 0L, new AtomicInput(def), action);
+        motor.getSlotStateTracker().enterState(RunState.Starting);
+        Thread thread = new Thread(motor, "asynctest");
+        thread.start();
+
+        // slot 0 of 2 threads may have 4 of the 8 async ops in flight
+        awaitPending(4);
+        Thread.sleep(100);
+        assertThat(TestOpsDriverAdapter.pending).hasSize(4);
+
+        int completed = 0;
+        long endAt = System.currentTimeMillis() + 10000;
+        while (completed < 20 && System.currentTimeMillis() < endAt) {
+            CompletableFuture<Object> future = TestOpsDriverAdapter.pending.poll();
+            if (future == null) {
+                Thread.sleep(1);
+            } else {
+                future.complete("done");
+                completed++;
+            }
+        }
+        thread.join(10000);
+
+        assertThat(completed).isEqualTo(20);
+        assertThat(motor.getSlotStateTracker().getSlotState()).isEqualTo(RunState.Finished);
+    }
+
+    private static Thread startMotor(String spec, AtomicReference<Throwable> motorError) {
+        ActivityDef def = ActivityDef.parseActivityDef(spec);
+        StandardActivity<?, ?> activity = new StandardActivity<>(def);
+        activity.initActivity();
+        Action action = new StandardActionDispenser(activity).getAction(0);
+        CoreMotor<?> motor = new CoreMotor<>(activity, 0L, new AtomicInput(def), action);
+        motor.getSlotStateTracker().enterState(RunState.Starting);
+        Thread thread = new Thread(motor, def.getAlias());
+        thread.setUncaughtExceptionHandler((t, e) -> motorError.set(e));
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void testStopErrorInCallbackStopsMotor() throws Exception {
+        AtomicReference<Throwable> motorError = new AtomicReference<>();
+        Thread thread = startMotor(
+            "driver=testops; op=async; alias=asyncstoptest; async=4; threads=1; cycles=20; errors=stop", motorError);
+
+        awaitPending(4);
+        TestOpsDriverAdapter.pending.poll().completeExceptionally(new RuntimeException("test failure"));
+
+        // the failed op releases its slot, so the motor can take one more cycle before it stops
+        awaitPending(4);
+        thread.join(10000);
+
+        assertThat(thread.isAlive()).isFalse();
+        assertThat(motorError.get()).isNotNull();
+        assertThat(motorError.get()).hasRootCauseMessage("test failure");
+        assertThat(TestOpsDriverAdapter.pending).hasSize(4);
+    }
+
+    @Test
+    public void testStopErrorInCallbackAfterInputIsExhausted() throws Exception {
+        AtomicReference<Throwable> motorError = new AtomicReference<>();
+        Thread thread = startMotor(
+            "driver=testops; op=async; alias=asyncstopdrain; async=4; threads=1; cycles=4; errors=stop", motorError);
+
+        awaitPending(4);
+        TestOpsDriverAdapter.pending.poll().completeExceptionally(new RuntimeException("test failure"));
+        CompletableFuture<Object> future;
+        while ((future = TestOpsDriverAdapter.pending.poll()) != null) {
+            future.complete("done");
+        }
+
+        // the motor waits for all in-flight ops, so it would not finish here if the failed op was leaked
+        thread.join(10000);
+
+        assertThat(thread.isAlive()).isFalse();
+        assertThat(motorError.get()).hasRootCauseMessage("test failure");
+    }
+}
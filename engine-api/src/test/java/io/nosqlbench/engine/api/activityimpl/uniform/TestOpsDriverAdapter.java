@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.api.activityimpl.uniform;
+
+import io.nosqlbench.engine.api.activityimpl.BaseOpDispenser;
+import io.nosqlbench.engine.api.activityimpl.BatchOpDispenser;
+import io.nosqlbench.engine.api.activityimpl.OpMapper;
+import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.AsyncCycleOp;
+import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.Op;
+import io.nosqlbench.engine.api.activityimpl.uniform.flowtypes.RunnableOp;
+import io.nosqlbench.engine.api.templating.ParsedOp;
+import io.nosqlbench.nb.annotations.Service;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongConsumer;
+
+/**
+ * A driver adapter for testing the standard actions, with ops that are controlled by the test.
+ * <UL>
+ *     <LI>{@code op=async} - an {@link AsyncCycleOp} which stays in flight until the test
+ *     completes its future from {@link #pending}</LI>
+ *     <LI>{@code op=sync} - a {@link RunnableOp} which adds its cycle to {@link #cycles}</LI>
+ *     <LI>{@code op=batch} - as {@code op=sync}, but from a {@link BatchOpDispenser}, which
+ *     also adds the cycles of each batch to {@link #batches}</LI>
+ * </UL>
+ * Both sync ops call {@link #onCycle} for each cycle after it is added.
+ */
+@Service(value = DriverAdapter.class, selector = "testops")
+public class TestOpsDriverAdapter extends BaseDriverAdapter<Op, Object> {
+
+    public final static Queue<CompletableFuture<Object>> pending = new ConcurrentLinkedQueue<>();
+    public final static Queue<Long> cycles = new ConcurrentLinkedQueue<>();
+    public final static Queue<long[]> batches = new ConcurrentLinkedQueue<>();
+    public static volatile LongConsumer onCycle = cycle -> {};
+
+    public static void reset() {
+        pending.clear();
+        cycles.clear();
+        batches.clear();
+        onCycle = cycle -> {};
+    }
+
+    private static void runCycle(long cycle) {
+        cycles.add(cycle);
+        onCycle.accept(cycle);
+    }
+
+    @Override
+    public OpMapper<Op> getOpMapper() {
+        return op -> switch (op.getStaticValue("stmt", String.class)) {
+            case "async" -> new AsyncOpDispenser(this, op);
+            case "sync" -> new SyncOpDispenser(this, op);
+            case "batch" -> new BatchingOpDispenser(this, op);
+            default -> throw new RuntimeException("unknown test op '" + op.getStaticValue("stmt") + "'");
+        };
+    }
+
+    private static class AsyncOpDispenser extends BaseOpDispenser<Op> {
+        public AsyncOpDispenser(DriverAdapter adapter, ParsedOp op) {
+            super(adapter, op);
+        }
+
+        @Override
+        public Op apply(long cycle) {
+            return (AsyncCycleOp<Object>) value -> {
+                CompletableFuture<Object> future = new CompletableFuture<>();
+                pending.add(future);
+                return future;
+            };
+        }
+    }
+
+    private static class SyncOpDispenser extends BaseOpDispenser<Op> {
+        public SyncOpDispenser(DriverAdapter adapter, ParsedOp op) {
+            super(adapter, op);
+        }
+
+        @Override
+        public Op apply(long cycle) {
+            return (RunnableOp) () -> runCycle(cycle);
+        }
+    }
+
+    private static class BatchingOpDispenser extends SyncOpDispenser implements BatchOpDispenser<Op> {
+        public BatchingOpDispenser(DriverAdapter adapter, ParsedOp op) {
+            super(adapter, op);
+        }
+
+        @Override
+        public Op applyBatch(long[] cycles) {
+            long[] batch = cycles.clone();
+            return (RunnableOp) () -> {
+                batches.add(batch);
+                for (long cycle : batch) {
+                    runCycle(cycle);
+                }
+            };
+        }
+    }
+}
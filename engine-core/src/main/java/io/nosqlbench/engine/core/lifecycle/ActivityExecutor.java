@@ -29,6 +29,7 @@ import org.apache.logging.log4j.Logger;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -75,13 +76,31 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
                 0, Integer.MAX_VALUE,
                 0L, TimeUnit.SECONDS,
                 new SynchronousQueue<>(),
-                new IndexedThreadFactory(activity.getAlias(), new ActivityExceptionHandler(this))
+                getMotorThreadFactory()
         );
         activity.getActivityDef().getParams().addListener(this);
         activity.setActivityController(this);
         this.sessionId = sessionId;
     }
 
+    /**
+     * Motors are run on platform threads by default. When <em>threading=virtual</em> is set, they are
+     * run on virtual threads instead, with <em>carriers</em> optionally setting the number of
+     * carrier threads. Slot indexes and thread names are the same in either mode.
+     */
+    private ThreadFactory getMotorThreadFactory() {
+        String threading = activityDef.getParams().getOptionalString("threading").orElse("platform");
+        switch (threading) {
+            case "platform":
+                return new IndexedThreadFactory(activity.getAlias(), new ActivityExceptionHandler(this));
+            case "virtual":
+                int carriers = activityDef.getParams().getOptionalInteger("carriers").orElse(0);
+                return new VirtualThreadFactory(activity.getAlias(), new ActivityExceptionHandler(this), carriers);
+            default:
+                throw new RuntimeException("Unknown threading mode '" + threading + "', valid values are platform or virtual.");
+        }
+    }
+
     public void setSessionId(String sessionId) {
         this.sessionId = sessionId;
     }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.core.lifecycle;
+
+import io.nosqlbench.nb.api.metadata.ThreadIndex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A named and indexed thread factory which creates virtual threads instead of
+ * platform threads. Thread names follow the same pattern as {@link IndexedThreadFactory},
+ * so thread-number functions which read the index from the thread name see the same values.
+ * Since virtual threads can not implement {@link io.nosqlbench.nb.api.metadata.Indexed}, the index
+ * is provided to those functions through {@link ThreadIndex} instead.</p>
+ *
+ * <p>The project is built for Java 17, so the virtual thread builder API is bound reflectively.
+ * This requires a runtime with virtual threads enabled (Java 21, or 19/20 with --enable-preview).</p>
+ *
+ * <p>The number of carrier threads for the default virtual thread scheduler can only be set
+ * before the first virtual thread is created in the JVM. It is controlled by the
+ * {@value CARRIERS_PROPERTY} system property, which is set from the carriers value when provided.</p>
+ */
+public class VirtualThreadFactory implements ThreadFactory {
+    private final static Logger logger = LogManager.getLogger(VirtualThreadFactory.class);
+
+    public final static String CARRIERS_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+    private final static String MAX_CARRIERS_PROPERTY = "jdk.virtualThreadScheduler.maxPoolSize";
+
+    private final String name;
+    private final Thread.UncaughtExceptionHandler uncaughtExceptionHandler;
+    private final AtomicInteger threadIndexer = new AtomicInteger(0);
+    private final ThreadBuilder threadBuilder;
+
+    /**
+     * Creates the unstarted threads for this factory.
+     */
+    interface ThreadBuilder {
+        Thread unstarted(String name, Thread.UncaughtExceptionHandler exceptionHandler, Runnable task);
+    }
+
+    public VirtualThreadFactory(String name, Thread.UncaughtExceptionHandler exceptionHandler, int carriers) {
+        this(name, exceptionHandler, carriers, virtualThreadBuilder(Thread.class));
+    }
+
+    VirtualThreadFactory(String name, Thread.UncaughtExceptionHandler exceptionHandler, int carriers, ThreadBuilder threadBuilder) {
+        this.name = name;
+        this.uncaughtExceptionHandler = exceptionHandler;
+        this.threadBuilder = threadBuilder;
+        if (carriers > 0) {
+            configureCarriers(carriers);
+        }
+    }
+
+    /**
+     * Bind the virtual thread builder API of the given thread type.
+     *
+     * @param threadType {@link Thread}, or a type without the API to check the error for runtimes without virtual threads
+     * @throws RuntimeException if the runtime does not have virtual threads, or if they are not enabled
+     */
+    static ThreadBuilder virtualThreadBuilder(Class<?> threadType) {
+        Method ofVirtual;
+        Method builderName;
+        Method builderExceptionHandler;
+        Method builderUnstarted;
+        try {
+            Class<?> builderType = Class.forName(threadType.getName() + "$Builder");
+            ofVirtual = threadType.getMethod("ofVirtual");
+            builderName = builderType.getMethod("name", String.class);
+            builderExceptionHandler = builderType.getMethod("uncaughtExceptionHandler", Thread.UncaughtExceptionHandler.class);
+            builderUnstarted = builderType.getMethod("unstarted", Runnable.class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new RuntimeException("threading=virtual requires a Java runtime with virtual threads, but this is " +
+                "Java " + Runtime.version() + ".");
+        }
+        // Fail early if the API is present, but not enabled, as with preview versions
+        newBuilder(ofVirtual);
+        return (threadName, exceptionHandler, task) -> {
+            try {
+                Object builder = newBuilder(ofVirtual);
+                builderName.invoke(builder, threadName);
+                if (exceptionHandler != null) {
+                    builderExceptionHandler.invoke(builder, exceptionHandler);
+                }
+                return (Thread) builderUnstarted.invoke(builder, task);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException("Unable to create virtual thread " + threadName + ": " + e, e);
+            }
+        };
+    }
+
+    private static synchronized void configureCarriers(int carriers) {
+        String current = System.getProperty(CARRIERS_PROPERTY);
+        if (current == null) {
+            logger.info("setting virtual thread carriers to " + carriers);
+            System.setProperty(CARRIERS_PROPERTY, String.valueOf(carriers));
+            if (System.getProperty(MAX_CARRIERS_PROPERTY) == null) {
+                System.setProperty(MAX_CARRIERS_PROPERTY, String.valueOf(Math.max(256, carriers)));
+            }
+        } else if (!current.equals(String.valueOf(carriers))) {
+            logger.warn("virtual thread carriers were already set to " + current + ", ignoring carriers=" + carriers +
+                ". This can only be set once per process.");
+        }
+    }
+
+    private static Object newBuilder(Method ofVirtual) {
+        try {
+            return ofVirtual.invoke(null);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("threading=virtual is not available on this Java runtime: " + e.getCause(), e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        int threadIndex = threadIndexer.incrementAndGet();
+        return threadBuilder.unstarted(name + String.format(":%03d", threadIndex), uncaughtExceptionHandler, () -> {
+            ThreadIndex.set(threadIndex);
+            r.run();
+        });
+    }
+
+}
@@ -33,6 +33,7 @@ import io.nosqlbench.nb.api.annotations.Layer;
 import io.nosqlbench.nb.api.metadata.ScenarioMetadata;
 import io.nosqlbench.nb.api.metadata.ScenarioMetadataAware;
 import io.nosqlbench.nb.api.metadata.SystemId;
+import io.nosqlbench.virtdata.core.bindings.BindingInstanceRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.graalvm.polyglot.*;
@@ -94,6 +95,7 @@ public class Scenario implements Callable<ScenarioResult> {
     private boolean wantsCompiledScript;
     private long startedAtMillis = -1L;
     private long endedAtMillis = -1L;
+    private final BindingInstanceRegistry bindingInstances = new BindingInstanceRegistry();
 
     public enum Engine {
         Graalvm
@@ -248,6 +250,7 @@ public class Scenario implements Callable<ScenarioResult> {
     }
 
     public void runScenario() {
+        BindingInstanceRegistry.setCurrent(bindingInstances);
         scenarioShutdownHook = new ScenarioShutdownHook(this);
         Runtime.getRuntime().addShutdownHook(scenarioShutdownHook);
 
@@ -339,6 +342,7 @@ public class Scenario implements Callable<ScenarioResult> {
         }
 
         logger.info("scenario state: " + this.state);
+        bindingInstances.clear();
 
         // We report the scenario state via annotation even for short runs
         Annotation annotation = Annotation.newBuilder()
@@ -362,7 +366,11 @@ public class Scenario implements Callable<ScenarioResult> {
     }
 
     public ScenarioResult call() {
-        runScenario();
+        try {
+            runScenario();
+        } finally {
+            BindingInstanceRegistry.setCurrent(null);
+        }
         String iolog = scriptEnv.getTimedLog();
         ScenarioResult result = new ScenarioResult(iolog, this.startedAtMillis, this.endedAtMillis);
 
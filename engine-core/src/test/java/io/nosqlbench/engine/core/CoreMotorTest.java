@@ -17,12 +17,16 @@
 package io.nosqlbench.engine.core;
 
 import io.nosqlbench.engine.api.activityapi.core.*;
+import io.nosqlbench.engine.api.activityapi.cyclelog.buffers.results.CycleResultsSegment;
+import io.nosqlbench.engine.api.activityapi.output.Output;
 import io.nosqlbench.engine.core.fortesting.BlockingSegmentInput;
 import io.nosqlbench.engine.api.activityimpl.ActivityDef;
 import io.nosqlbench.engine.api.activityimpl.SimpleActivity;
+import io.nosqlbench.engine.api.activityimpl.input.AtomicInput;
 import io.nosqlbench.engine.api.activityimpl.motor.CoreMotor;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Predicate;
@@ -77,6 +81,103 @@ public class CoreMotorTest {
 
     }
 
+    @Test
+    public void testBatchedStride() {
+        BlockingSegmentInput lockstepper = new BlockingSegmentInput();
+        Motor cm1 = new CoreMotor(new SimpleActivity("stride=3"),1L, lockstepper);
+        AtomicLongArray ary = new AtomicLongArray(10);
+        AtomicLong batches = new AtomicLong(0L);
+        cm1.setAction(getTestBatchConsumer(ary, batches));
+        cm1.getSlotStateTracker().enterState(RunState.Starting);
+
+        Thread t1 = new Thread(cm1);
+        t1.setName("cm1");
+        t1.start();
+        try {
+            Thread.sleep(500); // allow action time to be waiting in monitor for test fixture
+        } catch (InterruptedException ignored) {}
+
+        lockstepper.publishSegment(11L,12L,13L);
+
+        boolean result = awaitAryCondition(ala -> (ala.get(2)==13L),ary,5000,100);
+        assertThat(ary.get(0)).isEqualTo(11L);
+        assertThat(ary.get(1)).isEqualTo(12L);
+        assertThat(ary.get(2)).isEqualTo(13L);
+        assertThat(batches.get()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testStridesWithOutputDoNotAllocate() {
+        SyncAction action = new SyncAction() {
+            @Override
+            public int runCycle(long cycle) {
+                return 0;
+            }
+        };
+        CountingOutput output = new CountingOutput();
+
+        // warm up so that the motor loop is compiled
+        runMotor("alias=alloctest_warmup;stride=10;cycles=2000000", action, output);
+
+        long fewer = runMotor("alias=alloctest_fewer;stride=10;cycles=1000000", action, output);
+        long more = runMotor("alias=alloctest_more;stride=10;cycles=3000000", action, output);
+        assertThat(output.results).isEqualTo(6_000_000L);
+
+        // the set up of each motor is the same, so the difference is what the extra strides allocate
+        double bytesPerStride = (double) (more - fewer) / 200_000;
+        assertThat(bytesPerStride).isLessThan(1.0d);
+    }
+
+    /**
+     * Run a motor to completion on this thread.
+     *
+     * @return the number of bytes which this thread allocated for it
+     */
+    private long runMotor(String spec, SyncAction action, Output output) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        ActivityDef def = ActivityDef.parseActivityDef(spec);
+        long before = threads.getThreadAllocatedBytes(threadId);
+        CoreMotor<?> motor = new CoreMotor<>(new SimpleActivity(def), 0L, new AtomicInput(def), action, output);
+        motor.getSlotStateTracker().enterState(RunState.Starting);
+        motor.run();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private static class CountingOutput implements Output {
+        private long results;
+
+        @Override
+        public boolean onCycleResult(long completedCycle, int result) {
+            results++;
+            return true;
+        }
+
+        @Override
+        public void onCycleResultSegment(CycleResultsSegment segment) {
+            results += segment.getCount();
+        }
+    }
+
+    private BatchSyncAction getTestBatchConsumer(final AtomicLongArray ary, final AtomicLong batches) {
+        return new BatchSyncAction() {
+            @Override
+            public boolean isBatching() {
+                return true;
+            }
+
+            @Override
+            public int runCycles(long[] cycles, int count, int[] results) {
+                for (int i = 0; i < count; i++) {
+                    ary.set(i, cycles[i]);
+                    results[i] = 0;
+                }
+                batches.incrementAndGet();
+                return count;
+            }
+        };
+    }
+
     private SyncAction getTestArrayConsumer(final AtomicLongArray ary) {
         return new SyncAction() {
             private int offset=0;
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.engine.core.lifecycle;
+
+import io.nosqlbench.nb.api.metadata.ThreadIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadFactoryTest {
+
+    private final static VirtualThreadFactory.ThreadBuilder platformThreads = (name, handler, task) -> {
+        Thread thread = new Thread(task, name);
+        thread.setUncaughtExceptionHandler(handler);
+        return thread;
+    };
+
+    @Test
+    public void testThreadsAreNamedAndIndexed() throws InterruptedException {
+        Thread.UncaughtExceptionHandler handler = (t, e) -> {};
+        VirtualThreadFactory factory = new VirtualThreadFactory("test", handler, 0, platformThreads);
+        Map<String, Integer> indexes = new ConcurrentHashMap<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread thread = factory.newThread(() -> indexes.put(Thread.currentThread().getName(), ThreadIndex.get()));
+            assertThat(thread.getUncaughtExceptionHandler()).isSameAs(handler);
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+            thread.join();
+        }
+        assertThat(indexes).isEqualTo(Map.of("test:001", 1, "test:002", 2, "test:003", 3));
+        assertThat(ThreadIndex.get()).isNull();
+    }
+
+    @Test
+    public void testRuntimeWithoutVirtualThreads() {
+        assertThatExceptionOfType(RuntimeException.class)
+            .isThrownBy(() -> VirtualThreadFactory.virtualThreadBuilder(Object.class))
+            .withMessageContaining("requires a Java runtime with virtual threads");
+    }
+
+    @Test
+    public void testVirtualThreadsOnThisRuntime() throws Exception {
+        int feature = Runtime.version().feature();
+        if (feature < 19) {
+            assertThatExceptionOfType(RuntimeException.class)
+                .isThrownBy(() -> new VirtualThreadFactory("test", null, 0))
+                .withMessageContaining("requires a Java runtime with virtual threads");
+            return;
+        }
+        assumeTrue(feature >= 21, "virtual threads are a preview feature on Java " + feature);
+        VirtualThreadFactory factory = new VirtualThreadFactory("test", null, 0);
+        Integer[] index = new Integer[1];
+        Thread thread = factory.newThread(() -> index[0] = ThreadIndex.get());
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        assertThat(thread.getName()).isEqualTo("test:001");
+        thread.start();
+        thread.join();
+        assertThat(index[0]).isEqualTo(1);
+    }
+}
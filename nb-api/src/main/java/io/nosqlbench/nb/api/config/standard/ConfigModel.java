@@ -131,6 +131,8 @@ public class ConfigModel implements NBConfigModel {
                     return (T) Double.valueOf(string);
                 } else if (type == BigDecimal.class) {
                     return (T) BigDecimal.valueOf(Double.parseDouble(string));
+                } else if (type == boolean.class || type == Boolean.class) {
+                    return (T) Boolean.valueOf(string);
                 } else {
                     throw new RuntimeException("CharSequence type " + type.getSimpleName() + " could " +
                         " not be converted from " + value.getClass().getSimpleName());
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.nb.api.metadata;
+
+/**
+ * Holds the index of the current thread for thread types which can not implement
+ * {@link Indexed} directly, such as virtual threads.
+ */
+public class ThreadIndex {
+
+    private final static ThreadLocal<Integer> index = new ThreadLocal<>();
+
+    public static void set(int threadIndex) {
+        index.set(threadIndex);
+    }
+
+    /**
+     * @return the index of the current thread, either from {@link Indexed} or as set
+     * with {@link #set(int)}, or null if neither is known
+     */
+    public static Integer get() {
+        if (Thread.currentThread() instanceof Indexed indexed) {
+            return indexed.getIndex();
+        }
+        return index.get();
+    }
+}
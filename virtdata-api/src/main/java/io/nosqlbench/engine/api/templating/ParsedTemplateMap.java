@@ -19,6 +19,7 @@ package io.nosqlbench.engine.api.templating;
 import io.nosqlbench.engine.api.templating.binders.ArrayBinder;
 import io.nosqlbench.engine.api.templating.binders.ListBinder;
 import io.nosqlbench.engine.api.templating.binders.OrderedMapBinder;
+import io.nosqlbench.engine.api.templating.binders.PositionalBinder;
 import io.nosqlbench.nb.api.config.fieldreaders.DynamicFieldReader;
 import io.nosqlbench.nb.api.config.fieldreaders.StaticFieldReader;
 import io.nosqlbench.nb.api.config.params.ParamsParser;
@@ -760,6 +761,38 @@ public class ParsedTemplateMap implements LongFunction<Map<String, ?>>, StaticFi
         return new ArrayBinder(this, fields);
     }
 
+    /**
+     * @param fields The ordered field names for which the {@link PositionalBinder} will be created
+     * @return a new {@link PositionalBinder} which can fill a reusable {@link Object} array from a long input.
+     */
+    public PositionalBinder newPositionalBinder(String... fields) {
+        return new PositionalBinder(this, fields);
+    }
+
+    /**
+     * @param fields The ordered field names for which the {@link PositionalBinder} will be created
+     * @return a new {@link PositionalBinder} which can fill a reusable {@link Object} array from a long input.
+     */
+    public PositionalBinder newPositionalBinder(List<String> fields) {
+        return new PositionalBinder(this, fields);
+    }
+
+    /**
+     * Compile all the static and dynamic op fields of this template map into a {@link PositionalBinder},
+     * in the order they were defined. This is the array-backed form of {@link #apply(long)}, for
+     * op dispensers which resolve field names to positions once, at construction time.
+     * @return a new {@link PositionalBinder} for all op fields
+     */
+    public PositionalBinder compile() {
+        List<String> fields = new ArrayList<>();
+        for (String field : protomap.keySet()) {
+            if (statics.containsKey(field) || dynamics.containsKey(field)) {
+                fields.add(field);
+            }
+        }
+        return new PositionalBinder(this, fields);
+    }
+
     /**
      * @param bindPoints The {@link BindPoint}s for which the {@link ArrayBinder} will be created
      * @return a new {@link ArrayBinder} which can produce a {@link Object} array from a long input.
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nosqlbench.engine.api.templating.binders;
+
+import io.nosqlbench.engine.api.templating.ParsedTemplateMap;
+import io.nosqlbench.nb.api.errors.OpConfigError;
+import io.nosqlbench.virtdata.core.bindings.DataMapper;
+import io.nosqlbench.virtdata.core.bindings.VirtData;
+import io.nosqlbench.virtdata.core.templates.BindPoint;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * <p>A positional binder is a compiled form of a set of op fields. The field names are resolved
+ * to slot indexes once, when the binder is created, so that binding the fields for a cycle is
+ * only a pass over an array of functions, with no map copying or hashing.</p>
+ *
+ * <p>Each record produced by this binder is an Object array, with one slot per field, in
+ * the order the fields were given. Static field values are set when a record is created with
+ * {@link #newRecord()}. Dynamic field values are set for a cycle with {@link #bind(long, Object[])},
+ * which can be called on the same record for every cycle, so that op dispensers which consume
+ * the values within the cycle can avoid allocating a new record each time.</p>
+ */
+public class PositionalBinder implements LongFunction<Object[]> {
+
+    private final String[] fields;
+    private final Object[] protoary;
+    private final LongFunction<?>[] dmappers;
+    private final int[] dindexes;
+
+    public PositionalBinder(ParsedTemplateMap cmd, String... fields) {
+        this.fields = Arrays.copyOf(fields, fields.length);
+        this.protoary = new Object[fields.length];
+        LongFunction<?>[] mappers = new LongFunction<?>[fields.length];
+        int[] indexes = new int[fields.length];
+        int nextIndex = 0;
+
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i];
+            if (cmd.isStatic(field)) {
+                protoary[i] = cmd.getStaticValue(field);
+            } else if (cmd.isDynamic(field)) {
+                mappers[nextIndex] = cmd.getMapper(field);
+                indexes[nextIndex++] = i;
+            } else {
+                throw new OpConfigError("There was no field named '" + field + "' while building a positional binder.");
+            }
+        }
+        this.dmappers = Arrays.copyOf(mappers, nextIndex);
+        this.dindexes = Arrays.copyOf(indexes, nextIndex);
+    }
+
+    public PositionalBinder(ParsedTemplateMap cmd, List<String> fields) {
+        this(cmd, fields.toArray(new String[0]));
+    }
+
+    public PositionalBinder(List<BindPoint> bindPoints) {
+        this.fields = new String[bindPoints.size()];
+        this.protoary = new Object[bindPoints.size()];
+        this.dmappers = new LongFunction<?>[bindPoints.size()];
+        this.dindexes = new int[bindPoints.size()];
+
+        for (int i = 0; i < bindPoints.size(); i++) {
+            BindPoint bindPoint = bindPoints.get(i);
+            Optional<DataMapper<Object>> mapper = VirtData.getOptionalMapper(bindPoint.getBindspec());
+            fields[i] = bindPoint.getAnchor();
+            dmappers[i] = mapper.orElseThrow();
+            dindexes[i] = i;
+        }
+    }
+
+    /**
+     * @return a new record with the static field values set
+     */
+    public Object[] newRecord() {
+        return Arrays.copyOf(protoary, protoary.length);
+    }
+
+    /**
+     * Set the dynamic field values for the given cycle into a record.
+     * @param value The cycle value to bind
+     * @param record A record created by {@link #newRecord()}, or one which was filled by this binder before
+     * @return the same record
+     */
+    public Object[] bind(long value, Object[] record) {
+        for (int i = 0; i < dindexes.length; i++) {
+            record[dindexes[i]] = dmappers[i].apply(value);
+        }
+        return record;
+    }
+
+    @Override
+    public Object[] apply(long value) {
+        return bind(value, newRecord());
+    }
+
+    /**
+     * @param field The name of a field in this binder
+     * @return The slot index of the field in each record
+     */
+    public int indexOf(String field) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(field)) {
+                return i;
+            }
+        }
+        throw new OpConfigError("There was no field named '" + field + "' in this positional binder, " +
+            "only " + Arrays.toString(fields));
+    }
+
+    /**
+     * @return the field names, in record order
+     */
+    public String[] getFields() {
+        return Arrays.copyOf(fields, fields.length);
+    }
+
+    public int size() {
+        return fields.length;
+    }
+}
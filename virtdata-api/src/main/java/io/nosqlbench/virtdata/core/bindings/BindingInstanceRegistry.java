@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.core.bindings;
+
+import io.nosqlbench.virtdata.lang.ast.Expression;
+import io.nosqlbench.virtdata.lang.ast.FunctionCall;
+import io.nosqlbench.virtdata.lang.ast.VirtDataFlow;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <p>Shares binding function instances between all the op templates and activities of a
+ * scenario which use the same recipe. The recipe is identified by its parsed form, so
+ * differences in whitespace do not matter. Without this, every op which uses a
+ * binding like {@code Mod(1000000); ToString()} would have its own copy of the functions,
+ * including any lookup tables, file contents or distributions which they hold.</p>
+ *
+ * <p>Only recipes which resolve to thread safe functions are shared, meaning that every function
+ * in the chain is annotated as a {@link io.nosqlbench.virtdata.api.annotations.ThreadSafeMapper}.
+ * Recipes with any {@link io.nosqlbench.virtdata.api.annotations.PerThreadMapper} functions are
+ * resolved to a new instance each time, as before.</p>
+ *
+ * <p>Each scenario has its own registry, which it makes current for the thread that runs it
+ * with {@link #setCurrent(BindingInstanceRegistry)}. Threads started from that thread, like
+ * those of its activities, inherit it. Bindings which are resolved on any other thread, or
+ * outside of a scenario, are not shared at all. The scenario calls {@link #clear()} when it is
+ * finished, which releases its shared instances and stops any further sharing through it.</p>
+ */
+public class BindingInstanceRegistry {
+    private final static Logger logger = LogManager.getLogger(BindingInstanceRegistry.class);
+
+    private final static InheritableThreadLocal<BindingInstanceRegistry> current = new InheritableThreadLocal<>();
+
+    private final Map<String, Object> shared = new ConcurrentHashMap<>();
+    private final Set<String> unshared = ConcurrentHashMap.newKeySet();
+    private volatile boolean cleared = false;
+
+    /**
+     * Make a registry current for this thread and the threads which it starts from now on.
+     *
+     * @param registry The registry, or null to stop sharing binding instances on this thread
+     */
+    public static void setCurrent(BindingInstanceRegistry registry) {
+        if (registry == null) {
+            current.remove();
+        } else {
+            current.set(registry);
+        }
+    }
+
+    /**
+     * @return The registry of the scenario which this thread is running for, if any
+     */
+    public static Optional<BindingInstanceRegistry> getCurrent() {
+        return Optional.ofNullable(current.get());
+    }
+
+    /**
+     * Get the shared function object for a recipe from the current registry, or resolve it
+     * if there is none. Without a current registry, the recipe is always resolved anew.
+     *
+     * @param flow     The parsed binding recipe
+     * @param resolver A function which resolves the recipe to a new function
+     * @return An optional function object which will be empty if the function could not be resolved.
+     */
+    public static Optional<Object> getOrResolve(VirtDataFlow flow, Function<VirtDataFlow, Optional<ResolvedFunction>> resolver) {
+        BindingInstanceRegistry registry = current.get();
+        if (registry == null) {
+            return resolver.apply(flow).map(ResolvedFunction::getFunctionObject);
+        }
+        return registry.sharedOrResolved(flow, resolver);
+    }
+
+    /**
+     * Get the shared function object for a recipe, or resolve it if there is none.
+     * The resolver is not called while holding any lock, since binding functions may
+     * resolve other bindings when they are constructed.
+     *
+     * @param flow     The parsed binding recipe
+     * @param resolver A function which resolves the recipe to a new function
+     * @return An optional function object which will be empty if the function could not be resolved.
+     */
+    public Optional<Object> sharedOrResolved(VirtDataFlow flow, Function<VirtDataFlow, Optional<ResolvedFunction>> resolver) {
+        if (cleared) {
+            return resolver.apply(flow).map(ResolvedFunction::getFunctionObject);
+        }
+        String recipe = canonicalRecipe(flow);
+        Object function = shared.get(recipe);
+        if (function != null) {
+            return Optional.of(function);
+        }
+        Optional<ResolvedFunction> resolved = resolver.apply(flow);
+        if (resolved.isEmpty() || unshared.contains(recipe)) {
+            return resolved.map(ResolvedFunction::getFunctionObject);
+        }
+        if (!resolved.get().isThreadSafe()) {
+            unshared.add(recipe);
+            logger.debug(() -> "Binding recipe '" + recipe + "' is not thread safe, so it will not be shared.");
+            return resolved.map(ResolvedFunction::getFunctionObject);
+        }
+        if (cleared) {
+            return resolved.map(ResolvedFunction::getFunctionObject);
+        }
+        Object existing = shared.putIfAbsent(recipe, resolved.get().getFunctionObject());
+        return Optional.of(existing != null ? existing : resolved.get().getFunctionObject());
+    }
+
+    /**
+     * Describe a parsed recipe with the types and lengths of all of its arguments, so that
+     * recipes with string arguments which contain quotes or commas are not confused with others.
+     */
+    static String canonicalRecipe(VirtDataFlow flow) {
+        StringBuilder sb = new StringBuilder();
+        for (Expression expression : flow.getExpressions()) {
+            if (expression.getAssignment() != null) {
+                sb.append(expression.getAssignment().getVariableName()).append('=');
+            }
+            appendCall(sb, expression.getCall());
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    private static void appendCall(StringBuilder sb, FunctionCall call) {
+        sb.append(call.getInputType()).append("->").append(call.getFunctionName()).append('(');
+        for (Object arg : call.getArguments()) {
+            if (arg instanceof FunctionCall nested) {
+                appendCall(sb, nested);
+            } else {
+                String value = String.valueOf(arg);
+                sb.append(arg == null ? "null" : arg.getClass().getSimpleName())
+                    .append(':').append(value.length()).append(':').append(value);
+            }
+            sb.append(',');
+        }
+        sb.append(")->").append(call.getOutputType());
+    }
+
+    /**
+     * @return the number of distinct recipes which have shared function instances
+     */
+    public int size() {
+        return shared.size();
+    }
+
+    /**
+     * Forget all shared function instances, so that they can be garbage collected once
+     * they are no longer used. Any later lookups through this registry resolve new instances
+     * without sharing them.
+     */
+    public void clear() {
+        cleared = true;
+        if (!shared.isEmpty()) {
+            logger.debug(() -> "Releasing " + shared.size() + " shared binding function instances.");
+        }
+        shared.clear();
+        unshared.clear();
+    }
+}
@@ -117,7 +117,8 @@ public class BindingsTemplate {
     /**
      * Use the data mapping library and the specifier to create instances of data mapping functions.
      * If you need thread-aware mapping, be sure to call this in the proper thread. Each time this method
-     * is called, it creates a new instance.
+     * is called, it creates a new instance. Thread safe binding functions within it may be shared with
+     * other bindings of the same recipe, as described in {@link BindingInstanceRegistry}.
      *
      * @return A set of bindings that can be used to yield mapped data values later.
      */
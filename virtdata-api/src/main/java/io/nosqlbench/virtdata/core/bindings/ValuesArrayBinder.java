@@ -16,7 +16,7 @@
 
 package io.nosqlbench.virtdata.core.bindings;
 
-import io.nosqlbench.virtdata.core.templates.StringCompositor;
+import io.nosqlbench.virtdata.core.templates.CompiledStringTemplate;
 
 /**
  * <p>ValuesArrayBinder provides a way to apply an array of object values to a template
@@ -35,8 +35,7 @@ import io.nosqlbench.virtdata.core.templates.StringCompositor;
  * Both types of use are found in this API. An example of the former type would be
  * {@link ContextualBindingsArrayTemplate},
  * while and example of the latter would
- * be {@link StringCompositor}.
- * be {@link StringCompositor}.
+ * be {@link CompiledStringTemplate}.
  * </p>
  *
  * @param <T> The template type
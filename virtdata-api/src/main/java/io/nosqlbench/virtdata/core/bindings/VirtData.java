@@ -97,16 +97,43 @@ public class VirtData {
      * @return An optional function which will be empty if the function could not be resolved.
      */
     public static <T> Optional<DataMapper<T>> getOptionalMapper(String flowSpec, Map<String,?> config) {
+        return getOptionalFunctionObject(flowSpec, config).map(DataMapperFunctionMapper::map);
+    }
+
+    /**
+     * Instantiate an optional function object if possible, in the native functional type
+     * it was resolved to. This allows callers to specialize on primitive function types
+     * like {@link java.util.function.LongUnaryOperator} instead of going through
+     * the boxed {@link DataMapper} form. When there is no configuration, thread safe
+     * functions are shared with other callers of the same recipe within a scenario, as
+     * described in {@link BindingInstanceRegistry}. This is also true of the typed lookups,
+     * where the recipe includes the input and output types which are required.
+     *
+     * @param flowSpec The VirtData specifier for the mapping function
+     * @param config   A map of configuration objects
+     * @return An optional function object which will be empty if the function could not be resolved.
+     */
+    public static Optional<Object> getOptionalFunctionObject(String flowSpec, Map<String,?> config) {
         flowSpec = CompatibilityFixups.fixup(flowSpec);
         VirtDataDSL.ParseResult parseResult = VirtDataDSL.parse(flowSpec);
         if (parseResult.throwable != null) {
             throw new RuntimeException("Error while parsing binding specification '" + flowSpec +"': "+ parseResult.throwable);
         }
-        VirtDataFlow flow = parseResult.flow;
+        return resolveFunctionObject(parseResult.flow, config);
+    }
+
+    /**
+     * Resolve a parsed flow to a function object, sharing it within the current scenario
+     * if there is no configuration.
+     */
+    private static Optional<Object> resolveFunctionObject(VirtDataFlow flow, Map<String,?> config) {
+        if (config.isEmpty()) {
+            return BindingInstanceRegistry.getOrResolve(flow, f -> new VirtDataComposer().resolveFunctionFlow(f));
+        }
         VirtDataComposer composer = new VirtDataComposer();
         composer.addCustomElements(config);
         Optional<ResolvedFunction> resolvedFunction = composer.resolveFunctionFlow(flow);
-        return resolvedFunction.map(ResolvedFunction::getFunctionObject).map(DataMapperFunctionMapper::map);
+        return resolvedFunction.map(ResolvedFunction::getFunctionObject);
     }
     public static <T> Optional<DataMapper<T>> getOptionalMapper(String flowSpec) {
         return getOptionalMapper(flowSpec,Collections.emptyMap());
@@ -177,10 +204,7 @@ public class VirtData {
             flow.getLastExpression().getCall().setOutputType(clazz.getCanonicalName());
         }
 
-        VirtDataComposer composer = new VirtDataComposer();
-        composer.addCustomElements(config);
-        Optional<ResolvedFunction> resolvedFunction = composer.resolveFunctionFlow(flow);
-        Optional<DataMapper<T>> mapper = resolvedFunction.map(ResolvedFunction::getFunctionObject).map(DataMapperFunctionMapper::map);
+        Optional<DataMapper<T>> mapper = resolveFunctionObject(flow, config).map(DataMapperFunctionMapper::map);
         if (mapper.isPresent()) {
             T actualTestValue = mapper.get().get(1L);
             if (!ClassUtils.isAssignable(actualTestValue.getClass(),clazz,true)) {
@@ -252,11 +276,7 @@ public class VirtData {
             flow.getLastExpression().getCall().setOutputType(requiredOutputType.getCanonicalName());
         }
 
-        VirtDataComposer composer = new VirtDataComposer();
-        composer.addCustomElements(config);
-        Optional<ResolvedFunction> resolvedFunction = composer.resolveFunctionFlow(flow);
-
-        return resolvedFunction.map(ResolvedFunction::getFunctionObject).map(functionType::cast);
+        return resolveFunctionObject(flow, config).map(functionType::cast);
     }
 
     /**
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.core.bindings;
+
+import io.nosqlbench.virtdata.api.annotations.ThreadSafeMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>An index of all the binding functions which are known to {@link VirtDataFunctionFinder},
+ * by simple class name. The function names come from the doc info classes which are generated at
+ * build time by the function annotation processors, and they are read once per process.</p>
+ *
+ * <p>The classes for a name are only loaded when the name is first looked up. After that, the
+ * function types and constructor signatures for that name are kept as an immutable list of
+ * {@link Entry}s, so resolving the same function again needs no more reflection.</p>
+ */
+public class VirtDataFunctionCatalog {
+    private final static Logger logger = LogManager.getLogger(VirtDataFunctionCatalog.class);
+    private final static MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+    private static VirtDataFunctionCatalog instance;
+
+    private final List<String> functionNames;
+    private final Map<String, List<String>> classNamesBySimpleName;
+    private final Map<String, List<Entry>> entriesByName = new ConcurrentHashMap<>();
+
+    public synchronized static VirtDataFunctionCatalog get() {
+        if (instance == null) {
+            instance = new VirtDataFunctionCatalog(new VirtDataFunctionFinder().getFunctionNames());
+        }
+        return instance;
+    }
+
+    VirtDataFunctionCatalog(List<String> functionNames) {
+        long start = System.nanoTime();
+        this.functionNames = List.copyOf(functionNames);
+        Map<String, List<String>> bySimpleName = new HashMap<>();
+        for (String functionName : this.functionNames) {
+            String simpleName = functionName.substring(functionName.lastIndexOf('.') + 1);
+            bySimpleName.computeIfAbsent(simpleName, n -> new ArrayList<>()).add(functionName);
+        }
+        bySimpleName.replaceAll((n, l) -> List.copyOf(l));
+        this.classNamesBySimpleName = Map.copyOf(bySimpleName);
+        logger.debug(() -> "Indexed " + this.functionNames.size() + " binding functions in "
+            + ((System.nanoTime() - start) / 1_000_000L) + "ms");
+    }
+
+    /**
+     * @return the fully qualified names of all known binding functions, in sorted order
+     */
+    public List<String> getFunctionNames() {
+        return functionNames;
+    }
+
+    /**
+     * Get the functional classes for a function name. A name with a package qualifier, like
+     * {@code murmur.Hash}, matches all the functions whose qualified names end with it.
+     *
+     * @param functionName The function name, as it is used in a binding recipe
+     * @return The entries for all the functional classes with this name
+     */
+    public List<Entry> getEntries(String functionName) {
+        return entriesByName.computeIfAbsent(functionName, this::loadEntries);
+    }
+
+    private List<Entry> loadEntries(String functionName) {
+        List<String> classNames;
+        if (functionName.contains(".")) {
+            String simpleName = functionName.substring(functionName.lastIndexOf('.') + 1);
+            classNames = classNamesBySimpleName.getOrDefault(simpleName, List.of()).stream()
+                .filter(s -> s.endsWith("." + functionName))
+                .toList();
+        } else {
+            classNames = classNamesBySimpleName.getOrDefault(functionName, List.of());
+        }
+        List<Entry> entries = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            maybeClassForName(className).ifPresent(
+                c -> toFunctionalMethod(c).ifPresent(m -> entries.add(new Entry(c, m)))
+            );
+        }
+        return List.copyOf(entries);
+    }
+
+    private static Optional<Class<?>> maybeClassForName(String className) {
+        try {
+            return Optional.of(Class.forName(className));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Method> toFunctionalMethod(Class<?> clazz) {
+        return Arrays.stream(clazz.getMethods())
+            .filter(m -> !m.isDefault() && !m.isBridge() && !m.isSynthetic())
+            .filter(m -> (m.getModifiers() & Modifier.PUBLIC) > 0)
+            .filter(m -> m.getName().startsWith("apply"))
+            .findFirst();
+    }
+
+    /**
+     * A functional class, with the input and output types of its apply method and its constructors.
+     */
+    public static class Entry {
+        private final Class<?> functionClass;
+        private final Class<?> inputClass;
+        private final Class<?> outputClass;
+        private final boolean threadSafe;
+        private final List<Constructor<?>> constructors;
+
+        private Entry(Class<?> functionClass, Method applyMethod) {
+            this.functionClass = functionClass;
+            this.inputClass = applyMethod.getParameterTypes()[0];
+            this.outputClass = applyMethod.getReturnType();
+            this.threadSafe = functionClass.getAnnotation(ThreadSafeMapper.class) != null;
+            this.constructors = List.of(functionClass.getDeclaredConstructors());
+        }
+
+        public Class<?> getFunctionClass() {
+            return functionClass;
+        }
+
+        public Class<?> getInputClass() {
+            return inputClass;
+        }
+
+        public Class<?> getOutputClass() {
+            return outputClass;
+        }
+
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+
+        public List<Constructor<?>> getConstructors() {
+            return constructors;
+        }
+
+        public MethodHandle getConstructorHandle(Constructor<?> ctor) {
+            try {
+                return lookup.findConstructor(functionClass, MethodType.methodType(void.class, ctor.getParameterTypes()));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new RuntimeException("Unable to get a constructor handle for " + ctor + ": " + e, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return functionClass.getName() + "(" + inputClass.getSimpleName() + "->" + outputClass.getSimpleName() + ")";
+        }
+    }
+}
@@ -16,86 +16,55 @@
 
 package io.nosqlbench.virtdata.core.bindings;
 
-import io.nosqlbench.virtdata.api.annotations.ThreadSafeMapper;
 import io.nosqlbench.nb.api.config.standard.NBMapConfigurable;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves binding functions by name, input type, output type and constructor parameters. The
+ * functional classes for each name come from the {@link VirtDataFunctionCatalog}, and the
+ * constructors which match each distinct function call signature are remembered, so only the
+ * construction of the function objects is repeated for bindings which use the same functions.
+ */
 public class VirtDataFunctionResolver {
     private final static Logger logger  = LogManager.getLogger(VirtDataFunctionResolver.class);
-    private final static MethodHandles.Lookup lookup = MethodHandles.publicLookup();
-    private final VirtDataFunctionFinder virtDataFunctionFinder = new VirtDataFunctionFinder();
+    private final static long REPORT_INTERVAL = 1000L;
 
-    public List<ResolvedFunction> resolveFunctions(Class<?> returnType, Class<?> inputType, String functionName, Map<String,?> customParameters, Object... parameters) {
+    private final Map<CallSignature, List<MatchedConstructor>> matches = new ConcurrentHashMap<>();
+    private final LongAdder resolved = new LongAdder();
+    private final LongAdder memoized = new LongAdder();
+    private final LongAdder resolvingNanos = new LongAdder();
+    private VirtDataFunctionCatalog catalog;
 
-        // TODO: Make this look for both assignment compatible matches as well as exact assignment matches, and only
-        // TODO: return assignment compatible matches when there are none exact matching.
-        // TODO: Further, make lambda construction honor exact matches first as well.
+    public VirtDataFunctionResolver() {
+    }
+
+    VirtDataFunctionResolver(VirtDataFunctionCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public List<ResolvedFunction> resolveFunctions(Class<?> returnType, Class<?> inputType, String functionName, Map<String,?> customParameters, Object... parameters) {
+        long start = System.nanoTime();
 
         Class<?>[] parameterTypes = new Class<?>[parameters.length];
         for (int i = 0; i < parameters.length; i++) {
             parameterTypes[i] = parameters[i].getClass();
         }
 
-        List<ResolvedFunction> resolvedFunctions = new ArrayList<>();
-
-        List<Class<?>> matchingClasses = virtDataFunctionFinder.getFunctionNames()
-                .stream()
-                .filter(s -> s.endsWith("." + functionName))
-                .map(this::maybeClassForName)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        List<Constructor<?>> matchingConstructors = null;
-        matchingConstructors = matchingClasses.stream()
-                .filter(c -> {
-                    // This form for debugging
-                    boolean isFunctional = isFunctionalInterface(c);
-                    boolean canAssignInput = inputType == null || canAssignInputType(c, inputType);
-                    boolean canAssignReturn = returnType == null || canAssignReturnType(c, returnType);
-                    boolean matchesSignature = isFunctional && canAssignInput && canAssignReturn;
-                    return matchesSignature;
-                })
-                .flatMap(c -> Arrays.stream(c.getDeclaredConstructors()))
-                .filter(c -> {
-                    Class<?>[] ctypes = c.getParameterTypes();
-                    if (c.isVarArgs()) {
-                        int commonLen=Math.min(ctypes.length-1,parameters.length);
-                        Class<?>[] paramNonVarArgs = Arrays.copyOfRange(parameterTypes, 0, commonLen);
-                        Class<?>[] ctorNonVarArgs = Arrays.copyOfRange(ctypes, 0, commonLen);
-                        if (parameters.length< (ctypes).length-1) {
-                            return false;
-                        }
-                        if (!ClassUtils.isAssignable(paramNonVarArgs, ctorNonVarArgs, true)) {
-                            return false;
-                        }
-                        Class<?> componentType = ctypes[ctypes.length - 1].getComponentType();
-                        return parameterTypes.length < ctypes.length || ClassUtils.isAssignable(parameterTypes[ctypes.length - 1], componentType, true);
-                    } else {
-                        if (parameterTypes.length!=ctypes.length) {
-                            return false;
-                        }
-                        return ClassUtils.isAssignable(parameterTypes, ctypes, true);
-                    }
-                })
-//                .map(c -> {
-//                    try {
-//                        return lookup.findConstructor(c, MethodType.methodType(void.class, parameterTypes));
-//                    } catch (NoSuchMethodException | IllegalAccessException e) {
-//                        throw new RuntimeException(e);
-//                    }
-//                })
-                .collect(Collectors.toList());
+        CallSignature signature = new CallSignature(functionName, inputType, returnType, List.of(parameterTypes));
+        List<MatchedConstructor> matchingConstructors = matches.get(signature);
+        if (matchingConstructors == null) {
+            matchingConstructors = matches.computeIfAbsent(signature, s -> findConstructors(s, parameterTypes));
+        } else {
+            memoized.increment();
+        }
 
         if (returnType != null && inputType != null && matchingConstructors.size() > 1) {
             throw new RuntimeException(
@@ -108,47 +77,99 @@ public class VirtDataFunctionResolver {
 
         }
 
-        for (Constructor<?> ctor : matchingConstructors) {
+        List<ResolvedFunction> resolvedFunctions = new ArrayList<>(matchingConstructors.size());
+        for (MatchedConstructor matched : matchingConstructors) {
             try {
-                Class<?> ctorDClass = ctor.getDeclaringClass();
-                MethodType ctorMethodType = MethodType.methodType(void.class, ctor.getParameterTypes());
-                MethodHandle constructor = lookup.findConstructor(ctorDClass, ctorMethodType);
-                Object functionalInstance = constructor.invokeWithArguments(parameters);
+                Object functionalInstance = matched.handle().invokeWithArguments(parameters);
                 if (functionalInstance instanceof NBMapConfigurable) {
                     ((NBMapConfigurable)functionalInstance).applyConfig(customParameters);
                 }
-                boolean threadSafe = functionalInstance.getClass().getAnnotation(ThreadSafeMapper.class) != null;
+                VirtDataFunctionCatalog.Entry entry = matched.entry();
                 resolvedFunctions.add(
                         new ResolvedFunction(
                                 functionalInstance,
-                                threadSafe,
+                                entry.isThreadSafe(),
                                 parameterTypes,
                                 parameters,
-                                getInputClass(functionalInstance.getClass()),
-                                getOutputClass(functionalInstance.getClass())
+                                entry.getInputClass(),
+                                entry.getOutputClass()
                         )
                 );
             } catch (Throwable throwable) {
                 throw new RuntimeException(throwable);
             }
         }
+        report(System.nanoTime() - start);
         return resolvedFunctions;
     }
 
-    private boolean isFunctionalInterface(Class<?> c) {
-        Optional<Method> applyMethods = Arrays.stream(c.getMethods())
-                .filter(m -> {
-                    boolean isNotDefault = !m.isDefault();
-                    boolean isNotBridge = !m.isBridge();
-                    boolean isNotSynthetic = !m.isSynthetic();
-                    boolean isPublic = (m.getModifiers() & Modifier.PUBLIC) > 0;
-                    boolean isNotString = !m.getName().equals("toString");
-                    boolean isApplyMethod = m.getName().startsWith("apply");
-                    boolean isFunctional = isNotDefault && isNotBridge && isNotSynthetic && isPublic && isNotString && isApplyMethod;
-                    return isFunctional;
-                })
-                .findFirst();
-        return applyMethods.isPresent();
+    private List<MatchedConstructor> findConstructors(CallSignature signature, Class<?>[] parameterTypes) {
+
+        // TODO: Make this look for both assignment compatible matches as well as exact assignment matches, and only
+        // TODO: return assignment compatible matches when there are none exact matching.
+        // TODO: Further, make lambda construction honor exact matches first as well.
+
+        Class<?> inputType = signature.inputType();
+        Class<?> returnType = signature.returnType();
+        List<MatchedConstructor> matchingConstructors = new ArrayList<>();
+        for (VirtDataFunctionCatalog.Entry entry : getCatalog().getEntries(signature.functionName())) {
+            boolean canAssignInput = inputType == null || entry.getInputClass().isAssignableFrom(inputType);
+            boolean canAssignReturn = returnType == null || returnType.isAssignableFrom(entry.getOutputClass());
+            if (!canAssignInput || !canAssignReturn) {
+                continue;
+            }
+            for (Constructor<?> ctor : entry.getConstructors()) {
+                if (canAssignParameterTypes(ctor, parameterTypes)) {
+                    matchingConstructors.add(new MatchedConstructor(entry, ctor, entry.getConstructorHandle(ctor)));
+                }
+            }
+        }
+        return List.copyOf(matchingConstructors);
+    }
+
+    private boolean canAssignParameterTypes(Constructor<?> c, Class<?>[] parameterTypes) {
+        Class<?>[] ctypes = c.getParameterTypes();
+        if (c.isVarArgs()) {
+            int commonLen=Math.min(ctypes.length-1,parameterTypes.length);
+            Class<?>[] paramNonVarArgs = Arrays.copyOfRange(parameterTypes, 0, commonLen);
+            Class<?>[] ctorNonVarArgs = Arrays.copyOfRange(ctypes, 0, commonLen);
+            if (parameterTypes.length< (ctypes).length-1) {
+                return false;
+            }
+            if (!ClassUtils.isAssignable(paramNonVarArgs, ctorNonVarArgs, true)) {
+                return false;
+            }
+            Class<?> componentType = ctypes[ctypes.length - 1].getComponentType();
+            return parameterTypes.length < ctypes.length || ClassUtils.isAssignable(parameterTypes[ctypes.length - 1], componentType, true);
+        } else {
+            if (parameterTypes.length!=ctypes.length) {
+                return false;
+            }
+            return ClassUtils.isAssignable(parameterTypes, ctypes, true);
+        }
+    }
+
+    private void report(long nanos) {
+        resolved.increment();
+        resolvingNanos.add(nanos);
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        long count = resolved.sum();
+        if (count % REPORT_INTERVAL == 0) {
+            logger.debug("Resolved " + count + " binding function calls in " + (resolvingNanos.sum() / 1_000_000L) + "ms, "
+                + memoized.sum() + " of them with memoized constructors, for " + matches.size() + " distinct call signatures");
+        }
+    }
+
+    private record CallSignature(String functionName, Class<?> inputType, Class<?> returnType, List<Class<?>> parameterTypes) {
+    }
+
+    private record MatchedConstructor(VirtDataFunctionCatalog.Entry entry, Constructor<?> constructor, MethodHandle handle) {
+        @Override
+        public String toString() {
+            return constructor.toString();
+        }
     }
 
     private boolean canAssignArguments(Constructor<?> targetCtor, Object[] sourceParameters) {
@@ -198,49 +219,15 @@ public class VirtDataFunctionResolver {
         return isAssignable;
     }
 
-    private boolean canAssignReturnType(Class<?> functionalClass, Class<?> returnType) {
-        Class<?> sourceType = toFunctionalMethod(functionalClass).getReturnType();
-        boolean isAssignable = returnType.isAssignableFrom(sourceType);
-        return isAssignable;
-    }
-
-    private Class<?> getInputClass(Class<?> functionalClass) {
-        return toFunctionalMethod(functionalClass).getParameterTypes()[0];
-    }
-
-    private Class<?> getOutputClass(Class<?> functionClass) {
-        return toFunctionalMethod(functionClass).getReturnType();
-    }
-
-    private boolean canAssignInputType(Class<?> functionalClass, Class<?> inputType) {
-        boolean isAssignable = toFunctionalMethod(functionalClass).getParameterTypes()[0].isAssignableFrom(inputType);
-        return isAssignable;
+    public List<String> getFunctionNames() {
+        return getCatalog().getFunctionNames();
     }
 
-    private Class<?> maybeClassForName(String className) {
-        try {
-            return Class.forName(className);
-        } catch (Exception e) {
-            return null;
+    private VirtDataFunctionCatalog getCatalog() {
+        if (catalog == null) {
+            catalog = VirtDataFunctionCatalog.get();
         }
-    }
-
-    private Method toFunctionalMethod(Class<?> clazz) {
-
-        Optional<Method> foundMethod = Arrays.stream(clazz.getMethods())
-                .filter(m -> !m.isDefault() && !m.isBridge() && !m.isSynthetic())
-                .filter(m -> m.getName().startsWith("apply"))
-                .findFirst();
-
-        return foundMethod.orElseThrow(
-                () -> new RuntimeException(
-                        "Unable to find the function method on " + clazz.getCanonicalName()
-                )
-        );
-    }
-
-    public List<String> getFunctionNames() {
-        return virtDataFunctionFinder.getFunctionNames();
+        return catalog;
     }
 
 
@@ -40,7 +40,8 @@ public class ComposerForIntToLongFunction implements FunctionComposer<IntToLongF
 
             case long_long:
                 final IntToLongFunction f1 =
-                        ((LongUnaryOperator) outer)::applyAsLong;
+                        (int i) ->
+                                ((LongUnaryOperator) outer).applyAsLong(inner.applyAsLong(i));
                 return new ComposerForIntToLongFunction(f1);
             case long_T:
                 final IntFunction<?> f2 =
@@ -20,19 +20,47 @@ import io.nosqlbench.virtdata.core.bindings.FunctionType;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.*;
 
+/**
+ * Composes a chain of functions, one at a time. Each function is composed with a lambda
+ * as it is added, and once the chain is complete, it is fused into a single function
+ * object by {@link FusedFunctions} where possible. Fusing can be disabled by setting
+ * the system property {@value #FUSE_PROPERTY} to false.
+ *
+ * As before, {@link #andThen(Object)} returns the composer of the lambdas. Only the
+ * function object of the assembly itself is fused.
+ */
 public class FunctionAssembly implements FunctionComposer {
     private final static Logger logger  = LogManager.getLogger(FunctionAssembly.class);
+    public final static String FUSE_PROPERTY = "virtdata.fuse";
+
     private FunctionComposer<?> composer = null;
+    private final List<Object> functions = new ArrayList<>();
+    private final boolean fuse;
+    private Object functionObject;
+
+    public FunctionAssembly() {
+        this(Boolean.parseBoolean(System.getProperty(FUSE_PROPERTY, "true")));
+    }
+
+    public FunctionAssembly(boolean fuse) {
+        this.fuse = fuse;
+    }
 
     @Override
     public Object getFunctionObject() {
-        if (composer != null) {
-            return composer.getFunctionObject();
-        } else {
+        if (composer == null) {
             throw new RuntimeException("No function have been passed for assembly.");
         }
+        if (functionObject == null) {
+            Optional<Object> fused = (fuse && functions.size() > 1) ? FusedFunctions.fuse(functions) : Optional.empty();
+            functionObject = fused.orElseGet(composer::getFunctionObject);
+        }
+        return functionObject;
     }
 
     @Override
@@ -43,6 +71,8 @@ public class FunctionAssembly implements FunctionComposer {
             } else {
                 composer = andThenInitial(outer);
             }
+            functions.add(outer);
+            functionObject = null;
             return composer;
         } catch (Exception e) {
             logger.error("Error while composing functions:\n");
@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.core.composers;
+
+import io.nosqlbench.virtdata.core.bindings.FunctionType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.*;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Composes a chain of functions into a single function object, by combining the method
+ * handles of the functions into one, and calling it from a hidden class which holds it in a
+ * constant, instead of nesting a lambda for each function in the chain.</p>
+ *
+ * <p>The lambdas which the composers create are shared by every chain with the same types, so
+ * their calls to the inner and outer functions see many different function classes, and the JIT
+ * can not inline them. A fused function has its own hidden class, with the functions bound into
+ * its method handle, so the JIT sees each function as a constant and can inline the whole
+ * chain.</p>
+ *
+ * <p>The hidden classes are defined from the templates below, which are compiled as usual. Each
+ * template reads its method handle and its name from the class data of its hidden class.</p>
+ *
+ * <p>The values between functions are converted in the same way as in the composers. Chains which
+ * pass an object into a function with a primitive input, or which start with an object input, are
+ * not fused, since the composers convert these according to the type of value which is seen at
+ * runtime. For these, {@link #fuse(List)} returns an empty optional, and the composed lambda should
+ * be used instead.</p>
+ */
+public class FusedFunctions {
+
+    private final static Logger logger = LogManager.getLogger(FusedFunctions.class);
+    private final static MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    private final static Map<FunctionType, Optional<byte[]>> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Compose a chain of functions into a single function object.
+     *
+     * @param functions The functions of the chain, from the first to the last
+     * @return The composed function, or an empty optional if the chain can not be fused
+     */
+    public static Optional<Object> fuse(List<Object> functions) {
+        FunctionType[] types = functions.stream().map(FunctionType::valueOf).toArray(FunctionType[]::new);
+        Optional<FunctionType> fusedType = fusedTypeOf(types);
+        if (fusedType.isEmpty()) {
+            logger.debug(() -> "Unable to fuse " + Arrays.toString(types) + ", so it will be composed with lambdas.");
+            return Optional.empty();
+        }
+        Optional<byte[]> template = templates.computeIfAbsent(fusedType.get(), FusedFunctions::readTemplate);
+        if (template.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            String description = functions.stream().map(f -> f.getClass().getSimpleName())
+                .collect(Collectors.joining(",", "fused:[", "]"));
+            MethodHandle handle = chain(functions, types, fusedType.get());
+            MethodHandles.Lookup fusedLookup = lookup.defineHiddenClassWithClassData(
+                template.get(), List.of(handle, description), true
+            );
+            MethodHandle constructor = fusedLookup.findConstructor(
+                fusedLookup.lookupClass(), MethodType.methodType(void.class)
+            );
+            return Optional.of(constructor.invoke());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("Unable to define fused function for " + Arrays.toString(types) +
+                ", so it will be composed with lambdas: " + e);
+            return Optional.empty();
+        } catch (Throwable t) {
+            throw new RuntimeException("Unable to create fused function for " + functions + ": " + t, t);
+        }
+    }
+
+    /**
+     * Determine the function type of a fused chain, which has the input type of the first function and
+     * the output type of the last function, as the composers do.
+     */
+    private static Optional<FunctionType> fusedTypeOf(FunctionType[] types) {
+        Class<?> input = types[0].getInputClass();
+        if (input == Object.class) {
+            return Optional.empty();
+        }
+        for (int i = 1; i < types.length; i++) {
+            Class<?> produced = types[i - 1].getReturnClass();
+            Class<?> consumed = types[i].getInputClass();
+            if (produced == Object.class && (consumed != Object.class || input != long.class)) {
+                return Optional.empty();
+            }
+        }
+        Class<?> output = types[types.length - 1].getReturnClass();
+        for (FunctionType type : FunctionType.values()) {
+            if (type.getInputClass() == input && type.getReturnClass() == output) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Combine the functions into one method handle, which calls each function in turn with the
+     * result of the one before it, from the first to the last.
+     */
+    private static MethodHandle chain(List<Object> functions, FunctionType[] types, FunctionType fusedType)
+        throws ReflectiveOperationException {
+        Class<?> input = fusedType.getInputClass();
+        MethodHandle chain = handleOf(functions.get(0), types[0]);
+        for (int i = 1; i < types.length; i++) {
+            chain = convert(chain, input, types[i]);
+            chain = MethodHandles.filterReturnValue(chain, handleOf(functions.get(i), types[i]));
+        }
+        return chain.asType(MethodType.methodType(fusedType.getReturnClass(), input));
+    }
+
+    private static MethodHandle handleOf(Object function, FunctionType type) throws ReflectiveOperationException {
+        Class<?> output = type.getReturnClass();
+        String method = output == long.class ? "applyAsLong" : output == int.class ? "applyAsInt" : output == double.class ? "applyAsDouble" : "apply";
+        return MethodHandles.publicLookup()
+            .findVirtual(type.getFunctionClass(), method, MethodType.methodType(output, type.getInputClass()))
+            .bindTo(function);
+    }
+
+    /**
+     * Convert the result of a chain from the output type of its last function to the input type of the next,
+     * with the same conversions as the composers.
+     */
+    private static MethodHandle convert(MethodHandle chain, Class<?> chainInput, FunctionType next) {
+        Class<?> from = chain.type().returnType();
+        Class<?> to = next.getInputClass();
+        if (from == to) {
+            return chain;
+        }
+        if (from == double.class && to == long.class && (chainInput == int.class || next.getReturnClass() == int.class)) {
+            // The composers convert doubles to longs through ints when the chain starts with an int,
+            // or when the next function returns an int
+            chain = MethodHandles.explicitCastArguments(chain, chain.type().changeReturnType(int.class));
+        }
+        return MethodHandles.explicitCastArguments(chain, chain.type().changeReturnType(to));
+    }
+
+    private static Optional<byte[]> readTemplate(FunctionType type) {
+        Class<?> template = templateOf(type);
+        String resource = template.getName().substring(template.getPackageName().length() + 1) + ".class";
+        try (InputStream in = template.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("resource " + resource + " not found");
+            }
+            return Optional.of(in.readAllBytes());
+        } catch (IOException e) {
+            logger.warn("Unable to read the fused function template for " + type +
+                ", so these chains will be composed with lambdas: " + e);
+            return Optional.empty();
+        }
+    }
+
+    private static Class<?> templateOf(FunctionType type) {
+        return switch (type) {
+            case long_long -> LongToLong.class;
+            case long_int -> LongToInt.class;
+            case long_double -> LongToDouble.class;
+            case long_T -> LongToObject.class;
+            case int_int -> IntToInt.class;
+            case int_long -> IntToLong.class;
+            case int_double -> IntToDouble.class;
+            case int_T -> IntToObject.class;
+            case double_double -> DoubleToDouble.class;
+            case double_int -> DoubleToInt.class;
+            case double_long -> DoubleToLong.class;
+            case double_T -> DoubleToObject.class;
+            case R_T -> throw new RuntimeException("Chains with object inputs are not fused.");
+        };
+    }
+
+    /**
+     * @return An element of the class data of a fused function class
+     */
+    static <T> T classData(MethodHandles.Lookup fusedLookup, int index, Class<T> type) {
+        try {
+            return MethodHandles.classDataAt(fusedLookup, ConstantDescs.DEFAULT_NAME, type, index);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException e) {
+            return e;
+        }
+        if (t instanceof Error e) {
+            throw e;
+        }
+        return new RuntimeException(t);
+    }
+
+    private final static class LongToLong implements LongUnaryOperator {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public long applyAsLong(long value) {
+            try {
+                return (long) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class LongToInt implements LongToIntFunction {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public int applyAsInt(long value) {
+            try {
+                return (int) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class LongToDouble implements LongToDoubleFunction {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public double applyAsDouble(long value) {
+            try {
+                return (double) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class LongToObject implements LongFunction<Object> {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public Object apply(long value) {
+            try {
+                return (Object) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class IntToInt implements IntUnaryOperator {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public int applyAsInt(int value) {
+            try {
+                return (int) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class IntToLong implements IntToLongFunction {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public long applyAsLong(int value) {
+            try {
+                return (long) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class IntToDouble implements IntToDoubleFunction {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public double applyAsDouble(int value) {
+            try {
+                return (double) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class IntToObject implements IntFunction<Object> {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public Object apply(int value) {
+            try {
+                return (Object) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class DoubleToDouble implements DoubleUnaryOperator {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public double applyAsDouble(double value) {
+            try {
+                return (double) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class DoubleToInt implements DoubleToIntFunction {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public int applyAsInt(double value) {
+            try {
+                return (int) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class DoubleToLong implements DoubleToLongFunction {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public long applyAsLong(double value) {
+            try {
+                return (long) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+
+    private final static class DoubleToObject implements DoubleFunction<Object> {
+        private final static MethodHandle HANDLE = classData(MethodHandles.lookup(), 0, MethodHandle.class);
+        private final static String NAME = classData(MethodHandles.lookup(), 1, String.class);
+
+        @Override
+        public Object apply(double value) {
+            try {
+                return (Object) HANDLE.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return NAME;
+        }
+    }
+}
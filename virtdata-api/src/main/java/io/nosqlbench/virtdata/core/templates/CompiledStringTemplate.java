@@ -0,0 +1,493 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.core.templates;
+
+import io.nosqlbench.virtdata.api.bindings.VirtDataConversions;
+import io.nosqlbench.virtdata.core.bindings.VirtData;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * <p>A string template which is compiled once into literal segments and binding segments,
+ * so that rendering a cycle does no parsing or type dispatch. Each binding function is
+ * specialized by its functional type:
+ * <UL>
+ *     <LI>{@link LongUnaryOperator} and {@link LongToIntFunction} results are written as digits
+ *     directly, without boxing or an intermediate String.</LI>
+ *     <LI>{@link LongToDoubleFunction} results are appended without boxing.</LI>
+ *     <LI>All other functions are adapted to {@link LongFunction} and rendered with
+ *     {@link String#valueOf(Object)}.</LI>
+ * </UL>
+ * </p>
+ *
+ * <p>Besides producing Strings, a compiled template can write into a caller-owned
+ * {@link StringBuilder}, {@link CharBuffer}, or {@link ByteBuffer}. The byte form writes UTF-8,
+ * with literal segments pre-encoded, so that adapters which write bytes can reuse one buffer
+ * for every cycle. Buffers which are too small cause a {@link BufferOverflowException}, and
+ * {@link #getSizeHint()} can be used to size them.</p>
+ *
+ * <p>The size of new String buffers is taken from the longest result observed so far.</p>
+ *
+ * <p>A template compiled from a {@link ParsedStringTemplate} with {@link #of(ParsedStringTemplate, Map)}
+ * resolves each distinct bind point once, and evaluates it once per rendering. Any further anchors
+ * with the same bind point are filled by copying the text of the first one. Such a template does not
+ * render null binding values, and throws a {@link NullPointerException} for them instead, as
+ * {@link StringBindings} always has. A template constructed directly from functions renders
+ * null values as {@code "null"}.</p>
+ */
+public class CompiledStringTemplate implements LongFunction<String> {
+
+    private final String[] literals;
+    private final byte[][] literalBytes;
+    private final Segment[] segments;
+    private final int[] anchors;
+    private final boolean[] repeats;
+    private final int literalLength;
+    private volatile int sizeHint;
+
+    /**
+     * Compile a template from the literal spans between anchors and one function per anchor.
+     *
+     * @param literals  The literal spans, one more than the number of functions
+     * @param functions The binding functions, in the order that they appear in the template
+     */
+    public CompiledStringTemplate(String[] literals, Object... functions) {
+        this(literals, identity(functions.length), functions, null);
+    }
+
+    /**
+     * @param literals  The literal spans, one more than the number of anchors
+     * @param anchors   For each anchor, the index of its function
+     * @param functions The distinct binding functions, in the order of their first anchor
+     * @param specs     The bind point specs of the functions, which are used to reject null
+     *                  values, or null to render null values as {@code "null"}
+     */
+    CompiledStringTemplate(String[] literals, int[] anchors, Object[] functions, String[] specs) {
+        if (literals.length != anchors.length + 1) {
+            throw new RuntimeException("A compiled template requires one more literal span than functions, but there were " +
+                literals.length + " spans and " + anchors.length + " functions.");
+        }
+        this.literals = literals;
+        this.literalBytes = new byte[literals.length][];
+        int length = 0;
+        for (int i = 0; i < literals.length; i++) {
+            literalBytes[i] = literals[i].getBytes(StandardCharsets.UTF_8);
+            length += literals[i].length();
+        }
+        this.literalLength = length;
+        this.segments = new Segment[functions.length];
+        for (int i = 0; i < functions.length; i++) {
+            segments[i] = segmentFor(functions[i], specs == null ? null : specs[i]);
+        }
+        this.anchors = anchors;
+        boolean[] repeats = new boolean[anchors.length];
+        boolean[] seen = new boolean[functions.length];
+        boolean anyRepeats = false;
+        for (int i = 0; i < anchors.length; i++) {
+            repeats[i] = seen[anchors[i]];
+            seen[anchors[i]] = true;
+            anyRepeats |= repeats[i];
+        }
+        this.repeats = anyRepeats ? repeats : null;
+        this.sizeHint = literalLength + (anchors.length * 16);
+    }
+
+    private static int[] identity(int length) {
+        int[] anchors = new int[length];
+        for (int i = 0; i < length; i++) {
+            anchors[i] = i;
+        }
+        return anchors;
+    }
+
+    /**
+     * Compile a parsed string template, resolving each distinct binding spec once. Each distinct
+     * binding spec is also evaluated only once per rendering, no matter how many anchors use it.
+     *
+     * @param template The parsed string template
+     * @param fconfig  A map of configuration objects for the binding functions
+     * @return A compiled template
+     */
+    public static CompiledStringTemplate of(ParsedStringTemplate template, Map<String, Object> fconfig) {
+        return of(template, fconfig, null);
+    }
+
+    /**
+     * As {@link #of(ParsedStringTemplate, Map)}, but with each binding value converted to text by
+     * the given function, when it is not null.
+     */
+    static CompiledStringTemplate of(ParsedStringTemplate template, Map<String, Object> fconfig, Function<Object, String> stringfunc) {
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> specs = new ArrayList<>();
+        List<Object> functions = new ArrayList<>();
+        List<BindPoint> bindpoints = template.getBindPoints();
+        int[] anchors = new int[bindpoints.size()];
+        for (int i = 0; i < anchors.length; i++) {
+            String spec = bindpoints.get(i).getBindspec();
+            anchors[i] = indices.computeIfAbsent(spec, s -> {
+                Object function = VirtData.getOptionalFunctionObject(s, fconfig)
+                    .orElseThrow(() -> new RuntimeException("Unable to resolve binding spec '" + s + "' for template '" + template.getStmt() + "'"));
+                if (stringfunc != null) {
+                    LongFunction<Object> f = VirtDataConversions.adaptFunction(function, LongFunction.class, Object.class);
+                    function = (LongFunction<String>) l -> stringfunc.apply(f.apply(l));
+                }
+                functions.add(function);
+                specs.add(s);
+                return functions.size() - 1;
+            });
+        }
+        String[] even_odd_spans = template.getSpans();
+        String[] literals = new String[anchors.length + 1];
+        for (int i = 0; i < literals.length; i++) {
+            literals[i] = even_odd_spans[i << 1];
+        }
+        return new CompiledStringTemplate(literals, anchors, functions.toArray(), specs.toArray(new String[0]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Segment segmentFor(Object function, String spec) {
+        if (function instanceof LongUnaryOperator f) {
+            return new LongSegment(f);
+        } else if (function instanceof LongToIntFunction f) {
+            return new IntSegment(f);
+        } else if (function instanceof LongToDoubleFunction f) {
+            return new DoubleSegment(f);
+        } else if (function instanceof LongFunction<?> f) {
+            return new ObjectSegment(f, spec);
+        } else {
+            return new ObjectSegment(VirtDataConversions.adaptFunction(function, LongFunction.class, Object.class), spec);
+        }
+    }
+
+    @Override
+    public String apply(long value) {
+        StringBuilder sb = appendTo(value, new StringBuilder(sizeHint));
+        if (sb.length() > sizeHint) {
+            sizeHint = sb.length();
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append the rendered template for the given input to a caller-owned builder.
+     *
+     * @param value The input value
+     * @param sb    The builder to append to
+     * @return The same builder
+     */
+    public StringBuilder appendTo(long value, StringBuilder sb) {
+        sb.append(literals[0]);
+        if (repeats == null) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i].appendTo(value, sb);
+                sb.append(literals[i + 1]);
+            }
+            return sb;
+        }
+        int[] spans = new int[segments.length << 1];
+        for (int i = 0; i < anchors.length; i++) {
+            int at = anchors[i] << 1;
+            if (repeats[i]) {
+                sb.append(sb, spans[at], spans[at + 1]);
+            } else {
+                spans[at] = sb.length();
+                segments[anchors[i]].appendTo(value, sb);
+                spans[at + 1] = sb.length();
+            }
+            sb.append(literals[i + 1]);
+        }
+        return sb;
+    }
+
+    /**
+     * Write the rendered template for the given input at the position of the buffer.
+     *
+     * @param value The input value
+     * @param buf   The buffer to write into
+     * @return The same buffer
+     * @throws BufferOverflowException if the buffer does not have enough space remaining
+     */
+    public CharBuffer writeTo(long value, CharBuffer buf) {
+        buf.put(literals[0]);
+        if (repeats == null) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i].writeTo(value, buf);
+                buf.put(literals[i + 1]);
+            }
+            return buf;
+        }
+        int[] spans = new int[segments.length << 1];
+        for (int i = 0; i < anchors.length; i++) {
+            int at = anchors[i] << 1;
+            if (repeats[i]) {
+                for (int p = spans[at]; p < spans[at + 1]; p++) {
+                    buf.put(buf.get(p));
+                }
+            } else {
+                spans[at] = buf.position();
+                segments[anchors[i]].writeTo(value, buf);
+                spans[at + 1] = buf.position();
+            }
+            buf.put(literals[i + 1]);
+        }
+        return buf;
+    }
+
+    /**
+     * Write the rendered template for the given input at the position of the buffer, encoded as UTF-8.
+     *
+     * @param value The input value
+     * @param buf   The buffer to write into
+     * @return The same buffer
+     * @throws BufferOverflowException if the buffer does not have enough space remaining
+     */
+    public ByteBuffer writeTo(long value, ByteBuffer buf) {
+        buf.put(literalBytes[0]);
+        if (repeats == null) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i].writeTo(value, buf);
+                buf.put(literalBytes[i + 1]);
+            }
+            return buf;
+        }
+        int[] spans = new int[segments.length << 1];
+        for (int i = 0; i < anchors.length; i++) {
+            int at = anchors[i] << 1;
+            if (repeats[i]) {
+                for (int p = spans[at]; p < spans[at + 1]; p++) {
+                    buf.put(buf.get(p));
+                }
+            } else {
+                spans[at] = buf.position();
+                segments[anchors[i]].writeTo(value, buf);
+                spans[at + 1] = buf.position();
+            }
+            buf.put(literalBytes[i + 1]);
+        }
+        return buf;
+    }
+
+    /**
+     * @return The length of the longest String rendered so far, or an estimate if none
+     * were longer than the estimate.
+     */
+    public int getSizeHint() {
+        return sizeHint;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CompiledStringTemplate{");
+        sb.append("'").append(literals[0]).append("'");
+        for (int i = 0; i < anchors.length; i++) {
+            sb.append(",").append(segments[anchors[i]].getClass().getSimpleName());
+            sb.append(",'").append(literals[i + 1]).append("'");
+        }
+        return sb.append("}").toString();
+    }
+
+    private static abstract class Segment {
+        abstract void appendTo(long value, StringBuilder sb);
+
+        abstract void writeTo(long value, CharBuffer buf);
+
+        abstract void writeTo(long value, ByteBuffer buf);
+    }
+
+    private final static class LongSegment extends Segment {
+        private final LongUnaryOperator f;
+
+        private LongSegment(LongUnaryOperator f) {
+            this.f = f;
+        }
+
+        @Override
+        void appendTo(long value, StringBuilder sb) {
+            sb.append(f.applyAsLong(value));
+        }
+
+        @Override
+        void writeTo(long value, CharBuffer buf) {
+            putDigits(buf, f.applyAsLong(value));
+        }
+
+        @Override
+        void writeTo(long value, ByteBuffer buf) {
+            putDigits(buf, f.applyAsLong(value));
+        }
+    }
+
+    private final static class IntSegment extends Segment {
+        private final LongToIntFunction f;
+
+        private IntSegment(LongToIntFunction f) {
+            this.f = f;
+        }
+
+        @Override
+        void appendTo(long value, StringBuilder sb) {
+            sb.append(f.applyAsInt(value));
+        }
+
+        @Override
+        void writeTo(long value, CharBuffer buf) {
+            putDigits(buf, f.applyAsInt(value));
+        }
+
+        @Override
+        void writeTo(long value, ByteBuffer buf) {
+            putDigits(buf, f.applyAsInt(value));
+        }
+    }
+
+    private final static class DoubleSegment extends Segment {
+        private final LongToDoubleFunction f;
+
+        private DoubleSegment(LongToDoubleFunction f) {
+            this.f = f;
+        }
+
+        @Override
+        void appendTo(long value, StringBuilder sb) {
+            sb.append(f.applyAsDouble(value));
+        }
+
+        @Override
+        void writeTo(long value, CharBuffer buf) {
+            buf.put(Double.toString(f.applyAsDouble(value)));
+        }
+
+        @Override
+        void writeTo(long value, ByteBuffer buf) {
+            putString(buf, Double.toString(f.applyAsDouble(value)));
+        }
+    }
+
+    private final static class ObjectSegment extends Segment {
+        private final LongFunction<?> f;
+        private final String spec;
+
+        private ObjectSegment(LongFunction<?> f, String spec) {
+            this.f = f;
+            this.spec = spec;
+        }
+
+        private Object valueFor(long value) {
+            Object result = f.apply(value);
+            if (result == null && spec != null) {
+                throw new NullPointerException("Binding '" + spec + "' produced a null value for input " + value);
+            }
+            return result;
+        }
+
+        @Override
+        void appendTo(long value, StringBuilder sb) {
+            sb.append(valueFor(value));
+        }
+
+        @Override
+        void writeTo(long value, CharBuffer buf) {
+            buf.put(String.valueOf(valueFor(value)));
+        }
+
+        @Override
+        void writeTo(long value, ByteBuffer buf) {
+            putString(buf, String.valueOf(valueFor(value)));
+        }
+    }
+
+    static int digitCount(long positive) {
+        long bound = 10L;
+        for (int digits = 1; digits < 19; digits++) {
+            if (positive < bound) {
+                return digits;
+            }
+            bound *= 10L;
+        }
+        return 19;
+    }
+
+    static void putDigits(ByteBuffer buf, long value) {
+        if (value == Long.MIN_VALUE) {
+            putString(buf, Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buf.put((byte) '-');
+            value = -value;
+        }
+        int digits = digitCount(value);
+        if (buf.remaining() < digits) {
+            throw new BufferOverflowException();
+        }
+        int start = buf.position();
+        for (int i = start + digits - 1; i >= start; i--) {
+            buf.put(i, (byte) ('0' + (value % 10)));
+            value /= 10;
+        }
+        buf.position(start + digits);
+    }
+
+    static void putDigits(CharBuffer buf, long value) {
+        if (value == Long.MIN_VALUE) {
+            buf.put(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buf.put('-');
+            value = -value;
+        }
+        int digits = digitCount(value);
+        if (buf.remaining() < digits) {
+            throw new BufferOverflowException();
+        }
+        int start = buf.position();
+        for (int i = start + digits - 1; i >= start; i--) {
+            buf.put(i, (char) ('0' + (value % 10)));
+            value /= 10;
+        }
+        buf.position(start + digits);
+    }
+
+    /**
+     * Write a string as UTF-8, without encoding through an intermediate array
+     * as long as the characters are ASCII.
+     */
+    static void putString(ByteBuffer buf, String s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                buf.put(s.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buf.put((byte) c);
+        }
+    }
+}
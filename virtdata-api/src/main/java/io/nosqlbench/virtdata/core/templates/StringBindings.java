@@ -26,7 +26,7 @@ import java.util.Map;
  */
 public class StringBindings implements Binder<String> {
 
-    private final StringCompositor compositor;
+    private final CompiledStringTemplate compositor;
 
     public StringBindings(String template) {
         this(template,Map.of(),Map.of());
@@ -38,7 +38,7 @@ public class StringBindings implements Binder<String> {
 
     public StringBindings(String template, Map<String,String> bindings, Map<String,Object> fconfig) {
         ParsedStringTemplate parsed = new ParsedStringTemplate(template,bindings);
-        this.compositor = new StringCompositor(parsed, fconfig);
+        this.compositor = CompiledStringTemplate.of(parsed, fconfig);
     }
 
     public StringBindings(ParsedStringTemplate parsedStringTemplate) {
@@ -46,7 +46,7 @@ public class StringBindings implements Binder<String> {
     }
 
     public StringBindings(ParsedStringTemplate pt, Map<String,Object> fconfig) {
-        this.compositor = new StringCompositor(pt,fconfig);
+        this.compositor = CompiledStringTemplate.of(pt,fconfig);
     }
 
     public StringBindings(String stringTemplate, BindingsTemplate bindingsTemplate) {
@@ -64,6 +64,14 @@ public class StringBindings implements Binder<String> {
         return compositor.apply(value);
     }
 
+    /**
+     * @return The compiled template, which can also write directly into reusable
+     * character or byte buffers.
+     */
+    public CompiledStringTemplate getCompiledTemplate() {
+        return compositor;
+    }
+
     @Override
     public String toString() {
         return "StringBindings{" +
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.core.bindings;
+
+import io.nosqlbench.virtdata.lang.ast.VirtDataFlow;
+import io.nosqlbench.virtdata.lang.parser.VirtDataDSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BindingInstanceRegistryTest {
+
+    private final AtomicInteger resolved = new AtomicInteger();
+    private final BindingInstanceRegistry registry = new BindingInstanceRegistry();
+
+    @AfterEach
+    public void clearCurrent() {
+        BindingInstanceRegistry.setCurrent(null);
+    }
+
+    @Test
+    public void testThreadSafeFunctionsAreSharedByRecipe() {
+        BindingInstanceRegistry.setCurrent(registry);
+        Object first = BindingInstanceRegistry.getOrResolve(flow("Add(1); Mod(5)"), resolver(true)).orElseThrow();
+        Object second = BindingInstanceRegistry.getOrResolve(flow("Add( 1 );Mod(5)"), resolver(true)).orElseThrow();
+        assertThat(second).isSameAs(first);
+        assertThat(resolved.get()).isEqualTo(1);
+        assertThat(registry.size()).isEqualTo(1);
+
+        registry.clear();
+        assertThat(registry.size()).isZero();
+        Object afterClear = BindingInstanceRegistry.getOrResolve(flow("Add(1); Mod(5)"), resolver(true)).orElseThrow();
+        assertThat(afterClear).isNotSameAs(first);
+        assertThat(BindingInstanceRegistry.getOrResolve(flow("Add(1); Mod(5)"), resolver(true)).orElseThrow())
+            .isNotSameAs(afterClear);
+        assertThat(registry.size()).isZero();
+    }
+
+    @Test
+    public void testRegistriesAreSeparate() {
+        BindingInstanceRegistry other = new BindingInstanceRegistry();
+        Object first = registry.sharedOrResolved(flow("Add(1)"), resolver(true)).orElseThrow();
+        Object second = other.sharedOrResolved(flow("Add(1)"), resolver(true)).orElseThrow();
+        assertThat(second).isNotSameAs(first);
+
+        other.clear();
+        assertThat(registry.sharedOrResolved(flow("Add(1)"), resolver(true)).orElseThrow()).isSameAs(first);
+    }
+
+    @Test
+    public void testNothingIsSharedWithoutCurrentRegistry() {
+        Object first = BindingInstanceRegistry.getOrResolve(flow("Add(1)"), resolver(true)).orElseThrow();
+        Object second = BindingInstanceRegistry.getOrResolve(flow("Add(1)"), resolver(true)).orElseThrow();
+        assertThat(second).isNotSameAs(first);
+        assertThat(BindingInstanceRegistry.getCurrent()).isEmpty();
+    }
+
+    @Test
+    public void testStartedThreadsInheritCurrentRegistry() throws Exception {
+        BindingInstanceRegistry.setCurrent(registry);
+        Object first = BindingInstanceRegistry.getOrResolve(flow("Add(1)"), resolver(true)).orElseThrow();
+        AtomicReference<Object> fromThread = new AtomicReference<>();
+        Thread thread = new Thread(() -> fromThread.set(
+            BindingInstanceRegistry.getOrResolve(flow("Add(1)"), resolver(true)).orElseThrow()));
+        thread.start();
+        thread.join();
+        assertThat(fromThread.get()).isSameAs(first);
+    }
+
+    @Test
+    public void testArgumentsAreDistinguished() {
+        Object intArg = registry.sharedOrResolved(flow("Add(5)"), resolver(true)).orElseThrow();
+        Object longArg = registry.sharedOrResolved(flow("Add(5L)"), resolver(true)).orElseThrow();
+        Object stringArgs = registry.sharedOrResolved(flow("Join('a','b')"), resolver(true)).orElseThrow();
+        Object stringArg = registry.sharedOrResolved(flow("Join('a\\',\\'b')"), resolver(true)).orElseThrow();
+        assertThat(longArg).isNotSameAs(intArg);
+        assertThat(stringArg).isNotSameAs(stringArgs);
+        assertThat(resolved.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testFunctionsWhichAreNotThreadSafeAreNotShared() {
+        Object first = registry.sharedOrResolved(flow("Counter()"), resolver(false)).orElseThrow();
+        Object second = registry.sharedOrResolved(flow("Counter()"), resolver(false)).orElseThrow();
+        assertThat(second).isNotSameAs(first);
+        assertThat(registry.size()).isZero();
+    }
+
+    private static VirtDataFlow flow(String recipe) {
+        return VirtDataDSL.parse(recipe).flow;
+    }
+
+    private Function<VirtDataFlow, Optional<ResolvedFunction>> resolver(boolean threadSafe) {
+        return flow -> {
+            int id = resolved.incrementAndGet();
+            LongUnaryOperator function = l -> l + id;
+            return Optional.of(new ResolvedFunction(function, threadSafe, new Class<?>[0], new Object[0], long.class, long.class));
+        };
+    }
+}
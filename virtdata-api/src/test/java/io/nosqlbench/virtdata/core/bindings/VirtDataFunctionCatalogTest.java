@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.core.bindings;
+
+import io.nosqlbench.virtdata.core.templates.TestValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VirtDataFunctionCatalogTest {
+
+    private final VirtDataFunctionCatalog catalog = new VirtDataFunctionCatalog(List.of(
+        "io.nosqlbench.virtdata.core.templates.TestIdentity",
+        "io.nosqlbench.virtdata.core.templates.TestValue",
+        "io.nosqlbench.virtdata.missing.TestValue",
+        "java.lang.String"
+    ));
+
+    @Test
+    public void testEntriesAreIndexedBySimpleName() {
+        List<VirtDataFunctionCatalog.Entry> entries = catalog.getEntries("TestValue");
+        assertThat(entries).hasSize(1);
+        VirtDataFunctionCatalog.Entry entry = entries.get(0);
+        assertThat(entry.getFunctionClass()).isEqualTo(TestValue.class);
+        assertThat(entry.getInputClass()).isEqualTo(long.class);
+        assertThat(entry.getOutputClass()).isEqualTo(Object.class);
+        assertThat(entry.isThreadSafe()).isTrue();
+        assertThat(entry.getConstructors()).hasSize(1);
+        assertThat(catalog.getEntries("TestValue")).isSameAs(entries);
+    }
+
+    @Test
+    public void testQualifiedNamesMatchTheEndOfTheClassName() {
+        assertThat(catalog.getEntries("templates.TestValue")).extracting(VirtDataFunctionCatalog.Entry::getFunctionClass)
+            .containsExactly(TestValue.class);
+        assertThat(catalog.getEntries("plates.TestValue")).isEmpty();
+    }
+
+    @Test
+    public void testClassesWithoutApplyMethodsAreNotFunctions() {
+        assertThat(catalog.getEntries("String")).isEmpty();
+        assertThat(catalog.getEntries("Nothing")).isEmpty();
+    }
+
+    @Test
+    public void testResolverRemembersMatchingConstructors() {
+        VirtDataFunctionResolver resolver = new VirtDataFunctionResolver(catalog);
+        List<ResolvedFunction> first = resolver.resolveFunctions(Object.class, long.class, "TestValue", Map.of(), "one");
+        List<ResolvedFunction> second = resolver.resolveFunctions(Object.class, long.class, "TestValue", Map.of(), "two");
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(1);
+        assertThat(first.get(0).getFunctionObject()).isNotSameAs(second.get(0).getFunctionObject());
+        assertThat(((LongFunction<?>) second.get(0).getFunctionObject()).apply(1L)).isEqualTo("two");
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.core.composers;
+
+import io.nosqlbench.virtdata.core.bindings.FunctionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class FusedFunctionsTest {
+
+    private final static long[] INPUTS = {0L, 1L, 7L, 12345L, 3_000_000_000L, -42L};
+
+    private final static Object[] FUNCTIONS = {
+        (LongUnaryOperator) l -> l * 31 + 7,
+        (LongToIntFunction) l -> (int) (l * 13),
+        (LongToDoubleFunction) l -> l * 1.5d + 0.25d,
+        (LongFunction<Object>) l -> "L" + l,
+        (IntUnaryOperator) i -> i * 7 + 1,
+        (IntToLongFunction) i -> i * 3_000_000_000L,
+        (IntToDoubleFunction) i -> i / 3.0d,
+        (IntFunction<Object>) i -> "I" + i,
+        (DoubleUnaryOperator) d -> d * 2.5d,
+        (DoubleToIntFunction) d -> (int) (d * 3),
+        (DoubleToLongFunction) d -> (long) (d * 1e10d),
+        (DoubleFunction<Object>) d -> "D" + d,
+        (Function<Object, Object>) o -> o + "!"
+    };
+
+    @Test
+    public void testFusedChainsMatchComposedChains() {
+        int fusedChains = 0;
+        for (Object f1 : FUNCTIONS) {
+            for (Object f2 : FUNCTIONS) {
+                for (Object f3 : FUNCTIONS) {
+                    List<Object> chain = List.of(f1, f2, f3);
+                    Object composed;
+                    try {
+                        composed = assemble(chain, false);
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    Object fused = assemble(chain, true);
+                    if (!fused.toString().startsWith("fused:")) {
+                        continue;
+                    }
+                    fusedChains++;
+                    assertThat(FunctionType.valueOf(fused)).isEqualTo(FunctionType.valueOf(composed));
+                    for (long input : INPUTS) {
+                        assertThat(apply(fused, input)).as("fused " + chain.stream().map(FunctionType::valueOf).toList() + " of " + input)
+                            .isEqualTo(apply(composed, input));
+                    }
+                }
+            }
+        }
+        assertThat(fusedChains).isGreaterThan(1000);
+    }
+
+    @Test
+    public void testChainsWithObjectsIntoPrimitivesAreNotFused() {
+        Object fused = assemble(List.of((LongFunction<Object>) l -> l, (LongUnaryOperator) l -> l + 1), true);
+        assertThat(fused.toString()).doesNotStartWith("fused:");
+        assertThat(((LongUnaryOperator) fused).applyAsLong(2L)).isEqualTo(3L);
+    }
+
+    @Test
+    public void testFusedFunctionsCallTheirOwnFunctions() {
+        Object first = FusedFunctions.fuse(List.of(new AddOne(), new AddOne())).orElseThrow();
+        Object second = FusedFunctions.fuse(List.of(new AddOne(), new AddOne(), new AddOne())).orElseThrow();
+        assertThat(first.getClass()).isNotSameAs(second.getClass());
+        assertThat(first.getClass().isHidden()).isTrue();
+        assertThat(((LongUnaryOperator) first).applyAsLong(1L)).isEqualTo(3L);
+        assertThat(((LongUnaryOperator) second).applyAsLong(1L)).isEqualTo(4L);
+        assertThat(first.toString()).isEqualTo("fused:[AddOne,AddOne]");
+    }
+
+    @Test
+    public void testErrorsFromFunctionsAreNotWrapped() {
+        Object fused = FusedFunctions.fuse(List.of(new AddOne(), (LongUnaryOperator) l -> {
+            throw new IllegalStateException("at " + l);
+        })).orElseThrow();
+        assertThatExceptionOfType(IllegalStateException.class)
+            .isThrownBy(() -> ((LongUnaryOperator) fused).applyAsLong(1L))
+            .withMessage("at 2");
+    }
+
+    @Test
+    public void testAndThenReturnsTheComposer() {
+        FunctionAssembly assembly = new FunctionAssembly(true);
+        FunctionComposer<?> composer = assembly.andThen(new AddOne());
+        assertThat(composer).isNotSameAs(assembly);
+        composer = assembly.andThen(new AddOne());
+        assertThat(composer.getFunctionObject().toString()).doesNotStartWith("fused:");
+        assertThat(((LongUnaryOperator) composer.getFunctionObject()).applyAsLong(1L)).isEqualTo(3L);
+        assertThat(assembly.getFunctionObject().toString()).isEqualTo("fused:[AddOne,AddOne]");
+    }
+
+    private static Object assemble(List<Object> functions, boolean fuse) {
+        FunctionAssembly assembly = new FunctionAssembly(fuse);
+        for (Object function : functions) {
+            assembly.andThen(function);
+        }
+        return assembly.getFunctionObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object apply(Object function, long input) {
+        try {
+            return switch (FunctionType.valueOf(function)) {
+                case long_long -> ((LongUnaryOperator) function).applyAsLong(input);
+                case long_int -> ((LongToIntFunction) function).applyAsInt(input);
+                case long_double -> ((LongToDoubleFunction) function).applyAsDouble(input);
+                case long_T -> ((LongFunction<Object>) function).apply(input);
+                case int_int -> ((IntUnaryOperator) function).applyAsInt((int) input);
+                case int_long -> ((IntToLongFunction) function).applyAsLong((int) input);
+                case int_double -> ((IntToDoubleFunction) function).applyAsDouble((int) input);
+                case int_T -> ((IntFunction<Object>) function).apply((int) input);
+                case double_double -> ((DoubleUnaryOperator) function).applyAsDouble(input + 0.5d);
+                case double_int -> ((DoubleToIntFunction) function).applyAsInt(input + 0.5d);
+                case double_long -> ((DoubleToLongFunction) function).applyAsLong(input + 0.5d);
+                case double_T -> ((DoubleFunction<Object>) function).apply(input + 0.5d);
+                case R_T -> ((Function<Object, Object>) function).apply(input);
+            };
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static class AddOne implements LongUnaryOperator {
+        @Override
+        public long applyAsLong(long operand) {
+            return operand + 1;
+        }
+    }
+}
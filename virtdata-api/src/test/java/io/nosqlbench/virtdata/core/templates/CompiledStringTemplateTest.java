@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.core.templates;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompiledStringTemplateTest {
+
+    private final CompiledStringTemplate template = new CompiledStringTemplate(
+        new String[]{"l=", ",i=", ",d=", ",o=", ",ü"},
+        (LongUnaryOperator) v -> v * -1000L,
+        (LongToIntFunction) v -> (int) v + 7,
+        (LongToDoubleFunction) v -> v / 2.0d,
+        (LongFunction<Object>) v -> "s" + v
+    );
+
+    @Test
+    public void testRenderedForms() {
+        String expected = "l=-5000,i=12,d=2.5,o=s5,ü";
+        assertThat(template.apply(5L)).isEqualTo(expected);
+        assertThat(template.appendTo(5L, new StringBuilder("pre:")).toString()).isEqualTo("pre:" + expected);
+
+        CharBuffer cb = CharBuffer.allocate(64);
+        template.writeTo(5L, cb).flip();
+        assertThat(cb.toString()).isEqualTo(expected);
+
+        ByteBuffer bb = ByteBuffer.allocate(64);
+        template.writeTo(5L, bb).flip();
+        assertThat(StandardCharsets.UTF_8.decode(bb).toString()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testDigitsMatchLongToString() {
+        long[] values = {0L, 1L, -1L, 9L, 10L, 99L, 100L, 123456789L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+        ByteBuffer bb = ByteBuffer.allocate(32);
+        CharBuffer cb = CharBuffer.allocate(32);
+        for (long value : values) {
+            bb.clear();
+            CompiledStringTemplate.putDigits(bb, value);
+            bb.flip();
+            assertThat(StandardCharsets.US_ASCII.decode(bb).toString()).isEqualTo(Long.toString(value));
+            cb.clear();
+            CompiledStringTemplate.putDigits(cb, value);
+            cb.flip();
+            assertThat(cb.toString()).isEqualTo(Long.toString(value));
+        }
+    }
+
+    @Test
+    public void testReusedBufferOverflow() {
+        ByteBuffer small = ByteBuffer.allocate(8);
+        assertThatThrownBy(() -> template.writeTo(5L, small)).isInstanceOf(BufferOverflowException.class);
+    }
+
+    @Test
+    public void testSizeHintFollowsObservedLength() {
+        CompiledStringTemplate wide = new CompiledStringTemplate(new String[]{"", ""},
+            (LongFunction<Object>) v -> "x".repeat((int) v));
+        wide.apply(100L);
+        assertThat(wide.getSizeHint()).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    public void testAdaptsOtherFunctionTypes() {
+        CompiledStringTemplate adapted = new CompiledStringTemplate(new String[]{"<", ">"},
+            (IntUnaryOperator) v -> v + 1);
+        assertThat(adapted.apply(41L)).isEqualTo("<42>");
+    }
+
+    @Test
+    public void testRepeatedAnchorsAreEvaluatedOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        CompiledStringTemplate repeated = new CompiledStringTemplate(
+            new String[]{"", "-", "-", "ü"},
+            new int[]{0, 1, 0},
+            new Object[]{
+                (LongFunction<Object>) v -> "r" + calls.incrementAndGet(),
+                (LongUnaryOperator) v -> v
+            },
+            new String[]{"Counter()", "Identity()"});
+
+        assertThat(repeated.apply(3L)).isEqualTo("r1-3-r1ü");
+        assertThat(repeated.appendTo(3L, new StringBuilder("pre:")).toString()).isEqualTo("pre:r2-3-r2ü");
+
+        CharBuffer cb = CharBuffer.allocate(64);
+        cb.put("pre:");
+        repeated.writeTo(3L, cb).flip();
+        assertThat(cb.toString()).isEqualTo("pre:r3-3-r3ü");
+
+        ByteBuffer bb = ByteBuffer.allocate(64);
+        bb.put((byte) 'p');
+        repeated.writeTo(3L, bb).flip();
+        assertThat(StandardCharsets.UTF_8.decode(bb).toString()).isEqualTo("pr4-3-r4ü");
+        assertThat(calls.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testNullValues() {
+        CompiledStringTemplate direct = new CompiledStringTemplate(new String[]{"<", ">"},
+            (LongFunction<Object>) v -> null);
+        assertThat(direct.apply(1L)).isEqualTo("<null>");
+
+        CompiledStringTemplate parsed = new CompiledStringTemplate(new String[]{"<", ">"},
+            new int[]{0}, new Object[]{(LongFunction<Object>) v -> null}, new String[]{"Nothing()"});
+        assertThatThrownBy(() -> parsed.apply(1L))
+            .isInstanceOf(NullPointerException.class)
+            .hasMessageContaining("Nothing()");
+    }
+
+}
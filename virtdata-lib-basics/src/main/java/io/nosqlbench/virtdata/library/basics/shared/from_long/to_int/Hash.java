@@ -21,24 +21,15 @@ import io.nosqlbench.virtdata.api.annotations.Category;
 import io.nosqlbench.virtdata.api.annotations.ThreadSafeMapper;
 import io.nosqlbench.virtdata.murmur.Murmur3F;
 
-import java.nio.ByteBuffer;
 import java.util.function.LongToIntFunction;
 
 @ThreadSafeMapper
 @Categories({Category.general})
 public class Hash implements LongToIntFunction {
 
-    private final transient ThreadLocal<ByteBuffer> bb_TL = ThreadLocal.withInitial(() -> ByteBuffer.allocate(Long.BYTES));
-    private final transient ThreadLocal<Murmur3F> murmur3f_TL = ThreadLocal.withInitial(Murmur3F::new);
-
     @Override
     public int applyAsInt(long value) {
-        Murmur3F murmur3F = murmur3f_TL.get();
-        ByteBuffer bb = bb_TL.get();
-        murmur3F.reset();
-        bb.putLong(0,value);
-        murmur3F.update(bb.array(),0,Long.BYTES);
-        long result= Math.abs(murmur3F.getValue());
+        long result= Math.abs(Murmur3F.hashLong(value));
         return (int) (result & Integer.MAX_VALUE);
     }
 }
@@ -23,6 +23,7 @@ import io.nosqlbench.virtdata.api.annotations.ThreadSafeMapper;
 import io.nosqlbench.virtdata.api.bindings.VirtDataConversions;
 import io.nosqlbench.virtdata.library.basics.shared.from_long.to_int.Hash;
 import io.nosqlbench.virtdata.library.basics.shared.util.CharsetMapping;
+import io.nosqlbench.virtdata.library.basics.shared.util.TextImages;
 
 import java.nio.CharBuffer;
 import java.util.function.LongFunction;
@@ -44,6 +45,10 @@ import java.util.function.LongToIntFunction;
  * The image can be varied between tests if you want by specifying a seed
  * value. If no seed value is specified, then the image length is used
  * also as a seed.
+ *
+ * When the image is built from a character specifier, it is fully determined
+ * by the characters, size, and seed, so it is shared between all functions
+ * with the same parameters.
  */
 @ThreadSafeMapper
 @Categories(Category.general)
@@ -102,20 +107,21 @@ public class CharBufImage implements LongFunction<CharBuffer> {
     public CharBufImage(Object charsFunc, int imgsize, Object sizespec, long seed) {
         this.imgsize = imgsize;
 
-        LongFunction<Object> imgfunc = null;
-
         if (charsFunc instanceof Number) {
             throw new BasicError("The " + this.getClass().getSimpleName() + " function has an explicit size parameter. The first" +
                 " parameter must be a function or string");
         } else if (charsFunc instanceof CharSequence) {
             String chars = ((CharSequence)charsFunc).toString();
-            imgfunc = l -> genBuf(chars,1024, l);
+            LongFunction<Object> imgfunc = l -> genBuf(chars,1024, l);
+            this.image = TextImages.generated(
+                getClass().getSimpleName() + ":" + chars + ":" + imgsize + ":" + seed,
+                () -> this.fill(imgfunc, imgsize, seed)
+            );
         } else {
-            imgfunc = VirtDataConversions.adaptFunction(charsFunc,LongFunction.class,Object.class);
+            LongFunction<Object> imgfunc = VirtDataConversions.adaptFunction(charsFunc,LongFunction.class,Object.class);
+            this.image = this.fill(imgfunc, imgsize, seed);
         }
 
-        this.image = this.fill(imgfunc, imgsize, seed);
-
         if (sizespec instanceof Number) {
             int size = ((Number)sizespec).intValue();
             this.sizefunc = n -> size;
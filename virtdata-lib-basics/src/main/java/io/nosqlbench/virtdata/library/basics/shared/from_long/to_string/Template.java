@@ -21,12 +21,15 @@ import io.nosqlbench.virtdata.api.annotations.Category;
 import io.nosqlbench.virtdata.api.annotations.Example;
 import io.nosqlbench.virtdata.api.annotations.ThreadSafeMapper;
 import io.nosqlbench.virtdata.api.bindings.VirtDataConversions;
+import io.nosqlbench.virtdata.core.templates.CompiledStringTemplate;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.LongFunction;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
 import java.util.function.LongUnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -61,9 +64,9 @@ public class Template implements LongFunction<String> {
     private static final String EXPR_BEGIN = "[[";
     private static final String EXPR_END = "]]";
     private final String rawTemplate;
-    private LongUnaryOperator iterOp;
-    private String[] literals;
-    private List<LongFunction> functions;
+    private final LongUnaryOperator iterOp;
+    private final String[] literals;
+    private final CompiledStringTemplate compiled;
 
     @Example({"Template('{}-{}',Add(10),Hash())","concatenate input+10, '-', and a pseudo-random long"})
     public Template(String template, Object...funcs) {
@@ -72,9 +75,41 @@ public class Template implements LongFunction<String> {
 
     @Example({"Template(true, '{}-{}', Add(10),Hash())", "throws an error, as the Add(10) function causes a narrowing conversion for a long input"})
     public Template(boolean truncate, String template, Object... funcs) {
-        this.functions = functions = VirtDataConversions.adaptFunctionList(funcs, LongFunction.class, Object.class);
+        this(null, template, funcs);
+    }
+
+    private Template(LongUnaryOperator iterOp, String template, Object[] funcs) {
+        this.iterOp = iterOp;
         this.rawTemplate = template;
         this.literals = parseTemplate(template, funcs.length);
+        Object[] inputAdjusted = new Object[funcs.length];
+        for (int i = 0; i < funcs.length; i++) {
+            inputAdjusted[i] = adjustInput(funcs[i], i, iterOp);
+        }
+        this.compiled = new CompiledStringTemplate(literals, inputAdjusted);
+    }
+
+    /**
+     * Each function is given the input value plus its position in the template, optionally
+     * mapped through the iter op. This is composed ahead of time for each primitive
+     * function type, so that the compiled template can still avoid boxing numeric results.
+     */
+    private static Object adjustInput(Object func, int offset, LongUnaryOperator iterOp) {
+        if (offset == 0 && iterOp == null) {
+            return func;
+        }
+        LongUnaryOperator input = iterOp != null ? v -> iterOp.applyAsLong(v + offset) : v -> v + offset;
+        if (func instanceof LongUnaryOperator f) {
+            return (LongUnaryOperator) v -> f.applyAsLong(input.applyAsLong(v));
+        } else if (func instanceof LongToIntFunction f) {
+            return (LongToIntFunction) v -> f.applyAsInt(input.applyAsLong(v));
+        } else if (func instanceof LongToDoubleFunction f) {
+            return (LongToDoubleFunction) v -> f.applyAsDouble(input.applyAsLong(v));
+        } else {
+            LongFunction<?> f = func instanceof LongFunction<?> lf ? lf :
+                VirtDataConversions.adaptFunction(func, LongFunction.class, Object.class);
+            return (LongFunction<?>) v -> f.apply(input.applyAsLong(v));
+        }
     }
 
     private LongFunction<?>[] adapt(Object[] funcs) {
@@ -104,8 +139,7 @@ public class Template implements LongFunction<String> {
      * @param funcs    A varargs length of LongFunctions of any output type
      */
     public Template(LongUnaryOperator iterOp, String template, LongFunction<?>... funcs) {
-        this(template, funcs);
-        this.iterOp = iterOp;
+        this(iterOp, template, (Object[]) funcs);
     }
 
     @SuppressWarnings("unchecked")
@@ -156,18 +190,7 @@ public class Template implements LongFunction<String> {
 
     @Override
     public String apply(long value) {
-        StringBuilder buffer = new StringBuilder();
-        buffer.setLength(0);
-        buffer.append(literals[0]);
-        if (literals.length > 1) {
-            for (int i = 0; i < functions.size(); i++) {
-                long input = iterOp != null ? iterOp.applyAsLong(value + i) : value + i;
-                String genString = String.valueOf(functions.get(i).apply(input));
-                buffer.append(genString);
-                buffer.append(literals[i + 1]);
-            }
-        }
-        return buffer.toString();
+        return compiled.apply(value);
     }
 
     //    public Template(String template, LongFunction<?>... funcs) {
@@ -16,7 +16,7 @@
 
 package io.nosqlbench.virtdata.library.basics.shared.nondeterministic.to_int;
 
-import io.nosqlbench.nb.api.metadata.Indexed;
+import io.nosqlbench.nb.api.metadata.ThreadIndex;
 import io.nosqlbench.virtdata.api.annotations.Categories;
 import io.nosqlbench.virtdata.api.annotations.Category;
 import io.nosqlbench.virtdata.api.annotations.ThreadSafeMapper;
@@ -39,8 +39,9 @@ public class ThreadNum implements LongToIntFunction {
     private final transient ThreadLocal<Integer> threadLocalInt = new ThreadLocal<Integer>() {
         @Override
         protected Integer initialValue() {
-            if (Thread.currentThread() instanceof Indexed ) {
-                return ((Indexed)Thread.currentThread()).getIndex();
+            Integer index = ThreadIndex.get();
+            if (index != null) {
+                return index;
             }
 
             Matcher matcher = pattern.matcher(Thread.currentThread().getName());
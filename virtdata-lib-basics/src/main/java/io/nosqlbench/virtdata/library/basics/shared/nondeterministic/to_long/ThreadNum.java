@@ -16,7 +16,7 @@
 
 package io.nosqlbench.virtdata.library.basics.shared.nondeterministic.to_long;
 
-import io.nosqlbench.nb.api.metadata.Indexed;
+import io.nosqlbench.nb.api.metadata.ThreadIndex;
 import io.nosqlbench.virtdata.api.annotations.Categories;
 import io.nosqlbench.virtdata.api.annotations.Category;
 import io.nosqlbench.virtdata.api.annotations.ThreadSafeMapper;
@@ -33,8 +33,9 @@ public class ThreadNum implements LongUnaryOperator {
     private final transient ThreadLocal<Long> threadLocalInt = new ThreadLocal<Long>() {
         @Override
         protected Long initialValue() {
-            if (Thread.currentThread() instanceof Indexed) {
-                return (long) ((Indexed)Thread.currentThread()).getIndex();
+            Integer index = ThreadIndex.get();
+            if (index != null) {
+                return (long) index;
             }
 
             Matcher matcher = pattern.matcher(Thread.currentThread().getName());
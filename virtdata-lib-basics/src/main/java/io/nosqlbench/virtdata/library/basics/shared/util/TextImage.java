@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.library.basics.shared.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>A read-only image of UTF-8 text, which is addressed by character offsets as if it
+ * were a CharBuffer, but which is kept in its encoded form. The bytes are usually a memory
+ * mapped file, as provided by {@link TextImages}, so the text is not held on the heap at all.
+ * Fragments are only copied out when the String for a fragment is created.</p>
+ *
+ * <p>The image is indexed once when it is created. If all bytes are ASCII, character offsets
+ * are byte offsets. Otherwise, a checkpoint of the byte offset is kept for every
+ * {@value CHECKPOINT_CHARS} characters, and offsets in between are found by scanning forward
+ * from the nearest checkpoint. The start of every line is also indexed, with lines counted
+ * in the same way as {@link io.nosqlbench.nb.api.content.NBIO#readLines(String)}.</p>
+ *
+ * <p>Supplementary characters count as two characters, as they do in a CharBuffer. A fragment
+ * boundary which falls between the two is moved to the end of the pair.</p>
+ */
+public class TextImage {
+
+    private final static int CHECKPOINT_SHIFT = 12;
+    public final static int CHECKPOINT_CHARS = 1 << CHECKPOINT_SHIFT;
+
+    private final String name;
+    private final ByteBuffer bytes;
+    private final boolean ascii;
+    private final int length;
+    private final int[] checkpointBytes;
+    private final int[] checkpointChars;
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    /**
+     * Index the encoded text in the given buffer, from position 0 to its limit.
+     *
+     * @param name  A name for the image, for diagnostics
+     * @param bytes UTF-8 encoded text
+     */
+    public TextImage(String name, ByteBuffer bytes) {
+        this.name = name;
+        this.bytes = bytes.asReadOnlyBuffer();
+        int limit = bytes.limit();
+
+        IntArray ckBytes = new IntArray();
+        IntArray ckChars = new IntArray();
+        IntArray lines = new IntArray();
+        lines.add(0);
+
+        boolean allAscii = true;
+        int chars = 0;
+        int pos = 0;
+        while (pos < limit) {
+            byte b = bytes.get(pos);
+            int width = byteWidth(b);
+            int charWidth = charWidth(b);
+            if (b < 0) {
+                allAscii = false;
+            } else if (b == '\n') {
+                lines.add(pos + 1);
+            }
+            while ((ckChars.size() << CHECKPOINT_SHIFT) < chars + charWidth) {
+                ckBytes.add(pos);
+                ckChars.add(chars);
+            }
+            chars += charWidth;
+            pos = Math.min(pos + width, limit);
+        }
+        this.length = chars;
+        this.ascii = allAscii;
+        this.checkpointBytes = allAscii ? null : ckBytes.toArray();
+        this.checkpointChars = allAscii ? null : ckChars.toArray();
+
+        this.lineStarts = lines.toArray();
+        // As with String.split("\n"), trailing empty lines are not counted, unless there is no newline at all
+        int count = lineStarts.length;
+        if (count > 1) {
+            while (count > 0 && lineEnd(count - 1) == lineStarts[count - 1]) {
+                count--;
+            }
+        }
+        this.lineCount = count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The length of the text in characters
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return The number of lines in the text
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Create a String from the characters between the start (inclusive) and end (exclusive) offsets.
+     *
+     * @param start The character offset of the first character
+     * @param end   The character offset after the last character
+     * @return A new String
+     */
+    public String substring(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Unable to extract [" + start + "," + end + ") from text image '" + name
+                + "' of length " + length);
+        }
+        if (ascii) {
+            return decode(start, end);
+        }
+        int from = byteOffset(start);
+        int to = byteOffset(end);
+        return decode(from, to);
+    }
+
+    /**
+     * Create a String from the line at the given index, without its terminating newline.
+     *
+     * @param index The line index, from 0 to {@link #getLineCount()} exclusive
+     * @return A new String
+     */
+    public String line(int index) {
+        if (index < 0 || index >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + index + " is out of range for text image '" + name
+                + "' with " + lineCount + " lines");
+        }
+        return decode(lineStarts[index], lineEnd(index));
+    }
+
+    private int lineEnd(int index) {
+        return (index + 1 < lineStarts.length) ? lineStarts[index + 1] - 1 : bytes.limit();
+    }
+
+    private int byteOffset(int charOffset) {
+        if (charOffset == length) {
+            return bytes.limit();
+        }
+        int checkpoint = charOffset >>> CHECKPOINT_SHIFT;
+        int pos = checkpointBytes[checkpoint];
+        int chars = checkpointChars[checkpoint];
+        while (chars < charOffset) {
+            byte b = bytes.get(pos);
+            pos += byteWidth(b);
+            chars += charWidth(b);
+        }
+        return Math.min(pos, bytes.limit());
+    }
+
+    /**
+     * @return The number of bytes in the UTF-8 sequence which starts with the given byte. Invalid
+     * lead bytes are counted as one byte, as the decoder replaces them one for one.
+     */
+    private static int byteWidth(byte b) {
+        if ((b & 0xE0) == 0xC0) {
+            return 2;
+        } else if ((b & 0xF0) == 0xE0) {
+            return 3;
+        } else if ((b & 0xF8) == 0xF0) {
+            return 4;
+        }
+        return 1;
+    }
+
+    private static int charWidth(byte b) {
+        return (b & 0xF8) == 0xF0 ? 2 : 1;
+    }
+
+    private String decode(int from, int to) {
+        byte[] fragment = new byte[to - from];
+        bytes.get(from, fragment);
+        return new String(fragment, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "TextImage{" + name + ", chars=" + length + ", lines=" + lineCount + (ascii ? ", ascii" : "") + "}";
+    }
+
+    private final static class IntArray {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.library.basics.shared.util;
+
+import io.nosqlbench.nb.api.content.Content;
+import io.nosqlbench.nb.api.content.NBIO;
+import io.nosqlbench.nb.api.content.PathContent;
+import io.nosqlbench.nb.api.errors.BasicError;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * <p>A process-wide cache of shared, read-only text images, keyed by the resolved
+ * location of the content. All functions which load the same file share one
+ * {@link TextImage}, no matter how many bindings or activities use them.</p>
+ *
+ * <p>Files on the local filesystem are memory mapped read-only, so the text is paged in by
+ * the OS and is not copied onto the heap. Content which is not a local file, like
+ * resources within a jar or remote URLs, is read once and encoded onto the heap instead.</p>
+ *
+ * <p>Binding functions have no close lifecycle, so images are tracked by reachability instead of
+ * by explicit release. The cache holds them weakly. Once no function refers to an image,
+ * it can be collected, which also unmaps the file, and the next function to ask for it
+ * will load it again.</p>
+ */
+public class TextImages {
+    private final static Logger logger = LogManager.getLogger(TextImages.class);
+
+    private final static Map<String, WeakReference<TextImage>> images = new ConcurrentHashMap<>();
+    private final static Map<String, WeakReference<Object>> generated = new ConcurrentHashMap<>();
+
+    /**
+     * Get the shared image for the named content, loading it if necessary.
+     *
+     * @param filename    The name of the content, as understood by {@link NBIO}
+     * @param searchPaths Additional prefixes to search for the content
+     * @return A shared text image
+     */
+    public static TextImage get(String filename, String... searchPaths) {
+        Content<?> content = NBIO.all().prefix(searchPaths).name(filename).first().orElseThrow(
+            () -> new BasicError("Unable to find text content for '" + filename + "'")
+        );
+        String key = content.getURI().toString();
+        return intern(images, key, () -> load(key, content));
+    }
+
+    /**
+     * Get a shared value which is generated rather than loaded, like a synthesized text image.
+     * The key must fully determine the generated value.
+     *
+     * @param key       A key which uniquely describes the generated value
+     * @param generator A generator which is only called if there is no live shared value
+     * @param <T>       The type of the generated value
+     * @return A shared value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T generated(String key, Supplier<T> generator) {
+        return (T) intern(generated, key, (Supplier<Object>) generator);
+    }
+
+    private static <T> T intern(Map<String, WeakReference<T>> cache, String key, Supplier<T> loader) {
+        WeakReference<T> ref = cache.get(key);
+        T value = ref != null ? ref.get() : null;
+        if (value != null) {
+            return value;
+        }
+        synchronized (cache) {
+            ref = cache.get(key);
+            value = ref != null ? ref.get() : null;
+            if (value == null) {
+                cache.values().removeIf(r -> r.get() == null);
+                value = loader.get();
+                cache.put(key, new WeakReference<>(value));
+            }
+            return value;
+        }
+    }
+
+    private static TextImage load(String key, Content<?> content) {
+        long startAt = System.currentTimeMillis();
+        ByteBuffer bytes = null;
+        if (content instanceof PathContent) {
+            Path path = content.asPath();
+            if (path.getFileSystem() == FileSystems.getDefault() && Files.isRegularFile(path)) {
+                bytes = map(path);
+            }
+        }
+        if (bytes == null) {
+            bytes = ByteBuffer.wrap(content.asString().getBytes(StandardCharsets.UTF_8));
+        }
+        TextImage image = new TextImage(key, bytes);
+        logger.debug(() -> "loaded " + image + " in " + (System.currentTimeMillis() - startAt) + "ms");
+        return image;
+    }
+
+    private static ByteBuffer map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new BasicError("Text images are limited to " + Integer.MAX_VALUE + " bytes, but " + path + " is " +
+                    size + " bytes.");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to map text image from " + path + ": " + e, e);
+        }
+    }
+}
@@ -163,6 +163,41 @@ public class Murmur3F implements Checksum128 {
         updateLongLE(Long.reverseBytes(value));
     }
 
+    /**
+     * Hash a single long value without any hashing state. This gives the same result as
+     * {@link #getValue()} after {@link #reset()} and an update with the big-endian bytes of the
+     * value, as written by {@link java.nio.ByteBuffer#putLong(long)}, with a seed of 0.
+     * @param value The value to hash
+     * @return The lower 64 bits of the 128 bit hash
+     */
+    public static long hashLong(long value) {
+        // A single 8-byte block is only a partial block, which is mixed in as k1 at the end
+        long k1 = Long.reverseBytes(value) * C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        long h1 = k1 ^ Long.BYTES;
+        long h2 = Long.BYTES;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+
+        return h1 + h2;
+    }
+
+    /**
+     * Hash a single int value without any hashing state, as it is hashed by the int hash functions,
+     * which write it twice into an 8 byte buffer. This is the same as {@link #hashLong(long)} of
+     * a long which has the value in both its upper and lower 32 bits.
+     * @param value The value to hash
+     * @return The lower 64 bits of the 128 bit hash
+     */
+    public static long hashIntTwice(int value) {
+        return hashLong(((long) value << 32) | (value & 0xFFFFFFFFL));
+    }
+
     public void update(byte[] b) {
         update(b, 0, b.length);
     }
@@ -242,7 +277,7 @@ public class Murmur3F implements Checksum128 {
         }
     }
 
-    private long fmix64(long k) {
+    private static long fmix64(long k) {
         k ^= k >>> 33;
         k *= 0xff51afd7ed558ccdL;
         k ^= k >>> 33;
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.library.basics.shared.util;
+
+import io.nosqlbench.nb.api.content.NBIO;
+import io.nosqlbench.virtdata.library.basics.shared.from_long.to_string.HashedFileExtractToString;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TextImageTest {
+
+    private static TextImage imageOf(String text) {
+        return new TextImage("test", ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testAsciiExtracts() {
+        TextImage image = imageOf("one two three");
+        assertThat(image.length()).isEqualTo(13);
+        assertThat(image.substring(4, 7)).isEqualTo("two");
+        assertThat(image.substring(13, 13)).isEqualTo("");
+    }
+
+    @Test
+    public void testMultiByteExtractsMatchString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < TextImage.CHECKPOINT_CHARS * 3; i++) {
+            sb.append((char) ('a' + (i % 26))).append(i % 7 == 0 ? "é" : "").append(i % 11 == 0 ? "中" : "");
+        }
+        String text = sb.toString();
+        TextImage image = imageOf(text);
+        assertThat(image.length()).isEqualTo(text.length());
+        for (int start = 0; start < text.length() - 50; start += 997) {
+            assertThat(image.substring(start, start + 50)).isEqualTo(text.substring(start, start + 50));
+        }
+        assertThat(image.substring(text.length() - 10, text.length())).isEqualTo(text.substring(text.length() - 10));
+    }
+
+    @Test
+    public void testLinesMatchSplit() {
+        String[] texts = {"", "a", "a\nb", "a\nb\n", "a\n\nb\n\n\n", "\n\n", "a\r\nb"};
+        for (String text : texts) {
+            TextImage image = imageOf(text);
+            String[] lines = text.split("\n");
+            assertThat(image.getLineCount()).as("line count of '" + text + "'").isEqualTo(lines.length);
+            for (int i = 0; i < lines.length; i++) {
+                assertThat(image.line(i)).isEqualTo(lines[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testSharedImages() {
+        TextImage first = TextImages.get("data/lorem_ipsum_full.txt");
+        TextImage second = TextImages.get("data/lorem_ipsum_full.txt");
+        assertThat(second).isSameAs(first);
+
+        CharBuffer heapImage = NBIO.readCharBuffer("data/lorem_ipsum_full.txt");
+        assertThat(first.length()).isEqualTo(heapImage.limit());
+        assertThat(first.substring(100, 200)).isEqualTo(heapImage.subSequence(100, 200).toString());
+    }
+
+    @Test
+    public void testFileExtractsAreUnchanged() {
+        CharBuffer heapImage = NBIO.readCharBuffer("data/adventures.txt");
+        HashedFileExtractToString extract = new HashedFileExtractToString("data/adventures.txt", 10, 100);
+        assertThat(extract.apply(42L)).isSubstringOf(heapImage);
+        assertThat(extract.apply(42L).length()).isBetween(10, 100);
+    }
+
+}
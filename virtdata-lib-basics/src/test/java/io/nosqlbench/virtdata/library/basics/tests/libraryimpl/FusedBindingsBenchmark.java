@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.library.basics.tests.libraryimpl;
+
+import io.nosqlbench.virtdata.core.bindings.VirtData;
+import io.nosqlbench.virtdata.core.composers.FunctionAssembly;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * <p>Compares binding recipes which are composed with nested lambdas to the same recipes
+ * fused into a single function by {@link FunctionAssembly}. All of the recipes are called
+ * during setup, so that the composer lambdas are shared by several chains of functions,
+ * as they are in a workload with many bindings.</p>
+ *
+ * <p>Run the main method of this class to see the result with the GC profiler.</p>
+ */
+@State(Scope.Benchmark)
+public class FusedBindingsBenchmark {
+
+    private final static String[] RECIPES = {
+        "Hash(); Mod(1000000); ToString()",
+        "Hash(); ToString(); Prefix('user-')",
+        "Add(1000); Hash(); Mod(1000000); Add(5); Mul(3); ToString()",
+        "Hash(); Mod(100000); ToHashedUUID()",
+        "Mul(7); Hash(); Clamp(0,1000); ToString()"
+    };
+
+    @Param({"false", "true"})
+    public boolean fuse;
+
+    @Param({"0", "2"})
+    public int recipe;
+
+    private LongFunction<?> function;
+
+    @State(Scope.Thread)
+    public static class Cycle {
+        long cycle;
+    }
+
+    @Setup
+    public void setup() {
+        System.setProperty(FunctionAssembly.FUSE_PROPERTY, String.valueOf(fuse));
+        long sum = 0L;
+        for (String spec : RECIPES) {
+            LongFunction<?> other = VirtData.getFunction(spec, LongFunction.class);
+            for (long cycle = 0; cycle < 100000; cycle++) {
+                sum += other.apply(cycle).hashCode();
+            }
+        }
+        function = VirtData.getFunction(RECIPES[recipe], LongFunction.class);
+        System.clearProperty(FunctionAssembly.FUSE_PROPERTY);
+        if (sum == 42L) {
+            System.out.println(sum);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Fork(1)
+    public Object apply(Cycle state) {
+        return function.apply(state.cycle++);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(FusedBindingsBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.murmur;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compares hashing a long value with {@link Murmur3F#hashLong(long)} to hashing it with
+ * a thread-local {@link Murmur3F} and byte buffer, as the Hash functions did before. Both
+ * give the same result, which is the basis of most of the hashed binding functions.</p>
+ *
+ * <p>Run the main method of this class to see the result with the GC profiler.</p>
+ */
+@State(Scope.Benchmark)
+public class Murmur3FHashBenchmark {
+
+    private final ThreadLocal<Murmur3F> murmur3f_TL = ThreadLocal.withInitial(Murmur3F::new);
+    private final ThreadLocal<ByteBuffer> bb_TL = ThreadLocal.withInitial(() -> ByteBuffer.allocate(Long.BYTES));
+
+    @State(Scope.Thread)
+    public static class Cycle {
+        long cycle;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Fork(1)
+    public long streaming(Cycle state) {
+        Murmur3F murmur3F = murmur3f_TL.get();
+        ByteBuffer bb = bb_TL.get();
+        murmur3F.reset();
+        bb.putLong(0, state.cycle++);
+        murmur3F.update(bb.array(), 0, Long.BYTES);
+        return murmur3F.getValue();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Fork(1)
+    public long inlined(Cycle state) {
+        return Murmur3F.hashLong(state.cycle++);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(Murmur3FHashBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
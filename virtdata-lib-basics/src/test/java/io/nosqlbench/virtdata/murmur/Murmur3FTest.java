@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.murmur;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Murmur3FTest {
+
+    @Test
+    public void testHashLongMatchesStreamingHash() {
+        Murmur3F murmur3F = new Murmur3F();
+        ByteBuffer bb = ByteBuffer.allocate(Long.BYTES);
+        SplittableRandom random = new SplittableRandom(42L);
+        long[] edges = {0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int i = 0; i < 100_000; i++) {
+            long value = i < edges.length ? edges[i] : random.nextLong();
+            murmur3F.reset();
+            bb.putLong(0, value);
+            murmur3F.update(bb.array(), 0, Long.BYTES);
+            assertThat(Murmur3F.hashLong(value)).isEqualTo(murmur3F.getValue());
+        }
+    }
+
+    @Test
+    public void testHashIntTwiceMatchesStreamingHash() {
+        Murmur3F murmur3F = new Murmur3F();
+        ByteBuffer bb = ByteBuffer.allocate(Long.BYTES);
+        SplittableRandom random = new SplittableRandom(42L);
+        int[] edges = {0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        for (int i = 0; i < 100_000; i++) {
+            int value = i < edges.length ? edges[i] : random.nextInt();
+            murmur3F.reset();
+            bb.putInt(0, value);
+            bb.putInt(4, value);
+            murmur3F.update(bb.array());
+            assertThat(Murmur3F.hashIntTwice(value)).isEqualTo(murmur3F.getValue());
+        }
+    }
+}
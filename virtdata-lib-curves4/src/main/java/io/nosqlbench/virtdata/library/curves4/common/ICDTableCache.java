@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.library.curves4.common;
+
+import io.nosqlbench.nb.api.NBEnvironment;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * <p>The lookup tables of inverse cumulative distribution values which are used by the
+ * interpolating samplers, shared across the whole process. A table is computed the first
+ * time that it is needed for a distribution, and every other binding with the same
+ * distribution, parameters, resolution and clamping settings uses the same table.</p>
+ *
+ * <p>Distributions are identified by their type and by the values of their public getters,
+ * which include all of their parameters for the distributions in commons-statistics.
+ * Tables for other distributions, such as {@code Enumerated}, are computed for each
+ * binding as before.</p>
+ *
+ * <p>If {@value #LUTDIR} is set as an environment variable or system property, computed
+ * tables are also stored in that directory, and they are read from there in later runs
+ * instead of being computed again. A file which can not be read, or which was stored
+ * for a different table, is ignored and replaced.</p>
+ */
+public class ICDTableCache {
+
+    private final static Logger logger = LogManager.getLogger(ICDTableCache.class);
+
+    public final static String LUTDIR = "NBLUTDIR";
+    private final static String DISTRIBUTION_PACKAGE = "org.apache.commons.statistics.distribution";
+    private final static int FILE_VERSION = 1;
+
+    private final static Map<String, double[]> tables = new ConcurrentHashMap<>();
+    private static volatile Optional<Path> lutDir;
+
+    /**
+     * Get the lookup table for a continuous distribution, as used by
+     * {@link io.nosqlbench.virtdata.library.curves4.continuous.common.InterpolatingLongDoubleSampler}
+     * and {@link io.nosqlbench.virtdata.library.curves4.continuous.common.InterpolatingIntDoubleSampler}.
+     * The returned table is shared, and it must not be modified.
+     *
+     * @param distribution The distribution which the icd source samples, which identifies the table
+     * @param icdSource    The inverse cumulative distribution function
+     * @param resolution   The number of values to compute
+     * @param clamp        Whether to limit values to clampMin and clampMax
+     * @param clampMin     The lowest allowed value
+     * @param clampMax     The highest allowed value
+     * @param finite       Whether to remove infinite values from the ends of the table
+     * @return A lookup table, padded with one more entry at the end
+     */
+    public static double[] continuous(Object distribution, DoubleUnaryOperator icdSource, int resolution,
+                                      boolean clamp, double clampMin, double clampMax, boolean finite) {
+        return get(distribution, "continuous resolution=" + resolution + " clamp=" + clamp +
+                " clampmin=" + clampMin + " clampmax=" + clampMax + " finite=" + finite,
+            () -> computeContinuous(icdSource, resolution, clamp, clampMin, clampMax, finite));
+    }
+
+    /**
+     * Get the lookup table for a discrete distribution, as used by the interpolating samplers in
+     * {@link io.nosqlbench.virtdata.library.curves4.discrete.common}.
+     * The returned table is shared, and it must not be modified.
+     *
+     * @param distribution The distribution which the icd source samples, which identifies the table
+     * @param icdSource    The inverse cumulative distribution function
+     * @param resolution   The number of values to compute
+     * @return A lookup table, padded with a copy of the last entry at the end
+     */
+    public static double[] discrete(Object distribution, DoubleToIntFunction icdSource, int resolution) {
+        return get(distribution, "discrete resolution=" + resolution,
+            () -> computeDiscrete(icdSource, resolution));
+    }
+
+    public static double[] computeContinuous(DoubleUnaryOperator icdSource, int resolution,
+                                             boolean clamp, double clampMin, double clampMax, boolean finite) {
+        double[] computed = new double[resolution];
+        for (int s = 0; s < resolution; s++) { // not a ranging error
+            double rangedToUnit = (double) s / (double) resolution;
+            double sampleValue = icdSource.applyAsDouble(rangedToUnit);
+            sampleValue = clamp ? Double.max(clampMin, Double.min(clampMax, sampleValue)) : sampleValue;
+            computed[s] = sampleValue;
+        }
+        if (finite) {
+            while (computed.length > 0 && Double.isInfinite(computed[0])) {
+                computed = Arrays.copyOfRange(computed, 1, computed.length - 1);
+            }
+            while (computed.length > 0 && Double.isInfinite(computed[computed.length - 1])) {
+                computed = Arrays.copyOfRange(computed, 0, computed.length - 2);
+            }
+        }
+        double[] padded = new double[computed.length + 1];
+        System.arraycopy(computed, 0, padded, 0, computed.length);
+        return padded;
+    }
+
+    public static double[] computeDiscrete(DoubleToIntFunction icdSource, int resolution) {
+        double[] padded = new double[resolution + 1];
+        for (int s = 0; s < resolution; s++) { // not a ranging error
+            double rangedToUnit = (double) s / (double) resolution;
+            padded[s] = icdSource.applyAsInt(rangedToUnit);
+        }
+        padded[resolution] = padded[resolution - 1];
+        return padded;
+    }
+
+    private static double[] get(Object distribution, String settings, Supplier<double[]> compute) {
+        Optional<String> identity = identify(distribution);
+        if (identity.isEmpty()) {
+            logger.debug(() -> "Computing an unshared lookup table for " + distribution.getClass().getSimpleName());
+            return compute.get();
+        }
+        String key = identity.get() + " " + settings;
+        return tables.computeIfAbsent(key, k -> load(k, compute));
+    }
+
+    /**
+     * Identify a distribution by its type and the values of its public getters, if they are
+     * known to include all of its parameters.
+     */
+    static Optional<String> identify(Object distribution) {
+        Class<?> type = distribution.getClass();
+        if (!type.getName().startsWith(DISTRIBUTION_PACKAGE + ".")) {
+            return Optional.empty();
+        }
+        List<Method> getters = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            if (method.getName().startsWith("get") && method.getParameterCount() == 0
+                && method.getReturnType().isPrimitive() && !Modifier.isStatic(method.getModifiers())) {
+                getters.add(method);
+            }
+        }
+        getters.sort(Comparator.comparing(Method::getName));
+        StringBuilder sb = new StringBuilder(type.getName()).append('[');
+        try {
+            for (Method getter : getters) {
+                sb.append(getter.getName()).append('=').append(getter.invoke(distribution)).append(',');
+            }
+        } catch (ReflectiveOperationException e) {
+            logger.debug(() -> "Unable to identify " + type.getSimpleName() + ": " + e);
+            return Optional.empty();
+        }
+        return Optional.of(sb.append(']').toString());
+    }
+
+    private static double[] load(String key, Supplier<double[]> compute) {
+        Optional<Path> dir = getLutDir();
+        if (dir.isEmpty()) {
+            return compute.get();
+        }
+        Path file = dir.get().resolve(fileNameFor(key));
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() == FILE_VERSION && in.readUTF().equals(key)) {
+                    double[] table = new double[in.readInt()];
+                    for (int i = 0; i < table.length; i++) {
+                        table[i] = in.readDouble();
+                    }
+                    logger.debug(() -> "Read lookup table for " + key + " from " + file);
+                    return table;
+                }
+                logger.warn("Lookup table file " + file + " was stored for a different table, so it will be replaced.");
+            } catch (IOException e) {
+                logger.warn("Unable to read lookup table file " + file + ", so it will be replaced: " + e);
+            }
+        }
+        double[] table = compute.get();
+        store(file, key, table);
+        return table;
+    }
+
+    private static void store(Path file, String key, double[] table) {
+        try {
+            Files.createDirectories(file.getParent());
+            // Write to a temporary file first, so that concurrent runs never read a partial table
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FILE_VERSION);
+                out.writeUTF(key);
+                out.writeInt(table.length);
+                for (double value : table) {
+                    out.writeDouble(value);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug(() -> "Stored lookup table for " + key + " in " + file);
+        } catch (IOException e) {
+            logger.warn("Unable to store lookup table file " + file + ": " + e);
+        }
+    }
+
+    private static String fileNameFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16) + ".lut";
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Optional<Path> getLutDir() {
+        Optional<Path> dir = lutDir;
+        if (dir == null) {
+            String configured = NBEnvironment.INSTANCE.getOr(LUTDIR, "");
+            dir = configured.isBlank() ? Optional.empty() : Optional.of(Path.of(configured));
+            lutDir = dir;
+        }
+        return dir;
+    }
+
+    /**
+     * Forget all shared tables, and read the table directory setting again.
+     * This is only meant for testing.
+     */
+    static void reset() {
+        tables.clear();
+        lutDir = null;
+    }
+}
@@ -16,54 +16,32 @@
 
 package io.nosqlbench.virtdata.library.curves4.continuous.common;
 
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 import io.nosqlbench.virtdata.library.basics.shared.unary_int.Hash;
 
-import java.util.Arrays;
 import java.util.function.DoubleUnaryOperator;
 import java.util.function.IntToDoubleFunction;
 
 public class InterpolatingIntDoubleSampler implements IntToDoubleFunction{
 
     private final double[] lut;
-    private final DoubleUnaryOperator f;
-    private final boolean clamp;
-    private final double clampMin;
-    private final double clampMax;
     private final double scaleToIntRanged;
     private Hash hash;
 
     public InterpolatingIntDoubleSampler(DoubleUnaryOperator icdSource, int resolution, boolean hash, boolean clamp, double clampMin, double clampMax, boolean finite) {
-        this.f = icdSource;
-        this.clamp = clamp;
-        this.clampMin = clampMin;
-        this.clampMax = clampMax;
-        if (hash) {
-            this.hash = new Hash();
-        }
-        double[] computed = precompute(resolution);
-        if (finite) {
-            while (computed.length>0 && Double.isInfinite(computed[0])) {
-                computed = Arrays.copyOfRange(computed,1,computed.length-1);
-            }
-            while (computed.length>0 && Double.isInfinite(computed[computed.length-1])) {
-                computed = Arrays.copyOfRange(computed,0,computed.length-2);
-            }
-        }
-        double[] padded = new double[computed.length+1];
-        System.arraycopy(computed,0,padded,0,computed.length);
-        this.scaleToIntRanged = (1.0d/(double)Integer.MAX_VALUE) * ((padded.length-2));
-        this.lut = padded;
+        this(ICDTableCache.computeContinuous(icdSource, resolution, clamp, clampMin, clampMax, finite), hash);
     }
 
-    private double[] precompute(int resolution) {
-        double[] precomputed = new double[resolution];
-        for (int s = 0; s < resolution; s++) { // not a ranging error
-            double rangedToUnit = (double) s / (double) resolution;
-            double sampleValue = f.applyAsDouble(rangedToUnit);
-            sampleValue = clamp ? Double.max(clampMin,Double.min(clampMax,sampleValue)) : sampleValue;
-            precomputed[s] =  sampleValue;
+    /**
+     * @param lut  A lookup table from {@link ICDTableCache}, which is shared and is not modified
+     * @param hash Whether to hash the input before sampling
+     */
+    public InterpolatingIntDoubleSampler(double[] lut, boolean hash) {
+        if (hash) {
+            this.hash = new Hash();
         }
-        return precomputed;
+        this.scaleToIntRanged = (1.0d/(double)Integer.MAX_VALUE) * ((lut.length-2));
+        this.lut = lut;
     }
 
     @Override
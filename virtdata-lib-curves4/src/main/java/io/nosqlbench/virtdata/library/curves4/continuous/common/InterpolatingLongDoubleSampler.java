@@ -16,9 +16,9 @@
 
 package io.nosqlbench.virtdata.library.curves4.continuous.common;
 
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.ThreadSafeHash;
 
-import java.util.Arrays;
 import java.util.function.DoubleUnaryOperator;
 import java.util.function.LongToDoubleFunction;
 
@@ -41,45 +41,23 @@ public class InterpolatingLongDoubleSampler implements LongToDoubleFunction {
     private static final double MAX_LONG_AS_DOUBLE = Long.MAX_VALUE;
 
     private final double[] lut;
-    private final DoubleUnaryOperator f;
-    private final boolean clamp;
-    private final double clampMin;
-    private final double clampMax;
     private final double scaleToLong;
     private ThreadSafeHash hash;
 
     public InterpolatingLongDoubleSampler(DoubleUnaryOperator icdSource, int resolution, boolean hash, boolean clamp, double clampMin, double clampMax, boolean finite) {
-        this.f = icdSource;
-        if (hash) {
-            this.hash = new ThreadSafeHash();
-        }
-        this.clamp=clamp;
-        this.clampMin=clampMin;
-        this.clampMax=clampMax;
-        double[] computed = precompute(resolution);
-        if (finite) {
-            while (computed.length>0 && Double.isInfinite(computed[0])) {
-                computed = Arrays.copyOfRange(computed,1,computed.length-1);
-            }
-            while (computed.length>0 && Double.isInfinite(computed[computed.length-1])) {
-                computed = Arrays.copyOfRange(computed,0,computed.length-2);
-            }
-        }
-        double[] padded = new double[computed.length+1];
-        System.arraycopy(computed,0,padded,0,computed.length);
-        this.scaleToLong = (1.0d / (double) Long.MAX_VALUE) * (padded.length-2);
-        this.lut = padded;
+        this(ICDTableCache.computeContinuous(icdSource, resolution, clamp, clampMin, clampMax, finite), hash);
     }
 
-    private double[] precompute(int resolution) {
-        double[] precomputed = new double[resolution];
-        for (int s = 0; s < resolution; s++) { // not a ranging error
-            double rangedToUnit = (double) s / (double) resolution;
-            double sampleValue = f.applyAsDouble(rangedToUnit);
-            sampleValue = clamp ? Double.max(clampMin,Double.min(clampMax,sampleValue)) : sampleValue ;
-            precomputed[s] =  sampleValue;
+    /**
+     * @param lut  A lookup table from {@link ICDTableCache}, which is shared and is not modified
+     * @param hash Whether to hash the input before sampling
+     */
+    public InterpolatingLongDoubleSampler(double[] lut, boolean hash) {
+        if (hash) {
+            this.hash = new ThreadSafeHash();
         }
-        return precomputed;
+        this.scaleToLong = (1.0d / (double) Long.MAX_VALUE) * (lut.length-2);
+        this.lut = lut;
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package io.nosqlbench.virtdata.library.curves4.continuous.int_double;
 
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 import io.nosqlbench.virtdata.library.curves4.continuous.common.InterpolatingIntDoubleSampler;
 import io.nosqlbench.virtdata.library.curves4.continuous.common.RealDistributionICDSource;
 import io.nosqlbench.virtdata.library.curves4.continuous.common.RealIntDoubleSampler;
@@ -137,7 +138,7 @@ public class IntToDoubleContinuousCurve implements IntToDoubleFunction {
         boolean finite = ( mods.contains(FINITE) || !mods.contains(INFINITE));
 
         function = interpolate ?
-                new InterpolatingIntDoubleSampler(icdSource, 1000, hash, clamp, Integer.MIN_VALUE, Integer.MAX_VALUE, finite)
+                new InterpolatingIntDoubleSampler(ICDTableCache.continuous(distribution, icdSource, 1000, clamp, Integer.MIN_VALUE, Integer.MAX_VALUE, finite), hash)
                 :
                 new RealIntDoubleSampler(icdSource, hash, clamp, Integer.MIN_VALUE, Integer.MAX_VALUE, true);
 
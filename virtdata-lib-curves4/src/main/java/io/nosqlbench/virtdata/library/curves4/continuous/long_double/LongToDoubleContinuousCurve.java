@@ -16,6 +16,7 @@
 
 package io.nosqlbench.virtdata.library.curves4.continuous.long_double;
 
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 import io.nosqlbench.virtdata.library.curves4.continuous.common.InterpolatingLongDoubleSampler;
 import io.nosqlbench.virtdata.library.curves4.continuous.common.RealDistributionICDSource;
 import io.nosqlbench.virtdata.library.curves4.continuous.common.RealLongDoubleSampler;
@@ -138,7 +139,7 @@ public class LongToDoubleContinuousCurve implements LongToDoubleFunction {
         boolean finite = ( mods.contains(FINITE) || !mods.contains(INFINITE));
 
         function = interpolate ?
-                new InterpolatingLongDoubleSampler(icdSource, 1000, hash, clamp, Long.MIN_VALUE, Long.MAX_VALUE, finite)
+                new InterpolatingLongDoubleSampler(ICDTableCache.continuous(distribution, icdSource, 1000, clamp, Long.MIN_VALUE, Long.MAX_VALUE, finite), hash)
                 :
                 new RealLongDoubleSampler(icdSource, hash, clamp, Long.MIN_VALUE, Long.MAX_VALUE, true);
 
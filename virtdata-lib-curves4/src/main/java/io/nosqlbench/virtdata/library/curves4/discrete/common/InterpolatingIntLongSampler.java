@@ -17,6 +17,7 @@
 package io.nosqlbench.virtdata.library.curves4.discrete.common;
 
 import io.nosqlbench.virtdata.library.basics.shared.unary_int.Hash;
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 
 import java.util.function.DoubleToIntFunction;
 import java.util.function.IntToLongFunction;
@@ -24,30 +25,23 @@ import java.util.function.IntToLongFunction;
 public class InterpolatingIntLongSampler implements IntToLongFunction {
 
     private final double[] lut;
-    private final DoubleToIntFunction f;
     private Hash hash;
     private final double scaleToIntRanged;
 
     public InterpolatingIntLongSampler(DoubleToIntFunction icdSource, int resolution, boolean hash) {
-        this.f = icdSource;
-        if (hash) {
-            this.hash = new Hash();
-        }
-        double[] computed = precompute(resolution);
-        double[] padded = new double[computed.length+1];
-        System.arraycopy(computed,0,padded,0,computed.length);
-        this.scaleToIntRanged = (1.0d / Integer.MAX_VALUE) * (padded.length-2);
-        this.lut=padded;
+        this(ICDTableCache.computeDiscrete(icdSource, resolution), hash);
     }
 
-    private double[] precompute(int resolution) {
-        double[] precomputed = new double[resolution];
-        for (int s = 0; s < resolution; s++) { // not a ranging error
-            double rangedToUnit = (double) s / (double) resolution;
-            int sampleValue = f.applyAsInt(rangedToUnit);
-            precomputed[s] =  sampleValue;
+    /**
+     * @param lut  A lookup table from {@link ICDTableCache}, which is shared and is not modified
+     * @param hash Whether to hash the input before sampling
+     */
+    public InterpolatingIntLongSampler(double[] lut, boolean hash) {
+        if (hash) {
+            this.hash = new Hash();
         }
-        return precomputed;
+        this.scaleToIntRanged = (1.0d / Integer.MAX_VALUE) * (lut.length-2);
+        this.lut = lut;
     }
 
     @Override
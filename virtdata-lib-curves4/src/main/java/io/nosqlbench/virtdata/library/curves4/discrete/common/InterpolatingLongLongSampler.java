@@ -16,37 +16,30 @@
 
 package io.nosqlbench.virtdata.library.curves4.discrete.common;
 
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 import java.util.function.DoubleToIntFunction;
 import java.util.function.LongUnaryOperator;
 
 public class InterpolatingLongLongSampler implements LongUnaryOperator {
 
     private final double[] lut;
-    private final DoubleToIntFunction f;
     private ThreadSafeHash hash;
     private final double scaleToLong;
 
     public InterpolatingLongLongSampler(DoubleToIntFunction icdSource, int resolution, boolean hash) {
-        this.f = icdSource;
-        if (hash) {
-            this.hash = new ThreadSafeHash();
-        }
-        double[] computed = precompute(resolution);
-        double[] padded = new double[computed.length+1];
-        System.arraycopy(computed,0,padded,0,computed.length);
-        padded[padded.length-1] = padded[padded.length-2];
-        scaleToLong = (1.0d/Long.MAX_VALUE) * ((double)(padded.length-2));
-        this.lut = padded;
+        this(ICDTableCache.computeDiscrete(icdSource, resolution), hash);
     }
 
-    private double[] precompute(int resolution) {
-        double[] precomputed = new double[resolution];
-        for (int s = 0; s < resolution; s++) { // not a ranging error
-            double rangedToUnit = (double) s / (double) resolution;
-            int sampleValue = f.applyAsInt(rangedToUnit);
-            precomputed[s] =  sampleValue;
+    /**
+     * @param lut  A lookup table from {@link ICDTableCache}, which is shared and is not modified
+     * @param hash Whether to hash the input before sampling
+     */
+    public InterpolatingLongLongSampler(double[] lut, boolean hash) {
+        if (hash) {
+            this.hash = new ThreadSafeHash();
         }
-        return precomputed;
+        this.scaleToLong = (1.0d/Long.MAX_VALUE) * ((double)(lut.length-2));
+        this.lut = lut;
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package io.nosqlbench.virtdata.library.curves4.discrete.int_int;
 
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.DiscreteIntIntSampler;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.IntegerDistributionICDSource;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.InterpolatingIntIntSampler;
@@ -106,7 +107,7 @@ public class IntToIntDiscreteCurve implements IntUnaryOperator {
         boolean interpolate = ( mods.contains(INTERPOLATE) || !mods.contains(COMPUTE));
 
         function = interpolate ?
-                new InterpolatingIntIntSampler(icdSource, 1000, hash)
+                new InterpolatingIntIntSampler(ICDTableCache.discrete(distribution, icdSource, 1000), hash)
                 :
                 new DiscreteIntIntSampler(icdSource, hash);
     }
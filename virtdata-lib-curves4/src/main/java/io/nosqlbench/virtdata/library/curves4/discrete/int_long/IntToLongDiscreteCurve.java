@@ -16,6 +16,7 @@
 
 package io.nosqlbench.virtdata.library.curves4.discrete.int_long;
 
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.DiscreteIntLongSampler;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.IntegerDistributionICDSource;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.InterpolatingIntLongSampler;
@@ -106,7 +107,7 @@ public class IntToLongDiscreteCurve implements IntToLongFunction {
         boolean interpolate = ( mods.contains(INTERPOLATE) || !mods.contains(COMPUTE));
 
         function = interpolate ?
-                new InterpolatingIntLongSampler(icdSource, 1000, hash)
+                new InterpolatingIntLongSampler(ICDTableCache.discrete(distribution, icdSource, 1000), hash)
                 :
                 new DiscreteIntLongSampler(icdSource, hash);
     }
@@ -16,6 +16,7 @@
 
 package io.nosqlbench.virtdata.library.curves4.discrete.long_int;
 
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.DiscreteLongIntSampler;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.IntegerDistributionICDSource;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.InterpolatingLongIntSampler;
@@ -105,7 +106,7 @@ public class LongToIntDiscreteCurve implements LongToIntFunction {
         boolean interpolate = ( mods.contains(INTERPOLATE) || !mods.contains(COMPUTE));
 
         function = interpolate ?
-                new InterpolatingLongIntSampler(icdSource, 1000, hash)
+                new InterpolatingLongIntSampler(ICDTableCache.discrete(distribution, icdSource, 1000), hash)
                 :
                 new DiscreteLongIntSampler(icdSource, hash);
 
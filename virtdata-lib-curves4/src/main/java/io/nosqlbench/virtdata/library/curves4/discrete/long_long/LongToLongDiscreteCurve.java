@@ -16,6 +16,7 @@
 
 package io.nosqlbench.virtdata.library.curves4.discrete.long_long;
 
+import io.nosqlbench.virtdata.library.curves4.common.ICDTableCache;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.DiscreteLongLongSampler;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.IntegerDistributionICDSource;
 import io.nosqlbench.virtdata.library.curves4.discrete.common.InterpolatingLongLongSampler;
@@ -105,7 +106,7 @@ public class LongToLongDiscreteCurve implements LongUnaryOperator {
         boolean interpolate = ( mods.contains(INTERPOLATE) || !mods.contains(COMPUTE));
 
         function = interpolate ?
-                new InterpolatingLongLongSampler(icdSource, 1000, hash)
+                new InterpolatingLongLongSampler(ICDTableCache.discrete(distribution, icdSource, 1000), hash)
                 :
                 new DiscreteLongLongSampler(icdSource, hash);
     }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022 nosqlbench
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nosqlbench.virtdata.library.curves4.common;
+
+import io.nosqlbench.virtdata.library.curves4.continuous.common.RealDistributionICDSource;
+import io.nosqlbench.virtdata.library.curves4.discrete.common.IntegerDistributionICDSource;
+import org.apache.commons.math4.distribution.EnumeratedRealDistribution;
+import org.apache.commons.statistics.distribution.NormalDistribution;
+import org.apache.commons.statistics.distribution.ZipfDistribution;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ICDTableCacheTest {
+
+    @AfterEach
+    public void resetCache() {
+        System.clearProperty(ICDTableCache.LUTDIR);
+        ICDTableCache.reset();
+    }
+
+    @Test
+    public void testTablesAreSharedForEqualDistributions() {
+        ICDTableCache.reset();
+        NormalDistribution normal = new NormalDistribution(10.0d, 2.0d);
+        double[] table = ICDTableCache.continuous(normal, new RealDistributionICDSource(normal), 1000, true, Long.MIN_VALUE, Long.MAX_VALUE, true);
+
+        NormalDistribution same = new NormalDistribution(10.0d, 2.0d);
+        assertThat(ICDTableCache.continuous(same, new RealDistributionICDSource(same), 1000, true, Long.MIN_VALUE, Long.MAX_VALUE, true))
+            .isSameAs(table);
+        assertThat(table).containsExactly(
+            ICDTableCache.computeContinuous(new RealDistributionICDSource(normal), 1000, true, Long.MIN_VALUE, Long.MAX_VALUE, true));
+
+        NormalDistribution other = new NormalDistribution(10.0d, 3.0d);
+        assertThat(ICDTableCache.continuous(other, new RealDistributionICDSource(other), 1000, true, Long.MIN_VALUE, Long.MAX_VALUE, true))
+            .isNotSameAs(table);
+        assertThat(ICDTableCache.continuous(normal, new RealDistributionICDSource(normal), 1000, true, Integer.MIN_VALUE, Integer.MAX_VALUE, true))
+            .isNotSameAs(table);
+        assertThat(ICDTableCache.continuous(normal, new RealDistributionICDSource(normal), 100, true, Long.MIN_VALUE, Long.MAX_VALUE, true))
+            .hasSize(101);
+    }
+
+    @Test
+    public void testDistributionsWithoutParameterGettersAreNotShared() {
+        assertThat(ICDTableCache.identify(new NormalDistribution(0.0d, 1.0d))).isPresent();
+        assertThat(ICDTableCache.identify(new EnumeratedRealDistribution(new double[]{1.0d, 2.0d}, new double[]{1.0d, 1.0d})))
+            .isEmpty();
+    }
+
+    @Test
+    public void testTablesArePersisted(@TempDir Path lutDir) throws Exception {
+        System.setProperty(ICDTableCache.LUTDIR, lutDir.toString());
+        ICDTableCache.reset();
+        ZipfDistribution zipf = new ZipfDistribution(1000, 1.5d);
+        double[] table = ICDTableCache.discrete(zipf, new IntegerDistributionICDSource(zipf), 1000);
+        try (var files = Files.list(lutDir)) {
+            assertThat(files).hasSize(1);
+        }
+
+        ICDTableCache.reset();
+        double[] loaded = ICDTableCache.discrete(zipf, u -> {
+            throw new RuntimeException("the table should be read from " + lutDir);
+        }, 1000);
+        assertThat(loaded).isNotSameAs(table).containsExactly(table);
+    }
+}
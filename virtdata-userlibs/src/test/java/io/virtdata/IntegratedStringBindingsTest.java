@@ -18,10 +18,14 @@ package io.virtdata;
 
 import io.nosqlbench.virtdata.core.bindings.Bindings;
 import io.nosqlbench.virtdata.core.bindings.BindingsTemplate;
+import io.nosqlbench.virtdata.core.templates.ParsedStringTemplate;
 import io.nosqlbench.virtdata.core.templates.StringBindings;
+import io.nosqlbench.virtdata.core.templates.StringCompositor;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class IntegratedStringBindingsTest {
@@ -73,4 +77,12 @@ public class IntegratedStringBindingsTest {
         assertThat(s).isEqualTo("A2C");
     }
 
+    @Test
+    public void testStringCompositor() {
+        ParsedStringTemplate parsed = new ParsedStringTemplate("A{ident}B{mod5}C{ident}",
+            Map.of("ident", "Identity()", "mod5", "Mod(5)"));
+        assertThat(new StringCompositor(parsed, Map.of()).apply(7L)).isEqualTo("A7B2C7");
+        assertThat(new StringCompositor(parsed, Map.of(), o -> "<" + o + ">").apply(7L)).isEqualTo("A<7>B<2>C<7>");
+    }
+
 }